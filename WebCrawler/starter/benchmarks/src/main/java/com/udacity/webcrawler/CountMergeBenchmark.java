@@ -0,0 +1,80 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast page word counts are merged into the shared crawl counts by
+ * {@link NearDuplicateFilter#mergeCounts(Map, Map)}, with several threads merging at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountMergeBenchmark {
+
+  private static final int PAGES = 256;
+
+  @Param({"1000", "100000"})
+  public int vocabularySize;
+
+  @Param({"100", "1000"})
+  public int pageWords;
+
+  @Param({"1", "4", "8"})
+  public int parallelism;
+
+  private List<Map<String, Integer>> pages;
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    pages = new ArrayList<>(PAGES);
+    for (int i = 0; i < PAGES; i++) {
+      Map<String, Integer> page = new HashMap<>();
+      for (int j = 0; j < pageWords; j++) {
+        page.merge("word" + random.nextInt(vocabularySize), 1, Integer::sum);
+      }
+      pages.add(page);
+    }
+    pool = new ForkJoinPool(parallelism);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Benchmark
+  public ConcurrentHashMap<String, Integer> merge() {
+    ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+    pool.submit(
+            () -> pages.parallelStream()
+                .forEach(page -> NearDuplicateFilter.mergeCounts(page, counts)))
+        .join();
+    return counts;
+  }
+}
@@ -0,0 +1,110 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.benchmark.BenchmarkFiles;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.profiler.ProfilerModule;
+import com.udacity.webcrawler.synthetic.SyntheticSite;
+import com.udacity.webcrawler.synthetic.SyntheticSiteServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures an end-to-end {@link ParallelWebCrawler} crawl of a {@link SyntheticSite}, read either
+ * from local files or from an in-process HTTP server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelCrawlBenchmark {
+
+  @Param({"500"})
+  public int pageCount;
+
+  @Param({"500"})
+  public int pageWords;
+
+  @Param({"5", "20"})
+  public int fanOut;
+
+  @Param({"1", "4", "8"})
+  public int parallelism;
+
+  @Param({"file", "http"})
+  public String source;
+
+  @Param({"1", "8"})
+  public int taskBatchSize;
+
+  private Path directory;
+  private SyntheticSiteServer server;
+  private CrawlerConfiguration config;
+  private WebCrawler crawler;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SyntheticSite site = new SyntheticSite.Builder()
+        .setPageCount(pageCount)
+        .setWordsPerPage(pageWords / 2, pageWords * 3 / 2)
+        .setMeanFanOut(fanOut)
+        .build();
+    String startPage;
+    if (source.equals("http")) {
+      server = SyntheticSiteServer.start(site);
+      startPage = server.url(0);
+    } else {
+      directory = Files.createTempDirectory("webcrawler-benchmark");
+      site.writeTo(directory);
+      startPage = directory.resolve(SyntheticSite.pageName(0)).toUri().toString();
+    }
+    config = new CrawlerConfiguration.Builder()
+        .setImplementationOverride(ParallelWebCrawler.class.getName())
+        .setParallelism(parallelism)
+        .setTaskBatchSize(taskBatchSize)
+        .setMaxDepth(pageCount)
+        .setTimeoutSeconds(600)
+        .setPopularWordCount(10)
+        .addStartPages(startPage)
+        .build();
+    crawler = Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule())
+        .getInstance(WebCrawler.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    crawler.close();
+    if (server != null) {
+      server.close();
+    }
+    if (directory != null) {
+      BenchmarkFiles.deleteRecursively(directory);
+    }
+  }
+
+  @Benchmark
+  public CrawlResult crawl() {
+    List<String> startPages = config.getStartPages();
+    return crawler.crawl(startPages);
+  }
+}
@@ -0,0 +1,53 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link WordCounts#sort(Map, int)} for different vocabulary sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordCountsBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int vocabularySize;
+
+  @Param({"10", "1000"})
+  public int popularWordCount;
+
+  private Map<String, Integer> counts;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    counts = new HashMap<>();
+    for (int i = 0; i < vocabularySize; i++) {
+      counts.put("word" + i, 1 + random.nextInt(1000));
+    }
+  }
+
+  @Benchmark
+  public Map<String, Integer> sort() {
+    return WordCounts.sort(counts, popularWordCount);
+  }
+}
@@ -0,0 +1,33 @@
+package com.udacity.webcrawler.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Utility class for the temporary directories benchmarks write their pages to.
+ */
+public final class BenchmarkFiles {
+
+  /**
+   * Deletes the given directory and everything in it.
+   */
+  public static void deleteRecursively(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+
+  private BenchmarkFiles() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,87 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.benchmark.BenchmarkFiles;
+import com.udacity.webcrawler.synthetic.FanOutDistribution;
+import com.udacity.webcrawler.synthetic.SyntheticSite;
+import com.udacity.webcrawler.synthetic.SyntheticSiteServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PageParserImpl#parse()} on a single page of a {@link SyntheticSite}, read either
+ * from a local file or from an in-process HTTP server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageParserBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int pageWords;
+
+  @Param({"10", "100", "1000", "5000"})
+  public int fanOut;
+
+  @Param({"file", "http"})
+  public String source;
+
+  private Path directory;
+  private SyntheticSiteServer server;
+  private String url;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    // Only page 0 is parsed, so the other pages only exist as link targets and are never written.
+    SyntheticSite site = new SyntheticSite.Builder()
+        .setPageCount(Math.max(fanOut, 1) * 10)
+        .setWordsPerPage(pageWords, pageWords)
+        .setMeanFanOut(fanOut)
+        .setFanOutDistribution(FanOutDistribution.FIXED)
+        .build();
+    if (source.equals("http")) {
+      server = SyntheticSiteServer.start(site);
+      url = server.url(0);
+    } else {
+      directory = Files.createTempDirectory("webcrawler-benchmark");
+      Path page = directory.resolve(SyntheticSite.pageName(0));
+      Files.writeString(page, site.render(0));
+      url = page.toUri().toString();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (server != null) {
+      server.close();
+    }
+    if (directory != null) {
+      BenchmarkFiles.deleteRecursively(directory);
+    }
+  }
+
+  @Benchmark
+  public PageParser.Result parse() {
+    return new PageParserImpl(url, Duration.ofSeconds(10), List.of()).parse();
+  }
+}
@@ -0,0 +1,115 @@
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+
+/**
+ * A {@link ConcurrencyLimit} that adapts to how fast the crawled servers respond, using additive
+ * increase, multiplicative decrease (AIMD), the same scheme TCP uses for its congestion window.
+ *
+ * <p>The limit keeps a baseline of the fastest recent page latency, and a moving average of the
+ * latest ones so that a single slow page does not count for much. While the average stays within
+ * {@link #TOLERANCE} times the baseline and the limit is in full use, every page raises the limit
+ * by about one per round of pages. Once the average gets slower than that, the servers or the
+ * network are taken to be saturated, and every page cuts the limit by {@link #BACKOFF}. The limit
+ * always stays within the configured bounds.
+ *
+ * <p>Threads over the limit wait with {@link java.util.concurrent.ForkJoinPool#managedBlock}, since
+ * they are usually workers of the crawler's pool.
+ */
+final class AimdConcurrencyLimit implements ConcurrencyLimit {
+
+  /**
+   * How much slower than the baseline a page may be before the limit is cut.
+   */
+  static final double TOLERANCE = 2.0;
+
+  /**
+   * The factor the limit is multiplied by when a page is too slow.
+   */
+  static final double BACKOFF = 0.9;
+
+  /**
+   * How quickly the baseline drifts towards slower latencies, so that a server that has become
+   * permanently slower does not keep the limit at its minimum forever.
+   */
+  private static final double BASELINE_DRIFT = 0.01;
+
+  /**
+   * The weight of each new page in the moving average of recent latencies.
+   */
+  private static final double RECENT_WEIGHT = 0.2;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private double limit;
+  private int inFlight = 0;
+  private double baselineNanos = 0;
+  private double recentNanos = 0;
+
+  /**
+   * @param initialLimit the limit to start with. It is moved into the bounds if necessary.
+   * @param minLimit     the smallest the limit can get; at least 1.
+   * @param maxLimit     the largest the limit can get.
+   */
+  AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          "Invalid concurrency bounds [" + minLimit + ", " + maxLimit + "]");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  @Override
+  public boolean acquire() {
+    return ConcurrencyLimit.awaitPermit(this, this::tryAcquire);
+  }
+
+  @Override
+  public synchronized void release(Duration latency) {
+    boolean saturated = inFlight >= getLimit();
+    inFlight--;
+
+    double nanos = Math.max(1, latency.toNanos());
+    if (baselineNanos == 0 || nanos < baselineNanos) {
+      baselineNanos = nanos;
+    } else {
+      baselineNanos += (nanos - baselineNanos) * BASELINE_DRIFT;
+    }
+    recentNanos = (recentNanos == 0) ? nanos : recentNanos + (nanos - recentNanos) * RECENT_WEIGHT;
+
+    if (recentNanos > baselineNanos * TOLERANCE) {
+      limit = Math.max(minLimit, limit * BACKOFF);
+    } else if (saturated) {
+      // Growing while the limit is not in full use would say nothing about the servers.
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+    notifyAll();
+  }
+
+  @Override
+  public int getMaxConcurrency() {
+    return maxLimit;
+  }
+
+  @Override
+  public synchronized boolean isSaturated() {
+    return inFlight >= getLimit();
+  }
+
+  /**
+   * Returns the number of pages that may currently be fetched at once.
+   */
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  private synchronized boolean tryAcquire() {
+    if (inFlight >= getLimit()) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+}
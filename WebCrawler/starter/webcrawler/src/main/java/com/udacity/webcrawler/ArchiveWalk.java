@@ -0,0 +1,196 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.archive.ArchiveEntry;
+import com.udacity.webcrawler.archive.ArchiveFormat;
+import com.udacity.webcrawler.archive.ArchiveReader;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlNormalizer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Crawls the HTML pages inside one archive file of a directory crawl, without extracting it.
+ *
+ * <p>The entries of a ZIP archive can be read in any order, so its page URLs are listed and handed
+ * to a single {@link CrawlTask}, whose parsers read and inflate the entries on every thread of the
+ * pool (see {@link ZipArchives}).
+ *
+ * <p>Tar and WARC archives can only be decompressed from start to end, on one thread. That thread
+ * reads their pages into batches of at most {@link #MAX_BATCH_PAGES} pages or
+ * {@link #MAX_BATCH_BYTES} bytes, and forks a task to parse each batch while it reads the next.
+ * At most one batch more than the pool has threads is read ahead of the parsers, which bounds the
+ * memory a large archive takes. Independent archives are walked by tasks of their own, so they are
+ * decompressed in parallel.
+ */
+final class ArchiveWalk extends RecursiveAction {
+
+  static final int MAX_BATCH_PAGES = 256;
+  static final int MAX_BATCH_BYTES = 1024 * 1024;
+
+  private final Path archive;
+  private final BiFunction<List<String>, PageParserFactory, CrawlTask> crawlTasks;
+  private final PageParserFactory parserFactory;
+  private final ZipArchives zipArchives;
+  private final UrlNormalizer urlNormalizer;
+  private final List<Pattern> ignoredUrls;
+  private final Clock clock;
+  private final Instant deadline;
+  private final CrawlProgress progress;
+
+  /**
+   * @param crawlTasks returns the task that crawls the given page URLs, which are already filtered
+   *                   against the ignored URLs, with the given parser factory.
+   */
+  ArchiveWalk(
+      Path archive,
+      BiFunction<List<String>, PageParserFactory, CrawlTask> crawlTasks,
+      PageParserFactory parserFactory,
+      ZipArchives zipArchives,
+      UrlNormalizer urlNormalizer,
+      List<Pattern> ignoredUrls,
+      Clock clock,
+      Instant deadline,
+      CrawlProgress progress) {
+    this.archive = archive;
+    this.crawlTasks = crawlTasks;
+    this.parserFactory = parserFactory;
+    this.zipArchives = zipArchives;
+    this.urlNormalizer = urlNormalizer;
+    this.ignoredUrls = ignoredUrls;
+    this.clock = clock;
+    this.deadline = deadline;
+    this.progress = progress;
+  }
+
+  @Override
+  protected void compute() {
+    if (isStopped()) {
+      return;
+    }
+    ArchiveFormat format = ArchiveFormat.forFileName(archive.getFileName().toString());
+    if (format == null) {
+      return;
+    }
+    if (format.isRandomAccess()) {
+      walkZip();
+    } else {
+      walkStream(format);
+    }
+  }
+
+  private void walkZip() {
+    List<String> urls;
+    try {
+      urls = zipArchives.pageUrls(archive);
+    } catch (IOException e) {
+      // An unreadable archive is skipped like a page that cannot be parsed.
+      return;
+    }
+    List<String> pages = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      String normalized = urlNormalizer.normalize(url);
+      if (!CrawlTask.isIgnored(normalized, ignoredUrls)) {
+        pages.add(normalized);
+      }
+    }
+    if (!pages.isEmpty()) {
+      crawlTasks.apply(pages, parserFactory).invoke();
+    }
+  }
+
+  private void walkStream(ArchiveFormat format) {
+    int maxBatchesAhead = getPool().getParallelism() + 1;
+    Deque<ForkJoinTask<?>> batchesAhead = new ArrayDeque<>();
+    Batch batch = new Batch();
+    try (ArchiveReader reader = format.open(archive)) {
+      ArchiveEntry entry;
+      while (!isStopped() && (entry = reader.next()) != null) {
+        String url = urlNormalizer.normalize(entry.getUrl());
+        if (CrawlTask.isIgnored(url, ignoredUrls) || !batch.add(url, entry.getContent())) {
+          continue;
+        }
+        if (batch.isFull()) {
+          if (batchesAhead.size() >= maxBatchesAhead) {
+            batchesAhead.removeFirst().join();
+          }
+          batchesAhead.addLast(batch.crawlTask().fork());
+          batch = new Batch();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // A damaged archive: the pages read before the damage are still crawled.
+    }
+    if (!batch.urls.isEmpty()) {
+      batchesAhead.addLast(batch.crawlTask().fork());
+    }
+    for (ForkJoinTask<?> task : batchesAhead) {
+      task.join();
+    }
+  }
+
+  private boolean isStopped() {
+    return clock.instant().isAfter(deadline) || progress.isDone();
+  }
+
+  /**
+   * Pages that have been read from an archive, but not parsed yet.
+   */
+  private final class Batch {
+    private final List<String> urls = new ArrayList<>();
+    private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    private long bytes;
+
+    /**
+     * Adds a page, unless the batch already has one with the same URL. Returns true if it was
+     * added.
+     */
+    boolean add(String url, byte[] content) {
+      if (contents.putIfAbsent(url, content) != null) {
+        return false;
+      }
+      urls.add(url);
+      bytes += content.length;
+      return true;
+    }
+
+    boolean isFull() {
+      return urls.size() >= MAX_BATCH_PAGES || bytes >= MAX_BATCH_BYTES;
+    }
+
+    /**
+     * Returns the task that crawls this batch. Its parsers take each page's content out of the
+     * batch, so the batch holds on to less and less of it as it is parsed.
+     */
+    CrawlTask crawlTask() {
+      PageParserFactory batchParsers =
+          new PageParserFactory() {
+            @Override
+            public PageParser get(String url) {
+              byte[] content = contents.remove(url);
+              return content == null ? parserFactory.get(url) : parserFactory.get(url, content);
+            }
+
+            @Override
+            public PageParser get(String url, byte[] content) {
+              return parserFactory.get(url, content);
+            }
+          };
+      return crawlTasks.apply(urls, batchParsers);
+    }
+  }
+}
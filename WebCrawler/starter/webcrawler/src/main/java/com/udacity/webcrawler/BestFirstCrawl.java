@@ -0,0 +1,150 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * A single crawl that visits pages in the order of a {@link CrawlFrontier}. Any number of threads
+ * may {@link #run()} it at once; each takes the best link left, visits it, and offers the links it
+ * finds, until the frontier is exhausted or the crawl is out of time. The links of a page are
+ * offered as the page passes them on, so other threads can start on them while it downloads.
+ */
+final class BestFirstCrawl implements Runnable {
+  /**
+   * How long a thread waits before looking again when the frontier is empty but other threads are
+   * still visiting pages that may add to it.
+   */
+  private static final long IDLE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+  private final Clock clock;
+  private final Instant deadline;
+  private final PageParserFactory parserFactory;
+  private final int maxDepth;
+  private final List<Pattern> ignoredUrls;
+  private final CrawlFrontier frontier;
+  private final Map<String, Integer> counts;
+  private final Set<String> visitedUrls;
+  private final CrawlProgress progress;
+  private final ConcurrencyLimit concurrencyLimit;
+  private final NearDuplicateFilter nearDuplicates;
+
+  /**
+   * @param counts      the crawl-wide word counts. Must be thread-safe if more than one thread runs
+   *                    the crawl.
+   * @param visitedUrls the crawl-wide visited set. Must be thread-safe if more than one thread
+   *                    runs the crawl.
+   */
+  BestFirstCrawl(
+      Clock clock,
+      Instant deadline,
+      PageParserFactory parserFactory,
+      int maxDepth,
+      List<Pattern> ignoredUrls,
+      CrawlFrontier frontier,
+      Map<String, Integer> counts,
+      Set<String> visitedUrls,
+      CrawlProgress progress,
+      ConcurrencyLimit concurrencyLimit,
+      NearDuplicateFilter nearDuplicates) {
+    this.clock = clock;
+    this.deadline = deadline;
+    this.parserFactory = parserFactory;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.frontier = frontier;
+    this.counts = counts;
+    this.visitedUrls = visitedUrls;
+    this.progress = progress;
+    this.concurrencyLimit = concurrencyLimit;
+    this.nearDuplicates = nearDuplicates;
+  }
+
+  /**
+   * Adds the start pages to the frontier. Must be called before any thread runs the crawl.
+   */
+  void addStartPages(List<String> startingUrls) {
+    if (maxDepth == 0) {
+      return;
+    }
+    for (String url : startingUrls) {
+      if (!CrawlTask.isIgnored(url, ignoredUrls)) {
+        frontier.offer(url, 0, false);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!clock.instant().isAfter(deadline) && !progress.isDone()) {
+      CrawlFrontier.Entry entry = frontier.poll();
+      if (entry == null) {
+        if (frontier.isExhausted()) {
+          return;
+        }
+        LockSupport.parkNanos(IDLE_WAIT_NANOS);
+        continue;
+      }
+      try {
+        visit(entry);
+      } finally {
+        frontier.done(entry);
+      }
+    }
+  }
+
+  private void visit(CrawlFrontier.Entry entry) {
+    String url = entry.getUrl();
+    if (!visitedUrls.add(url)) {
+      // Already visited through another copy of the same link.
+      return;
+    }
+
+    PageParser parser = parserFactory.get(url, deadline);
+    if (!concurrencyLimit.acquire()) {
+      return;
+    }
+    // Links are offered while the page downloads, unless they have to wait to see whether it is
+    // a near-duplicate, or nothing linked from here is within the max depth.
+    boolean withinDepth = entry.getDepth() + 1 < maxDepth;
+    boolean early = withinDepth && nearDuplicates.isFollowLinks();
+    Instant start = clock.instant();
+    PageParser.Result result;
+    try {
+      result = early ? parser.parse(link -> offer(link, entry)) : parser.parse();
+    } finally {
+      // Waiting to retry a failed fetch says nothing about how fast the server is.
+      concurrencyLimit.release(
+          Duration.between(start, clock.instant()).minus(parser.getRetryWait()));
+    }
+    frontier.visited(entry);
+
+    if (!nearDuplicates.count(url, maxDepth - entry.getDepth(), result, counts, progress)
+        || early
+        || !withinDepth) {
+      return;
+    }
+    for (String link : new LinkedHashSet<>(result.getLinks())) {
+      offer(link, entry);
+    }
+  }
+
+  /**
+   * Offers a link found on the page of the given entry to the frontier.
+   */
+  private void offer(String link, CrawlFrontier.Entry entry) {
+    if (!visitedUrls.contains(link) && !CrawlTask.isIgnored(link, ignoredUrls)) {
+      frontier.offer(link, entry.getDepth() + 1, true);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounds how many pages a crawl fetches at the same time.
+ */
+interface ConcurrencyLimit {
+
+  /**
+   * A limit that never makes callers wait.
+   */
+  ConcurrencyLimit NONE = new ConcurrencyLimit() {
+    @Override
+    public boolean acquire() {
+      return true;
+    }
+
+    @Override
+    public void release(Duration latency) {
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+      return 0;
+    }
+  };
+
+  /**
+   * Waits until another page may be fetched.
+   *
+   * @return false if the thread was interrupted while waiting, in which case the page should not
+   *     be fetched and {@link #release(Duration)} must not be called.
+   */
+  boolean acquire();
+
+  /**
+   * Reports that a page fetched after {@link #acquire()} is done.
+   *
+   * @param latency how long the page took to fetch and parse.
+   */
+  void release(Duration latency);
+
+  /**
+   * The most pages this limit ever allows to be fetched at once, or 0 if it does not limit them.
+   */
+  int getMaxConcurrency();
+
+  /**
+   * Whether {@link #acquire()} would have to wait right now.
+   */
+  default boolean isSaturated() {
+    return false;
+  }
+
+  /**
+   * Holds on to work that would only wait for this limit, so that its thread can run other work in
+   * the meantime, and calls {@code resume} once there is room for it.
+   *
+   * @param resume starts the work, or returns false if it can no longer be started.
+   * @return true if the work was held on to, in which case the caller must not run it.
+   */
+  default boolean defer(BooleanSupplier resume) {
+    return false;
+  }
+
+  /**
+   * Resumes as much of the work held on to by {@link #defer(BooleanSupplier)} as there is room for.
+   * Must be called when work that could have been deferred finishes, in case it fetched no page.
+   */
+  default void resumeDeferred() {
+  }
+
+  /**
+   * Waits on the monitor until {@code tryAcquire} succeeds. A pool worker waits with
+   * {@link ForkJoinPool#managedBlock}, so that the pool knows it is blocked and may start another
+   * thread to run other tasks in the meantime.
+   *
+   * @param monitor    notified whenever {@code tryAcquire} may succeed.
+   * @param tryAcquire takes a permit if one is free; called while holding the monitor.
+   * @return false if the thread was interrupted while waiting.
+   */
+  static boolean awaitPermit(Object monitor, BooleanSupplier tryAcquire) {
+    try {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() throws InterruptedException {
+          synchronized (monitor) {
+            while (!tryAcquire.getAsBoolean()) {
+              monitor.wait();
+            }
+          }
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          synchronized (monitor) {
+            return tryAcquire.getAsBoolean();
+          }
+        }
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+}
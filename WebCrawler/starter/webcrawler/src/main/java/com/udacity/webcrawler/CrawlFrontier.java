@@ -0,0 +1,163 @@
+package com.udacity.webcrawler;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The links a best-first crawl has found but not yet visited, ordered by a {@link LinkScorer}.
+ *
+ * <p>A link is queued again whenever it is found at a smaller depth, or its in-link count reaches
+ * the next power of two, so that its position keeps up with what the crawl learns about it
+ * without queueing it once for every page that links to it. Stale copies are skipped by the
+ * crawl's visited set.
+ */
+final class CrawlFrontier {
+  private static final Comparator<Entry> BEST_FIRST =
+      Comparator.comparingDouble((Entry e) -> -e.score).thenComparingLong(e -> e.sequence);
+
+  private final LinkScorer scorer;
+  private final StripedPriorityQueue<Entry> queue;
+  private final ConcurrentHashMap<String, Link> links = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, AtomicInteger> hostPages = new ConcurrentHashMap<>();
+  private final AtomicInteger visitedPages = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * @param stripeCount the number of stripes of the underlying {@link StripedPriorityQueue}. Use 1
+   *                    for an exact order when only one thread crawls.
+   */
+  CrawlFrontier(LinkScorer scorer, int stripeCount) {
+    this.scorer = Objects.requireNonNull(scorer);
+    this.queue = new StripedPriorityQueue<>(stripeCount, BEST_FIRST);
+  }
+
+  /**
+   * Adds a link to the frontier, or updates the one already there.
+   *
+   * @param depth  the number of links followed from a start page to reach the link.
+   * @param inLink true if the link was found on a page, false if it is a start page.
+   */
+  void offer(String url, int depth, boolean inLink) {
+    Link link = links.computeIfAbsent(url, Link::new);
+    LinkCandidate candidate;
+    synchronized (link) {
+      boolean changed = false;
+      if (depth < link.depth) {
+        link.depth = depth;
+        changed = true;
+      }
+      if (inLink) {
+        link.inLinks++;
+        changed |= Integer.bitCount(link.inLinks) == 1;
+      }
+      if (!changed) {
+        return;
+      }
+      candidate =
+          new LinkCandidate(
+              url,
+              link.host,
+              link.depth,
+              link.inLinks,
+              hostPages(link.host),
+              visitedPages.get());
+    }
+    pending.incrementAndGet();
+    queue.offer(
+        new Entry(url, candidate.getDepth(), scorer.score(candidate), sequence.getAndIncrement()));
+  }
+
+  /**
+   * Removes and returns the next link to visit, or returns null if there is none right now. Every
+   * entry returned must be passed to {@link #done(Entry)} once the links found on its page have
+   * been offered.
+   */
+  Entry poll() {
+    return queue.poll();
+  }
+
+  /**
+   * Records that the page of the given entry was visited.
+   */
+  void visited(Entry entry) {
+    Link link = links.get(entry.url);
+    hostPages.computeIfAbsent(link.host, h -> new AtomicInteger()).incrementAndGet();
+    visitedPages.incrementAndGet();
+  }
+
+  /**
+   * Records that the given entry has been dealt with.
+   */
+  void done(Entry entry) {
+    pending.decrementAndGet();
+  }
+
+  /**
+   * Returns true if the frontier is empty and no entry taken from it is still being dealt with,
+   * so no more links will ever be offered.
+   */
+  boolean isExhausted() {
+    return pending.get() == 0;
+  }
+
+  private int hostPages(String host) {
+    AtomicInteger pages = hostPages.get(host);
+    return pages == null ? 0 : pages.get();
+  }
+
+  /**
+   * Returns the lower-cased host of the URL, or an empty string if it has none.
+   */
+  static String hostOf(String url) {
+    try {
+      String host = URI.create(url).getHost();
+      return host == null ? "" : host.toLowerCase(Locale.ROOT);
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
+  /**
+   * A link queued in the frontier.
+   */
+  static final class Entry {
+    private final String url;
+    private final int depth;
+    private final double score;
+    private final long sequence;
+
+    private Entry(String url, int depth, double score, long sequence) {
+      this.url = url;
+      this.depth = depth;
+      this.score = score;
+      this.sequence = sequence;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    int getDepth() {
+      return depth;
+    }
+  }
+
+  /**
+   * What the frontier knows about a link. Guarded by its own monitor.
+   */
+  private static final class Link {
+    private final String host;
+    private int depth = Integer.MAX_VALUE;
+    private int inLinks = 0;
+
+    private Link(String url) {
+      this.host = hostOf(url);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Receives the progress of a crawl while it is still running. See
+ * {@link WebCrawler#crawl(List, CrawlListener)}.
+ *
+ * <p>The methods are called on the crawler's own threads, and parallel crawlers call them from
+ * many threads at once, so implementations must be thread-safe and should return quickly.
+ */
+public interface CrawlListener {
+
+  /**
+   * A listener that ignores all progress.
+   */
+  CrawlListener NONE = new CrawlListener() {};
+
+  /**
+   * Called after each page has been downloaded and parsed, before its links are followed.
+   */
+  default void onPage(PageVisit page) {
+  }
+
+  /**
+   * Called about once every {@link #getSnapshotInterval()} with the popular words counted so far,
+   * sorted the same way as the final result.
+   */
+  default void onSnapshot(CrawlResult snapshot) {
+  }
+
+  /**
+   * How often {@link #onSnapshot(CrawlResult)} should be called. Snapshots are taken as pages
+   * complete, so none are taken while no page completes. If zero, no snapshots are taken.
+   */
+  default Duration getSnapshotInterval() {
+    return Duration.ZERO;
+  }
+
+  /**
+   * Returns true once the listener has seen enough. The crawler then stops visiting new pages
+   * and returns early, just like when the crawl times out.
+   */
+  default boolean isDone() {
+    return false;
+  }
+}
@@ -0,0 +1,152 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reports the progress of a single crawl to a {@link CrawlListener}. Shared by all the crawl's
+ * threads.
+ */
+final class CrawlProgress {
+  private final Clock clock;
+  private final CrawlListener listener;
+  private final int maxDepth;
+  private final int popularWordCount;
+  private final Map<String, Integer> counts;
+  private final Set<String> visitedUrls;
+  private final Duration snapshotInterval;
+  private final AtomicReference<Instant> nextSnapshot;
+  private volatile boolean cancelled = false;
+  // The tasks started without anything joining them that have not finished yet.
+  private int tasksLeft = 0;
+  private Throwable taskFailure;
+
+  /**
+   * @param maxDepth the max depth of the crawl, used to turn the remaining depth of a page into
+   *                 its distance from the start page.
+   * @param counts   the crawl-wide word counts that snapshots are taken from. Must be safe to
+   *                 iterate while pages are being merged into it.
+   */
+  CrawlProgress(
+      Clock clock,
+      CrawlListener listener,
+      int maxDepth,
+      int popularWordCount,
+      Map<String, Integer> counts,
+      Set<String> visitedUrls) {
+    this.clock = Objects.requireNonNull(clock);
+    this.listener = Objects.requireNonNull(listener);
+    this.maxDepth = maxDepth;
+    this.popularWordCount = popularWordCount;
+    this.counts = Objects.requireNonNull(counts);
+    this.visitedUrls = Objects.requireNonNull(visitedUrls);
+    this.snapshotInterval = listener.getSnapshotInterval();
+    this.nextSnapshot = new AtomicReference<>(clock.instant().plus(snapshotInterval));
+  }
+
+  /**
+   * Returns true if the crawl was cancelled or the listener does not want any more pages.
+   */
+  boolean isDone() {
+    return cancelled || listener.isDone();
+  }
+
+  /**
+   * Stops the crawl from visiting any more pages. Pages that are already being fetched finish.
+   */
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Counts a task that is started without anything joining it. It must call
+   * {@link #taskFinished()} when it is done.
+   */
+  synchronized void taskStarted() {
+    tasksLeft++;
+  }
+
+  /**
+   * Records the failure of a task counted by {@link #taskStarted()}. Only the first one is kept.
+   */
+  synchronized void taskFailed(Throwable failure) {
+    if (taskFailure == null) {
+      taskFailure = failure;
+    }
+  }
+
+  synchronized void taskFinished() {
+    if (--tasksLeft == 0) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Waits for the tasks counted by {@link #taskStarted()}.
+   *
+   * @throws ExecutionException if one of them failed, with the first failure as its cause.
+   */
+  synchronized void awaitTasks() throws InterruptedException, ExecutionException {
+    while (tasksLeft > 0) {
+      wait();
+    }
+    if (taskFailure != null) {
+      throw new ExecutionException(taskFailure);
+    }
+  }
+
+  /**
+   * Waits for the tasks counted by {@link #taskStarted()}, keeping the interrupt status for later.
+   */
+  synchronized void awaitTasksUninterruptibly() {
+    boolean interrupted = false;
+    while (tasksLeft > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reports a page whose counts have been merged into the crawl-wide counts, and takes a snapshot
+   * if one is due.
+   *
+   * @param remainingDepth the max depth left when the page was visited.
+   */
+  void pageVisited(String url, int remainingDepth, PageParser.Result result) {
+    if (listener == CrawlListener.NONE) {
+      return;
+    }
+    listener.onPage(
+        new PageVisit(url, maxDepth - remainingDepth, result.getWordCounts(), result.getLinks()));
+
+    if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+      return;
+    }
+    Instant now = clock.instant();
+    Instant due = nextSnapshot.get();
+    // Only the thread that moves the due time forward takes the snapshot.
+    if (now.isBefore(due) || !nextSnapshot.compareAndSet(due, now.plus(snapshotInterval))) {
+      return;
+    }
+    listener.onSnapshot(
+        new CrawlResult.Builder()
+            .setWordCounts(WordCounts.sort(counts, popularWordCount))
+            .setUrlsVisited(visitedUrls.size())
+            .build());
+  }
+}
@@ -0,0 +1,104 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlResultReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class that combines the results of several crawls into one {@link CrawlResult}.
+ *
+ * <p>The inputs should have been written with every word count (see
+ * {@link com.udacity.webcrawler.json.CrawlerConfiguration#isFullWordCounts()}); words that were
+ * cut from a top-K result cannot be counted.
+ */
+public final class CrawlResultMerger {
+
+  /**
+   * Sums the word counts, visited URLs and skipped duplicates of the given result files, then keeps the most popular
+   * words just like a single crawl would.
+   *
+   * <p>The inputs are streamed in parallel, one task per file, into a word count map that is
+   * split into {@code parallelism} partitions by word hash. The top words of each partition are
+   * then sorted in parallel, and the partition winners are sorted once more. Memory use stays
+   * close to the size of the merged vocabulary, no matter how large the inputs are.
+   *
+   * @param inputs           result files, in either
+   *                         {@link com.udacity.webcrawler.json.ResultFormat}.
+   * @param popularWordCount the number of popular words to keep.
+   * @param parallelism      the number of threads to use.
+   */
+  public static CrawlResult merge(List<Path> inputs, int popularWordCount, int parallelism)
+      throws IOException, InterruptedException {
+    int partitionCount = Math.max(1, parallelism);
+    List<Map<String, Integer>> partitions = new ArrayList<>(partitionCount);
+    for (int i = 0; i < partitionCount; i++) {
+      partitions.add(new ConcurrentHashMap<>());
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(partitionCount);
+    try {
+      List<Callable<CrawlResult>> reads = new ArrayList<>();
+      for (Path input : inputs) {
+        reads.add(() -> CrawlResultReader.read(input, (word, count) ->
+            partitions.get(Math.floorMod(word.hashCode(), partitionCount))
+                .merge(word, count, Integer::sum)));
+      }
+      int urlsVisited = 0;
+      int duplicatesSkipped = 0;
+      for (CrawlResult totals : getAll(pool.invokeAll(reads))) {
+        urlsVisited += totals.getUrlsVisited();
+        duplicatesSkipped += totals.getDuplicatesSkipped();
+      }
+
+      // The partitions hold disjoint sets of words, so the overall top words are among the top
+      // words of each partition.
+      List<Callable<Map<String, Integer>>> sorts = new ArrayList<>();
+      for (Map<String, Integer> partition : partitions) {
+        sorts.add(() -> WordCounts.sort(partition, popularWordCount));
+      }
+      Map<String, Integer> winners = new HashMap<>();
+      for (Map<String, Integer> top : getAll(pool.invokeAll(sorts))) {
+        winners.putAll(top);
+      }
+
+      return new CrawlResult.Builder()
+          .setWordCounts(WordCounts.sort(winners, popularWordCount))
+          .setUrlsVisited(urlsVisited)
+          .setDuplicatesSkipped(duplicatesSkipped)
+          .build();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static <T> List<T> getAll(List<Future<T>> futures)
+      throws IOException, InterruptedException {
+    List<T> values = new ArrayList<>(futures.size());
+    for (Future<T> future : futures) {
+      try {
+        values.add(future.get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    return values;
+  }
+
+  private CrawlResultMerger() {
+    // This class cannot be instantiated
+  }
+}
@@ -2,6 +2,7 @@ package com.udacity.webcrawler;
 
 import java.util.concurrent.RecursiveAction;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -9,9 +10,28 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import com.udacity.webcrawler.parser.PageParserFactory;
 import com.udacity.webcrawler.parser.PageParser;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Crawls a batch of URLs and, recursively, the pages they link to.
+ *
+ * <p>Links are filtered and deduplicated as their pages pass them on, so no task is ever created
+ * for a link that is ignored, already visited, or too deep. Since a page passes its links on while
+ * it is still downloading, every {@code batchSize} of them are crawled by a child task right away,
+ * and the links left when the batch is done go into a single child task, which splits itself in
+ * half until each part has at most {@code batchSize} URLs. Links are only passed on early if the
+ * crawl follows the links of near-duplicate pages; otherwise they have to wait for the page to be
+ * counted.
+ *
+ * <p>The tasks that crawl links early are not joined: other workers take them while the page is
+ * still downloading, and a worker joining a task that another one took cannot always help with
+ * it, so it would sit idle. The crawl's {@link CrawlProgress} keeps track of them instead. Since
+ * nothing waits for them, they may also be deferred by the concurrency limit.
+ */
 public class CrawlTask extends RecursiveAction {
   
   private final Clock clock;
@@ -19,58 +39,187 @@ public class CrawlTask extends RecursiveAction {
   private final PageParserFactory parserFactory;
   private final int maxDepth;
   private final List<Pattern> ignoredUrls;
-  private final String url;
+  private final List<String> urls;
   private final ConcurrentHashMap<String, Integer> counts;
   private final ConcurrentSkipListSet<String> visitedUrls;
+  private final CrawlProgress progress;
+  private final int batchSize;
+  private final ConcurrencyLimit concurrencyLimit;
+  private final NearDuplicateFilter nearDuplicates;
+  // True if nothing joins this task, in which case the crawl's progress keeps track of it.
+  private final boolean detached;
 
-  private CrawlTask(Clock clock, Instant deadline, PageParserFactory parserFactory, int maxDepth, List<Pattern> ignoredUrls, String url, ConcurrentHashMap<String, Integer> counts, ConcurrentSkipListSet<String> visitedUrls) { 
+  private CrawlTask(Clock clock, Instant deadline, PageParserFactory parserFactory, int maxDepth, List<Pattern> ignoredUrls, List<String> urls, ConcurrentHashMap<String, Integer> counts, ConcurrentSkipListSet<String> visitedUrls, CrawlProgress progress, int batchSize, ConcurrencyLimit concurrencyLimit, NearDuplicateFilter nearDuplicates, boolean detached) { 
     this.clock = clock;
     this.deadline = deadline;
     this.parserFactory = parserFactory;
     this.maxDepth = maxDepth;
     this.ignoredUrls = ignoredUrls;
-    this.url = url;
+    this.urls = urls;
     this.counts = counts;
     this.visitedUrls = visitedUrls;
+    this.progress = progress;
+    this.batchSize = batchSize;
+    this.concurrencyLimit = concurrencyLimit;
+    this.nearDuplicates = nearDuplicates;
+    this.detached = detached;
   }
 
   @Override
   protected void compute() {
+    if (!detached) {
+      crawlBatch();
+      return;
+    }
+    // A task that has returned cannot run again, so a copy is deferred. It takes over this task's
+    // place in the progress.
+    ForkJoinPool pool = getPool();
+    CrawlTask copy = withUrls(urls, maxDepth, true);
+    if (concurrencyLimit.defer(() -> startDetached(pool, copy))) {
+      return;
+    }
+    try {
+      crawlBatch();
+    } catch (RuntimeException | Error e) {
+      progress.taskFailed(e);
+    } finally {
+      progress.taskFinished();
+      concurrencyLimit.resumeDeferred();
+    }
+  }
 
-    if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
+  private void crawlBatch() {
+    if (urls.size() > Math.max(1, batchSize)) {
+      int middle = urls.size() / 2;
+      invokeAll(
+          withUrls(urls.subList(0, middle), maxDepth),
+          withUrls(urls.subList(middle, urls.size()), maxDepth));
       return;
     }
 
-    for (Pattern pattern : ignoredUrls) {
-      if (pattern.matcher(url).matches()) {
-        return;
-      }
+    BatchLinks links = new BatchLinks();
+    for (String url : urls) {
+      crawl(url, links);
+    }
+    links.crawl();
+  }
+
+  private void crawl(String url, BatchLinks links) {
+
+    if (maxDepth == 0 || clock.instant().isAfter(deadline) || progress.isDone()) {
+      return;
     }
 
     if (!visitedUrls.add(url)) {
       return;
     }
 
-    PageParser.Result result = parserFactory.get(url).parse();
+    PageParser parser = parserFactory.get(url, deadline);
+    if (!concurrencyLimit.acquire()) {
+      return;
+    }
+    // Nothing linked from here is within the max depth if it is 1.
+    boolean early = maxDepth > 1 && nearDuplicates.isFollowLinks();
+    Instant start = clock.instant();
+    PageParser.Result result;
+    try {
+      result = early ? parser.parse(links::addEarly) : parser.parse();
+    } finally {
+      // Waiting to retry a failed fetch says nothing about how fast the server is.
+      concurrencyLimit.release(
+          Duration.between(start, clock.instant()).minus(parser.getRetryWait()));
+    }
+
+    if (!nearDuplicates.count(url, maxDepth, result, counts, progress)
+        || early
+        || maxDepth == 1) {
+      return;
+    }
+    for (String link : result.getLinks()) {
+      links.add(link);
+    }
+  }
 
-    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-      counts.compute(e.getKey(), (k, v) -> (v == null) ? e.getValue() : v + e.getValue());
+  /**
+   * The links found on the pages of this batch, already filtered. Safe to add to from many threads
+   * at once, since a page may pass its links on from the threads that download it.
+   */
+  private final class BatchLinks {
+    // Null if this task does not run in a pool, in which case no link is crawled early.
+    private final ForkJoinPool pool = getPool();
+    private final Set<String> seen = new HashSet<>();
+    private List<String> pending = new ArrayList<>();
+
+    /**
+     * Adds a link, which is crawled when the batch is done.
+     */
+    synchronized void add(String link) {
+      if (!visitedUrls.contains(link) && !isIgnored(link, ignoredUrls) && seen.add(link)) {
+        pending.add(link);
+      }
     }
 
-    List<CrawlTask> subTasks = result.getLinks().stream()
-        .map(link -> new CrawlTask.Builder()
-            .setClock(clock)
-            .setDeadline(deadline)
-            .setParserFactory(parserFactory)
-            .setMaxDepth(maxDepth - 1)  // Decrease depth for subtasks
-            .setIgnoredUrls(ignoredUrls)
-            .setUrl(link)
-            .setCounts(counts)
-            .setVisitedUrls(visitedUrls)
-            .build())
-        .collect(Collectors.toList());
+    /**
+     * Adds a link, and starts crawling the pending links if there are enough of them.
+     */
+    synchronized void addEarly(String link) {
+      add(link);
+      if (pool != null && pending.size() >= Math.max(1, batchSize)) {
+        CrawlTask task = withUrls(pending, maxDepth - 1, true);
+        pending = new ArrayList<>();
+        progress.taskStarted();
+        startDetached(pool, task);
+      }
+    }
 
-    invokeAll(subTasks);
+    /**
+     * Crawls the links that are still pending. Those crawled early are not waited for.
+     */
+    void crawl() {
+      List<String> rest;
+      synchronized (this) {
+        rest = pending;
+      }
+      if (!rest.isEmpty()) {
+        withUrls(rest, maxDepth - 1).invoke();
+      }
+    }
+  }
+
+  /**
+   * Starts a task that nothing joins. The progress must already count it.
+   *
+   * @return false if the crawler was closed, in which case the task is dropped.
+   */
+  private boolean startDetached(ForkJoinPool pool, CrawlTask task) {
+    try {
+      pool.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      // The links are dropped like those of a cancelled crawl.
+      progress.taskFinished();
+      return false;
+    }
+  }
+
+  private CrawlTask withUrls(List<String> urls, int maxDepth) {
+    return withUrls(urls, maxDepth, false);
+  }
+
+  private CrawlTask withUrls(List<String> urls, int maxDepth, boolean detached) {
+    return new CrawlTask(clock, deadline, parserFactory, maxDepth, ignoredUrls, urls, counts, visitedUrls, progress, batchSize, concurrencyLimit, nearDuplicates, detached);
+  }
+
+  /**
+   * Returns true if the URL matches one of the ignored URL patterns.
+   */
+  static boolean isIgnored(String url, List<Pattern> ignoredUrls) {
+    for (Pattern pattern : ignoredUrls) {
+      if (pattern.matcher(url).matches()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public static final class Builder {
@@ -80,12 +229,16 @@ public class CrawlTask extends RecursiveAction {
     private PageParserFactory parserFactory;
     private int maxDepth;
     private List<Pattern> ignoredUrls;
-    private String url;
+    private List<String> urls;
     private ConcurrentHashMap<String, Integer> counts;
     private ConcurrentSkipListSet<String> visitedUrls;
+    private CrawlProgress progress;
+    private int batchSize = 1;
+    private ConcurrencyLimit concurrencyLimit = ConcurrencyLimit.NONE;
+    private NearDuplicateFilter nearDuplicates = NearDuplicateFilter.disabled();
 
     public CrawlTask build() {
-      return new CrawlTask(clock, deadline, parserFactory, maxDepth, ignoredUrls, url, counts, visitedUrls);
+      return new CrawlTask(clock, deadline, parserFactory, maxDepth, ignoredUrls, urls, counts, visitedUrls, progress, batchSize, concurrencyLimit, nearDuplicates, false);
     }
 
     public Builder setClock(Clock clock) {
@@ -113,8 +266,27 @@ public class CrawlTask extends RecursiveAction {
       return this;
     }
 
+    /**
+     * Sets a single URL to crawl. It must already be filtered against the ignored URLs.
+     */
     public Builder setUrl(String url) {
-      this.url = url;
+      this.urls = List.of(url);
+      return this;
+    }
+
+    /**
+     * Sets the URLs to crawl. They must already be filtered against the ignored URLs.
+     */
+    public Builder setUrls(List<String> urls) {
+      this.urls = urls;
+      return this;
+    }
+
+    /**
+     * Sets the largest number of URLs a task crawls itself; bigger tasks are split in half.
+     */
+    public Builder setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
       return this;
     }
 
@@ -127,5 +299,23 @@ public class CrawlTask extends RecursiveAction {
       this.visitedUrls = visitedUrls;
       return this;
     }
+
+    Builder setProgress(CrawlProgress progress) {
+      this.progress = progress;
+      return this;
+    }
+
+    Builder setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+      this.concurrencyLimit = concurrencyLimit;
+      return this;
+    }
+
+    /**
+     * Sets the crawl-wide filter that decides which pages are not counted as near-duplicates.
+     */
+    Builder setNearDuplicateFilter(NearDuplicateFilter nearDuplicates) {
+      this.nearDuplicates = nearDuplicates;
+      return this;
+    }
   }
 }
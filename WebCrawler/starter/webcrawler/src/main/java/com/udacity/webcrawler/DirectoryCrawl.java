@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for whether the start pages of a crawl are directories whose HTML files
+ * should all be crawled.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "directoryCrawl"} option from
+ * the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DirectoryCrawl {
+}
@@ -0,0 +1,141 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.archive.ArchiveFormat;
+import com.udacity.webcrawler.parser.UrlNormalizer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Walks one directory of a directory crawl (see
+ * {@link com.udacity.webcrawler.json.CrawlerConfiguration#isDirectoryCrawl()}).
+ *
+ * <p>Each subdirectory is walked by a task of its own, and the HTML files directly in the directory
+ * are handed to a single {@link CrawlTask}, which splits itself into batches. A large directory is
+ * therefore parsed on every thread of the pool, while idle threads steal the walks of the other
+ * directories. Symbolic links are not followed, so the walk cannot loop. Archive files are
+ * crawled by an {@link ArchiveWalk} each.
+ */
+final class DirectoryWalk extends RecursiveAction {
+
+  /**
+   * Matches file names that {@link Path#toUri()} leaves as they are, so their URL can be built by
+   * appending them to the URL of their directory.
+   */
+  private static final Pattern SIMPLE_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+  private final Path directory;
+  private final Function<List<String>, CrawlTask> crawlTasks;
+  private final Function<Path, ArchiveWalk> archiveWalks;
+  private final UrlNormalizer urlNormalizer;
+  private final List<Pattern> ignoredUrls;
+  private final Clock clock;
+  private final Instant deadline;
+  private final CrawlProgress progress;
+
+  /**
+   * @param crawlTasks returns the task that crawls the given file URLs, which are already filtered
+   *                   against the ignored URLs.
+   * @param archiveWalks returns the task that crawls the pages inside the given archive file.
+   */
+  DirectoryWalk(
+      Path directory,
+      Function<List<String>, CrawlTask> crawlTasks,
+      Function<Path, ArchiveWalk> archiveWalks,
+      UrlNormalizer urlNormalizer,
+      List<Pattern> ignoredUrls,
+      Clock clock,
+      Instant deadline,
+      CrawlProgress progress) {
+    this.directory = directory;
+    this.crawlTasks = crawlTasks;
+    this.archiveWalks = archiveWalks;
+    this.urlNormalizer = urlNormalizer;
+    this.ignoredUrls = ignoredUrls;
+    this.clock = clock;
+    this.deadline = deadline;
+    this.progress = progress;
+  }
+
+  @Override
+  protected void compute() {
+    if (clock.instant().isAfter(deadline) || progress.isDone()) {
+      return;
+    }
+
+    String directoryUrl = directory.toUri().toString();
+    if (!directoryUrl.endsWith("/")) {
+      // The directory is gone; anything listed below would be too.
+      return;
+    }
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    List<String> files = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      for (Path entry : entries) {
+        BasicFileAttributes attributes;
+        try {
+          attributes =
+              Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+          // Removed since it was listed.
+          continue;
+        }
+        if (attributes.isDirectory()) {
+          tasks.add(withDirectory(entry));
+          continue;
+        }
+        String name = entry.getFileName().toString();
+        if (attributes.isRegularFile() && ArchiveFormat.forFileName(name) != null) {
+          tasks.add(archiveWalks.apply(entry));
+          continue;
+        }
+        if (!attributes.isRegularFile() || !ArchiveFormat.isHtmlName(name)) {
+          continue;
+        }
+        // Path.toUri() looks at the file system again to tell files from directories, which a
+        // walk of millions of files cannot afford.
+        String url =
+            urlNormalizer.normalize(
+                SIMPLE_NAME.matcher(name).matches()
+                    ? directoryUrl + name
+                    : entry.toUri().toString());
+        if (!CrawlTask.isIgnored(url, ignoredUrls)) {
+          files.add(url);
+        }
+      }
+    } catch (IOException | DirectoryIteratorException e) {
+      // An unreadable directory is skipped like a page that cannot be parsed. The files listed
+      // before the error are still crawled.
+    }
+
+    if (!files.isEmpty()) {
+      tasks.add(crawlTasks.apply(files));
+    }
+    invokeAll(tasks);
+  }
+
+  private DirectoryWalk withDirectory(Path subdirectory) {
+    return new DirectoryWalk(
+        subdirectory,
+        crawlTasks,
+        archiveWalks,
+        urlNormalizer,
+        ignoredUrls,
+        clock,
+        deadline,
+        progress);
+  }
+}
@@ -0,0 +1,121 @@
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One crawl's share of a pool that several crawls run on at the same time. Each active crawl may
+ * have an equal part of the pool's parallelism fetching at once, so a large crawl cannot keep the
+ * pool to itself while other crawls wait.
+ *
+ * <p>The share is enforced on top of another limit, such as an {@link AimdConcurrencyLimit}, that
+ * belongs to the same crawl. A task that nothing joins is deferred rather than waited for if either
+ * limit is saturated: its thread goes back to the pool, where it can pick up another crawl's tasks.
+ * A worker never looks for those while its own queue or the one it last stole from has tasks left,
+ * so a crawl that blocked every thread over its limit would keep them all. The deferred tasks are
+ * started again as the crawl's fetches finish. Other threads wait with
+ * {@link ForkJoinPool#managedBlock}.
+ */
+final class FairShareLimit implements ConcurrencyLimit {
+  private final ConcurrencyLimit delegate;
+  private final int parallelism;
+  private final Set<FairShareLimit> activeCrawls;
+  private final Deque<BooleanSupplier> deferred = new ArrayDeque<>();
+  private int inFlight = 0;
+
+  /**
+   * @param activeCrawls the limits of all crawls currently running on the pool. Callers must
+   *                     call {@link #sharesChanged()} on each of them whenever it changes.
+   */
+  FairShareLimit(ConcurrencyLimit delegate, int parallelism, Set<FairShareLimit> activeCrawls) {
+    this.delegate = delegate;
+    this.parallelism = parallelism;
+    this.activeCrawls = activeCrawls;
+  }
+
+  @Override
+  public boolean acquire() {
+    if (!ConcurrencyLimit.awaitPermit(this, this::tryAcquireShare)) {
+      return false;
+    }
+    if (!delegate.acquire()) {
+      releaseShare();
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void release(Duration latency) {
+    delegate.release(latency);
+    releaseShare();
+  }
+
+  @Override
+  public int getMaxConcurrency() {
+    return delegate.getMaxConcurrency();
+  }
+
+  @Override
+  public synchronized boolean isSaturated() {
+    return inFlight >= share() || delegate.isSaturated();
+  }
+
+  /**
+   * Defers the work if the crawl has its whole share fetching, or if the other limit is saturated.
+   * Either way one of the crawl's fetches resumes it when it is done, since the other limit only
+   * counts this crawl's fetches.
+   */
+  @Override
+  public synchronized boolean defer(BooleanSupplier resume) {
+    if (!isSaturated()) {
+      return false;
+    }
+    deferred.addLast(resume);
+    return true;
+  }
+
+  @Override
+  public synchronized void resumeDeferred() {
+    if (delegate.isSaturated()) {
+      return;
+    }
+    // Work resumed beyond the room left is simply deferred again.
+    int room = share() - inFlight;
+    while (room > 0 && !deferred.isEmpty()) {
+      if (deferred.removeFirst().getAsBoolean()) {
+        room--;
+      }
+    }
+  }
+
+  /**
+   * Wakes up threads waiting for their share, which may have grown because another crawl ended.
+   */
+  synchronized void sharesChanged() {
+    notifyAll();
+    resumeDeferred();
+  }
+
+  private int share() {
+    return Math.max(1, parallelism / Math.max(1, activeCrawls.size()));
+  }
+
+  private synchronized boolean tryAcquireShare() {
+    if (inFlight >= share()) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  private synchronized void releaseShare() {
+    inFlight--;
+    notifyAll();
+    resumeDeferred();
+  }
+}
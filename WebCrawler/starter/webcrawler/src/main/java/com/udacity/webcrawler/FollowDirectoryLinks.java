@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for whether a directory crawl also follows the links of the files it
+ * visits.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "followDirectoryLinks"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FollowDirectoryLinks {
+}
@@ -0,0 +1,69 @@
+package com.udacity.webcrawler;
+
+import java.util.Objects;
+
+/**
+ * A link waiting in the frontier of a best-first crawl, together with what the crawl knows about
+ * it at the time it is scored. See {@link LinkScorer}.
+ */
+public final class LinkCandidate {
+  private final String url;
+  private final String host;
+  private final int depth;
+  private final int inLinks;
+  private final int hostPages;
+  private final int visitedPages;
+
+  LinkCandidate(
+      String url, String host, int depth, int inLinks, int hostPages, int visitedPages) {
+    this.url = Objects.requireNonNull(url);
+    this.host = Objects.requireNonNull(host);
+    this.depth = depth;
+    this.inLinks = inLinks;
+    this.hostPages = hostPages;
+    this.visitedPages = visitedPages;
+  }
+
+  /**
+   * The URL of the link.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * The lower-cased host of the URL, or an empty string if it has none, such as for local files.
+   */
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * The fewest links followed from a start page to reach this link so far. Start pages have depth
+   * 0.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * The number of visited pages found so far that link here. Start pages have none.
+   */
+  public int getInLinks() {
+    return inLinks;
+  }
+
+  /**
+   * The number of pages on the same host that the crawl has already visited.
+   */
+  public int getHostPages() {
+    return hostPages;
+  }
+
+  /**
+   * The number of pages the crawl has already visited on all hosts.
+   */
+  public int getVisitedPages() {
+    return visitedPages;
+  }
+}
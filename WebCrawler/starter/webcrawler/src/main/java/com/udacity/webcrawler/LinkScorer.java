@@ -0,0 +1,21 @@
+package com.udacity.webcrawler;
+
+/**
+ * Decides which links a {@link com.udacity.webcrawler.json.CrawlOrder#BEST_FIRST} crawl visits
+ * first. Implementations must be safe to call from many threads at once.
+ *
+ * <p>The scorer used by the crawlers is bound in {@link WebCrawlerModule}; see
+ * {@link LinkScorers} for the built-in ones.
+ */
+@FunctionalInterface
+public interface LinkScorer {
+
+  /**
+   * Returns the priority of the given link. Links with higher scores are crawled first; links with
+   * equal scores are crawled in the order they were found.
+   *
+   * <p>A link is scored when it is first found, and again when its depth or in-link count grows
+   * enough to matter, so the score may only depend on the given candidate.
+   */
+  double score(LinkCandidate link);
+}
@@ -0,0 +1,61 @@
+package com.udacity.webcrawler;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Built-in {@link LinkScorer}s. Each one scores a single signal with the given weight, and
+ * {@link #sum(LinkScorer...)} combines them.
+ */
+public final class LinkScorers {
+
+  private LinkScorers() {
+    // This class cannot be instantiated.
+  }
+
+  /**
+   * Prefers links fewer steps away from a start page, subtracting {@code weight} for every step.
+   */
+  public static LinkScorer shallowFirst(double weight) {
+    return link -> -weight * link.getDepth();
+  }
+
+  /**
+   * Prefers links that many visited pages point to. The score grows with the logarithm of the
+   * in-link count, so a few links already count for a lot.
+   */
+  public static LinkScorer inLinks(double weight) {
+    return link -> weight * Math.log1p(link.getInLinks());
+  }
+
+  /**
+   * Adds {@code weight} to links whose URL matches any of the given patterns.
+   */
+  public static LinkScorer matching(List<Pattern> patterns, double weight) {
+    List<Pattern> copy = List.copyOf(patterns);
+    return link -> copy.stream().anyMatch(p -> p.matcher(link.getUrl()).matches()) ? weight : 0;
+  }
+
+  /**
+   * Prefers links on hosts the crawl has visited less, so that one large site cannot use up the
+   * whole crawl. The penalty is {@code weight} times the host's share of the visited pages, so a
+   * crawl of a single site is penalized evenly.
+   */
+  public static LinkScorer hostDiversity(double weight) {
+    return link -> -weight * link.getHostPages() / Math.max(1, link.getVisitedPages());
+  }
+
+  /**
+   * Returns a scorer whose score is the sum of the scores of all the given scorers.
+   */
+  public static LinkScorer sum(LinkScorer... scorers) {
+    List<LinkScorer> copy = List.of(scorers);
+    return link -> {
+      double score = 0;
+      for (LinkScorer scorer : copy) {
+        score += scorer.score(link);
+      }
+      return score;
+    };
+  }
+}
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the most pages a crawl may fetch at once, or 0 if the number is not
+ * adapted to how the crawl is going.
+ *
+ * <p>The value bound to this annotation is the {@link ConcurrencyLimit#getMaxConcurrency()} of the
+ * limits the crawler configuration JSON asks for with its {@code "maxParallelism"} option.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxConcurrency {
+}
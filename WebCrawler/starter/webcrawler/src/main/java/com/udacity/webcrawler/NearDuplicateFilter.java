@@ -0,0 +1,171 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.profiler.CountMergeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recognizes pages whose words are nearly the same as those of a page already counted in the
+ * same crawl, by comparing their {@link SimHash} fingerprints. Safe to use from many threads at
+ * once.
+ *
+ * <p>Fingerprints are indexed in bands: the 64 bits are split into one more band than the
+ * largest distance, so two fingerprints within that distance agree exactly on at least one band.
+ * A lookup only compares the fingerprints that share a band value with the page, instead of every
+ * fingerprint seen so far.
+ */
+final class NearDuplicateFilter {
+
+  private final int maxDistance;
+  private final boolean followLinks;
+  private final int[] bandShifts;
+  private final long[] bandMasks;
+  private final List<Map<Long, Queue<Long>>> bands;
+  private final Object insertLock = new Object();
+  private final AtomicInteger duplicatesSkipped = new AtomicInteger();
+
+  /**
+   * @param maxDistance the largest number of differing bits for which two pages are
+   *                    near-duplicates, or -1 if no page is ever a duplicate.
+   * @param followLinks whether the crawl should follow the links of near-duplicate pages.
+   */
+  NearDuplicateFilter(int maxDistance, boolean followLinks) {
+    if (maxDistance < -1 || maxDistance >= Long.SIZE) {
+      throw new IllegalArgumentException("invalid maxDistance: " + maxDistance);
+    }
+    this.maxDistance = maxDistance;
+    this.followLinks = followLinks;
+
+    int bandCount = maxDistance + 1;
+    this.bandShifts = new int[bandCount];
+    this.bandMasks = new long[bandCount];
+    this.bands = new ArrayList<>(bandCount);
+    int shift = 0;
+    for (int band = 0; band < bandCount; band++) {
+      // The first bands take one extra bit each when 64 does not divide evenly.
+      int width = Long.SIZE / bandCount + (band < Long.SIZE % bandCount ? 1 : 0);
+      bandShifts[band] = shift;
+      bandMasks[band] = width == Long.SIZE ? -1L : (1L << width) - 1;
+      bands.add(new ConcurrentHashMap<>());
+      shift += width;
+    }
+  }
+
+  /**
+   * Returns a filter that never reports a duplicate.
+   */
+  static NearDuplicateFilter disabled() {
+    return new NearDuplicateFilter(-1, true);
+  }
+
+  /**
+   * Returns true if a page with the given word counts is a near-duplicate of a page this filter
+   * has already seen, and counts it as skipped. Otherwise remembers the page and returns false.
+   * Pages without words are never duplicates.
+   *
+   * <p>Of several near-duplicates checked at the same time, exactly one is not a duplicate.
+   */
+  boolean isDuplicate(Map<String, Integer> wordCounts) {
+    if (maxDistance < 0 || wordCounts.isEmpty()) {
+      return false;
+    }
+    long fingerprint = SimHash.of(wordCounts);
+    // Most pages are not duplicates, but looking first without the lock lets duplicates, and
+    // pages on other threads, through without waiting.
+    if (!hasNeighbor(fingerprint)) {
+      synchronized (insertLock) {
+        if (!hasNeighbor(fingerprint)) {
+          for (int band = 0; band < bands.size(); band++) {
+            bands.get(band)
+                .computeIfAbsent(bandValue(fingerprint, band), k -> new ConcurrentLinkedQueue<>())
+                .add(fingerprint);
+          }
+          return false;
+        }
+      }
+    }
+    duplicatesSkipped.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Adds the word counts of a visited page to the crawl-wide counts and reports the visit to the
+   * progress, unless the page is a near-duplicate of one already counted. Every crawler counts its
+   * pages through this method, so that they all treat duplicates the same way.
+   *
+   * @param counts         the crawl-wide word counts. Must be thread-safe if pages are counted
+   *                       from more than one thread.
+   * @param remainingDepth the max depth left when the page was visited.
+   * @return true if the crawl should follow the links of the page.
+   */
+  boolean count(
+      String url,
+      int remainingDepth,
+      PageParser.Result result,
+      Map<String, Integer> counts,
+      CrawlProgress progress) {
+    if (isDuplicate(result.getWordCounts())) {
+      return followLinks;
+    }
+    CountMergeEvent mergeEvent = new CountMergeEvent();
+    mergeEvent.begin();
+    mergeCounts(result.getWordCounts(), counts);
+    if (mergeEvent.shouldCommit()) {
+      mergeEvent.url = url;
+      mergeEvent.words = result.getWordCounts().size();
+      mergeEvent.commit();
+    }
+    progress.pageVisited(url, remainingDepth, result);
+    return true;
+  }
+
+  /**
+   * Adds the word counts of a single page to the crawl-wide counts. Safe to call from many threads
+   * at once if the counts are thread-safe.
+   */
+  static void mergeCounts(Map<String, Integer> pageCounts, Map<String, Integer> counts) {
+    for (Map.Entry<String, Integer> e : pageCounts.entrySet()) {
+      counts.merge(e.getKey(), e.getValue(), Integer::sum);
+    }
+  }
+
+  /**
+   * Whether the crawl should still follow the links of pages that are duplicates.
+   */
+  boolean isFollowLinks() {
+    return followLinks;
+  }
+
+  /**
+   * Returns the number of times {@link #isDuplicate(Map)} has returned true.
+   */
+  int getDuplicatesSkipped() {
+    return duplicatesSkipped.get();
+  }
+
+  private boolean hasNeighbor(long fingerprint) {
+    for (int band = 0; band < bands.size(); band++) {
+      Queue<Long> candidates = bands.get(band).get(bandValue(fingerprint, band));
+      if (candidates == null) {
+        continue;
+      }
+      for (long candidate : candidates) {
+        if (SimHash.distance(fingerprint, candidate) <= maxDistance) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private long bandValue(long fingerprint, int band) {
+    return (fingerprint >>> bandShifts[band]) & bandMasks[band];
+  }
+}
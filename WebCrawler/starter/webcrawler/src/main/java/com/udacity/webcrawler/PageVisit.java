@@ -0,0 +1,51 @@
+package com.udacity.webcrawler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A single page that was visited during a crawl. See {@link CrawlListener#onPage(PageVisit)}.
+ */
+public final class PageVisit {
+  private final String url;
+  private final int depth;
+  private final Map<String, Integer> wordCounts;
+  private final List<String> links;
+
+  PageVisit(String url, int depth, Map<String, Integer> wordCounts, List<String> links) {
+    this.url = Objects.requireNonNull(url);
+    this.depth = depth;
+    this.wordCounts = Objects.requireNonNull(wordCounts);
+    this.links = Objects.requireNonNull(links);
+  }
+
+  /**
+   * The URL of the page.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * The number of links followed from a start page to reach this page. Start pages have depth 0.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * An unmodifiable {@link Map} of the words on this page and how often each appears. These are
+   * the amounts added to the crawl-wide counts by this page.
+   */
+  public Map<String, Integer> getWordCounts() {
+    return wordCounts;
+  }
+
+  /**
+   * An unmodifiable {@link List} of the links found on this page.
+   */
+  public List<String> getLinks() {
+    return links;
+  }
+}
@@ -1,22 +1,65 @@
 package com.udacity.webcrawler;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 
+import com.udacity.webcrawler.archive.ArchiveFormat;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.json.CrawlOrder;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlNormalizer;
 import com.udacity.webcrawler.WebCrawler;
 
 
+/**
+ * A {@link WebCrawler} that downloads and processes pages in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>The pool is shared by all crawls, and {@link #crawl(List, CrawlListener)} may be called from
+ * many threads at once. Every crawl has its own counts and visited set, and gets an equal share
+ * of the pool while other crawls run (see {@link FairShareLimit}). A crawl whose calling thread
+ * is interrupted stops visiting new pages and returns what it has counted so far.
+ *
+ * <p>A directory crawl walks its start directories with {@link DirectoryWalk}s instead, and crawls
+ * every HTML file in them as a start page. The pages inside archive files are crawled as well,
+ * with an {@link ArchiveWalk} for each archive.
+ */
 final class ParallelWebCrawler implements WebCrawler {
+
+  /**
+   * The number of extra threads the pool may start while its workers wait for their crawl's
+   * share, relative to its parallelism.
+   */
+  private static final int SPARE_THREAD_FACTOR = 1;
+
+  /**
+   * The number of stripes of a best-first crawl's frontier for each thread of the pool. More
+   * stripes mean less waiting on locks, but a less exact order.
+   */
+  private static final int FRONTIER_STRIPES_PER_THREAD = 2;
+
   private final Clock clock;
   private final Duration timeout;
   private final int popularWordCount;
@@ -24,6 +67,18 @@ final class ParallelWebCrawler implements WebCrawler {
   private final PageParserFactory parserFactory;
   private final int maxDepth;
   private final List<Pattern> ignoredUrls;
+  private final int batchSize;
+  private final Provider<ConcurrencyLimit> concurrencyLimits;
+  private final CrawlOrder crawlOrder;
+  private final LinkScorer linkScorer;
+  private final UrlNormalizer urlNormalizer;
+  private final Provider<NearDuplicateFilter> nearDuplicateFilters;
+  private final boolean directoryCrawl;
+  private final boolean followDirectoryLinks;
+  private final ZipArchives zipArchives;
+  private final DnsCache dnsCache;
+  private final Set<FairShareLimit> activeCrawls = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed = false;
 
   @Inject
   ParallelWebCrawler(
@@ -31,55 +86,278 @@ final class ParallelWebCrawler implements WebCrawler {
       @Timeout Duration timeout,
       @PopularWordCount int popularWordCount,
       @TargetParallelism int threadCount,
+      @MaxConcurrency int maxConcurrency,
       PageParserFactory parserFactory,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      @IgnoredUrls List<Pattern> ignoredUrls,
+      @TaskBatchSize int batchSize,
+      Provider<ConcurrencyLimit> concurrencyLimits,
+      CrawlOrder crawlOrder,
+      LinkScorer linkScorer,
+      UrlNormalizer urlNormalizer,
+      Provider<NearDuplicateFilter> nearDuplicateFilters,
+      @DirectoryCrawl boolean directoryCrawl,
+      @FollowDirectoryLinks boolean followDirectoryLinks,
+      ZipArchives zipArchives,
+      DnsCache dnsCache) {
     this.clock = clock;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
-    this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
+    // An adaptive limit decides how many threads fetch at once, so the pool is sized for its upper
+    // bound rather than for the number of cores.
+    int parallelism =
+        maxConcurrency > 0 ? maxConcurrency : Math.min(threadCount, getMaxParallelism());
+    this.pool = new ForkJoinPool(
+        parallelism,
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+        null,
+        false,
+        0,
+        parallelism * (1 + SPARE_THREAD_FACTOR),
+        1,
+        // Once all spare threads are in use, waiting threads simply block.
+        saturatedPool -> true,
+        60,
+        TimeUnit.SECONDS);
     this.parserFactory = parserFactory;
     this.maxDepth = maxDepth;
     this.ignoredUrls = ignoredUrls;
+    this.batchSize = batchSize;
+    this.concurrencyLimits = concurrencyLimits;
+    this.crawlOrder = crawlOrder;
+    this.linkScorer = linkScorer;
+    this.urlNormalizer = urlNormalizer;
+    this.nearDuplicateFilters = nearDuplicateFilters;
+    this.directoryCrawl = directoryCrawl;
+    this.followDirectoryLinks = followDirectoryLinks;
+    this.zipArchives = zipArchives;
+    this.dnsCache = dnsCache;
   }
 
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
+    return crawl(startingUrls, CrawlListener.NONE);
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls, CrawlListener listener) {
+    if (closed) {
+      throw new IllegalStateException("The crawler has been closed");
+    }
+    // Links are normalized by the parser; start pages have to be normalized here.
+    startingUrls = urlNormalizer.normalizeAll(startingUrls);
 
     Instant deadline = clock.instant().plus(timeout);
     ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
     ConcurrentSkipListSet<String> visitedUrls = new ConcurrentSkipListSet<>();
-
-    for (String url : startingUrls) {
-      if (!clock.instant().isAfter(deadline)) {
-        CrawlTask crawlTask = new CrawlTask.Builder()
+    // A directory crawl that does not follow links visits the files it walks and nothing else.
+    int depth = (directoryCrawl && !followDirectoryLinks) ? Math.min(maxDepth, 1) : maxDepth;
+    CrawlProgress progress =
+        new CrawlProgress(clock, listener, depth, popularWordCount, counts, visitedUrls);
+    FairShareLimit concurrencyLimit =
+        new FairShareLimit(concurrencyLimits.get(), pool.getParallelism(), activeCrawls);
+    NearDuplicateFilter nearDuplicates = nearDuplicateFilters.get();
+    BiFunction<List<String>, PageParserFactory, CrawlTask> crawlTasks =
+        (urls, parsers) -> new CrawlTask.Builder()
             .setCounts(counts)
-            .setUrl(url)
+            .setUrls(urls)
             .setDeadline(deadline)
             .setClock(clock)
-            .setMaxDepth(maxDepth)
+            .setMaxDepth(depth)
             .setIgnoredUrls(ignoredUrls)
-            .setParserFactory(parserFactory)
+            .setParserFactory(parsers)
             .setVisitedUrls(visitedUrls)
+            .setProgress(progress)
+            .setBatchSize(batchSize)
+            .setConcurrencyLimit(concurrencyLimit)
+            .setNearDuplicateFilter(nearDuplicates)
             .build();
 
-        pool.invoke(crawlTask);
+    activeCrawls.add(concurrencyLimit);
+    activeCrawls.forEach(FairShareLimit::sharesChanged);
+    try {
+      if (directoryCrawl) {
+        crawlDirectories(startingUrls, deadline, crawlTasks, progress);
+      } else if (crawlOrder == CrawlOrder.BEST_FIRST) {
+        crawlBestFirst(
+            startingUrls,
+            deadline,
+            counts,
+            visitedUrls,
+            progress,
+            concurrencyLimit,
+            nearDuplicates);
+      } else {
+        for (String url : startingUrls) {
+          if (!clock.instant().isAfter(deadline)
+              && !progress.isDone()
+              && !CrawlTask.isIgnored(url, ignoredUrls)) {
+            run(crawlTasks.apply(List.of(url), parserFactory), progress);
+          }
+        }
       }
+    } finally {
+      activeCrawls.remove(concurrencyLimit);
+      activeCrawls.forEach(FairShareLimit::sharesChanged);
     }
 
     if (counts.isEmpty()) {
       return new CrawlResult.Builder()
           .setWordCounts(counts)
           .setUrlsVisited(visitedUrls.size())
+          .setDuplicatesSkipped(nearDuplicates.getDuplicatesSkipped())
           .build();
     }
 
     return new CrawlResult.Builder()
         .setWordCounts(WordCounts.sort(counts, popularWordCount))
         .setUrlsVisited(visitedUrls.size())
+        .setDuplicatesSkipped(nearDuplicates.getDuplicatesSkipped())
         .build();
   }
 
+  /**
+   * Walks every start directory in parallel and crawls the HTML files found in them as start
+   * pages. A start page that is a file rather than a directory is crawled on its own, or walked if
+   * it is an archive.
+   *
+   * @throws IllegalArgumentException if a start page is not a {@code file:} URI.
+   */
+  private void crawlDirectories(
+      List<String> startingUrls,
+      Instant deadline,
+      BiFunction<List<String>, PageParserFactory, CrawlTask> crawlTasks,
+      CrawlProgress progress) {
+    Function<List<String>, CrawlTask> fileTasks = urls -> crawlTasks.apply(urls, parserFactory);
+    Function<Path, ArchiveWalk> archiveWalks =
+        archive ->
+            new ArchiveWalk(
+                archive,
+                crawlTasks,
+                parserFactory,
+                zipArchives,
+                urlNormalizer,
+                ignoredUrls,
+                clock,
+                deadline,
+                progress);
+    List<ForkJoinTask<?>> walks = new ArrayList<>();
+    for (String url : startingUrls) {
+      Path root = localPath(url);
+      if (Files.isDirectory(root)) {
+        walks.add(
+            new DirectoryWalk(
+                root,
+                fileTasks,
+                archiveWalks,
+                urlNormalizer,
+                ignoredUrls,
+                clock,
+                deadline,
+                progress));
+      } else if (ArchiveFormat.forFileName(root.getFileName().toString()) != null) {
+        walks.add(archiveWalks.apply(root));
+      } else if (!CrawlTask.isIgnored(url, ignoredUrls)) {
+        walks.add(fileTasks.apply(List.of(url)));
+      }
+    }
+    run(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(walks)), progress);
+  }
+
+  private static Path localPath(String url) {
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Not a valid start directory: " + url, e);
+    }
+    if (!"file".equals(uri.getScheme())) {
+      throw new IllegalArgumentException("A directory crawl can only start at file: URIs: " + url);
+    }
+    return Path.of(uri);
+  }
+
+  /**
+   * Crawls in the order of a shared {@link CrawlFrontier}, with one worker for each thread of the
+   * pool.
+   */
+  private void crawlBestFirst(
+      List<String> startingUrls,
+      Instant deadline,
+      ConcurrentHashMap<String, Integer> counts,
+      ConcurrentSkipListSet<String> visitedUrls,
+      CrawlProgress progress,
+      ConcurrencyLimit concurrencyLimit,
+      NearDuplicateFilter nearDuplicates) {
+    int workerCount = pool.getParallelism();
+    BestFirstCrawl crawl =
+        new BestFirstCrawl(
+            clock,
+            deadline,
+            parserFactory,
+            maxDepth,
+            ignoredUrls,
+            new CrawlFrontier(linkScorer, FRONTIER_STRIPES_PER_THREAD * workerCount),
+            counts,
+            visitedUrls,
+            progress,
+            concurrencyLimit,
+            nearDuplicates);
+    crawl.addStartPages(startingUrls);
+
+    List<ForkJoinTask<?>> workers = new ArrayList<>(workerCount);
+    for (int i = 0; i < workerCount; i++) {
+      workers.add(ForkJoinTask.adapt(crawl));
+    }
+    run(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(workers)), progress);
+  }
+
+  /**
+   * Runs the task on the pool and waits for it, and for the tasks it started that nothing joins.
+   * If the calling thread is interrupted, the crawl is cancelled instead; the pages already being
+   * fetched still finish before this returns.
+   */
+  private void run(ForkJoinTask<?> crawlTask, CrawlProgress progress) {
+    ForkJoinTask<?> task;
+    try {
+      task = pool.submit(crawlTask);
+    } catch (RejectedExecutionException e) {
+      // The crawler was closed while this crawl was running.
+      progress.cancel();
+      return;
+    }
+    try {
+      task.get();
+      progress.awaitTasks();
+    } catch (InterruptedException e) {
+      progress.cancel();
+      task.quietlyJoin();
+      progress.awaitTasksUninterruptibly();
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Stops accepting new crawls, shuts down the pool, closes the ZIP archives that were read and
+   * stops the threads that look up hosts in the background.
+   * Crawls that are already running finish the start page they are on and then return.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    pool.shutdown();
+    zipArchives.close();
+    dnsCache.close();
+  }
+
   @Override
   public int getMaxParallelism() {
     return Runtime.getRuntime().availableProcessors();
@@ -1,10 +1,14 @@
 package com.udacity.webcrawler;
 
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.json.CrawlOrder;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlNormalizer;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -26,6 +30,11 @@ final class SequentialWebCrawler implements WebCrawler {
   private final int popularWordCount;
   private final int maxDepth;
   private final List<Pattern> ignoredUrls;
+  private final CrawlOrder crawlOrder;
+  private final LinkScorer linkScorer;
+  private final UrlNormalizer urlNormalizer;
+  private final Provider<NearDuplicateFilter> nearDuplicateFilters;
+  private final DnsCache dnsCache;
 
   @Inject
   SequentialWebCrawler(
@@ -34,34 +43,82 @@ final class SequentialWebCrawler implements WebCrawler {
       @Timeout Duration timeout,
       @PopularWordCount int popularWordCount,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      @IgnoredUrls List<Pattern> ignoredUrls,
+      CrawlOrder crawlOrder,
+      LinkScorer linkScorer,
+      UrlNormalizer urlNormalizer,
+      Provider<NearDuplicateFilter> nearDuplicateFilters,
+      DnsCache dnsCache) {
     this.clock = clock;
     this.parserFactory = parserFactory;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.maxDepth = maxDepth;
     this.ignoredUrls = ignoredUrls;
+    this.crawlOrder = crawlOrder;
+    this.linkScorer = linkScorer;
+    this.urlNormalizer = urlNormalizer;
+    this.nearDuplicateFilters = nearDuplicateFilters;
+    this.dnsCache = dnsCache;
+  }
+
+  /**
+   * Stops the threads that look up hosts in the background.
+   */
+  @Override
+  public void close() {
+    dnsCache.close();
   }
 
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
+    return crawl(startingUrls, CrawlListener.NONE);
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls, CrawlListener listener) {
+    // Links are normalized by the parser; start pages have to be normalized here.
+    startingUrls = urlNormalizer.normalizeAll(startingUrls);
     Instant deadline = clock.instant().plus(timeout);
     Map<String, Integer> counts = new HashMap<>();
     Set<String> visitedUrls = new HashSet<>();
-    for (String url : startingUrls) {
-      crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+    CrawlProgress progress =
+        new CrawlProgress(clock, listener, maxDepth, popularWordCount, counts, visitedUrls);
+    NearDuplicateFilter nearDuplicates = nearDuplicateFilters.get();
+    if (crawlOrder == CrawlOrder.BEST_FIRST) {
+      BestFirstCrawl crawl =
+          new BestFirstCrawl(
+              clock,
+              deadline,
+              parserFactory,
+              maxDepth,
+              ignoredUrls,
+              new CrawlFrontier(linkScorer, 1),
+              counts,
+              visitedUrls,
+              progress,
+              ConcurrencyLimit.NONE,
+              nearDuplicates);
+      crawl.addStartPages(startingUrls);
+      crawl.run();
+    } else {
+      for (String url : startingUrls) {
+        crawlInternal(url, deadline, maxDepth, counts, visitedUrls, progress, nearDuplicates);
+      }
     }
 
     if (counts.isEmpty()) {
       return new CrawlResult.Builder()
           .setWordCounts(counts)
           .setUrlsVisited(visitedUrls.size())
+          .setDuplicatesSkipped(nearDuplicates.getDuplicatesSkipped())
           .build();
     }
 
     return new CrawlResult.Builder()
         .setWordCounts(WordCounts.sort(counts, popularWordCount))
         .setUrlsVisited(visitedUrls.size())
+        .setDuplicatesSkipped(nearDuplicates.getDuplicatesSkipped())
         .build();
   }
 
@@ -70,8 +127,10 @@ final class SequentialWebCrawler implements WebCrawler {
       Instant deadline,
       int maxDepth,
       Map<String, Integer> counts,
-      Set<String> visitedUrls) {
-    if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
+      Set<String> visitedUrls,
+      CrawlProgress progress,
+      NearDuplicateFilter nearDuplicates) {
+    if (maxDepth == 0 || clock.instant().isAfter(deadline) || progress.isDone()) {
       return;
     }
     for (Pattern pattern : ignoredUrls) {
@@ -83,16 +142,13 @@ final class SequentialWebCrawler implements WebCrawler {
       return;
     }
     visitedUrls.add(url);
-    PageParser.Result result = parserFactory.get(url).parse();
-    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-      if (counts.containsKey(e.getKey())) {
-        counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
-      } else {
-        counts.put(e.getKey(), e.getValue());
-      }
+    PageParser.Result result = parserFactory.get(url, deadline).parse();
+    if (!nearDuplicates.count(url, maxDepth, result, counts, progress)) {
+      return;
     }
     for (String link : result.getLinks()) {
-      crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
+      crawlInternal(
+          link, deadline, maxDepth - 1, counts, visitedUrls, progress, nearDuplicates);
     }
   }
 }
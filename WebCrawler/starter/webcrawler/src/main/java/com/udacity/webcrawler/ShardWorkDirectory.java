@@ -0,0 +1,239 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlResultWriter;
+import com.udacity.webcrawler.json.ResultFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The files that the processes of a sharded crawl use to talk to each other. All of them live in
+ * one directory that every process can read and write:
+ *
+ * <ul>
+ *   <li>{@code inbox-<shard>/} holds spool files of links handed to that shard by the others. Each
+ *       line is the remaining depth, a tab, and the URL.
+ *   <li>{@code idle-<shard>} exists while that shard has no work. It holds the number of spool
+ *       files the shard has sent and received so far.
+ *   <li>{@code partial-<shard>.wcb} holds the complete, unsorted word counts of the pages the shard
+ *       crawled, in the {@link ResultFormat#BINARY} format.
+ * </ul>
+ *
+ * <p>Every file is written under a temporary name and then atomically moved into place, so
+ * readers never see a half-written file. The directory must be empty when the crawl starts.
+ */
+final class ShardWorkDirectory {
+
+  private final Path directory;
+  private final int shardIndex;
+  private final int shardCount;
+  private int sent = 0;
+  private int received = 0;
+  private boolean idle = false;
+
+  ShardWorkDirectory(Path directory, int shardIndex, int shardCount) {
+    this.directory = Objects.requireNonNull(directory);
+    this.shardIndex = shardIndex;
+    this.shardCount = shardCount;
+  }
+
+  /**
+   * Returns the index of the shard this process crawls. Shard 0 merges the partial results.
+   */
+  int getShardIndex() {
+    return shardIndex;
+  }
+
+  /**
+   * Returns the shard that owns the given URL. See {@link #ownerOf(String, int)}.
+   */
+  int ownerOf(String url) {
+    return ownerOf(url, shardCount);
+  }
+
+  /**
+   * Returns the shard that owns the given URL. URLs are split by a hash of their host, so that all
+   * the pages of one site are crawled by the same process. URLs without a host, such as local
+   * files, are split by a hash of the whole URL.
+   */
+  static int ownerOf(String url, int shardCount) {
+    String key = url;
+    try {
+      String host = URI.create(url).getHost();
+      if (host != null) {
+        key = host.toLowerCase(Locale.ROOT);
+      }
+    } catch (IllegalArgumentException e) {
+      // Not a valid URI; fall back to the whole string.
+    }
+    return Math.floorMod(key.hashCode(), shardCount);
+  }
+
+  /**
+   * Hands the given links to another shard.
+   *
+   * @param links the URLs to hand over, mapped to the depth remaining when they are crawled.
+   */
+  void send(int shard, Map<String, Integer> links) throws IOException {
+    if (links.isEmpty()) {
+      return;
+    }
+    Path inbox = Files.createDirectories(directory.resolve("inbox-" + shard));
+    Path temp = Files.createTempFile(directory, "spool-" + shardIndex + "-", ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, Integer> e : links.entrySet()) {
+        writer.write(e.getValue() + "\t" + e.getKey());
+        writer.newLine();
+      }
+    }
+    Files.move(
+        temp,
+        inbox.resolve(shardIndex + "-" + sent + ".links"),
+        StandardCopyOption.ATOMIC_MOVE);
+    sent++;
+  }
+
+  /**
+   * Reads and deletes every spool file handed to this shard, adding the links to the given map
+   * with the largest remaining depth seen for each. Marks this shard as busy first if there is
+   * anything to read.
+   */
+  void receive(Map<String, Integer> links) throws IOException {
+    Path inbox = directory.resolve("inbox-" + shardIndex);
+    List<Path> spools;
+    try (Stream<Path> files = Files.list(inbox)) {
+      spools = files.collect(Collectors.toList());
+    } catch (NoSuchFileException e) {
+      return;
+    }
+    if (spools.isEmpty()) {
+      return;
+    }
+
+    // The idle marker has to go before the spool files do, or another shard could see this one
+    // as idle with no links in flight while it is in fact busy.
+    Files.deleteIfExists(idleMarker(shardIndex));
+    idle = false;
+    for (Path spool : spools) {
+      for (String line : Files.readAllLines(spool, StandardCharsets.UTF_8)) {
+        int tab = line.indexOf('\t');
+        links.merge(
+            line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)), Math::max);
+      }
+      Files.delete(spool);
+      received++;
+    }
+  }
+
+  /**
+   * Marks this shard as having no work. Must only be called after all outgoing links were sent.
+   */
+  void markIdle() throws IOException {
+    if (idle) {
+      return;
+    }
+    String counts = sent + " " + received;
+    writeAtomically(idleMarker(shardIndex), counts.getBytes(StandardCharsets.UTF_8));
+    idle = true;
+  }
+
+  /**
+   * Returns true if every shard is idle and no links are in flight between shards.
+   *
+   * <p>The idle markers are read twice. If every shard was idle in both passes without receiving
+   * anything in between, and the number of spool files sent equals the number received, then
+   * there was a moment when no shard had work and no links were in flight, so none ever will.
+   */
+  boolean isCrawlFinished() throws IOException {
+    List<String> first = readIdleMarkers();
+    if (first == null) {
+      return false;
+    }
+    long sentTotal = 0;
+    long receivedTotal = 0;
+    for (String marker : first) {
+      String[] parts = marker.split(" ");
+      sentTotal += Long.parseLong(parts[0]);
+      receivedTotal += Long.parseLong(parts[1]);
+    }
+    return sentTotal == receivedTotal && first.equals(readIdleMarkers());
+  }
+
+  /**
+   * Writes the complete word counts of this shard for the coordinator to merge.
+   */
+  void writePartialResult(Map<String, Integer> counts, int urlsVisited) throws IOException {
+    CrawlResult partial =
+        new CrawlResult.Builder()
+            .setWordCounts(counts)
+            .setUrlsVisited(urlsVisited)
+            .build();
+    Path temp = Files.createTempFile(directory, "partial-" + shardIndex + "-", ".tmp");
+    try (OutputStream out = Files.newOutputStream(temp)) {
+      new CrawlResultWriter(partial).writeBinary(out);
+    }
+    Files.move(temp, partialResult(shardIndex), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns true once every shard has written its partial result.
+   */
+  boolean hasAllPartialResults() {
+    return getPartialResults().stream().allMatch(Files::exists);
+  }
+
+  /**
+   * Returns the partial result files of all shards.
+   */
+  List<Path> getPartialResults() {
+    List<Path> paths = new ArrayList<>(shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      paths.add(partialResult(shard));
+    }
+    return paths;
+  }
+
+  /**
+   * Returns the markers of all shards, or null if any shard is not idle.
+   */
+  private List<String> readIdleMarkers() throws IOException {
+    List<String> markers = new ArrayList<>(shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      try {
+        markers.add(Files.readString(idleMarker(shard), StandardCharsets.UTF_8));
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+    }
+    return markers;
+  }
+
+  private void writeAtomically(Path path, byte[] content) throws IOException {
+    Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+    Files.write(temp, content);
+    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private Path idleMarker(int shard) {
+    return directory.resolve("idle-" + shard);
+  }
+
+  private Path partialResult(int shard) {
+    return directory.resolve("partial-" + shard + ResultFormat.BINARY_EXTENSION);
+  }
+}
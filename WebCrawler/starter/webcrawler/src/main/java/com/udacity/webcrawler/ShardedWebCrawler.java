@@ -0,0 +1,216 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlNormalizer;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} that is one of several processes crawling together. URLs are split between
+ * the processes by host (see {@link ShardWorkDirectory#ownerOf(String, int)}), and each process
+ * keeps the frontier and visited set of its own share only. Links to pages owned by another
+ * process are handed over in batches through a shared {@link ShardWorkDirectory}.
+ *
+ * <p>Each process crawls its frontier one level at a time, on a {@link ForkJoinPool}. When every
+ * process runs out of work, each writes its complete word counts to the work directory. Shard 0
+ * then waits for all of them, merges them, and returns the combined result; the other shards
+ * return only their own counts.
+ */
+final class ShardedWebCrawler implements WebCrawler {
+
+  private static final long POLL_INTERVAL_MILLIS = 5;
+
+  private final Clock clock;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final ForkJoinPool pool;
+  private final PageParserFactory parserFactory;
+  private final int maxDepth;
+  private final List<Pattern> ignoredUrls;
+  private final ShardWorkDirectory workDirectory;
+  private final UrlNormalizer urlNormalizer;
+  private final DnsCache dnsCache;
+
+  @Inject
+  ShardedWebCrawler(
+      Clock clock,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      @TargetParallelism int threadCount,
+      PageParserFactory parserFactory,
+      @MaxDepth int maxDepth,
+      @IgnoredUrls List<Pattern> ignoredUrls,
+      ShardWorkDirectory workDirectory,
+      UrlNormalizer urlNormalizer,
+      DnsCache dnsCache) {
+    this.clock = clock;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.pool = new ForkJoinPool(Math.max(1, Math.min(threadCount, getMaxParallelism())));
+    this.parserFactory = parserFactory;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.workDirectory = workDirectory;
+    this.urlNormalizer = urlNormalizer;
+    this.dnsCache = dnsCache;
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    try {
+      return crawlShard(startingUrls);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the other shards", e);
+    }
+  }
+
+  private CrawlResult crawlShard(List<String> startingUrls)
+      throws IOException, InterruptedException {
+    Instant deadline = clock.instant().plus(timeout);
+    // Gives the other shards one more timeout to finish before giving up on them.
+    Instant giveUp = deadline.plus(timeout);
+    Map<String, Integer> counts = new HashMap<>();
+    Set<String> visitedUrls = new HashSet<>();
+
+    Map<String, Integer> frontier = new LinkedHashMap<>();
+    for (String url : urlNormalizer.normalizeAll(startingUrls)) {
+      if (workDirectory.ownerOf(url) == workDirectory.getShardIndex() && maxDepth > 0) {
+        frontier.put(url, maxDepth);
+      }
+    }
+
+    while (true) {
+      workDirectory.receive(frontier);
+      if (clock.instant().isAfter(deadline)) {
+        // Out of time. Keep draining the inbox so that the other shards see the links they sent
+        // as received, but do not crawl anything else.
+        frontier.clear();
+      }
+      if (!frontier.isEmpty()) {
+        frontier = crawlLevel(frontier, deadline, counts, visitedUrls);
+        continue;
+      }
+      workDirectory.markIdle();
+      if (workDirectory.isCrawlFinished()) {
+        break;
+      }
+      awaitOtherShards(giveUp);
+    }
+    workDirectory.writePartialResult(counts, visitedUrls.size());
+
+    if (workDirectory.getShardIndex() == 0) {
+      while (!workDirectory.hasAllPartialResults()) {
+        awaitOtherShards(giveUp);
+      }
+      return CrawlResultMerger.merge(
+          workDirectory.getPartialResults(), popularWordCount, pool.getParallelism());
+    }
+
+    return new CrawlResult.Builder()
+        .setWordCounts(counts.isEmpty() ? counts : WordCounts.sort(counts, popularWordCount))
+        .setUrlsVisited(visitedUrls.size())
+        .build();
+  }
+
+  /**
+   * Crawls every page of one level of the frontier in parallel and returns the next level. Links
+   * owned by other shards are sent to them instead.
+   *
+   * @param level the URLs to crawl, mapped to the depth remaining at each.
+   */
+  private Map<String, Integer> crawlLevel(
+      Map<String, Integer> level,
+      Instant deadline,
+      Map<String, Integer> counts,
+      Set<String> visitedUrls) throws IOException {
+    Map<String, ForkJoinTask<PageParser.Result>> tasks = new LinkedHashMap<>();
+    for (String url : level.keySet()) {
+      if (clock.instant().isAfter(deadline)) {
+        break;
+      }
+      if (isIgnored(url) || !visitedUrls.add(url)) {
+        continue;
+      }
+      tasks.put(url, pool.submit(() -> parserFactory.get(url, deadline).parse()));
+    }
+
+    Map<String, Integer> nextLevel = new LinkedHashMap<>();
+    List<Map<String, Integer>> outboxes = new ArrayList<>();
+    for (Map.Entry<String, ForkJoinTask<PageParser.Result>> e : tasks.entrySet()) {
+      PageParser.Result result = e.getValue().join();
+      result.getWordCounts().forEach((word, count) -> counts.merge(word, count, Integer::sum));
+
+      int remainingDepth = level.get(e.getKey()) - 1;
+      if (remainingDepth == 0) {
+        continue;
+      }
+      for (String link : result.getLinks()) {
+        int owner = workDirectory.ownerOf(link);
+        if (owner == workDirectory.getShardIndex()) {
+          if (!visitedUrls.contains(link)) {
+            nextLevel.merge(link, remainingDepth, Math::max);
+          }
+          continue;
+        }
+        while (outboxes.size() <= owner) {
+          outboxes.add(new LinkedHashMap<>());
+        }
+        outboxes.get(owner).merge(link, remainingDepth, Math::max);
+      }
+    }
+
+    for (int shard = 0; shard < outboxes.size(); shard++) {
+      workDirectory.send(shard, outboxes.get(shard));
+    }
+    return nextLevel;
+  }
+
+  private boolean isIgnored(String url) {
+    for (Pattern pattern : ignoredUrls) {
+      if (pattern.matcher(url).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void awaitOtherShards(Instant giveUp) throws InterruptedException {
+    if (clock.instant().isAfter(giveUp)) {
+      throw new IllegalStateException(
+          "Shard " + workDirectory.getShardIndex() + " gave up waiting for the other shards");
+    }
+    Thread.sleep(POLL_INTERVAL_MILLIS);
+  }
+
+  @Override
+  public void close() {
+    pool.shutdown();
+    dnsCache.close();
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+}
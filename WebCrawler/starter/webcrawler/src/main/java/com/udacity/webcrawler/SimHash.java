@@ -0,0 +1,66 @@
+package com.udacity.webcrawler;
+
+import java.util.Map;
+
+/**
+ * Computes 64-bit SimHash fingerprints of pages from their word counts.
+ *
+ * <p>Each word is hashed to 64 bits, and every bit of the fingerprint is set if the words whose
+ * hash has that bit set outweigh those whose hash does not. Pages that share most of their words
+ * get fingerprints that differ in only a few bits, while unrelated pages differ in about half of
+ * them.
+ *
+ * <p>A word weighs {@code 1 + ln(count)} rather than its count. With linear weights, the few very
+ * common words that every page repeats decide most bits on their own, and unrelated pages end up
+ * with close fingerprints.
+ */
+final class SimHash {
+
+  private SimHash() {
+  }
+
+  /**
+   * Returns the fingerprint of a page with the given word counts.
+   */
+  static long of(Map<String, Integer> wordCounts) {
+    double[] weights = new double[Long.SIZE];
+    for (Map.Entry<String, Integer> e : wordCounts.entrySet()) {
+      long hash = hash(e.getKey());
+      double weight = 1 + Math.log(e.getValue());
+      for (int bit = 0; bit < Long.SIZE; bit++) {
+        weights[bit] += ((hash >>> bit) & 1) != 0 ? weight : -weight;
+      }
+    }
+    long fingerprint = 0;
+    for (int bit = 0; bit < Long.SIZE; bit++) {
+      if (weights[bit] > 0) {
+        fingerprint |= 1L << bit;
+      }
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Returns the number of bits in which the two fingerprints differ.
+   */
+  static int distance(long a, long b) {
+    return Long.bitCount(a ^ b);
+  }
+
+  /**
+   * Hashes a word to 64 well-mixed bits. {@link String#hashCode()} has only 32 bits, and words
+   * that differ in their last letter get hashes that differ in their low bits only.
+   */
+  static long hash(String word) {
+    // 64-bit FNV-1a, followed by the SplitMix64 finalizer to spread every input bit to all
+    // output bits.
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < word.length(); i++) {
+      hash ^= word.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+    hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+    return hash ^ (hash >>> 31);
+  }
+}
@@ -0,0 +1,135 @@
+package com.udacity.webcrawler;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A priority queue that many threads can use at once without all contending for one lock.
+ *
+ * <p>Elements are spread over several stripes, each an ordinary {@link PriorityQueue} with its own
+ * lock. {@link #offer(Object)} adds to whichever stripe it can lock first, and {@link #poll()}
+ * looks at the heads of two random stripes and takes the better one. The order is therefore only
+ * approximate: the element returned is always among the best, but not necessarily the best. With
+ * a single stripe the queue is exact.
+ */
+final class StripedPriorityQueue<E> {
+  private final Comparator<? super E> comparator;
+  private final PriorityQueue<E>[] stripes;
+  private final ReentrantLock[] locks;
+  // The head of each stripe, so that polls can compare stripes without locking them.
+  private final AtomicReferenceArray<E> heads;
+  private final AtomicInteger size = new AtomicInteger();
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  StripedPriorityQueue(int stripeCount, Comparator<? super E> comparator) {
+    if (stripeCount < 1) {
+      throw new IllegalArgumentException("stripeCount must be positive");
+    }
+    this.comparator = comparator;
+    this.stripes = new PriorityQueue[stripeCount];
+    this.locks = new ReentrantLock[stripeCount];
+    this.heads = new AtomicReferenceArray<>(stripeCount);
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new PriorityQueue<>(comparator);
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Adds an element to the queue.
+   */
+  void offer(E element) {
+    int start = randomStripe();
+    for (int i = 0; i < stripes.length; i++) {
+      int stripe = (start + i) % stripes.length;
+      if (locks[stripe].tryLock()) {
+        offer(stripe, element);
+        return;
+      }
+    }
+    // Every stripe is busy; wait for the one picked first.
+    locks[start].lock();
+    offer(start, element);
+  }
+
+  /**
+   * Removes and returns one of the best elements in the queue, or returns null if the queue is
+   * empty. An element that another thread is adding at the same time may be missed.
+   */
+  E poll() {
+    if (size.get() == 0) {
+      return null;
+    }
+    int first = randomStripe();
+    int second = randomStripe();
+    int better = isBetter(heads.get(second), heads.get(first)) ? second : first;
+    if (locks[better].tryLock()) {
+      E element = poll(better);
+      if (element != null) {
+        return element;
+      }
+    }
+    // The chosen stripe was busy or empty, so look through all of them.
+    for (int i = 0; i < stripes.length; i++) {
+      int stripe = (first + i) % stripes.length;
+      locks[stripe].lock();
+      E element = poll(stripe);
+      if (element != null) {
+        return element;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of elements in the queue.
+   */
+  int size() {
+    return size.get();
+  }
+
+  /**
+   * Adds the element to the given stripe and unlocks it. The caller must hold the stripe's lock.
+   */
+  private void offer(int stripe, E element) {
+    try {
+      stripes[stripe].add(element);
+      heads.set(stripe, stripes[stripe].peek());
+      size.incrementAndGet();
+    } finally {
+      locks[stripe].unlock();
+    }
+  }
+
+  /**
+   * Removes the head of the given stripe, if any, and unlocks it. The caller must hold the
+   * stripe's lock.
+   */
+  private E poll(int stripe) {
+    try {
+      E element = stripes[stripe].poll();
+      heads.set(stripe, stripes[stripe].peek());
+      if (element != null) {
+        size.decrementAndGet();
+      }
+      return element;
+    } finally {
+      locks[stripe].unlock();
+    }
+  }
+
+  private boolean isBetter(E a, E b) {
+    if (a == null) {
+      return false;
+    }
+    return b == null || comparator.compare(a, b) < 0;
+  }
+
+  private int randomStripe() {
+    return stripes.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes.length);
+  }
+}
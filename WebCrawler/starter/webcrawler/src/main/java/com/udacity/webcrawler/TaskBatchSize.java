@@ -0,0 +1,16 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the largest number of URLs a single parallel crawl task crawls itself.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "taskBatchSize"} option from
+ * the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TaskBatchSize {
+}
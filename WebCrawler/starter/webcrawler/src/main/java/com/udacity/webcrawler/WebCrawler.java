@@ -7,8 +7,10 @@ import java.util.List;
 
 /**
  * The main interface that defines the web crawler API.
+ *
+ * <p>A crawler should be closed once it is no longer needed, to release the threads it holds.
  */
-public interface WebCrawler {
+public interface WebCrawler extends AutoCloseable {
 
   /**
    * Starts a crawl at the given URLs.
@@ -19,6 +21,30 @@ public interface WebCrawler {
   @Profiled
   CrawlResult crawl(List<String> startingUrls);
 
+  /**
+   * Starts a crawl at the given URLs, reporting pages and periodic snapshots of the popular words
+   * to the given listener while the crawl runs.
+   *
+   * <p>The crawl stops early once {@link CrawlListener#isDone()} returns true, which is also how
+   * to cancel a crawl from another thread. The default implementation does not report progress;
+   * it only returns the final result.
+   *
+   * @param startingUrls the starting points of the crawl.
+   * @param listener     receives the progress of the crawl.
+   * @return the {@link CrawlResult} of the crawl.
+   */
+  @Profiled
+  default CrawlResult crawl(List<String> startingUrls, CrawlListener listener) {
+    return crawl(startingUrls);
+  }
+
+  /**
+   * Releases the resources held by this crawler. Crawls may not be started after it is closed.
+   */
+  @Override
+  default void close() {
+  }
+
   /**
    * Returns the maximum amount of parallelism (number of CPU cores) supported by this web crawler.
    */
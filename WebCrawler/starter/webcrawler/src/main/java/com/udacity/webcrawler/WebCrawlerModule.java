@@ -5,14 +5,19 @@ import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.ProvisionException;
 import com.google.inject.multibindings.Multibinder;
+import com.udacity.webcrawler.json.CrawlOrder;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.ContentFilter;
 import com.udacity.webcrawler.parser.ParserModule;
+import com.udacity.webcrawler.parser.UrlNormalizer;
 import com.udacity.webcrawler.profiler.Profiler;
 
+import javax.inject.Provider;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
@@ -52,8 +57,15 @@ public final class WebCrawlerModule extends AbstractModule {
 
     bind(Clock.class).toInstance(Clock.systemUTC());
     bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
-    bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
+    // A full result is just a top-K result with no limit on K.
+    bind(Key.get(Integer.class, PopularWordCount.class))
+        .toInstance(config.isFullWordCounts() ? Integer.MAX_VALUE : config.getPopularWordCount());
     bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
+    bind(Key.get(Integer.class, TaskBatchSize.class)).toInstance(config.getTaskBatchSize());
+    bind(Key.get(Boolean.class, DirectoryCrawl.class)).toInstance(config.isDirectoryCrawl());
+    bind(Key.get(Boolean.class, FollowDirectoryLinks.class))
+        .toInstance(config.isFollowDirectoryLinks());
+    bind(CrawlOrder.class).toInstance(config.getCrawlOrder());
     bind(new Key<List<Pattern>>(IgnoredUrls.class) {
     }).toInstance(config.getIgnoredUrls());
 
@@ -61,6 +73,23 @@ public final class WebCrawlerModule extends AbstractModule {
         new ParserModule.Builder()
             .setTimeout(config.getTimeout())
             .setIgnoredWords(config.getIgnoredWords())
+            .setUrlNormalizer(
+                new UrlNormalizer.Builder()
+                    .setStripTrackingParameters(config.isStripTrackingParameters())
+                    .setSortQueryParameters(config.isSortQueryParameters())
+                    .setRemoveTrailingSlash(config.isRemoveTrailingSlash())
+                    .build())
+            .setContentFilter(
+                new ContentFilter.Builder()
+                    .setSkippedExtensions(config.getSkippedLinkExtensions())
+                    .setMaxPageBytes(config.getMaxPageBytes())
+                    .build())
+            .setDnsTtl(config.getDnsCacheTtl(), config.getDnsNegativeCacheTtl())
+            .setDnsPrefetchThreads(config.getDnsPrefetchThreads())
+            .setFetchRetries(config.getFetchRetries(), config.getRetryBaseDelay())
+            .setCircuitBreaker(config.getCircuitFailureRate(), config.getCircuitOpenDuration())
+            .setHedgeBudget(config.getHedgeBudget())
+            .setAdaptiveTimeout(config.getAdaptiveTimeoutFactor(), config.getMinFetchTimeout())
             .build());
   }
 
@@ -69,7 +98,19 @@ public final class WebCrawlerModule extends AbstractModule {
   @Internal
   WebCrawler provideRawWebCrawler(
       @Internal Set<WebCrawler> implementations,
-      @TargetParallelism int targetParallelism) {
+      @TargetParallelism int targetParallelism,
+      Provider<ShardedWebCrawler> shardedCrawler) {
+    if (config.getShardCount() > 1) {
+      return shardedCrawler.get();
+    }
+    if (config.isDirectoryCrawl()) {
+      // Only the parallel crawler knows how to walk directories.
+      return implementations
+          .stream()
+          .filter(impl -> impl instanceof ParallelWebCrawler)
+          .findFirst()
+          .orElseThrow();
+    }
     String override = config.getImplementationOverride();
     if (!override.isEmpty()) {
       return implementations
@@ -98,6 +139,57 @@ public final class WebCrawlerModule extends AbstractModule {
     return Runtime.getRuntime().availableProcessors();
   }
 
+  @Provides
+  @Singleton
+  @MaxConcurrency
+  int provideMaxConcurrency() {
+    if (!config.isAdaptiveParallelism()) {
+      return 0;
+    }
+    int maxParallelism = config.getMaxParallelism();
+    if (maxParallelism == 0) {
+      maxParallelism =
+          Math.max(config.getMinParallelism(), 4 * Runtime.getRuntime().availableProcessors());
+    }
+    return maxParallelism;
+  }
+
+  @Provides
+  ConcurrencyLimit provideConcurrencyLimit(
+      @TargetParallelism int targetParallelism, @MaxConcurrency int maxConcurrency) {
+    if (maxConcurrency == 0) {
+      return ConcurrencyLimit.NONE;
+    }
+    return new AimdConcurrencyLimit(
+        targetParallelism, config.getMinParallelism(), maxConcurrency);
+  }
+
+  @Provides
+  NearDuplicateFilter provideNearDuplicateFilter() {
+    // Not a singleton: every crawl compares its pages only with its own.
+    return new NearDuplicateFilter(
+        config.getNearDuplicateDistance(), config.isFollowDuplicateLinks());
+  }
+
+  @Provides
+  @Singleton
+  LinkScorer provideLinkScorer() {
+    // Depth matters most: a priority page or a much-linked page may jump ahead by a level or two,
+    // but not past the whole next level.
+    return LinkScorers.sum(
+        LinkScorers.shallowFirst(1),
+        LinkScorers.inLinks(0.5),
+        LinkScorers.matching(config.getPriorityUrls(), 2),
+        LinkScorers.hostDiversity(0.5));
+  }
+
+  @Provides
+  @Singleton
+  ShardWorkDirectory provideShardWorkDirectory() {
+    return new ShardWorkDirectory(
+        Path.of(config.getShardWorkDirectory()), config.getShardIndex(), config.getShardCount());
+  }
+
   @Provides
   @Singleton
   WebCrawler provideWebCrawlerProxy(Profiler wrapper, @Internal WebCrawler delegate) {
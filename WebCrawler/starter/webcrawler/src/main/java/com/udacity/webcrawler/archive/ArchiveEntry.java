@@ -0,0 +1,32 @@
+package com.udacity.webcrawler.archive;
+
+import java.util.Objects;
+
+/**
+ * A page read from an archive: its URL and its undecoded content.
+ */
+public final class ArchiveEntry {
+  private final String url;
+  private final byte[] content;
+
+  ArchiveEntry(String url, byte[] content) {
+    this.url = Objects.requireNonNull(url);
+    this.content = Objects.requireNonNull(content);
+  }
+
+  /**
+   * Returns the URL of the page: an entry URL (see {@link ArchiveUrls}) for the pages of tar
+   * archives, and the URL the page was captured from for the pages of WARC archives.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Returns the bytes of the page, with any compression or transfer encoding already undone. The
+   * array is not copied.
+   */
+  public byte[] getContent() {
+    return content;
+  }
+}
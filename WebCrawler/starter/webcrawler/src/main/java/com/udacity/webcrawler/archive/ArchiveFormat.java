@@ -0,0 +1,106 @@
+package com.udacity.webcrawler.archive;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The archive formats that pages can be crawled from without extracting them.
+ */
+public enum ArchiveFormat {
+
+  /**
+   * A ZIP archive. Its entries can be read in any order, so its pages can be crawled by following
+   * links as well as by walking the archive. See {@link ZipArchives}.
+   */
+  ZIP(".zip"),
+
+  /**
+   * A tar archive, which can only be read from start to end.
+   */
+  TAR(".tar"),
+
+  /**
+   * A gzip-compressed tar archive, which can only be read from start to end.
+   */
+  TAR_GZ(".tar.gz", ".tgz"),
+
+  /**
+   * A WARC web archive, optionally gzip-compressed, which can only be read from start to end. Its
+   * pages are identified by the URLs they were captured from rather than by entry URLs.
+   */
+  WARC(".warc", ".warc.gz");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String[] extensions;
+
+  ArchiveFormat(String... extensions) {
+    this.extensions = extensions;
+  }
+
+  /**
+   * Returns the format of the archive with the given file name, judged by its extension, or null
+   * if the name is not that of an archive.
+   */
+  public static ArchiveFormat forFileName(String name) {
+    String lowerCase = name.toLowerCase(Locale.ROOT);
+    for (ArchiveFormat format : values()) {
+      for (String extension : format.extensions) {
+        if (lowerCase.endsWith(extension)) {
+          return format;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the entries of archives in this format can be read in any order.
+   */
+  public boolean isRandomAccess() {
+    return this == ZIP;
+  }
+
+  /**
+   * Opens an archive in this format for reading from start to end.
+   *
+   * @throws UnsupportedOperationException for ZIP archives, whose entries are read one at a time
+   *                                       through {@link ZipArchives} instead.
+   */
+  public ArchiveReader open(Path archive) throws IOException {
+    if (isRandomAccess()) {
+      throw new UnsupportedOperationException("ZIP entries are read through ZipArchives");
+    }
+    InputStream in = new BufferedInputStream(Files.newInputStream(archive), BUFFER_SIZE);
+    try {
+      switch (this) {
+        case TAR:
+          return new TarReader(archive, in);
+        case TAR_GZ:
+          return new TarReader(archive, new GZIPInputStream(in, BUFFER_SIZE));
+        default:
+          return new WarcReader(
+              archive.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")
+                  ? new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE)
+                  : in);
+      }
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns true if the file or entry name ends in {@code ".html"} or {@code ".htm"}, ignoring
+   * case.
+   */
+  public static boolean isHtmlName(String name) {
+    return name.regionMatches(true, name.length() - 5, ".html", 0, 5)
+        || name.regionMatches(true, name.length() - 4, ".htm", 0, 4);
+  }
+}
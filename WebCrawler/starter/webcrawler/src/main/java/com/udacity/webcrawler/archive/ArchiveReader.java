@@ -0,0 +1,21 @@
+package com.udacity.webcrawler.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the HTML pages of an archive from start to end, decompressing it as it goes. Entries that
+ * are not HTML pages are skipped.
+ *
+ * <p>A reader is not thread-safe.
+ */
+public interface ArchiveReader extends Closeable {
+
+  /**
+   * Returns the next HTML page of the archive, or null if there are none left.
+   *
+   * @throws IOException if the archive cannot be read, or is not in the expected format. Pages
+   *                     that were returned before are not affected.
+   */
+  ArchiveEntry next() throws IOException;
+}
@@ -0,0 +1,83 @@
+package com.udacity.webcrawler.archive;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+
+/**
+ * Builds and takes apart the URLs of pages inside archives.
+ *
+ * <p>An entry URL follows the convention of {@link java.net.JarURLConnection}: {@code "jar:"},
+ * then the {@code file:} URI of the archive, then {@code "!/"} and the escaped path of the entry
+ * inside the archive, for example {@code "jar:file:///snapshots/site.zip!/docs/index.html"}.
+ * Since everything up to the last {@code '/'} names the entry's directory, relative links between
+ * the pages of an archive resolve the same way as links between local files.
+ */
+public final class ArchiveUrls {
+
+  private static final String SCHEME = "jar:";
+  private static final String SEPARATOR = "!/";
+
+  private ArchiveUrls() {
+    // This class only has static methods.
+  }
+
+  /**
+   * Returns the URL of the entry with the given name inside the archive.
+   */
+  public static String entryUrl(Path archive, String entryName) {
+    String escaped;
+    try {
+      // The leading '/' keeps a ':' in the first segment from being taken for a scheme.
+      escaped = new URI(null, null, "/" + entryName, null).toASCIIString().substring(1);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Not a valid entry name: " + entryName, e);
+    }
+    return SCHEME + archive.toUri() + SEPARATOR + escaped;
+  }
+
+  /**
+   * Returns true if the URL names an entry inside an archive.
+   */
+  public static boolean isEntryUrl(String url) {
+    return url.startsWith(SCHEME) && url.indexOf(SEPARATOR, SCHEME.length()) >= 0;
+  }
+
+  /**
+   * Returns true if the URL names an entry inside an archive that can only be read from start to
+   * end, such as a tar archive. Such entries cannot be parsed on their own, only by walking their
+   * whole archive.
+   */
+  public static boolean isStreamedEntry(String url) {
+    if (!isEntryUrl(url)) {
+      return false;
+    }
+    ArchiveFormat format = ArchiveFormat.forFileName(url.substring(0, url.indexOf(SEPARATOR)));
+    return format != null && !format.isRandomAccess();
+  }
+
+  /**
+   * Returns the archive that the entry URL points into.
+   *
+   * @throws IllegalArgumentException if the URL is not an entry URL of a local archive.
+   */
+  public static Path archiveOf(String url) {
+    if (!isEntryUrl(url)) {
+      throw new IllegalArgumentException("Not an archive entry: " + url);
+    }
+    return Path.of(URI.create(url.substring(SCHEME.length(), url.indexOf(SEPARATOR))));
+  }
+
+  /**
+   * Returns the unescaped name of the entry that the entry URL points to.
+   *
+   * @throws IllegalArgumentException if the URL is not a valid entry URL.
+   */
+  public static String entryOf(String url) {
+    if (!isEntryUrl(url)) {
+      throw new IllegalArgumentException("Not an archive entry: " + url);
+    }
+    String escaped = url.substring(url.indexOf(SEPARATOR) + 1);
+    return URI.create("x:" + escaped).getPath().substring(1);
+  }
+}
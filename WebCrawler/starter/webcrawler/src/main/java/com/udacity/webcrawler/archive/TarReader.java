@@ -0,0 +1,200 @@
+package com.udacity.webcrawler.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Reads the HTML pages of a tar archive, in the ustar format with the GNU and POSIX extensions
+ * for long names.
+ */
+final class TarReader implements ArchiveReader {
+
+  private static final int BLOCK_SIZE = 512;
+
+  /**
+   * The largest extended header that is read. Real ones hold a few names and times.
+   */
+  private static final int MAX_EXTENDED_HEADER_SIZE = 1024 * 1024;
+
+  private final Path archive;
+  private final InputStream in;
+  private final byte[] header = new byte[BLOCK_SIZE];
+  // The name that a GNU or POSIX extended header gave the next entry, or null.
+  private String nextName;
+
+  TarReader(Path archive, InputStream in) {
+    this.archive = archive;
+    this.in = in;
+  }
+
+  @Override
+  public ArchiveEntry next() throws IOException {
+    while (true) {
+      int read = in.readNBytes(header, 0, BLOCK_SIZE);
+      if (read == 0 || (read == BLOCK_SIZE && isZeroBlock(header))) {
+        // The end of the archive, with or without its end marker.
+        return null;
+      }
+      if (read < BLOCK_SIZE) {
+        throw new EOFException("Truncated tar header in " + archive);
+      }
+      long size = parseSize();
+      String name = nextName != null ? nextName : headerName();
+      nextName = null;
+
+      switch (header[156]) {
+        case 'L':
+          byte[] longName = readExtendedHeader(size);
+          nextName = cString(longName, 0, longName.length);
+          continue;
+        case 'x':
+          nextName = paxPath(readExtendedHeader(size));
+          continue;
+        case '0':
+        case '7':
+        case 0:
+          break;
+        default:
+          // Directories, links, devices and global headers hold no pages.
+          skip(size);
+          continue;
+      }
+      String entryName = stripLeadingSlashes(name);
+      if (!ArchiveFormat.isHtmlName(entryName) || size > Integer.MAX_VALUE - BLOCK_SIZE) {
+        skip(size);
+        continue;
+      }
+      byte[] content = in.readNBytes((int) size);
+      if (content.length < size) {
+        throw new EOFException("Truncated tar entry " + entryName + " in " + archive);
+      }
+      in.skipNBytes(padding(size));
+      return new ArchiveEntry(ArchiveUrls.entryUrl(archive, entryName), content);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private String headerName() {
+    String name = cString(header, 0, 100);
+    // Only ustar headers have a prefix field.
+    if (cString(header, 257, 5).equals("ustar")) {
+      String prefix = cString(header, 345, 155);
+      if (!prefix.isEmpty()) {
+        return prefix + "/" + name;
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Returns the size field of the header, which is octal, or base-256 for sizes of 8 GiB and up.
+   */
+  private long parseSize() throws IOException {
+    if ((header[124] & 0x80) != 0) {
+      long size = header[124] & 0x7f;
+      for (int i = 125; i < 136; i++) {
+        if (size > (Long.MAX_VALUE >> 8)) {
+          throw new IOException("Tar entry too large in " + archive);
+        }
+        size = (size << 8) | (header[i] & 0xff);
+      }
+      return size;
+    }
+    long size = 0;
+    for (int i = 124; i < 136; i++) {
+      byte b = header[i];
+      if (b == 0 || b == ' ') {
+        if (size > 0) {
+          break;
+        }
+        continue;
+      }
+      if (b < '0' || b > '7') {
+        throw new IOException("Not a tar archive: " + archive);
+      }
+      size = (size << 3) | (b - '0');
+    }
+    return size;
+  }
+
+  private byte[] readExtendedHeader(long size) throws IOException {
+    if (size > MAX_EXTENDED_HEADER_SIZE) {
+      throw new IOException("Extended tar header too large in " + archive);
+    }
+    byte[] content = in.readNBytes((int) size);
+    if (content.length < size) {
+      throw new EOFException("Truncated tar header in " + archive);
+    }
+    in.skipNBytes(padding(size));
+    return content;
+  }
+
+  private void skip(long size) throws IOException {
+    in.skipNBytes(size + padding(size));
+  }
+
+  /**
+   * Returns the {@code path} of a POSIX extended header, made of records like
+   * {@code "30 path=docs/long-name.html\n"}, or null if it has none.
+   */
+  private static String paxPath(byte[] records) {
+    String path = null;
+    int start = 0;
+    while (start < records.length) {
+      int space = start;
+      int length = 0;
+      while (space < records.length && records[space] >= '0' && records[space] <= '9') {
+        length = length * 10 + (records[space++] - '0');
+      }
+      if (space >= records.length
+          || records[space] != ' '
+          || length <= space - start + 1
+          || start + length > records.length) {
+        break;
+      }
+      // The record ends in a newline, which is not part of the value.
+      String record =
+          new String(records, space + 1, start + length - space - 2, StandardCharsets.UTF_8);
+      if (record.startsWith("path=")) {
+        path = record.substring("path=".length());
+      }
+      start += length;
+    }
+    return path;
+  }
+
+  private static String cString(byte[] bytes, int offset, int maxLength) {
+    int end = offset;
+    while (end < offset + maxLength && bytes[end] != 0) {
+      end++;
+    }
+    return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  private static String stripLeadingSlashes(String name) {
+    while (name.startsWith("./") || name.startsWith("/")) {
+      name = name.substring(name.charAt(0) == '.' ? 2 : 1);
+    }
+    return name;
+  }
+
+  private static long padding(long size) {
+    return (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+  }
+
+  private static boolean isZeroBlock(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
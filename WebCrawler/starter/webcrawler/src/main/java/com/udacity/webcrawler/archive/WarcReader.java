@@ -0,0 +1,193 @@
+package com.udacity.webcrawler.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the HTML pages of a WARC web archive.
+ *
+ * <p>Only {@code response} records of successful HTTP responses with an HTML or other text
+ * content type become pages, the same ones a live crawl would parse. Their chunked transfer
+ * encoding and gzip or deflate content encoding are undone; responses in any other encoding are
+ * skipped.
+ */
+final class WarcReader implements ArchiveReader {
+
+  /**
+   * The longest header line that is read, in bytes.
+   */
+  private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+  private final InputStream in;
+
+  WarcReader(InputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public ArchiveEntry next() throws IOException {
+    while (true) {
+      String version = readLine(in);
+      // Records are separated by blank lines.
+      while (version != null && version.isEmpty()) {
+        version = readLine(in);
+      }
+      if (version == null) {
+        return null;
+      }
+      if (!version.startsWith("WARC/")) {
+        throw new IOException("Not a WARC record: " + version);
+      }
+      Map<String, String> headers = readHeaders(in);
+      long length;
+      try {
+        length = Long.parseLong(headers.getOrDefault("content-length", ""));
+      } catch (NumberFormatException e) {
+        throw new IOException("WARC record without a valid Content-Length", e);
+      }
+
+      String targetUri = headers.getOrDefault("warc-target-uri", "");
+      // Early versions of the format put the URI in angle brackets.
+      if (targetUri.startsWith("<") && targetUri.endsWith(">")) {
+        targetUri = targetUri.substring(1, targetUri.length() - 1);
+      }
+      if (!"response".equals(headers.get("warc-type"))
+          || !headers.getOrDefault("content-type", "").startsWith("application/http")
+          || !(targetUri.startsWith("http://") || targetUri.startsWith("https://"))
+          || length > Integer.MAX_VALUE) {
+        in.skipNBytes(length);
+        continue;
+      }
+      byte[] block = in.readNBytes((int) length);
+      if (block.length < length) {
+        throw new EOFException("Truncated WARC record for " + targetUri);
+      }
+      byte[] content = responseBody(block);
+      if (content != null) {
+        return new ArchiveEntry(targetUri, content);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Returns the decoded body of a recorded HTTP response, or null if it is not a page that a live
+   * crawl would parse.
+   */
+  private static byte[] responseBody(byte[] block) {
+    InputStream response = new ByteArrayInputStream(block);
+    try {
+      String statusLine = readLine(response);
+      String[] status = statusLine == null ? new String[0] : statusLine.split(" ", 3);
+      if (status.length < 2 || !status[0].startsWith("HTTP/") || !status[1].startsWith("2")) {
+        return null;
+      }
+      Map<String, String> headers = readHeaders(response);
+      String contentType = headers.getOrDefault("content-type", "").toLowerCase(Locale.ROOT);
+      if (!contentType.isEmpty()
+          && !contentType.startsWith("text/")
+          && !contentType.matches("application/(\\w+\\+)?xml.*")) {
+        return null;
+      }
+
+      InputStream body = response;
+      if (headers.getOrDefault("transfer-encoding", "").equalsIgnoreCase("chunked")) {
+        body = new ByteArrayInputStream(dechunk(response));
+      }
+      String contentEncoding = headers.getOrDefault("content-encoding", "identity");
+      switch (contentEncoding.toLowerCase(Locale.ROOT)) {
+        case "identity":
+          break;
+        case "gzip":
+        case "x-gzip":
+          body = new GZIPInputStream(body);
+          break;
+        case "deflate":
+          body = new InflaterInputStream(body);
+          break;
+        default:
+          return null;
+      }
+      return body.readAllBytes();
+    } catch (IOException e) {
+      // A damaged recording; the rest of the archive may still be fine.
+      return null;
+    }
+  }
+
+  private static byte[] dechunk(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    while (true) {
+      String line = readLine(in);
+      if (line == null) {
+        throw new EOFException("Truncated chunked body");
+      }
+      int extension = line.indexOf(';');
+      int size;
+      try {
+        size = Integer.parseInt((extension < 0 ? line : line.substring(0, extension)).trim(), 16);
+      } catch (NumberFormatException e) {
+        throw new IOException("Not a chunk size: " + line, e);
+      }
+      if (size == 0) {
+        return out.toByteArray();
+      }
+      byte[] chunk = in.readNBytes(size);
+      if (chunk.length < size) {
+        throw new EOFException("Truncated chunked body");
+      }
+      out.write(chunk);
+      readLine(in);
+    }
+  }
+
+  /**
+   * Reads header lines up to the next blank line, with lower-cased names.
+   */
+  private static Map<String, String> readHeaders(InputStream in) throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    String line;
+    while ((line = readLine(in)) != null && !line.isEmpty()) {
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        headers.putIfAbsent(
+            line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+            line.substring(colon + 1).trim());
+      }
+    }
+    return headers;
+  }
+
+  /**
+   * Reads a line ending in {@code "\n"} or {@code "\r\n"}, without its line ending. Returns null at
+   * the end of the stream.
+   */
+  private static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int b;
+    while ((b = in.read()) >= 0 && b != '\n') {
+      if (line.size() >= MAX_LINE_LENGTH) {
+        throw new IOException("Header line too long");
+      }
+      line.write(b);
+    }
+    if (b < 0 && line.size() == 0) {
+      return null;
+    }
+    String text = line.toString(StandardCharsets.UTF_8);
+    return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+  }
+}
@@ -0,0 +1,99 @@
+package com.udacity.webcrawler.archive;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads single entries of ZIP archives by their entry URLs (see {@link ArchiveUrls}).
+ *
+ * <p>Opening a {@link ZipFile} reads its whole central directory, so each archive is opened once
+ * and kept open until {@link #close()}. Entries are inflated by the threads that read them, so
+ * the pages of one archive are decompressed on as many threads as parse them. Reading an entry
+ * after {@link #close()} opens its archive again.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class ZipArchives implements AutoCloseable {
+
+  private final ConcurrentHashMap<Path, ZipFile> openArchives = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the uncompressed content of the entry that the URL points to.
+   *
+   * @throws IOException if the archive cannot be read, or has no such file entry.
+   */
+  public byte[] read(String entryUrl) throws IOException {
+    ZipFile zip;
+    String name;
+    try {
+      zip = open(ArchiveUrls.archiveOf(entryUrl));
+      name = ArchiveUrls.entryOf(entryUrl);
+    } catch (IllegalArgumentException e) {
+      throw new FileNotFoundException(entryUrl);
+    }
+    ZipEntry entry = zip.getEntry(name);
+    if (entry == null || entry.isDirectory()) {
+      throw new FileNotFoundException(entryUrl);
+    }
+    try (InputStream in = zip.getInputStream(entry)) {
+      return in.readAllBytes();
+    }
+  }
+
+  /**
+   * Returns the entry URLs of the HTML pages in the archive, in the order they are stored.
+   */
+  public List<String> pageUrls(Path archive) throws IOException {
+    ZipFile zip = open(archive);
+    List<String> urls = new ArrayList<>();
+    for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+      ZipEntry entry = entries.nextElement();
+      if (!entry.isDirectory() && ArchiveFormat.isHtmlName(entry.getName())) {
+        urls.add(ArchiveUrls.entryUrl(archive, entry.getName()));
+      }
+    }
+    return urls;
+  }
+
+  private ZipFile open(Path archive) throws IOException {
+    Path key = archive.toAbsolutePath().normalize();
+    ZipFile zip = openArchives.get(key);
+    if (zip != null) {
+      return zip;
+    }
+    ZipFile opened = new ZipFile(key.toFile());
+    zip = openArchives.putIfAbsent(key, opened);
+    if (zip != null) {
+      // Another thread opened it first.
+      opened.close();
+      return zip;
+    }
+    return opened;
+  }
+
+  /**
+   * Closes every archive that is open.
+   */
+  @Override
+  public void close() {
+    for (Path archive : openArchives.keySet()) {
+      ZipFile zip = openArchives.remove(archive);
+      if (zip == null) {
+        continue;
+      }
+      try {
+        zip.close();
+      } catch (IOException e) {
+        // Nothing was written, so nothing can be lost.
+      }
+    }
+  }
+}
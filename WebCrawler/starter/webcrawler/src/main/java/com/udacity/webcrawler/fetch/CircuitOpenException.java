@@ -0,0 +1,14 @@
+package com.udacity.webcrawler.fetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of fetching a page whose host has failed too often lately. See
+ * {@link FetchPolicy}.
+ */
+public final class CircuitOpenException extends IOException {
+
+  CircuitOpenException(String host) {
+    super("Too many recent failures on " + host);
+  }
+}
@@ -0,0 +1,276 @@
+package com.udacity.webcrawler.fetch;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A crawler-owned cache of host name lookups, with a time to live for answers and a shorter one
+ * for failures.
+ *
+ * <p>Hosts are looked up in the background as soon as a link to them is found (see
+ * {@link #prefetch(String)}), so that by the time the page is fetched its host is usually known.
+ * A fetch that needs a host whose lookup is queued or running waits for that lookup rather than
+ * starting another; a fetch whose host recently failed to resolve fails at once.
+ *
+ * <p>Java 17 has no way to plug a resolver into {@link java.net.URLConnection}, so the connection
+ * made for a fetch still asks the JVM's own cache. With {@link HostResolver#SYSTEM}, every lookup
+ * made here also fills that cache, whose entries live for 30 seconds by default.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class DnsCache implements AutoCloseable {
+
+  /**
+   * A cache that does nothing: it keeps no entries, every lookup goes straight to the resolver, and
+   * nothing is prefetched. A fetch does not need to resolve its host through it at all.
+   */
+  public static final DnsCache DISABLED =
+      new DnsCache(HostResolver.SYSTEM, Clock.systemUTC(), Duration.ZERO, Duration.ZERO, 0, false);
+
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+  // How many entries are added between sweeps of the expired ones.
+  static final int SWEEP_INTERVAL = 1024;
+
+  private final HostResolver resolver;
+  private final Clock clock;
+  private final Duration ttl;
+  private final Duration negativeTtl;
+  private final ExecutorService prefetchThreads;
+  private final boolean enabled;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger addedSinceSweep = new AtomicInteger();
+
+  /**
+   * @param ttl             how long the addresses of a host are kept.
+   * @param negativeTtl     how long a failed lookup is kept.
+   * @param prefetchThreads the number of threads that look up hosts in the background, or 0 to
+   *                        only look them up when they are fetched.
+   */
+  public DnsCache(
+      HostResolver resolver,
+      Clock clock,
+      Duration ttl,
+      Duration negativeTtl,
+      int prefetchThreads) {
+    this(resolver, clock, ttl, negativeTtl, prefetchThreads, true);
+  }
+
+  private DnsCache(
+      HostResolver resolver,
+      Clock clock,
+      Duration ttl,
+      Duration negativeTtl,
+      int prefetchThreads,
+      boolean enabled) {
+    this.enabled = enabled;
+    this.resolver = Objects.requireNonNull(resolver);
+    this.clock = Objects.requireNonNull(clock);
+    this.ttl = Objects.requireNonNull(ttl);
+    this.negativeTtl = Objects.requireNonNull(negativeTtl);
+    if (prefetchThreads > 0) {
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              prefetchThreads,
+              prefetchThreads,
+              IDLE_THREAD_TIMEOUT_SECONDS,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              task -> {
+                Thread thread = new Thread(task, "dns-prefetch-" + threadCount.incrementAndGet());
+                // Lookups block in native code; they must not keep the JVM alive.
+                thread.setDaemon(true);
+                return thread;
+              });
+      // Once a crawl stops finding new hosts, its threads go away.
+      executor.allowCoreThreadTimeOut(true);
+      this.prefetchThreads = executor;
+    } else {
+      this.prefetchThreads = null;
+    }
+  }
+
+  /**
+   * Returns the addresses of the host, from the cache if they are there.
+   *
+   * @throws UnknownHostException if the host cannot be resolved, now or within the negative time
+   *                              to live.
+   */
+  public List<InetAddress> resolve(String host) throws UnknownHostException {
+    if (!enabled) {
+      return resolver.resolve(host);
+    }
+    Entry entry = entryFor(host.toLowerCase(Locale.ROOT));
+    // If the lookup is still queued for a prefetch thread, do it here instead of waiting.
+    entry.run();
+    try {
+      return entry.addresses.join();
+    } catch (CompletionException e) {
+      UnknownHostException unknown = new UnknownHostException(host);
+      unknown.initCause(e.getCause());
+      throw unknown;
+    }
+  }
+
+  /**
+   * Starts a background lookup of the host of the {@code http} or {@code https} URL, unless the
+   * cache already has it. Returns at once; other URLs are ignored.
+   */
+  public void prefetch(String url) {
+    if (prefetchThreads == null) {
+      return;
+    }
+    String host = hostOf(url);
+    if (host == null) {
+      return;
+    }
+    Entry entry = entryFor(host);
+    // Most links point to hosts that are already known or queued.
+    if (entry.started.get() || !entry.queued.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      prefetchThreads.execute(entry::run);
+    } catch (RejectedExecutionException e) {
+      // Closed; the fetch will look the host up itself.
+    }
+  }
+
+  /**
+   * Returns false for {@link #DISABLED}, whose lookups are no cheaper than the connection's own.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the number of hosts the cache holds an entry for, including expired ones that have not
+   * been swept yet.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Stops the prefetch threads. Lookups can still be made, on the calling thread.
+   */
+  @Override
+  public void close() {
+    if (prefetchThreads != null) {
+      prefetchThreads.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the live entry for the host, replacing an expired one. Every {@link #SWEEP_INTERVAL}
+   * new entries, the expired entries of other hosts are dropped, so that a long crawl over many
+   * hosts does not keep one for each of them.
+   */
+  private Entry entryFor(String host) {
+    Instant now = clock.instant();
+    while (true) {
+      Entry entry = entries.get(host);
+      if (entry != null && !entry.isExpired(now)) {
+        return entry;
+      }
+      Entry fresh = new Entry(host);
+      boolean installed =
+          entry == null
+              ? entries.putIfAbsent(host, fresh) == null
+              : entries.replace(host, entry, fresh);
+      if (installed) {
+        if (addedSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+          addedSinceSweep.set(0);
+          // Lookups still running never expire, so this only drops answers nobody waits for.
+          entries.values().removeIf(stale -> stale.isExpired(now));
+        }
+        return fresh;
+      }
+      // Another thread replaced it first; use theirs.
+    }
+  }
+
+  /**
+   * Returns the lower-case host of an {@code http} or {@code https} URL, or null if it has none
+   * that needs a lookup. This is a plain scan, since it runs for every link on every page.
+   */
+  static String hostOf(String url) {
+    int start;
+    if (url.regionMatches(true, 0, "http://", 0, 7)) {
+      start = 7;
+    } else if (url.regionMatches(true, 0, "https://", 0, 8)) {
+      start = 8;
+    } else {
+      return null;
+    }
+    int end = start;
+    while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+      end++;
+    }
+    int at = url.lastIndexOf('@', end - 1);
+    if (at >= start) {
+      start = at + 1;
+    }
+    if (start < end && url.charAt(start) == '[') {
+      // An IPv6 literal.
+      return null;
+    }
+    int colon = url.indexOf(':', start);
+    if (colon >= 0 && colon < end) {
+      end = colon;
+    }
+    return start < end ? url.substring(start, end).toLowerCase(Locale.ROOT) : null;
+  }
+
+  /**
+   * One lookup of a host, which is run at most once, by a prefetch thread or by the first fetch
+   * that needs it.
+   */
+  private final class Entry {
+    final String host;
+    final CompletableFuture<List<InetAddress>> addresses = new CompletableFuture<>();
+    final AtomicBoolean started = new AtomicBoolean();
+    final AtomicBoolean queued = new AtomicBoolean();
+    // When the answer stops being valid; Instant.MAX until the lookup is done.
+    volatile Instant expiry = Instant.MAX;
+
+    Entry(String host) {
+      this.host = host;
+    }
+
+    void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        List<InetAddress> result = resolver.resolve(host);
+        expiry = clock.instant().plus(ttl);
+        addresses.complete(result);
+      } catch (UnknownHostException | RuntimeException e) {
+        expiry = clock.instant().plus(negativeTtl);
+        addresses.completeExceptionally(e);
+      }
+    }
+
+    boolean isExpired(Instant now) {
+      return !now.isBefore(expiry);
+    }
+  }
+}
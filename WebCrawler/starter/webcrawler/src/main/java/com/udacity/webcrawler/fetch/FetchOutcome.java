@@ -0,0 +1,131 @@
+package com.udacity.webcrawler.fetch;
+
+import org.jsoup.HttpStatusException;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * How an attempt to fetch a page ended.
+ */
+public enum FetchOutcome {
+
+  /**
+   * The page was fetched.
+   */
+  OK,
+
+  /**
+   * The server answered with a client error, such as 404, which another attempt would repeat.
+   */
+  CLIENT_ERROR,
+
+  /**
+   * The server answered with 500 or another server error that another attempt would most likely
+   * repeat. Counts against the host.
+   */
+  SERVER_ERROR,
+
+  /**
+   * The server answered that it is overloaded or could not reach its upstream (429, 502, 503 or
+   * 504), or that the request took too long (408). Counts against the host, and is retried.
+   */
+  UNAVAILABLE,
+
+  /**
+   * The connection or the response timed out. Counts against the host, and is retried.
+   */
+  TIMEOUT,
+
+  /**
+   * The connection was refused or reset. Counts against the host, and is retried.
+   */
+  CONNECTION_FAILED,
+
+  /**
+   * The host name could not be resolved. Counts against the host.
+   */
+  UNKNOWN_HOST,
+
+  /**
+   * The response was not a page, or was too large (see {@link PageRejectedException}).
+   */
+  NOT_A_PAGE,
+
+  /**
+   * The fetch was not attempted, because the host has failed too often lately.
+   */
+  CIRCUIT_OPEN,
+
+  /**
+   * The fetch failed in some other way.
+   */
+  FAILED;
+
+  /**
+   * Returns true if another attempt might succeed soon.
+   */
+  public boolean isTransient() {
+    return this == UNAVAILABLE || this == TIMEOUT || this == CONNECTION_FAILED;
+  }
+
+  /**
+   * Returns true if the outcome says that the host is in trouble, rather than the page.
+   */
+  public boolean isHostFailure() {
+    return isTransient() || this == SERVER_ERROR || this == UNKNOWN_HOST;
+  }
+
+  /**
+   * Returns the outcome of a fetch that threw the given exception.
+   */
+  public static FetchOutcome of(Throwable failure) {
+    if (failure instanceof HttpStatusException) {
+      return ofStatus(((HttpStatusException) failure).getStatusCode());
+    }
+    if (failure instanceof PageRejectedException) {
+      return NOT_A_PAGE;
+    }
+    if (failure instanceof CircuitOpenException) {
+      return CIRCUIT_OPEN;
+    }
+    if (failure instanceof UnknownHostException) {
+      return UNKNOWN_HOST;
+    }
+    if (failure instanceof SocketTimeoutException) {
+      return TIMEOUT;
+    }
+    if (failure instanceof InterruptedIOException) {
+      return FAILED;
+    }
+    if (failure instanceof ConnectException
+        || failure instanceof NoRouteToHostException
+        || failure instanceof SocketException) {
+      return CONNECTION_FAILED;
+    }
+    return FAILED;
+  }
+
+  /**
+   * Returns the outcome of a response with the given HTTP status code.
+   */
+  static FetchOutcome ofStatus(int status) {
+    if (status < 400) {
+      return OK;
+    }
+    switch (status) {
+      case 408:
+      case 429:
+      case 502:
+      case 503:
+      case 504:
+        return UNAVAILABLE;
+      default:
+        return status < 500 ? CLIENT_ERROR : SERVER_ERROR;
+    }
+  }
+}
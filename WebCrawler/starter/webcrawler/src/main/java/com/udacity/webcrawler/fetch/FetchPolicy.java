@@ -0,0 +1,296 @@
+package com.udacity.webcrawler.fetch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how often, and whether at all, a page is fetched.
+ *
+ * <p>Every attempt is {@linkplain FetchOutcome classified}. Transient failures, such as timeouts
+ * and 503 responses, are retried after a random wait of up to {@code retryBaseDelay * 2^n} (the
+ * "full jitter" backoff), so that pages that failed together do not all retry together. Retries
+ * stop once they would run past the deadline of the fetch. A pool worker waits to retry with
+ * {@link ForkJoinPool#managedBlock}, so that the pool may run other pages in the meantime, and the
+ * {@link Attempt} is told how long the wait is, so that it is not taken for server latency.
+ *
+ * <p>The outcomes are also kept per host, and a host whose recent attempts fail too often has its
+ * circuit opened: its pages then fail at once with a {@link CircuitOpenException} instead of each
+ * waiting out a timeout, until a probe shows that the host is back (see {@link HostHealth}).
+ *
+ * <p>The final outcome of every fetch, and how many attempts it took, is passed to a
+ * {@link Listener}.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class FetchPolicy {
+
+  /**
+   * A policy that fetches every page once, and never turns a host away.
+   */
+  public static final FetchPolicy NONE = new Builder().setMaxRetries(0).disableCircuit().build();
+
+  /**
+   * The backoff stops doubling after this many retries.
+   */
+  private static final int MAX_BACKOFF_DOUBLINGS = 5;
+
+  private final Clock clock;
+  private final int maxRetries;
+  private final Duration retryBaseDelay;
+  private final double circuitFailureRate;
+  private final Duration circuitOpenDuration;
+  private final Listener listener;
+  private final ConcurrentHashMap<String, HostHealth> hosts = new ConcurrentHashMap<>();
+
+  private FetchPolicy(
+      Clock clock,
+      int maxRetries,
+      Duration retryBaseDelay,
+      double circuitFailureRate,
+      Duration circuitOpenDuration,
+      Listener listener) {
+    this.clock = clock;
+    this.maxRetries = maxRetries;
+    this.retryBaseDelay = retryBaseDelay;
+    this.circuitFailureRate = circuitFailureRate;
+    this.circuitOpenDuration = circuitOpenDuration;
+    this.listener = listener;
+  }
+
+  /**
+   * One attempt at a fetch.
+   */
+  @FunctionalInterface
+  public interface Attempt<T> {
+
+    /**
+     * Makes the attempt.
+     *
+     * @param attempt the number of the attempt, starting at 1.
+     */
+    T run(int attempt) throws IOException;
+
+    /**
+     * Called when an attempt failed and is about to be retried, before the policy waits.
+     *
+     * @param wait how long the policy waits before the next attempt.
+     */
+    default void retrying(Duration wait) {
+    }
+  }
+
+  /**
+   * Receives the final outcome of every fetch.
+   */
+  @FunctionalInterface
+  public interface Listener {
+
+    /**
+     * A listener that ignores all outcomes.
+     */
+    Listener NONE = (url, outcome, attempts) -> {
+    };
+
+    /**
+     * Called once per fetch.
+     *
+     * @param attempts how many attempts were made, which is 0 if the circuit of the host was open.
+     */
+    void record(String url, FetchOutcome outcome, int attempts);
+  }
+
+  /**
+   * Fetches a page, retrying transient failures until the deadline.
+   *
+   * @param url      the URL of the page, which is passed to the {@link Listener}.
+   * @param host     the host of the page, or null if it has none; its circuit breaker is skipped.
+   * @param deadline no retry is started that could not be waited for before this instant.
+   * @param attempt  makes one attempt at the fetch.
+   * @return the result of the first successful attempt.
+   * @throws CircuitOpenException  if the host has failed too often lately.
+   * @throws InterruptedIOException if the thread was interrupted while waiting to retry. Its
+   *                                interrupt status is set again.
+   * @throws IOException           from the last attempt, if none succeeded.
+   */
+  public <T> T fetch(String url, String host, Instant deadline, Attempt<T> attempt)
+      throws IOException {
+    HostHealth health = host == null ? null : healthOf(host);
+    if (health != null && !health.allow(clock.instant())) {
+      listener.record(url, FetchOutcome.CIRCUIT_OPEN, 0);
+      throw new CircuitOpenException(host);
+    }
+    for (int attempts = 1; ; attempts++) {
+      FetchOutcome outcome;
+      try {
+        T result = attempt.run(attempts);
+        record(health, FetchOutcome.OK);
+        listener.record(url, FetchOutcome.OK, attempts);
+        return result;
+      } catch (IOException | RuntimeException e) {
+        outcome = FetchOutcome.of(e);
+        record(health, outcome);
+        Duration backoff = outcome.isTransient() ? backoff(attempts) : null;
+        if (backoff == null
+            || attempts > maxRetries
+            || clock.instant().plus(backoff).isAfter(deadline)
+            || (health != null && health.isOpen(clock.instant()))) {
+          listener.record(url, outcome, attempts);
+          throw e;
+        }
+        attempt.retrying(backoff);
+        try {
+          sleep(backoff);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          listener.record(url, outcome, attempts);
+          InterruptedIOException stopped = new InterruptedIOException("Interrupted before retry");
+          stopped.addSuppressed(e);
+          throw stopped;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns true if the circuit of the host is open, so that its pages are not fetched.
+   */
+  public boolean isOpen(String host) {
+    HostHealth health = hosts.get(host.toLowerCase(Locale.ROOT));
+    return health != null && health.isOpen(clock.instant());
+  }
+
+  private HostHealth healthOf(String host) {
+    if (circuitFailureRate == 0) {
+      return null;
+    }
+    return hosts.computeIfAbsent(
+        host.toLowerCase(Locale.ROOT),
+        h -> new HostHealth(circuitFailureRate, circuitOpenDuration));
+  }
+
+  private void record(HostHealth health, FetchOutcome outcome) {
+    if (health != null) {
+      health.record(outcome, clock.instant());
+    }
+  }
+
+  /**
+   * Sleeps for the given time. A pool worker tells the pool that it is blocked.
+   */
+  private static void sleep(Duration wait) throws InterruptedException {
+    long end = System.nanoTime() + wait.toNanos();
+    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+      @Override
+      public boolean block() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(end - System.nanoTime());
+        return true;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        return System.nanoTime() - end >= 0;
+      }
+    });
+  }
+
+  /**
+   * Returns a random wait before retry number {@code retry}, which starts at 1.
+   */
+  private Duration backoff(int retry) {
+    long ceiling = retryBaseDelay.toMillis() << Math.min(retry - 1, MAX_BACKOFF_DOUBLINGS);
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  /**
+   * A builder class for {@link FetchPolicy}.
+   */
+  public static final class Builder {
+    private Clock clock = Clock.systemUTC();
+    private int maxRetries = 2;
+    private Duration retryBaseDelay = Duration.ofMillis(100);
+    private double circuitFailureRate = 0.5;
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    private Listener listener = Listener.NONE;
+
+    /**
+     * Sets the clock that deadlines and circuit timeouts are measured with.
+     */
+    public Builder setClock(Clock clock) {
+      this.clock = Objects.requireNonNull(clock);
+      return this;
+    }
+
+    /**
+     * Sets how many times a transiently failed fetch is retried, or 0 to never retry. Defaults to
+     * 2.
+     */
+    public Builder setMaxRetries(int maxRetries) {
+      if (maxRetries < 0) {
+        throw new IllegalArgumentException("maxRetries cannot be negative");
+      }
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * Sets the longest wait before the first retry, which doubles for each retry after it.
+     * Defaults to 100 milliseconds.
+     */
+    public Builder setRetryBaseDelay(Duration retryBaseDelay) {
+      if (retryBaseDelay.isNegative()) {
+        throw new IllegalArgumentException("retryBaseDelay cannot be negative");
+      }
+      this.retryBaseDelay = retryBaseDelay;
+      return this;
+    }
+
+    /**
+     * Sets the share of the recent attempts on a host, from 0 to 1, that have to fail before its
+     * circuit opens, and how long it then stays open. Default to 0.5 and 30 seconds.
+     */
+    public Builder setCircuit(double failureRate, Duration openDuration) {
+      if (!(failureRate > 0 && failureRate <= 1)) {
+        throw new IllegalArgumentException("failureRate must be above 0 and at most 1");
+      }
+      if (openDuration.isNegative()) {
+        throw new IllegalArgumentException("openDuration cannot be negative");
+      }
+      this.circuitFailureRate = failureRate;
+      this.circuitOpenDuration = openDuration;
+      return this;
+    }
+
+    /**
+     * Never opens the circuit of a host, however often it fails.
+     */
+    public Builder disableCircuit() {
+      this.circuitFailureRate = 0;
+      return this;
+    }
+
+    /**
+     * Sets the listener that receives the outcome of every fetch.
+     */
+    public Builder setListener(Listener listener) {
+      this.listener = Objects.requireNonNull(listener);
+      return this;
+    }
+
+    /**
+     * Builds a {@link FetchPolicy} from this {@link Builder}.
+     */
+    public FetchPolicy build() {
+      return new FetchPolicy(
+          clock, maxRetries, retryBaseDelay, circuitFailureRate, circuitOpenDuration, listener);
+    }
+  }
+}
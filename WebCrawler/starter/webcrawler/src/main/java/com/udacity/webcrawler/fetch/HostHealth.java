@@ -0,0 +1,111 @@
+package com.udacity.webcrawler.fetch;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The recent fetch outcomes of one host, and the circuit breaker they drive.
+ *
+ * <p>The breaker is closed while fewer than {@code failureRate} of the last {@link #WINDOW}
+ * attempts failed, or there have been fewer than {@link #MIN_ATTEMPTS} of them. Once it opens,
+ * fetches fail at once for {@code openDuration}. After that a single probe fetch is let through:
+ * if the host answers, the breaker closes and its history is forgotten, and if not, it opens
+ * again.
+ *
+ * <p>This class is thread-safe.
+ */
+final class HostHealth {
+
+  /**
+   * The number of most recent attempts that the failure rate is computed over.
+   */
+  static final int WINDOW = 20;
+
+  /**
+   * The number of attempts needed before the breaker can open, so that one early failure does not
+   * shut out a host.
+   */
+  static final int MIN_ATTEMPTS = 5;
+
+  private final double failureRate;
+  private final Duration openDuration;
+
+  // A ring of the last WINDOW attempts, true for failures.
+  private final boolean[] failed = new boolean[WINDOW];
+  private int next;
+  private int attempts;
+  private int failures;
+  // While open: when the next probe may go through. Null while closed.
+  private Instant openUntil;
+  private boolean probing;
+
+  HostHealth(double failureRate, Duration openDuration) {
+    this.failureRate = failureRate;
+    this.openDuration = openDuration;
+  }
+
+  /**
+   * Returns true if a fetch may go to the host now. While the breaker is open, this lets one probe
+   * through once {@code openDuration} has passed.
+   */
+  synchronized boolean allow(Instant now) {
+    if (openUntil == null) {
+      return true;
+    }
+    if (now.isBefore(openUntil)) {
+      return false;
+    }
+    // A probe that never reported back stops blocking the next one after the same wait.
+    openUntil = now.plus(openDuration);
+    probing = true;
+    return true;
+  }
+
+  /**
+   * Records how an attempt ended. Outcomes that say nothing about the host are ignored.
+   */
+  synchronized void record(FetchOutcome outcome, Instant now) {
+    if (outcome == FetchOutcome.CIRCUIT_OPEN || outcome == FetchOutcome.FAILED) {
+      return;
+    }
+    boolean failure = outcome.isHostFailure();
+    if (probing) {
+      probing = false;
+      if (failure) {
+        openUntil = now.plus(openDuration);
+      } else {
+        openUntil = null;
+        next = 0;
+        attempts = 0;
+        failures = 0;
+      }
+      return;
+    }
+    if (openUntil != null) {
+      // A fetch that started before the breaker opened.
+      return;
+    }
+    if (attempts == WINDOW) {
+      if (failed[next]) {
+        failures--;
+      }
+    } else {
+      attempts++;
+    }
+    failed[next] = failure;
+    if (failure) {
+      failures++;
+    }
+    next = (next + 1) % WINDOW;
+    if (attempts >= MIN_ATTEMPTS && failures >= failureRate * attempts) {
+      openUntil = now.plus(openDuration);
+    }
+  }
+
+  /**
+   * Returns true if fetches to the host are being turned away.
+   */
+  synchronized boolean isOpen(Instant now) {
+    return openUntil != null && now.isBefore(openUntil);
+  }
+}
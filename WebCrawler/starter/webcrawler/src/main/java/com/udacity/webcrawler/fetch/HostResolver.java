@@ -0,0 +1,28 @@
+package com.udacity.webcrawler.fetch;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Looks up the addresses of a host name.
+ *
+ * <p>The crawler only resolves hosts through the {@link DnsCache}, which decides how long answers
+ * are kept. Tests can hand the cache a fake resolver instead of {@link #SYSTEM}.
+ */
+@FunctionalInterface
+public interface HostResolver {
+
+  /**
+   * Resolves hosts with {@link InetAddress#getAllByName(String)}, which also leaves the answer in
+   * the JVM's own cache, where the connection made for the fetch finds it.
+   */
+  HostResolver SYSTEM = host -> List.of(InetAddress.getAllByName(host));
+
+  /**
+   * Returns the addresses of the host, which are never empty.
+   *
+   * @throws UnknownHostException if the host has no addresses, or the lookup failed.
+   */
+  List<InetAddress> resolve(String host) throws UnknownHostException;
+}
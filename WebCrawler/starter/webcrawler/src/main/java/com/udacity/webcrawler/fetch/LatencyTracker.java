@@ -0,0 +1,82 @@
+package com.udacity.webcrawler.fetch;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latencies of the most recent successful fetches of each host, and estimates their
+ * quantiles.
+ *
+ * <p>Only the last {@link #SAMPLES} latencies of a host are kept, so the estimates follow a host
+ * that speeds up or slows down during a crawl, and memory use does not grow with the number of
+ * pages. No estimate is made until a host has {@link #MIN_SAMPLES} of them.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class LatencyTracker {
+
+  /**
+   * The number of most recent latencies kept per host.
+   */
+  static final int SAMPLES = 128;
+
+  /**
+   * The number of latencies a host needs before its quantiles are estimated.
+   */
+  static final int MIN_SAMPLES = 20;
+
+  private final Map<String, Samples> hosts = new ConcurrentHashMap<>();
+
+  /**
+   * Records how long a successful fetch from the host took.
+   */
+  public void record(String host, Duration latency) {
+    hosts
+        .computeIfAbsent(host.toLowerCase(Locale.ROOT), h -> new Samples())
+        .add(latency.toNanos());
+  }
+
+  /**
+   * Returns the estimated {@code q} quantile of the latency of the host, such as 0.95 for the 95th
+   * percentile, or null if too few of its fetches have been recorded.
+   */
+  public Duration quantile(String host, double q) {
+    if (!(q >= 0 && q <= 1)) {
+      throw new IllegalArgumentException("q must be between 0 and 1");
+    }
+    Samples samples = hosts.get(host.toLowerCase(Locale.ROOT));
+    return samples == null ? null : samples.quantile(q);
+  }
+
+  /**
+   * A ring of the latest latencies of one host, in nanoseconds. Guarded by its own monitor.
+   */
+  private static final class Samples {
+    private final long[] nanos = new long[SAMPLES];
+    private int next;
+    private int count;
+
+    synchronized void add(long latency) {
+      nanos[next] = latency;
+      next = (next + 1) % SAMPLES;
+      count = Math.min(count + 1, SAMPLES);
+    }
+
+    Duration quantile(double q) {
+      long[] sorted;
+      synchronized (this) {
+        if (count < MIN_SAMPLES) {
+          return null;
+        }
+        sorted = Arrays.copyOf(nanos, count);
+      }
+      // The array is small, so sorting a copy is cheaper than keeping a sketch up to date.
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(q * sorted.length) - 1;
+      return Duration.ofNanos(sorted[Math.max(0, index)]);
+    }
+  }
+}
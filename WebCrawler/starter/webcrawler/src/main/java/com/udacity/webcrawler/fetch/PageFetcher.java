@@ -0,0 +1,488 @@
+package com.udacity.webcrawler.fetch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches remote pages under a {@link FetchPolicy}, and keeps the latency of every host in a
+ * {@link LatencyTracker}.
+ *
+ * <p>With a hedge budget, fetches can also be hedged: once a request to a host has taken longer
+ * than {@link #HEDGE_QUANTILE 95%} of its recent fetches, a second, identical request is sent,
+ * and whichever answers first is used. The slow tail of a host is then cut to about twice its
+ * usual latency, at the cost of a few percent more requests. The budget caps how many hedge
+ * requests may be outstanding at once, so that a host that is slow for everyone does not get its
+ * load doubled.
+ *
+ * <p>Each request is given its own timeout. It is never longer than the time the fetch has left
+ * before its deadline when the request is sent, so a request cannot outlive the crawl; hedges are
+ * not sent at all once less than a millisecond is left. With an adaptive timeout factor,
+ * it is also cut to that many times the {@link #TIMEOUT_QUANTILE 99th percentile} latency of the
+ * host, but no shorter than a minimum. A stuck request to a fast host then gives up after
+ * seconds rather than holding a worker for the whole crawl, while slow hosts keep the time they
+ * need. Requests that time out are passed to a {@link TimeoutListener}.
+ *
+ * <p>A hedged fetch runs its requests on threads of its own, so the request must be safe to send
+ * twice at once. The request that loses is not stopped, since a blocking socket read cannot be
+ * interrupted; it runs until it finishes or times out, and its result is dropped.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class PageFetcher {
+
+  /**
+   * A fetcher that makes every fetch once, and never hedges.
+   */
+  public static final PageFetcher NONE = new Builder().setFetchPolicy(FetchPolicy.NONE).build();
+
+  /**
+   * The quantile of the latency of a host after which a fetch is hedged.
+   */
+  public static final double HEDGE_QUANTILE = 0.95;
+
+  /**
+   * The quantile of the latency of a host that adaptive timeouts are a multiple of.
+   */
+  public static final double TIMEOUT_QUANTILE = 0.99;
+
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+  private final Clock clock;
+  private final FetchPolicy fetchPolicy;
+  private final LatencyTracker latencies;
+  private final Semaphore hedgeBudget;
+  private final HedgeListener hedgeListener;
+  private final double timeoutFactor;
+  private final Duration minTimeout;
+  private final TimeoutListener timeoutListener;
+  private final Executor requestThreads;
+
+  private PageFetcher(
+      Clock clock,
+      FetchPolicy fetchPolicy,
+      LatencyTracker latencies,
+      int hedgeBudget,
+      HedgeListener hedgeListener,
+      double timeoutFactor,
+      Duration minTimeout,
+      TimeoutListener timeoutListener) {
+    this.clock = clock;
+    this.fetchPolicy = fetchPolicy;
+    this.latencies = latencies;
+    this.hedgeListener = hedgeListener;
+    this.timeoutFactor = timeoutFactor;
+    this.minTimeout = minTimeout;
+    this.timeoutListener = timeoutListener;
+    if (hedgeBudget > 0) {
+      this.hedgeBudget = new Semaphore(hedgeBudget);
+      AtomicInteger threadCount = new AtomicInteger();
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              0,
+              Integer.MAX_VALUE,
+              IDLE_THREAD_TIMEOUT_SECONDS,
+              TimeUnit.SECONDS,
+              new SynchronousQueue<>(),
+              task -> {
+                Thread thread = new Thread(task, "page-fetch-" + threadCount.incrementAndGet());
+                // A losing request may still be reading; it must not keep the JVM alive.
+                thread.setDaemon(true);
+                return thread;
+              });
+      this.requestThreads = executor;
+    } else {
+      this.hedgeBudget = null;
+      this.requestThreads = null;
+    }
+  }
+
+  /**
+   * One request for a page.
+   */
+  @FunctionalInterface
+  public interface Request<T> {
+
+    /**
+     * Sends the request, and reads the response.
+     *
+     * @param attempt the number of the attempt, starting at 1.
+     * @param timeout how long the request may wait to connect, and for each read.
+     */
+    T send(int attempt, Duration timeout) throws IOException;
+
+    /**
+     * Called when a request failed and is about to be retried. See
+     * {@link FetchPolicy.Attempt#retrying(Duration)}.
+     */
+    default void retrying(Duration wait) {
+    }
+  }
+
+  /**
+   * Receives the result of every hedge request that was sent.
+   */
+  @FunctionalInterface
+  public interface HedgeListener {
+
+    /**
+     * A listener that ignores all hedges.
+     */
+    HedgeListener NONE = (url, won) -> {
+    };
+
+    /**
+     * Called once per hedged fetch, when it is done.
+     *
+     * @param won true if the page came from the hedge request, rather than the first one.
+     */
+    void record(String url, boolean won);
+  }
+
+  /**
+   * Receives every request that timed out.
+   */
+  @FunctionalInterface
+  public interface TimeoutListener {
+
+    /**
+     * A listener that ignores all timeouts.
+     */
+    TimeoutListener NONE = (url, timeout, adaptive) -> {
+    };
+
+    /**
+     * Called once per request that timed out, including hedge requests and retries.
+     *
+     * @param timeout  the timeout of the request.
+     * @param adaptive true if the timeout was cut short because the host is usually faster.
+     */
+    void record(String url, Duration timeout, boolean adaptive);
+  }
+
+  /**
+   * Fetches a page. Each attempt made by the {@link FetchPolicy} may be hedged.
+   *
+   * @param url      the URL of the page.
+   * @param host     the host of the page, or null if it has none; it is then never hedged, and
+   *                 its timeout is never adapted.
+   * @param timeout  the most time the fetch may take, retries included.
+   * @param deadline the fetch is cut short at this instant, even if it has time left.
+   * @param request  sends one request for the page.
+   * @return the result of the first successful request.
+   * @throws IOException from the {@link FetchPolicy}, if every attempt failed.
+   */
+  public <T> T fetch(
+      String url, String host, Duration timeout, Instant deadline, Request<T> request)
+      throws IOException {
+    Instant end = clock.instant().plus(timeout);
+    if (deadline.isBefore(end)) {
+      end = deadline;
+    }
+    Instant fetchDeadline = end;
+    return fetchPolicy.fetch(url, host, fetchDeadline, new FetchPolicy.Attempt<>() {
+      @Override
+      public T run(int n) throws IOException {
+        return attempt(url, host, n, fetchDeadline, request);
+      }
+
+      @Override
+      public void retrying(Duration wait) {
+        request.retrying(wait);
+      }
+    });
+  }
+
+  private <T> T attempt(String url, String host, int n, Instant deadline, Request<T> request)
+      throws IOException {
+    Duration left = Duration.between(clock.instant(), deadline);
+    // Jsoup and URLConnection take a timeout of 0 to mean none at all.
+    if (left.toMillis() < 1) {
+      throw new SocketTimeoutException("No time left to fetch " + url);
+    }
+    Duration timeout = left;
+    boolean adaptive = false;
+    Duration usual =
+        timeoutFactor == 0 || host == null ? null : latencies.quantile(host, TIMEOUT_QUANTILE);
+    if (usual != null) {
+      Duration adapted =
+          max(minTimeout, Duration.ofNanos((long) (usual.toNanos() * timeoutFactor)));
+      if (adapted.compareTo(left) < 0) {
+        timeout = adapted;
+        adaptive = true;
+      }
+    }
+    TimedRequest<T> timed = new TimedRequest<>(url, host, n, timeout, adaptive, request);
+    Duration hedgeAfter =
+        hedgeBudget == null || host == null ? null : latencies.quantile(host, HEDGE_QUANTILE);
+    if (hedgeAfter == null) {
+      return timed.send();
+    }
+    return hedged(url, timed, hedgeAfter, deadline);
+  }
+
+  private <T> T hedged(
+      String url, TimedRequest<T> attempt, Duration hedgeAfter, Instant deadline)
+      throws IOException {
+    CompletableFuture<T> primary = attempt.sendAsync();
+    try {
+      try {
+        return primary.get(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        // Slower than usual for the host: hedge, if the budget allows.
+      }
+      // The hedge is sent later than the first request, so it has less time left.
+      Duration left = Duration.between(clock.instant(), deadline);
+      if (left.toMillis() < 1 || !hedgeBudget.tryAcquire()) {
+        return primary.get();
+      }
+      CompletableFuture<T> hedge = attempt.withTimeoutAtMost(left).sendAsync();
+      // The budget counts hedges until they finish, including those that lost.
+      hedge.whenComplete((result, error) -> hedgeBudget.release());
+      Race<T> race = new Race<>(primary, hedge);
+      T result = race.winner.get();
+      hedgeListener.record(url, race.hedgeWon);
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching " + url);
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  private static Duration max(Duration a, Duration b) {
+    return a.compareTo(b) >= 0 ? a : b;
+  }
+
+  /**
+   * Unwraps the error of a request, so that the {@link FetchPolicy} can classify it.
+   */
+  private static IOException unwrap(Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error instanceof UncheckedIOException) {
+      return ((UncheckedIOException) error).getCause();
+    }
+    if (error instanceof IOException) {
+      return (IOException) error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    return new IOException(error);
+  }
+
+  /**
+   * One attempt at a fetch, whose requests are timed and whose timeouts are reported.
+   */
+  private final class TimedRequest<T> {
+    private final String url;
+    private final String host;
+    private final int n;
+    private final Duration timeout;
+    private final boolean adaptive;
+    private final Request<T> request;
+
+    TimedRequest(
+        String url, String host, int n, Duration timeout, boolean adaptive, Request<T> request) {
+      this.url = url;
+      this.host = host;
+      this.n = n;
+      this.timeout = timeout;
+      this.adaptive = adaptive;
+      this.request = request;
+    }
+
+    /**
+     * Returns this attempt with its timeout cut to the given one, if that is shorter.
+     */
+    TimedRequest<T> withTimeoutAtMost(Duration limit) {
+      if (timeout.compareTo(limit) <= 0) {
+        return this;
+      }
+      return new TimedRequest<>(url, host, n, limit, false, request);
+    }
+
+    T send() throws IOException {
+      Instant start = clock.instant();
+      T result;
+      try {
+        result = request.send(n, timeout);
+      } catch (SocketTimeoutException e) {
+        timeoutListener.record(url, timeout, adaptive);
+        throw e;
+      }
+      if (host != null) {
+        latencies.record(host, Duration.between(start, clock.instant()));
+      }
+      return result;
+    }
+
+    /**
+     * Sends the request on a request thread.
+     */
+    CompletableFuture<T> sendAsync() {
+      return CompletableFuture.supplyAsync(
+          () -> {
+            try {
+              return send();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          },
+          requestThreads);
+    }
+  }
+
+  /**
+   * The first request and its hedge. The winner is the first of them to succeed, or the error of
+   * the first request if both fail.
+   */
+  private static final class Race<T> {
+    final CompletableFuture<T> winner = new CompletableFuture<>();
+    // Written before the winner completes, so read after it completes.
+    volatile boolean hedgeWon;
+    private int failures;
+    private Throwable primaryError;
+
+    Race(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+      primary.whenComplete((result, error) -> finish(result, error, false));
+      hedge.whenComplete((result, error) -> finish(result, error, true));
+    }
+
+    private synchronized void finish(T result, Throwable error, boolean fromHedge) {
+      if (error == null) {
+        if (!winner.isDone()) {
+          hedgeWon = fromHedge;
+          winner.complete(result);
+        }
+        return;
+      }
+      if (!fromHedge) {
+        primaryError = error;
+      }
+      if (++failures == 2) {
+        winner.completeExceptionally(primaryError);
+      }
+    }
+  }
+
+  /**
+   * A builder class for {@link PageFetcher}.
+   */
+  public static final class Builder {
+    private Clock clock = Clock.systemUTC();
+    private FetchPolicy fetchPolicy = new FetchPolicy.Builder().build();
+    private LatencyTracker latencies = new LatencyTracker();
+    private int hedgeBudget = 0;
+    private HedgeListener hedgeListener = HedgeListener.NONE;
+    private double timeoutFactor = 0;
+    private Duration minTimeout = Duration.ofSeconds(1);
+    private TimeoutListener timeoutListener = TimeoutListener.NONE;
+
+    /**
+     * Sets the clock that latencies and deadlines are measured with.
+     */
+    public Builder setClock(Clock clock) {
+      this.clock = Objects.requireNonNull(clock);
+      return this;
+    }
+
+    /**
+     * Sets the policy that retries the fetches. Defaults to a {@link FetchPolicy} with the default
+     * settings.
+     */
+    public Builder setFetchPolicy(FetchPolicy fetchPolicy) {
+      this.fetchPolicy = Objects.requireNonNull(fetchPolicy);
+      return this;
+    }
+
+    /**
+     * Sets where the latencies of the hosts are kept.
+     */
+    public Builder setLatencyTracker(LatencyTracker latencies) {
+      this.latencies = Objects.requireNonNull(latencies);
+      return this;
+    }
+
+    /**
+     * Sets the most hedge requests that may be outstanding at once, or 0 to never hedge. Defaults
+     * to 0.
+     */
+    public Builder setHedgeBudget(int hedgeBudget) {
+      if (hedgeBudget < 0) {
+        throw new IllegalArgumentException("hedgeBudget cannot be negative");
+      }
+      this.hedgeBudget = hedgeBudget;
+      return this;
+    }
+
+    /**
+     * Sets the listener that learns which request of each hedged fetch won.
+     */
+    public Builder setHedgeListener(HedgeListener hedgeListener) {
+      this.hedgeListener = Objects.requireNonNull(hedgeListener);
+      return this;
+    }
+
+    /**
+     * Sets the multiple of the {@link #TIMEOUT_QUANTILE 99th percentile} latency of a host that a
+     * request to it may take, or 0 to give every request all the time its fetch has left, and the
+     * shortest timeout that is ever used. Default to 0 and 1 second.
+     */
+    public Builder setAdaptiveTimeout(double timeoutFactor, Duration minTimeout) {
+      if (timeoutFactor != 0 && !(timeoutFactor >= 1)) {
+        throw new IllegalArgumentException("timeoutFactor must be 0 or at least 1");
+      }
+      if (minTimeout.toMillis() < 1) {
+        throw new IllegalArgumentException("minTimeout must be at least 1 millisecond");
+      }
+      this.timeoutFactor = timeoutFactor;
+      this.minTimeout = minTimeout;
+      return this;
+    }
+
+    /**
+     * Sets the listener that receives every request that timed out.
+     */
+    public Builder setTimeoutListener(TimeoutListener timeoutListener) {
+      this.timeoutListener = Objects.requireNonNull(timeoutListener);
+      return this;
+    }
+
+    /**
+     * Builds a {@link PageFetcher} from this {@link Builder}.
+     */
+    public PageFetcher build() {
+      return new PageFetcher(
+          clock,
+          fetchPolicy,
+          latencies,
+          hedgeBudget,
+          hedgeListener,
+          timeoutFactor,
+          minTimeout,
+          timeoutListener);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.udacity.webcrawler.fetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a response turns out not to be a page worth parsing, such as an image or a body
+ * larger than the crawler reads. The host is fine, so this does not count against it.
+ */
+public final class PageRejectedException extends IOException {
+
+  public PageRejectedException(String message) {
+    super(message);
+  }
+}
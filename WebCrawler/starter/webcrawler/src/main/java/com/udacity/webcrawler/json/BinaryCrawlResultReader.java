@@ -0,0 +1,138 @@
+package com.udacity.webcrawler.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Reads a {@link CrawlResult} written in the {@link ResultFormat#BINARY} format.
+ *
+ * <p>Files are memory-mapped, and words are decoded straight from the mapped buffer on demand, so
+ * callers that only need a few words (for example the top of a result that is sorted by count)
+ * never copy or decode the rest of the file.
+ */
+public final class BinaryCrawlResultReader {
+
+  private final ByteBuffer buffer;
+  private final int urlsVisited;
+  private final int duplicatesSkipped;
+  private final int size;
+  private final int wordTableStart;
+  private final int countsStart;
+
+  /**
+   * Creates a reader over the given buffer, which must contain exactly one binary crawl result
+   * starting at its current position.
+   *
+   * @throws IllegalArgumentException if the buffer does not start with a binary crawl result.
+   */
+  public BinaryCrawlResultReader(ByteBuffer buffer) {
+    this.buffer = Objects.requireNonNull(buffer).slice().order(ByteOrder.BIG_ENDIAN);
+    byte[] magic = new byte[BinaryResultLayout.MAGIC.length];
+    if (this.buffer.remaining() < BinaryResultLayout.HEADER_SIZE) {
+      throw new IllegalArgumentException("Not a binary crawl result: too short");
+    }
+    this.buffer.get(0, magic);
+    if (!Arrays.equals(magic, BinaryResultLayout.MAGIC)) {
+      throw new IllegalArgumentException("Not a binary crawl result: bad magic number");
+    }
+    int version = this.buffer.getInt(4);
+    if (version != BinaryResultLayout.VERSION) {
+      throw new IllegalArgumentException("Unsupported binary crawl result version " + version);
+    }
+    this.urlsVisited = this.buffer.getInt(8);
+    this.duplicatesSkipped = this.buffer.getInt(12);
+    this.size = this.buffer.getInt(16);
+    this.wordTableStart = BinaryResultLayout.HEADER_SIZE + 4 * (size + 1);
+    this.countsStart = wordTableStart + offset(size);
+  }
+
+  /**
+   * Memory-maps the binary crawl result at the given path.
+   */
+  public static BinaryCrawlResultReader open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed.
+      return new BinaryCrawlResultReader(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Returns the number of distinct URLs visited. See {@link CrawlResult#getUrlsVisited()}.
+   */
+  public int getUrlsVisited() {
+    return urlsVisited;
+  }
+
+  /**
+   * Returns the number of pages skipped as near-duplicates. See
+   * {@link CrawlResult#getDuplicatesSkipped()}.
+   */
+  public int getDuplicatesSkipped() {
+    return duplicatesSkipped;
+  }
+
+  /**
+   * Returns the number of words in the result.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the word at the given position, decoding only that word.
+   */
+  public String word(int index) {
+    Objects.checkIndex(index, size);
+    int start = wordTableStart + offset(index);
+    int length = offset(index + 1) - offset(index);
+    byte[] bytes = new byte[length];
+    buffer.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Passes every word and its count to the given consumer, in result order.
+   */
+  public void forEach(ObjIntConsumer<String> consumer) {
+    int position = countsStart;
+    for (int i = 0; i < size; i++) {
+      int count = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get(position++);
+        count |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      consumer.accept(word(i), count);
+    }
+  }
+
+  /**
+   * Decodes the whole file into a {@link CrawlResult} with the same word order.
+   */
+  public CrawlResult toCrawlResult() {
+    Map<String, Integer> wordCounts = new LinkedHashMap<>();
+    forEach(wordCounts::put);
+    return new CrawlResult.Builder()
+        .setWordCounts(wordCounts)
+        .setUrlsVisited(urlsVisited)
+        .setDuplicatesSkipped(duplicatesSkipped)
+        .build();
+  }
+
+  private int offset(int index) {
+    return buffer.getInt(BinaryResultLayout.HEADER_SIZE + 4 * index);
+  }
+}
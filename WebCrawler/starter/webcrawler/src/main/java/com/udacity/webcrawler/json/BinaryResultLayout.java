@@ -0,0 +1,36 @@
+package com.udacity.webcrawler.json;
+
+/**
+ * Constants that describe the {@link ResultFormat#BINARY} file layout, shared by the writer and
+ * the reader.
+ *
+ * <p>All fixed-width integers are big-endian. The layout is:
+ *
+ * <pre>
+ *   offset 0             magic "WCRB"
+ *   offset 4             int32 version
+ *   offset 8             int32 urlsVisited
+ *   offset 12            int32 duplicatesSkipped
+ *   offset 16            int32 N, the number of words
+ *   offset 20            int32[N + 1] start offsets of each word in the word table, followed by
+ *                        the length of the word table
+ *   offset 24 + 4N       word table: the UTF-8 bytes of all N words, back to back
+ *   after the word table N unsigned LEB128 varint counts, one per word, in the same order
+ * </pre>
+ *
+ * <p>Words and counts appear in the same order as in {@link CrawlResult#getWordCounts()}, so the
+ * word table doubles as the dictionary for the counts. The fixed-width offset table gives random
+ * access to any word straight out of a memory-mapped file.
+ *
+ * <p>Version 1 had no {@code duplicatesSkipped}; files in that version are no longer read.
+ */
+final class BinaryResultLayout {
+
+  static final byte[] MAGIC = {'W', 'C', 'R', 'B'};
+  static final int VERSION = 2;
+  static final int HEADER_SIZE = 20;
+
+  private BinaryResultLayout() {
+    // This class cannot be instantiated
+  }
+}
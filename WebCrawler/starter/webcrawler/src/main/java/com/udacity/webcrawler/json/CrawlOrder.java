@@ -0,0 +1,31 @@
+package com.udacity.webcrawler.json;
+
+import java.util.Locale;
+
+/**
+ * The orders in which a crawler can visit the links it finds.
+ */
+public enum CrawlOrder {
+
+  /**
+   * Follows each link as soon as it is found, so the crawl goes deep along the first links of
+   * every page before it looks at the rest.
+   */
+  DEPTH_FIRST,
+
+  /**
+   * Keeps every link found so far in a frontier and always visits the best-scoring one next. See
+   * {@link com.udacity.webcrawler.LinkScorer}.
+   */
+  BEST_FIRST;
+
+  /**
+   * Parses an order name as used in the crawler configuration JSON, such as
+   * {@code "best-first"}, ignoring case.
+   *
+   * @throws IllegalArgumentException if the name is not a known order.
+   */
+  public static CrawlOrder fromName(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+  }
+}
@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.json;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -12,13 +14,19 @@ public final class CrawlResult {
 
   private final Map<String, Integer> wordCounts;
   private final int urlsVisited;
+  // Left out of the JSON when zero, so crawls that do not look for duplicates write what they
+  // always have.
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  private final int duplicatesSkipped;
 
   /**
-   * Constructs a {@link CrawlResult} with the given word counts and visited URL count.
+   * Constructs a {@link CrawlResult} with the given word counts, visited URL count and skipped
+   * duplicate count.
    */
-  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited) {
+  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited, int duplicatesSkipped) {
     this.wordCounts = wordCounts;
     this.urlsVisited = urlsVisited;
+    this.duplicatesSkipped = duplicatesSkipped;
   }
 
   /**
@@ -52,12 +60,22 @@ public final class CrawlResult {
     return urlsVisited;
   }
 
+  /**
+   * Returns the number of visited pages whose words were not counted because they were
+   * near-duplicates of a page already counted. These pages are included in
+   * {@link #getUrlsVisited()}.
+   */
+  public int getDuplicatesSkipped() {
+    return duplicatesSkipped;
+  }
+
   /**
    * A package-private builder class for constructing web crawl {@link CrawlResult}s.
    */
   public static final class Builder {
     private Map<String, Integer> wordFrequencies = new HashMap<>();
     private int pageCount;
+    private int duplicatesSkipped;
 
     /**
      * Sets the word counts. See {@link #getWordCounts()}
@@ -75,11 +93,21 @@ public final class CrawlResult {
       return this;
     }
 
+    /**
+     * Sets the number of near-duplicate pages that were not counted. See
+     * {@link #getDuplicatesSkipped()}.
+     */
+    public Builder setDuplicatesSkipped(int duplicatesSkipped) {
+      this.duplicatesSkipped = duplicatesSkipped;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlResult} from this builder.
      */
     public CrawlResult build() {
-      return new CrawlResult(Collections.unmodifiableMap(wordFrequencies), pageCount);
+      return new CrawlResult(
+          Collections.unmodifiableMap(wordFrequencies), pageCount, duplicatesSkipped);
     }
   }
 }
\ No newline at end of file
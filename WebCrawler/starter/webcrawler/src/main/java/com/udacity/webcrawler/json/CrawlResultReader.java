@@ -0,0 +1,82 @@
+package com.udacity.webcrawler.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Utility class to read back a {@link CrawlResult} written by {@link CrawlResultWriter}, one word
+ * count at a time, without holding the whole result in memory.
+ */
+public final class CrawlResultReader {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * Reads the crawl result at the given path, passing every word and its count to the consumer in
+   * file order. The format is picked from the extension of the path; see
+   * {@link ResultFormat#forPath(String)}.
+   *
+   * @return the number of URLs visited and of duplicates skipped by the crawl, in a result whose
+   *         word counts are empty.
+   */
+  public static CrawlResult read(Path path, ObjIntConsumer<String> wordCounts)
+      throws IOException {
+    Objects.requireNonNull(wordCounts);
+    if (ResultFormat.forPath(path.toString()) == ResultFormat.BINARY) {
+      BinaryCrawlResultReader reader = BinaryCrawlResultReader.open(path);
+      reader.forEach(wordCounts);
+      return totals(reader.getUrlsVisited(), reader.getDuplicatesSkipped());
+    }
+
+    int urlsVisited = 0;
+    int duplicatesSkipped = 0;
+    try (JsonParser parser = JSON_FACTORY.createParser(path.toFile())) {
+      expect(parser.nextToken(), JsonToken.START_OBJECT, path);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if (field.equals("wordCounts")) {
+          expect(value, JsonToken.START_OBJECT, path);
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String word = parser.getCurrentName();
+            expect(parser.nextToken(), JsonToken.VALUE_NUMBER_INT, path);
+            wordCounts.accept(word, parser.getIntValue());
+          }
+        } else if (field.equals("urlsVisited")) {
+          expect(value, JsonToken.VALUE_NUMBER_INT, path);
+          urlsVisited = parser.getIntValue();
+        } else if (field.equals("duplicatesSkipped")) {
+          expect(value, JsonToken.VALUE_NUMBER_INT, path);
+          duplicatesSkipped = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return totals(urlsVisited, duplicatesSkipped);
+  }
+
+  private static CrawlResult totals(int urlsVisited, int duplicatesSkipped) {
+    return new CrawlResult.Builder()
+        .setUrlsVisited(urlsVisited)
+        .setDuplicatesSkipped(duplicatesSkipped)
+        .build();
+  }
+
+  private static void expect(JsonToken actual, JsonToken expected, Path path) throws IOException {
+    if (actual != expected) {
+      throw new IOException(
+          "Malformed crawl result " + path + ": expected " + expected + " but found " + actual);
+    }
+  }
+
+  private CrawlResultReader() {
+    // This class cannot be instantiated
+  }
+}
@@ -1,25 +1,59 @@
 package com.udacity.webcrawler.json;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Objects;
-import java.nio.file.Files;
-import java.io.IOException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonGenerator;
-
 
 /**
  * Utility class to write a {@link CrawlResult} to file.
  */
 public final class CrawlResultWriter {
+
+  /**
+   * Results with more word counts than this are written with the streaming {@link JsonGenerator}
+   * instead of data binding, so no reflection or intermediate buffers are involved per entry.
+   */
+  static final int STREAMING_THRESHOLD = 10_000;
+
+  // ObjectMapper, ObjectWriter and JsonFactory are thread-safe once configured, so they are shared
+  // by all writers instead of being rebuilt for every write.
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+  private static final ObjectWriter COMPACT_WRITER = MAPPER.writer();
+  private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+
   private final CrawlResult result;
+  private final boolean pretty;
 
   /**
-   * Creates a new {@link CrawlResultWriter} that will write the given {@link CrawlResult}.
+   * Creates a new {@link CrawlResultWriter} that will write the given {@link CrawlResult} as
+   * pretty-printed JSON.
    */
   public CrawlResultWriter(CrawlResult result) {
+    this(result, true);
+  }
+
+  /**
+   * Creates a new {@link CrawlResultWriter} that will write the given {@link CrawlResult}.
+   *
+   * @param pretty if false, the JSON is written without any whitespace between tokens.
+   */
+  public CrawlResultWriter(CrawlResult result, boolean pretty) {
     this.result = Objects.requireNonNull(result);
+    this.pretty = pretty;
   }
 
   /**
@@ -42,6 +76,69 @@ public final class CrawlResultWriter {
 
   }
 
+  /**
+   * Writes the {@link CrawlResult} to the given {@link Path} in the given format.
+   *
+   * @param path   the file path where the crawl result data should be written.
+   * @param format the format to write; see {@link ResultFormat}.
+   */
+  public void write(Path path, ResultFormat format) {
+    Objects.requireNonNull(path);
+    Objects.requireNonNull(format);
+    if (format == ResultFormat.JSON) {
+      write(path);
+      return;
+    }
+
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+      writeBinary(out);
+    } catch (IOException ex){
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the {@link CrawlResult} to the given {@link OutputStream} in the
+   * {@link ResultFormat#BINARY} format. The layout is described in {@link BinaryResultLayout}.
+   *
+   * @param out the destination where the crawl result data should be written. It is flushed but
+   *            not closed.
+   */
+  public void writeBinary(OutputStream out) throws IOException {
+    Objects.requireNonNull(out);
+    Map<String, Integer> wordCounts = result.getWordCounts();
+    byte[][] words = new byte[wordCounts.size()][];
+    int i = 0;
+    for (String word : wordCounts.keySet()) {
+      words[i++] = word.getBytes(StandardCharsets.UTF_8);
+    }
+
+    DataOutputStream data = new DataOutputStream(out);
+    data.write(BinaryResultLayout.MAGIC);
+    data.writeInt(BinaryResultLayout.VERSION);
+    data.writeInt(result.getUrlsVisited());
+    data.writeInt(result.getDuplicatesSkipped());
+    data.writeInt(words.length);
+    int offset = 0;
+    for (byte[] word : words) {
+      data.writeInt(offset);
+      offset = Math.addExact(offset, word.length);
+    }
+    data.writeInt(offset);
+    for (byte[] word : words) {
+      data.write(word);
+    }
+    for (int count : wordCounts.values()) {
+      // Unsigned LEB128: seven bits per byte, high bit set on all but the last byte.
+      while ((count & ~0x7F) != 0) {
+        data.write((count & 0x7F) | 0x80);
+        count >>>= 7;
+      }
+      data.write(count);
+    }
+    data.flush();
+  }
+
   /**
    * Formats the {@link CrawlResult} as JSON and writes it to the given {@link Writer}.
    *
@@ -50,15 +147,40 @@ public final class CrawlResultWriter {
   public void write(Writer writer) {
     // This is here to get rid of the unused variable warning.
     Objects.requireNonNull(writer);
- 
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
     try {
-      mapper.writerWithDefaultPrettyPrinter().writeValue(writer, result);
+      if (result.getWordCounts().size() > STREAMING_THRESHOLD) {
+        stream(writer);
+      } else {
+        (pretty ? PRETTY_WRITER : COMPACT_WRITER).writeValue(writer, result);
+      }
     } catch (IOException ex){
       ex.printStackTrace();
     }
 
   }
+
+  /**
+   * Writes the result one word count at a time. The output is identical to the data-bound
+   * output, including field order.
+   */
+  private void stream(Writer writer) throws IOException {
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+      if (pretty) {
+        generator.useDefaultPrettyPrinter();
+      }
+      generator.writeStartObject();
+      generator.writeFieldName("wordCounts");
+      generator.writeStartObject();
+      for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
+        generator.writeNumberField(e.getKey(), e.getValue());
+      }
+      generator.writeEndObject();
+      generator.writeNumberField("urlsVisited", result.getUrlsVisited());
+      if (result.getDuplicatesSkipped() != 0) {
+        generator.writeNumberField("duplicatesSkipped", result.getDuplicatesSkipped());
+      }
+      generator.writeEndObject();
+    }
+  }
 }
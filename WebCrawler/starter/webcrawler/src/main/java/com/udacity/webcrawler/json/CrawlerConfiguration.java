@@ -3,6 +3,7 @@ package com.udacity.webcrawler.json;
 import java.time.Duration;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -11,6 +12,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.udacity.webcrawler.parser.ContentFilter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -22,6 +24,12 @@ import java.nio.file.Path;
 @JsonDeserialize(builder = CrawlerConfiguration.Builder.class)
 public final class CrawlerConfiguration {
 
+  /**
+   * The largest allowed {@link #getNearDuplicateDistance()}. Lookups split the 64-bit SimHash into
+   * one more band than the distance, and bands narrower than four bits match almost everything.
+   */
+  public static final int MAX_NEAR_DUPLICATE_DISTANCE = 15;
+
   private final List<String> startPages;
   private final List<Pattern> ignoredUrls;
   private final List<Pattern> ignoredWords;
@@ -32,6 +40,39 @@ public final class CrawlerConfiguration {
   private final int popularWordCount;
   private final String profileOutputPath;
   private final String resultPath;
+  private final boolean flightRecorderEvents;
+  private final int profileSlowestUrls;
+  private final boolean compactResult;
+  private final ResultFormat resultFormat;
+  private final int shardCount;
+  private final int shardIndex;
+  private final String shardWorkDirectory;
+  private final boolean fullWordCounts;
+  private final int taskBatchSize;
+  private final boolean adaptiveParallelism;
+  private final int minParallelism;
+  private final int maxParallelism;
+  private final CrawlOrder crawlOrder;
+  private final List<Pattern> priorityUrls;
+  private final boolean stripTrackingParameters;
+  private final boolean sortQueryParameters;
+  private final boolean removeTrailingSlash;
+  private final int nearDuplicateDistance;
+  private final boolean followDuplicateLinks;
+  private final boolean directoryCrawl;
+  private final boolean followDirectoryLinks;
+  private final Set<String> skippedLinkExtensions;
+  private final long maxPageBytes;
+  private final Duration dnsCacheTtl;
+  private final Duration dnsNegativeCacheTtl;
+  private final int dnsPrefetchThreads;
+  private final int fetchRetries;
+  private final Duration retryBaseDelay;
+  private final double circuitFailureRate;
+  private final Duration circuitOpenDuration;
+  private final int hedgeBudget;
+  private final double adaptiveTimeoutFactor;
+  private final Duration minFetchTimeout;
 
   private CrawlerConfiguration(
       List<String> startPages,
@@ -43,7 +84,40 @@ public final class CrawlerConfiguration {
       Duration timeout,
       int popularWordCount,
       String profileOutputPath,
-      String resultPath) {
+      String resultPath,
+      boolean flightRecorderEvents,
+      int profileSlowestUrls,
+      boolean compactResult,
+      ResultFormat resultFormat,
+      int shardCount,
+      int shardIndex,
+      String shardWorkDirectory,
+      boolean fullWordCounts,
+      int taskBatchSize,
+      boolean adaptiveParallelism,
+      int minParallelism,
+      int maxParallelism,
+      CrawlOrder crawlOrder,
+      List<Pattern> priorityUrls,
+      boolean stripTrackingParameters,
+      boolean sortQueryParameters,
+      boolean removeTrailingSlash,
+      int nearDuplicateDistance,
+      boolean followDuplicateLinks,
+      boolean directoryCrawl,
+      boolean followDirectoryLinks,
+      Set<String> skippedLinkExtensions,
+      long maxPageBytes,
+      Duration dnsCacheTtl,
+      Duration dnsNegativeCacheTtl,
+      int dnsPrefetchThreads,
+      int fetchRetries,
+      Duration retryBaseDelay,
+      double circuitFailureRate,
+      Duration circuitOpenDuration,
+      int hedgeBudget,
+      double adaptiveTimeoutFactor,
+      Duration minFetchTimeout) {
     this.startPages = startPages;
     this.ignoredUrls = ignoredUrls;
     this.ignoredWords = ignoredWords;
@@ -54,6 +128,39 @@ public final class CrawlerConfiguration {
     this.popularWordCount = popularWordCount;
     this.profileOutputPath = profileOutputPath;
     this.resultPath = resultPath;
+    this.flightRecorderEvents = flightRecorderEvents;
+    this.profileSlowestUrls = profileSlowestUrls;
+    this.compactResult = compactResult;
+    this.resultFormat = resultFormat;
+    this.shardCount = shardCount;
+    this.shardIndex = shardIndex;
+    this.shardWorkDirectory = shardWorkDirectory;
+    this.fullWordCounts = fullWordCounts;
+    this.taskBatchSize = taskBatchSize;
+    this.adaptiveParallelism = adaptiveParallelism;
+    this.minParallelism = minParallelism;
+    this.maxParallelism = maxParallelism;
+    this.crawlOrder = crawlOrder;
+    this.priorityUrls = priorityUrls;
+    this.stripTrackingParameters = stripTrackingParameters;
+    this.sortQueryParameters = sortQueryParameters;
+    this.removeTrailingSlash = removeTrailingSlash;
+    this.nearDuplicateDistance = nearDuplicateDistance;
+    this.followDuplicateLinks = followDuplicateLinks;
+    this.directoryCrawl = directoryCrawl;
+    this.followDirectoryLinks = followDirectoryLinks;
+    this.skippedLinkExtensions = skippedLinkExtensions;
+    this.maxPageBytes = maxPageBytes;
+    this.dnsCacheTtl = dnsCacheTtl;
+    this.dnsNegativeCacheTtl = dnsNegativeCacheTtl;
+    this.dnsPrefetchThreads = dnsPrefetchThreads;
+    this.fetchRetries = fetchRetries;
+    this.retryBaseDelay = retryBaseDelay;
+    this.circuitFailureRate = circuitFailureRate;
+    this.circuitOpenDuration = circuitOpenDuration;
+    this.hedgeBudget = hedgeBudget;
+    this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+    this.minFetchTimeout = minFetchTimeout;
   }
 
   /**
@@ -179,6 +286,354 @@ public final class CrawlerConfiguration {
     return resultPath;
   }
 
+  /**
+   * Whether the crawler should emit its Java Flight Recorder events (page fetch, page parse and
+   * count merge). This setting is optional and defaults to false.
+   *
+   * <p>The events are only recorded while a JFR recording is running, for example when the JVM is
+   * started with {@code -XX:StartFlightRecording}.
+   */
+  public boolean isFlightRecorderEvents() {
+    return flightRecorderEvents;
+  }
+
+  /**
+   * The number of slowest URLs the profiler should report. This setting is optional and defaults
+   * to 0.
+   *
+   * <p>If positive, the profile data also includes the fetch and parse time of crawled pages,
+   * aggregated by host, followed by this many of the slowest URLs. If 0, only the per-method
+   * timings are written.
+   */
+  public int getProfileSlowestUrls() {
+    return profileSlowestUrls;
+  }
+
+  /**
+   * Whether the result JSON should be written without pretty-printing. This setting is optional
+   * and defaults to false.
+   *
+   * <p>Compact output is noticeably smaller and faster to write when the result contains a very
+   * large number of word counts. See {@link #getResultPath()}.
+   */
+  public boolean isCompactResult() {
+    return compactResult;
+  }
+
+  /**
+   * The format the crawl result should be written in. This setting is optional; if it is not
+   * set, the format is picked from the extension of the result path, and results whose path ends
+   * in {@value ResultFormat#BINARY_EXTENSION} are written as {@link ResultFormat#BINARY}.
+   *
+   * <p>The binary format can only be written to a file, so it requires a result path. See
+   * {@link BinaryCrawlResultReader}.
+   */
+  public ResultFormat getResultFormat() {
+    return resultFormat;
+  }
+
+  /**
+   * The number of processes that crawl together, each owning the URLs of a share of the hosts.
+   * This setting is optional and defaults to 1, which means the crawl is not sharded.
+   *
+   * <p>Every process of a sharded crawl must be started with the same configuration, apart from
+   * its {@link #getShardIndex()}. The implementation override is ignored for sharded crawls.
+   */
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  /**
+   * The shard crawled by this process, from 0 to {@link #getShardCount()} - 1. Shard 0 merges
+   * the partial results of all shards and is the only one that writes the crawl result. This
+   * setting is optional and defaults to 0.
+   */
+  public int getShardIndex() {
+    return shardIndex;
+  }
+
+  /**
+   * The directory through which the processes of a sharded crawl hand links to each other and
+   * collect their partial results. It must be empty when the crawl starts. Required if
+   * {@link #getShardCount()} is greater than 1.
+   */
+  public String getShardWorkDirectory() {
+    return shardWorkDirectory;
+  }
+
+  /**
+   * Whether the result should contain every word that was counted, still sorted by popularity,
+   * instead of only the top {@link #getPopularWordCount()} words. This setting is optional and
+   * defaults to false.
+   *
+   * <p>Results with full word counts can be combined with
+   * {@link com.udacity.webcrawler.main.MergeResultsMain}.
+   */
+  public boolean isFullWordCounts() {
+    return fullWordCounts;
+  }
+
+  /**
+   * The largest number of URLs that a single task of the parallel crawler crawls by itself. Bigger
+   * batches of links are split in half until they fit. This setting is optional and defaults to
+   * 1.
+   *
+   * <p>Larger batches mean fewer, bigger tasks. That helps when pages are cheap to fetch, for
+   * example local files, but fetches within a batch happen one after another.
+   */
+  public int getTaskBatchSize() {
+    return taskBatchSize;
+  }
+
+  /**
+   * Whether the parallel crawler should adjust the number of pages it fetches at once while it
+   * runs. This setting is optional and defaults to false.
+   *
+   * <p>If true, the crawl starts with {@link #getParallelism()} concurrent fetches and then adds
+   * one at a time while pages stay fast, and backs off whenever they slow down, always staying
+   * between {@link #getMinParallelism()} and {@link #getMaxParallelism()}.
+   */
+  public boolean isAdaptiveParallelism() {
+    return adaptiveParallelism;
+  }
+
+  /**
+   * The fewest concurrent fetches an adaptive crawl backs off to. This setting is optional and
+   * defaults to 1. See {@link #isAdaptiveParallelism()}.
+   */
+  public int getMinParallelism() {
+    return minParallelism;
+  }
+
+  /**
+   * The most concurrent fetches an adaptive crawl grows to. Unlike {@link #getParallelism()}, this
+   * is not capped at the number of processors, since most fetches spend their time waiting on the
+   * network. This setting is optional; if it is 0 (the default), four times the number of
+   * processors is used. See {@link #isAdaptiveParallelism()}.
+   */
+  public int getMaxParallelism() {
+    return maxParallelism;
+  }
+
+  /**
+   * The order in which the crawler visits the links it finds. This setting is optional and
+   * defaults to {@link CrawlOrder#DEPTH_FIRST}.
+   *
+   * <p>With {@link CrawlOrder#BEST_FIRST}, shallow pages, pages many others link to, pages that
+   * match {@link #getPriorityUrls()}, and pages on hosts that have been visited less are crawled
+   * first, so a crawl cut short by {@link #getTimeout()} still covers the pages that matter most.
+   */
+  public CrawlOrder getCrawlOrder() {
+    return crawlOrder;
+  }
+
+  /**
+   * A {@link List} of regular expression {@link Pattern}s for URLs that a
+   * {@link CrawlOrder#BEST_FIRST} crawl should visit before others at the same depth. This setting
+   * is optional.
+   */
+  public List<Pattern> getPriorityUrls() {
+    return priorityUrls;
+  }
+
+  /**
+   * Whether {@code utm_*} and other well-known tracking parameters should be removed from URLs
+   * before they are crawled. This setting is optional and defaults to false.
+   *
+   * <p>Every URL is normalized before it is checked against the pages already visited: its scheme
+   * and host are lower-cased, and its fragment, default port, and {@code "."} and {@code ".."}
+   * segments are removed. This and the next two settings add steps that most, but not all, sites
+   * are indifferent to. See {@link com.udacity.webcrawler.parser.UrlNormalizer}.
+   */
+  public boolean isStripTrackingParameters() {
+    return stripTrackingParameters;
+  }
+
+  /**
+   * Whether the query parameters of URLs should be sorted by name before they are crawled. This
+   * setting is optional and defaults to false. See {@link #isStripTrackingParameters()}.
+   */
+  public boolean isSortQueryParameters() {
+    return sortQueryParameters;
+  }
+
+  /**
+   * Whether a trailing {@code '/'} should be removed from URL paths other than {@code "/"} before
+   * they are crawled. This setting is optional and defaults to false. See
+   * {@link #isStripTrackingParameters()}.
+   */
+  public boolean isRemoveTrailingSlash() {
+    return removeTrailingSlash;
+  }
+
+  /**
+   * The largest number of bits by which the SimHash of a page's words may differ from that of a
+   * page already counted for the page to be a near-duplicate, or -1 to count every page. This
+   * setting is optional and defaults to -1. It cannot be more than
+   * {@value #MAX_NEAR_DUPLICATE_DISTANCE}.
+   *
+   * <p>Near-duplicates, such as mirrors and print views of a page, are still visited, but their
+   * words are not counted. {@link CrawlResult#getDuplicatesSkipped()} reports how many there were.
+   */
+  public int getNearDuplicateDistance() {
+    return nearDuplicateDistance;
+  }
+
+  /**
+   * Whether the crawler should follow the links of pages skipped as near-duplicates. This setting
+   * is optional and defaults to true. See {@link #getNearDuplicateDistance()}.
+   */
+  public boolean isFollowDuplicateLinks() {
+    return followDuplicateLinks;
+  }
+
+  /**
+   * Whether the start pages are local directories whose HTML files should all be crawled, rather
+   * than pages whose links lead to the rest of the crawl. This setting is optional and defaults to
+   * false.
+   *
+   * <p>Each start page must then be a {@code file:} URI. Directories are walked in parallel, and
+   * every {@code .html} or {@code .htm} file found in them or their subdirectories is visited as if
+   * it were a start page, so {@link #getMaxDepth()} must be at least 1. Symbolic links are not
+   * followed. Directory crawls always use the parallel crawler, visit the links they follow in
+   * depth-first order, and cannot be sharded.
+   */
+  public boolean isDirectoryCrawl() {
+    return directoryCrawl;
+  }
+
+  /**
+   * Whether a directory crawl should also follow the links of the files it visits, up to
+   * {@link #getMaxDepth()}. This setting is optional and defaults to false. See
+   * {@link #isDirectoryCrawl()}.
+   */
+  public boolean isFollowDirectoryLinks() {
+    return followDirectoryLinks;
+  }
+
+  /**
+   * The file extensions, in lower case and without the leading {@code '.'}, of links that should
+   * not be followed. This setting is optional and defaults to
+   * {@link ContentFilter#DEFAULT_SKIPPED_EXTENSIONS}: images, audio, video, documents, archives
+   * and other files that are not web pages. Links are dropped before they are queued, so these
+   * files are never downloaded.
+   */
+  public Set<String> getSkippedLinkExtensions() {
+    return skippedLinkExtensions;
+  }
+
+  /**
+   * The largest response body, in bytes, that the crawler should read, or 0 for no limit. This
+   * setting is optional and defaults to {@link ContentFilter#DEFAULT_MAX_PAGE_BYTES}.
+   *
+   * <p>A response whose {@code Content-Length} is larger, or whose {@code Content-Type} is not
+   * text or XML, is dropped as soon as its headers arrive. A body that turns out to be larger is
+   * dropped once the limit has been read. Either way, the page is visited but has no words or
+   * links.
+   */
+  public long getMaxPageBytes() {
+    return maxPageBytes;
+  }
+
+  /**
+   * How long the crawler keeps the addresses it looked up for a host. This setting is optional and
+   * defaults to 30 seconds, the JVM's own default.
+   *
+   * <p>The crawler looks up the host of every link it keeps in the background, so that the lookup
+   * is usually done by the time the page is fetched. See
+   * {@link com.udacity.webcrawler.fetch.DnsCache}.
+   */
+  public Duration getDnsCacheTtl() {
+    return dnsCacheTtl;
+  }
+
+  /**
+   * How long the crawler remembers that a host could not be found, during which pages on it fail
+   * without a fetch. This setting is optional and defaults to 10 seconds.
+   */
+  public Duration getDnsNegativeCacheTtl() {
+    return dnsNegativeCacheTtl;
+  }
+
+  /**
+   * The number of threads that look up the hosts of links in the background, or 0 to look hosts up
+   * only when a page on them is fetched. This setting is optional and defaults to 4.
+   */
+  public int getDnsPrefetchThreads() {
+    return dnsPrefetchThreads;
+  }
+
+  /**
+   * How many times the fetch of a remote page is retried after a transient failure, such as a
+   * timeout, a refused connection or a 503 response. This setting is optional and defaults to 2.
+   *
+   * <p>Retries wait a random time of up to {@link #getRetryBaseDelay()}, doubled for each retry,
+   * and are not made once they would run past the {@link #getTimeout() timeout}. See
+   * {@link com.udacity.webcrawler.fetch.FetchPolicy}.
+   */
+  public int getFetchRetries() {
+    return fetchRetries;
+  }
+
+  /**
+   * The longest wait before the first retry of a fetch. This setting is optional and defaults to
+   * 100 milliseconds.
+   */
+  public Duration getRetryBaseDelay() {
+    return retryBaseDelay;
+  }
+
+  /**
+   * The share, from 0 to 1, of the recent fetches on a host that have to fail before the crawler
+   * stops fetching from it for {@link #getCircuitOpenDuration()}, or 0 to never stop. This setting
+   * is optional and defaults to 0.5.
+   */
+  public double getCircuitFailureRate() {
+    return circuitFailureRate;
+  }
+
+  /**
+   * How long the crawler stops fetching from a host that fails too often, after which one page is
+   * fetched to see if the host is back. This setting is optional and defaults to 30 seconds.
+   */
+  public Duration getCircuitOpenDuration() {
+    return circuitOpenDuration;
+  }
+
+  /**
+   * The most hedge requests that may be outstanding at once, or 0 to never hedge. This setting is
+   * optional and defaults to 0.
+   *
+   * <p>A fetch that takes longer than 95% of the recent fetches from its host is hedged: the page
+   * is requested a second time, and whichever response comes first is used. See
+   * {@link com.udacity.webcrawler.fetch.PageFetcher}.
+   */
+  public int getHedgeBudget() {
+    return hedgeBudget;
+  }
+
+  /**
+   * The multiple of the 99th percentile latency of a host that a request to it may take, or 0 to
+   * give every request the full {@link #getTimeout() timeout}. This setting is optional and
+   * defaults to 0.
+   *
+   * <p>A host's latency is only known once 20 of its pages have been fetched; until then, and
+   * whenever the multiple is longer, requests keep the full timeout. Whatever this setting, no
+   * request is given more time than the crawl has left. See
+   * {@link com.udacity.webcrawler.fetch.PageFetcher}.
+   */
+  public double getAdaptiveTimeoutFactor() {
+    return adaptiveTimeoutFactor;
+  }
+
+  /**
+   * The shortest timeout that an adaptive timeout is cut to. This setting is optional and
+   * defaults to 1 second.
+   */
+  public Duration getMinFetchTimeout() {
+    return minFetchTimeout;
+  }
+
   /**
    * A builder class to create {@link CrawlerConfiguration} instances.
    */
@@ -193,6 +648,39 @@ public final class CrawlerConfiguration {
     private int popularWordCount = 0;
     private String profileOutputPath = "";
     private String resultPath = "";
+    private boolean flightRecorderEvents = false;
+    private int profileSlowestUrls = 0;
+    private boolean compactResult = false;
+    private String resultFormat = "";
+    private int shardCount = 1;
+    private int shardIndex = 0;
+    private String shardWorkDirectory = "";
+    private boolean fullWordCounts = false;
+    private int taskBatchSize = 1;
+    private boolean adaptiveParallelism = false;
+    private int minParallelism = 1;
+    private int maxParallelism = 0;
+    private String crawlOrder = "depth-first";
+    private final Set<String> priorityUrls = new LinkedHashSet<>();
+    private boolean stripTrackingParameters = false;
+    private boolean sortQueryParameters = false;
+    private boolean removeTrailingSlash = false;
+    private int nearDuplicateDistance = -1;
+    private boolean followDuplicateLinks = true;
+    private boolean directoryCrawl = false;
+    private boolean followDirectoryLinks = false;
+    private Set<String> skippedLinkExtensions = ContentFilter.DEFAULT_SKIPPED_EXTENSIONS;
+    private long maxPageBytes = ContentFilter.DEFAULT_MAX_PAGE_BYTES;
+    private int dnsCacheSeconds = 30;
+    private int dnsNegativeCacheSeconds = 10;
+    private int dnsPrefetchThreads = 4;
+    private int fetchRetries = 2;
+    private int retryBaseDelayMillis = 100;
+    private double circuitFailureRate = 0.5;
+    private int circuitOpenSeconds = 30;
+    private int hedgeBudget = 0;
+    private double adaptiveTimeoutFactor = 0;
+    private int minFetchTimeoutMillis = 1000;
 
     /**
      * Adds a start page URL.
@@ -321,6 +809,380 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets whether the crawler should emit Java Flight Recorder events.
+     *
+     * <p>See {@link #isFlightRecorderEvents()}.
+     */
+    @JsonProperty("flightRecorderEvents")
+    public Builder setFlightRecorderEvents(boolean flightRecorderEvents) {
+      this.flightRecorderEvents = flightRecorderEvents;
+      return this;
+    }
+
+    /**
+     * Sets the number of slowest URLs the profiler should report.
+     *
+     * <p>See {@link #getProfileSlowestUrls()}.
+     */
+    @JsonProperty("profileSlowestUrls")
+    public Builder setProfileSlowestUrls(int profileSlowestUrls) {
+      this.profileSlowestUrls = profileSlowestUrls;
+      return this;
+    }
+
+    /**
+     * Sets whether the result JSON should be written without pretty-printing.
+     *
+     * <p>See {@link #isCompactResult()}.
+     */
+    @JsonProperty("compactResult")
+    public Builder setCompactResult(boolean compactResult) {
+      this.compactResult = compactResult;
+      return this;
+    }
+
+    /**
+     * Sets the format of the crawl result, either "json" or "binary". If empty, the format is
+     * picked from the extension of the result path.
+     *
+     * <p>See {@link #getResultFormat()}.
+     */
+    @JsonProperty("resultFormat")
+    public Builder setResultFormat(String resultFormat) {
+      this.resultFormat = Objects.requireNonNull(resultFormat);
+      return this;
+    }
+
+    /**
+     * Sets the number of processes that crawl together.
+     *
+     * <p>See {@link #getShardCount()}.
+     */
+    @JsonProperty("shardCount")
+    public Builder setShardCount(int shardCount) {
+      this.shardCount = shardCount;
+      return this;
+    }
+
+    /**
+     * Sets the shard crawled by this process.
+     *
+     * <p>See {@link #getShardIndex()}.
+     */
+    @JsonProperty("shardIndex")
+    public Builder setShardIndex(int shardIndex) {
+      this.shardIndex = shardIndex;
+      return this;
+    }
+
+    /**
+     * Sets the directory shared by the processes of a sharded crawl.
+     *
+     * <p>See {@link #getShardWorkDirectory()}.
+     */
+    @JsonProperty("shardWorkDirectory")
+    public Builder setShardWorkDirectory(String shardWorkDirectory) {
+      this.shardWorkDirectory = Objects.requireNonNull(shardWorkDirectory);
+      return this;
+    }
+
+    /**
+     * Sets whether the result should contain every word that was counted.
+     *
+     * <p>See {@link #isFullWordCounts()}.
+     */
+    @JsonProperty("fullWordCounts")
+    public Builder setFullWordCounts(boolean fullWordCounts) {
+      this.fullWordCounts = fullWordCounts;
+      return this;
+    }
+
+    /**
+     * Sets the largest number of URLs a single parallel crawl task crawls by itself.
+     *
+     * <p>See {@link #getTaskBatchSize()}.
+     */
+    @JsonProperty("taskBatchSize")
+    public Builder setTaskBatchSize(int taskBatchSize) {
+      this.taskBatchSize = taskBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets whether the parallel crawler should adjust its concurrency while it runs.
+     *
+     * <p>See {@link #isAdaptiveParallelism()}.
+     */
+    @JsonProperty("adaptiveParallelism")
+    public Builder setAdaptiveParallelism(boolean adaptiveParallelism) {
+      this.adaptiveParallelism = adaptiveParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the fewest concurrent fetches of an adaptive crawl.
+     *
+     * <p>See {@link #getMinParallelism()}.
+     */
+    @JsonProperty("minParallelism")
+    public Builder setMinParallelism(int minParallelism) {
+      this.minParallelism = minParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the most concurrent fetches of an adaptive crawl.
+     *
+     * <p>See {@link #getMaxParallelism()}.
+     */
+    @JsonProperty("maxParallelism")
+    public Builder setMaxParallelism(int maxParallelism) {
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the order in which links are visited, either "depth-first" or "best-first".
+     *
+     * <p>See {@link #getCrawlOrder()}.
+     */
+    @JsonProperty("crawlOrder")
+    public Builder setCrawlOrder(String crawlOrder) {
+      this.crawlOrder = Objects.requireNonNull(crawlOrder);
+      return this;
+    }
+
+    /**
+     * Adds a regular expression pattern that defines URLs a best-first crawl should visit early.
+     *
+     * <p>Does nothing if the same pattern has already been added. See {@link #getPriorityUrls()}.
+     *
+     * @param patterns one or more regular expressions that define a valid {@link Pattern}.
+     */
+    @JsonProperty("priorityUrls")
+    public Builder addPriorityUrls(String... patterns) {
+      for (String pattern : patterns) {
+        priorityUrls.add(Objects.requireNonNull(pattern));
+      }
+      return this;
+    }
+
+    /**
+     * Sets whether tracking parameters are removed from URLs.
+     *
+     * <p>See {@link #isStripTrackingParameters()}.
+     */
+    @JsonProperty("stripTrackingParameters")
+    public Builder setStripTrackingParameters(boolean stripTrackingParameters) {
+      this.stripTrackingParameters = stripTrackingParameters;
+      return this;
+    }
+
+    /**
+     * Sets whether URL query parameters are sorted by name.
+     *
+     * <p>See {@link #isSortQueryParameters()}.
+     */
+    @JsonProperty("sortQueryParameters")
+    public Builder setSortQueryParameters(boolean sortQueryParameters) {
+      this.sortQueryParameters = sortQueryParameters;
+      return this;
+    }
+
+    /**
+     * Sets whether trailing slashes are removed from URL paths.
+     *
+     * <p>See {@link #isRemoveTrailingSlash()}.
+     */
+    @JsonProperty("removeTrailingSlash")
+    public Builder setRemoveTrailingSlash(boolean removeTrailingSlash) {
+      this.removeTrailingSlash = removeTrailingSlash;
+      return this;
+    }
+
+    /**
+     * Sets the SimHash distance within which pages are near-duplicates, or -1 to count every page.
+     *
+     * <p>See {@link #getNearDuplicateDistance()}.
+     */
+    @JsonProperty("nearDuplicateDistance")
+    public Builder setNearDuplicateDistance(int nearDuplicateDistance) {
+      this.nearDuplicateDistance = nearDuplicateDistance;
+      return this;
+    }
+
+    /**
+     * Sets whether the links of near-duplicate pages are followed.
+     *
+     * <p>See {@link #isFollowDuplicateLinks()}.
+     */
+    @JsonProperty("followDuplicateLinks")
+    public Builder setFollowDuplicateLinks(boolean followDuplicateLinks) {
+      this.followDuplicateLinks = followDuplicateLinks;
+      return this;
+    }
+
+    /**
+     * Sets whether the start pages are directories whose HTML files should all be crawled.
+     *
+     * <p>See {@link #isDirectoryCrawl()}.
+     */
+    @JsonProperty("directoryCrawl")
+    public Builder setDirectoryCrawl(boolean directoryCrawl) {
+      this.directoryCrawl = directoryCrawl;
+      return this;
+    }
+
+    /**
+     * Sets whether a directory crawl also follows the links of the files it visits.
+     *
+     * <p>See {@link #isFollowDirectoryLinks()}.
+     */
+    @JsonProperty("followDirectoryLinks")
+    public Builder setFollowDirectoryLinks(boolean followDirectoryLinks) {
+      this.followDirectoryLinks = followDirectoryLinks;
+      return this;
+    }
+
+    /**
+     * Sets the file extensions of links that are not followed, replacing the defaults. Leading
+     * {@code '.'}s are ignored; no extensions at all follows every link.
+     *
+     * <p>See {@link #getSkippedLinkExtensions()}.
+     */
+    @JsonProperty("skippedLinkExtensions")
+    public Builder setSkippedLinkExtensions(String... extensions) {
+      Set<String> skipped = new LinkedHashSet<>();
+      for (String extension : extensions) {
+        String lowerCase = extension.toLowerCase(Locale.ROOT);
+        skipped.add(lowerCase.startsWith(".") ? lowerCase.substring(1) : lowerCase);
+      }
+      this.skippedLinkExtensions = skipped;
+      return this;
+    }
+
+    /**
+     * Sets the largest response body, in bytes, that is read, or 0 for no limit.
+     *
+     * <p>See {@link #getMaxPageBytes()}.
+     */
+    @JsonProperty("maxPageBytes")
+    public Builder setMaxPageBytes(long maxPageBytes) {
+      this.maxPageBytes = maxPageBytes;
+      return this;
+    }
+
+    /**
+     * Sets how long looked-up host addresses are kept, in seconds.
+     *
+     * <p>See {@link #getDnsCacheTtl()}.
+     */
+    @JsonProperty("dnsCacheSeconds")
+    public Builder setDnsCacheSeconds(int dnsCacheSeconds) {
+      this.dnsCacheSeconds = dnsCacheSeconds;
+      return this;
+    }
+
+    /**
+     * Sets how long a failure to look up a host is kept, in seconds.
+     *
+     * <p>See {@link #getDnsNegativeCacheTtl()}.
+     */
+    @JsonProperty("dnsNegativeCacheSeconds")
+    public Builder setDnsNegativeCacheSeconds(int dnsNegativeCacheSeconds) {
+      this.dnsNegativeCacheSeconds = dnsNegativeCacheSeconds;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads that look up hosts in the background.
+     *
+     * <p>See {@link #getDnsPrefetchThreads()}.
+     */
+    @JsonProperty("dnsPrefetchThreads")
+    public Builder setDnsPrefetchThreads(int dnsPrefetchThreads) {
+      this.dnsPrefetchThreads = dnsPrefetchThreads;
+      return this;
+    }
+
+    /**
+     * Sets how many times a transiently failed fetch is retried.
+     *
+     * <p>See {@link #getFetchRetries()}.
+     */
+    @JsonProperty("fetchRetries")
+    public Builder setFetchRetries(int fetchRetries) {
+      this.fetchRetries = fetchRetries;
+      return this;
+    }
+
+    /**
+     * Sets the longest wait before the first retry, in milliseconds.
+     *
+     * <p>See {@link #getRetryBaseDelay()}.
+     */
+    @JsonProperty("retryBaseDelayMillis")
+    public Builder setRetryBaseDelayMillis(int retryBaseDelayMillis) {
+      this.retryBaseDelayMillis = retryBaseDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the share of failed fetches at which the crawler stops fetching from a host.
+     *
+     * <p>See {@link #getCircuitFailureRate()}.
+     */
+    @JsonProperty("circuitFailureRate")
+    public Builder setCircuitFailureRate(double circuitFailureRate) {
+      this.circuitFailureRate = circuitFailureRate;
+      return this;
+    }
+
+    /**
+     * Sets how long the crawler stops fetching from a failing host, in seconds.
+     *
+     * <p>See {@link #getCircuitOpenDuration()}.
+     */
+    @JsonProperty("circuitOpenSeconds")
+    public Builder setCircuitOpenSeconds(int circuitOpenSeconds) {
+      this.circuitOpenSeconds = circuitOpenSeconds;
+      return this;
+    }
+
+    /**
+     * Sets the most hedge requests that may be outstanding at once.
+     *
+     * <p>See {@link #getHedgeBudget()}.
+     */
+    @JsonProperty("hedgeBudget")
+    public Builder setHedgeBudget(int hedgeBudget) {
+      this.hedgeBudget = hedgeBudget;
+      return this;
+    }
+
+    /**
+     * Sets the multiple of the usual latency of a host that a request to it may take.
+     *
+     * <p>See {@link #getAdaptiveTimeoutFactor()}.
+     */
+    @JsonProperty("adaptiveTimeoutFactor")
+    public Builder setAdaptiveTimeoutFactor(double adaptiveTimeoutFactor) {
+      this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+      return this;
+    }
+
+    /**
+     * Sets the shortest adaptive timeout, in milliseconds.
+     *
+     * <p>See {@link #getMinFetchTimeout()}.
+     */
+    @JsonProperty("minFetchTimeoutMillis")
+    public Builder setMinFetchTimeoutMillis(int minFetchTimeoutMillis) {
+      this.minFetchTimeoutMillis = minFetchTimeoutMillis;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlerConfiguration} from this builder.
      */
@@ -334,6 +1196,71 @@ public final class CrawlerConfiguration {
       if (popularWordCount < 0) {
         throw new IllegalArgumentException("popularWordCount cannot be negative");
       }
+      if (profileSlowestUrls < 0) {
+        throw new IllegalArgumentException("profileSlowestUrls cannot be negative");
+      }
+      if (taskBatchSize < 1) {
+        throw new IllegalArgumentException("taskBatchSize must be positive");
+      }
+      if (minParallelism < 1) {
+        throw new IllegalArgumentException("minParallelism must be positive");
+      }
+      if (maxParallelism < 0 || (maxParallelism > 0 && maxParallelism < minParallelism)) {
+        throw new IllegalArgumentException("maxParallelism cannot be less than minParallelism");
+      }
+      if (nearDuplicateDistance < -1 || nearDuplicateDistance > MAX_NEAR_DUPLICATE_DISTANCE) {
+        throw new IllegalArgumentException(
+            "nearDuplicateDistance must be between -1 and " + MAX_NEAR_DUPLICATE_DISTANCE);
+      }
+      if (maxPageBytes < 0) {
+        throw new IllegalArgumentException("maxPageBytes cannot be negative");
+      }
+      if (dnsCacheSeconds < 0 || dnsNegativeCacheSeconds < 0) {
+        throw new IllegalArgumentException("DNS cache times cannot be negative");
+      }
+      if (dnsPrefetchThreads < 0) {
+        throw new IllegalArgumentException("dnsPrefetchThreads cannot be negative");
+      }
+      if (fetchRetries < 0) {
+        throw new IllegalArgumentException("fetchRetries cannot be negative");
+      }
+      if (retryBaseDelayMillis < 0) {
+        throw new IllegalArgumentException("retryBaseDelayMillis cannot be negative");
+      }
+      if (!(circuitFailureRate >= 0 && circuitFailureRate <= 1)) {
+        throw new IllegalArgumentException("circuitFailureRate must be between 0 and 1");
+      }
+      if (circuitOpenSeconds < 0) {
+        throw new IllegalArgumentException("circuitOpenSeconds cannot be negative");
+      }
+      if (hedgeBudget < 0) {
+        throw new IllegalArgumentException("hedgeBudget cannot be negative");
+      }
+      if (adaptiveTimeoutFactor != 0 && !(adaptiveTimeoutFactor >= 1)) {
+        throw new IllegalArgumentException("adaptiveTimeoutFactor must be 0 or at least 1");
+      }
+      if (minFetchTimeoutMillis < 1) {
+        throw new IllegalArgumentException("minFetchTimeoutMillis must be positive");
+      }
+      if (shardCount < 1) {
+        throw new IllegalArgumentException("shardCount must be positive");
+      }
+      if (shardIndex < 0 || shardIndex >= shardCount) {
+        throw new IllegalArgumentException("shardIndex must be between 0 and shardCount - 1");
+      }
+      if (shardCount > 1 && shardWorkDirectory.isEmpty()) {
+        throw new IllegalArgumentException("a sharded crawl requires a shardWorkDirectory");
+      }
+      if (shardCount > 1 && directoryCrawl) {
+        throw new IllegalArgumentException("a directory crawl cannot be sharded");
+      }
+      ResultFormat format =
+          resultFormat.isEmpty()
+              ? ResultFormat.forPath(resultPath)
+              : ResultFormat.fromName(resultFormat);
+      if (format == ResultFormat.BINARY && resultPath.isEmpty()) {
+        throw new IllegalArgumentException("the binary result format requires a resultPath");
+      }
 
       return new CrawlerConfiguration(
           startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -345,7 +1272,40 @@ public final class CrawlerConfiguration {
           Duration.ofSeconds(timeoutSeconds),
           popularWordCount,
           profileOutputPath,
-          resultPath);
+          resultPath,
+          flightRecorderEvents,
+          profileSlowestUrls,
+          compactResult,
+          format,
+          shardCount,
+          shardIndex,
+          shardWorkDirectory,
+          fullWordCounts,
+          taskBatchSize,
+          adaptiveParallelism,
+          minParallelism,
+          maxParallelism,
+          CrawlOrder.fromName(crawlOrder),
+          priorityUrls.stream().map(Pattern::compile).collect(Collectors.toUnmodifiableList()),
+          stripTrackingParameters,
+          sortQueryParameters,
+          removeTrailingSlash,
+          nearDuplicateDistance,
+          followDuplicateLinks,
+          directoryCrawl,
+          followDirectoryLinks,
+          Set.copyOf(skippedLinkExtensions),
+          maxPageBytes,
+          Duration.ofSeconds(dnsCacheSeconds),
+          Duration.ofSeconds(dnsNegativeCacheSeconds),
+          dnsPrefetchThreads,
+          fetchRetries,
+          Duration.ofMillis(retryBaseDelayMillis),
+          circuitFailureRate,
+          Duration.ofSeconds(circuitOpenSeconds),
+          hedgeBudget,
+          adaptiveTimeoutFactor,
+          Duration.ofMillis(minFetchTimeoutMillis));
     }
   }
 }
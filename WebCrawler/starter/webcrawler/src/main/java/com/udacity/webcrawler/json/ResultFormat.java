@@ -0,0 +1,44 @@
+package com.udacity.webcrawler.json;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The file formats a {@link CrawlResult} can be written in.
+ */
+public enum ResultFormat {
+
+  /**
+   * Human-readable JSON. See {@link CrawlResultWriter#write(java.io.Writer)}.
+   */
+  JSON,
+
+  /**
+   * A compact binary layout with a dictionary-encoded word table and varint counts, meant for
+   * results with very many word counts. See {@link BinaryCrawlResultReader}.
+   */
+  BINARY;
+
+  /**
+   * The file extension that selects {@link #BINARY} when no format is configured explicitly.
+   */
+  public static final String BINARY_EXTENSION = ".wcb";
+
+  /**
+   * Returns the format implied by the extension of the given path: {@link #BINARY} for
+   * {@value #BINARY_EXTENSION} files, {@link #JSON} otherwise.
+   */
+  public static ResultFormat forPath(String path) {
+    Objects.requireNonNull(path);
+    return path.toLowerCase(Locale.ROOT).endsWith(BINARY_EXTENSION) ? BINARY : JSON;
+  }
+
+  /**
+   * Parses a format name as used in the crawler configuration JSON, ignoring case.
+   *
+   * @throws IllegalArgumentException if the name is not a known format.
+   */
+  public static ResultFormat fromName(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,40 @@
+package com.udacity.webcrawler.main;
+
+import com.udacity.webcrawler.CrawlResultMerger;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlResultWriter;
+import com.udacity.webcrawler.json.ResultFormat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line tool that merges the result files of several crawls into one result.
+ *
+ * <p>Usage: {@code MergeResultsMain <popular-word-count> <output> <input>...}. The output format
+ * is picked from the extension of the output path; see {@link ResultFormat#forPath(String)}.
+ */
+public final class MergeResultsMain {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      System.out.println("Usage: MergeResultsMain <popular-word-count> <output> <input>...");
+      return;
+    }
+
+    int popularWordCount = Integer.parseInt(args[0]);
+    List<Path> inputs = new ArrayList<>();
+    for (int i = 2; i < args.length; i++) {
+      inputs.add(Path.of(args[i]));
+    }
+    CrawlResult result =
+        CrawlResultMerger.merge(
+            inputs, popularWordCount, Runtime.getRuntime().availableProcessors());
+    new CrawlResultWriter(result).write(Path.of(args[1]), ResultFormat.forPath(args[1]));
+  }
+
+  private MergeResultsMain() {
+    // This class cannot be instantiated
+  }
+}
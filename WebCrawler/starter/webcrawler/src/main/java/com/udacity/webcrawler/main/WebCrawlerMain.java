@@ -7,6 +7,7 @@ import com.udacity.webcrawler.json.ConfigurationLoader;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlResultWriter;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.profiler.FlightRecorderEvents;
 import com.udacity.webcrawler.profiler.Profiler;
 import com.udacity.webcrawler.profiler.ProfilerModule;
 
@@ -36,18 +37,33 @@ public final class WebCrawlerMain {
   private Profiler profiler;
 
   private void run() throws Exception {
-    // Inject dependencies using Guice
-    Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule()).injectMembers(this);
+    if (config.isFlightRecorderEvents()) {
+      FlightRecorderEvents.register();
+    }
 
-    // Perform the web crawling
-    CrawlResult result = crawler.crawl(config.getStartPages());
-    CrawlResultWriter resultWriter = new CrawlResultWriter(result);
+    // Inject dependencies using Guice
+    ProfilerModule profilerModule =
+        new ProfilerModule.Builder()
+            .setSlowestUrlCount(config.getProfileSlowestUrls())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), profilerModule).injectMembers(this);
+
+    // Perform the web crawling, shutting the crawler down even if the crawl fails
+    CrawlResult result;
+    try (WebCrawler webCrawler = crawler) {
+      result = webCrawler.crawl(config.getStartPages());
+    }
+    CrawlResultWriter resultWriter = new CrawlResultWriter(result, !config.isCompactResult());
 
-    // Write crawl results to JSON file or System.out if result path is empty
+    // Write crawl results to JSON file or System.out if result path is empty. In a sharded crawl,
+    // only shard 0 has the merged result.
     String resultPath = config.getResultPath();
-    if (!resultPath.isEmpty()) {
+    if (config.getShardIndex() != 0) {
+      System.err.println(
+          "Shard " + config.getShardIndex() + " visited " + result.getUrlsVisited() + " URLs");
+    } else if (!resultPath.isEmpty()) {
       Path path = Paths.get(resultPath);
-      resultWriter.write(path);
+      resultWriter.write(path, config.getResultFormat());
     } else {
       Writer outputWriter = new OutputStreamWriter(System.out);
       resultWriter.write(outputWriter);
@@ -0,0 +1,138 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which links and responses are worth fetching, so that images, media and other binary
+ * files are not downloaded only to be rejected by the parser.
+ *
+ * <p>Links whose path ends in one of the {@linkplain Builder#setSkippedExtensions skipped
+ * extensions} are dropped before they reach the crawl. A response is abandoned as soon as its
+ * headers show that it is not HTML, or that it is larger than {@link #getMaxPageBytes()}, and a
+ * body without a {@code Content-Length} is abandoned once that many bytes have been read.
+ */
+public final class ContentFilter {
+
+  /**
+   * The extensions whose links are skipped unless others are given: images, audio, video,
+   * documents, archives, executables, fonts, scripts and style sheets.
+   */
+  public static final Set<String> DEFAULT_SKIPPED_EXTENSIONS =
+      Set.of(
+          "png", "jpg", "jpeg", "gif", "bmp", "ico", "svg", "webp", "tif", "tiff",
+          "mp3", "wav", "ogg", "flac", "aac", "m4a",
+          "mp4", "m4v", "mov", "avi", "mkv", "webm", "wmv", "flv", "mpg", "mpeg",
+          "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp", "rtf", "epub",
+          "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "tar", "jar", "iso", "dmg",
+          "exe", "msi", "apk", "deb", "rpm", "bin",
+          "woff", "woff2", "ttf", "otf", "eot",
+          "js", "css");
+
+  /**
+   * The default {@link #getMaxPageBytes()}: 10 MiB, several times the size of the largest HTML
+   * pages in the wild.
+   */
+  public static final long DEFAULT_MAX_PAGE_BYTES = 10L * 1024 * 1024;
+
+  private final Set<String> skippedExtensions;
+  private final long maxPageBytes;
+
+  private ContentFilter(Set<String> skippedExtensions, long maxPageBytes) {
+    this.skippedExtensions = skippedExtensions;
+    this.maxPageBytes = maxPageBytes;
+  }
+
+  /**
+   * Returns true if the last path segment of the URL has a skipped extension. The query and
+   * fragment are ignored, and so is the case of the extension.
+   */
+  public boolean isSkippedLink(String url) {
+    if (skippedExtensions.isEmpty()) {
+      return false;
+    }
+    int end = url.length();
+    for (int i = 0; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == '?' || c == '#') {
+        end = i;
+        break;
+      }
+    }
+    int slash = url.lastIndexOf('/', end - 1);
+    int dot = url.lastIndexOf('.', end - 1);
+    if (dot <= slash || dot == end - 1) {
+      return false;
+    }
+    return skippedExtensions.contains(url.substring(dot + 1, end).toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns true if a response with the given {@code Content-Type} header, or null if it has none,
+   * can be parsed as a page: any text type, and XML types such as XHTML. These are the types that
+   * Jsoup accepts.
+   */
+  public boolean isParsedContentType(String contentType) {
+    if (contentType == null || contentType.isEmpty()) {
+      return true;
+    }
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/") || type.matches("(application|text)/\\w*\\+?xml.*");
+  }
+
+  /**
+   * Returns the largest response body, in bytes, that is read before a page is abandoned, or 0 if
+   * there is no limit.
+   */
+  public long getMaxPageBytes() {
+    return maxPageBytes;
+  }
+
+  /**
+   * Returns true if a page of the given size, in bytes, is too large to be read.
+   */
+  public boolean isTooLarge(long bytes) {
+    return maxPageBytes > 0 && bytes > maxPageBytes;
+  }
+
+  /**
+   * A builder class for {@link ContentFilter}.
+   */
+  public static final class Builder {
+    private Set<String> skippedExtensions = DEFAULT_SKIPPED_EXTENSIONS;
+    private long maxPageBytes = DEFAULT_MAX_PAGE_BYTES;
+
+    /**
+     * Sets the file extensions, without the leading {@code '.'}, of links that are not followed.
+     * Defaults to {@link #DEFAULT_SKIPPED_EXTENSIONS}; an empty set follows every link.
+     */
+    public Builder setSkippedExtensions(Set<String> skippedExtensions) {
+      this.skippedExtensions =
+          skippedExtensions.stream()
+              .map(extension -> extension.toLowerCase(Locale.ROOT))
+              .collect(Collectors.toUnmodifiableSet());
+      return this;
+    }
+
+    /**
+     * Sets the largest response body, in bytes, that is read, or 0 for no limit. Defaults to
+     * {@link #DEFAULT_MAX_PAGE_BYTES}.
+     */
+    public Builder setMaxPageBytes(long maxPageBytes) {
+      if (maxPageBytes < 0) {
+        throw new IllegalArgumentException("maxPageBytes cannot be negative");
+      }
+      this.maxPageBytes = maxPageBytes;
+      return this;
+    }
+
+    /**
+     * Builds a {@link ContentFilter} from this {@link Builder}.
+     */
+    public ContentFilter build() {
+      return new ContentFilter(Objects.requireNonNull(skippedExtensions), maxPageBytes);
+    }
+  }
+}
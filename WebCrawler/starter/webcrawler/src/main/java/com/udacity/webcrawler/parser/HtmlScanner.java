@@ -0,0 +1,557 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Finds the text and the {@code <a href>} links of a UTF-8 HTML page in a single pass over its
+ * bytes, without building a document tree.
+ *
+ * <p>The scanner reports the same text nodes and links that a Jsoup {@link
+ * org.jsoup.nodes.Document} of the page would contain, for the parts of HTML that the crawler
+ * cares about. Each tag, comment and doctype ends a text node; {@code <script>} and
+ * {@code <style>} contents are not text; {@code <title>} and {@code <textarea>} contents are text
+ * with character references but no tags; and {@code <xmp>}, {@code <iframe>}, {@code <noembed>}
+ * and {@code <noframes>} contents are text as they are.
+ *
+ * <p>Markup that Jsoup handles in more surprising ways, such as {@code <noscript>}, CDATA
+ * sections, a {@code <!--} inside a script, or a page that ends inside a tag, makes
+ * {@link #scan} give up, and the page has to be parsed by Jsoup instead. Since markup is plain
+ * ASCII and UTF-8 never uses ASCII bytes inside a multi-byte character, the scanner only decodes
+ * the text and link bytes it reports.
+ *
+ * <p>A page that is still arriving can be scanned chunk by chunk through a {@link Feed}. Each scan
+ * of a partial page stops before the first text node, tag or comment that may not have fully
+ * arrived, and the next scan starts over from there.
+ */
+final class HtmlScanner {
+
+  /**
+   * Elements whose contents Jsoup keeps as data rather than text.
+   */
+  private static final Set<String> DATA_ELEMENTS = Set.of("script", "style");
+
+  /**
+   * Elements whose contents are text, without tags or character references.
+   */
+  private static final Set<String> RAW_TEXT_ELEMENTS =
+      Set.of("xmp", "iframe", "noembed", "noframes");
+
+  /**
+   * Elements whose contents are text with character references, but without tags.
+   */
+  private static final Set<String> ESCAPABLE_RAW_TEXT_ELEMENTS = Set.of("title", "textarea");
+
+  /**
+   * Elements that make Jsoup add, drop or reinterpret text, and {@code <base>}, which changes how
+   * the links of a remote page resolve. A {@code <template>} switches Jsoup into its own insertion
+   * modes, in which stray table tags can drop the text that follows them.
+   */
+  private static final Set<String> UNSUPPORTED_ELEMENTS =
+      Set.of("noscript", "plaintext", "frameset", "isindex", "base", "template");
+
+  /**
+   * The start tags that Jsoup does not drop inside a {@code <select>}.
+   */
+  private static final Set<String> SELECT_CONTENT =
+      Set.of("option", "optgroup", "script", "template");
+
+  private final ByteBuffer html;
+  private final int limit;
+  private final Consumer<String> texts;
+  private final Consumer<String> hrefs;
+  // False if more of the page may still arrive after the limit of the buffer.
+  private final boolean complete;
+  // True if the scan starts at the start of the page, where a byte order mark may be.
+  private final boolean atStart;
+  private int position;
+  private boolean inSelect;
+  // Where a partial scan stopped.
+  private int resume;
+  private byte[] scratch = new byte[256];
+
+  private HtmlScanner(
+      ByteBuffer html,
+      int position,
+      boolean atStart,
+      boolean inSelect,
+      boolean complete,
+      Consumer<String> texts,
+      Consumer<String> hrefs) {
+    this.html = html;
+    this.limit = html.limit();
+    this.texts = texts;
+    this.hrefs = hrefs;
+    this.complete = complete;
+    this.atStart = atStart;
+    this.position = position;
+    this.inSelect = inSelect;
+  }
+
+  /**
+   * Scans the remaining bytes of the buffer, which must hold a UTF-8 page, and reports its text
+   * nodes and links in document order. The buffer's position is not changed.
+   *
+   * @param texts receives the text of each text node, with its whitespace normalized as by
+   *              {@link org.jsoup.nodes.TextNode#text()}.
+   * @param hrefs receives the {@code href} of each {@code <a>} element that has one.
+   * @return false if the page uses markup that the scanner does not handle the way Jsoup does.
+   *     Some text and links may already have been reported, and should be discarded.
+   */
+  static boolean scan(ByteBuffer html, Consumer<String> texts, Consumer<String> hrefs) {
+    return new HtmlScanner(html, html.position(), true, false, true, texts, hrefs).scan();
+  }
+
+  /**
+   * Scans a UTF-8 page while it is read from a stream, reporting its text nodes and links as soon
+   * as they have arrived, rather than once the whole page has.
+   *
+   * <p>Each time more bytes arrive, the part of the page after the last complete text node, tag or
+   * comment is scanned again. A part that fails to scan is only retried once the bytes after it
+   * have doubled, so that markup the scanner cannot handle, or a long script, is not scanned over
+   * and over, and a page is scanned in linear time overall.
+   *
+   * <p>The bytes read are kept up to a limit, so that a page the scanner gives up on can still be
+   * parsed by Jsoup. Past the limit, only the bytes that have not been reported yet are kept, so
+   * the memory a page needs is bounded by the limit and its longest text node or element that is
+   * scanned as a whole, such as a script.
+   */
+  static final class Feed {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private final Consumer<String> texts;
+    private final Consumer<String> hrefs;
+    private final int retainLimit;
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int count;
+    // False once bytes at the start of the page have been dropped.
+    private boolean whole = true;
+    // The first byte that has not been reported yet, and whether it is inside a <select>.
+    private int resume;
+    private boolean inSelect;
+    // The next partial scan waits until this many bytes have arrived.
+    private int nextScan;
+
+    /**
+     * @param texts       receives the text of each text node, as for {@link HtmlScanner#scan}.
+     * @param hrefs       receives the {@code href} of each {@code <a>} element that has one.
+     * @param retainLimit the number of bytes of the page that are kept for {@link #content()}.
+     */
+    Feed(Consumer<String> texts, Consumer<String> hrefs, int retainLimit) {
+      this.texts = texts;
+      this.hrefs = hrefs;
+      this.retainLimit = retainLimit;
+    }
+
+    /**
+     * Reads the stream to its end, scanning the page as it arrives.
+     *
+     * @return false if the page uses markup that the scanner does not handle the way Jsoup does.
+     *     Some text and links may already have been reported, and should be discarded.
+     */
+    boolean readFrom(InputStream in) throws IOException {
+      while (true) {
+        if (count == bytes.length) {
+          if (bytes.length > Integer.MAX_VALUE / 2) {
+            throw new IOException("Page is too large to scan");
+          }
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        int read = in.read(bytes, count, bytes.length - count);
+        if (read < 0) {
+          return scan(true);
+        }
+        count += read;
+        if (count >= nextScan) {
+          scan(false);
+          nextScan = count + (count - resume);
+          if (!whole || count > retainLimit) {
+            dropReported();
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the whole page read, or null if its start was dropped because it was larger than the
+     * retain limit.
+     */
+    ByteBuffer content() {
+      return whole ? ByteBuffer.wrap(bytes, 0, count) : null;
+    }
+
+    private boolean scan(boolean complete) {
+      HtmlScanner scanner =
+          new HtmlScanner(
+              ByteBuffer.wrap(bytes, 0, count),
+              resume,
+              whole && resume == 0,
+              inSelect,
+              complete,
+              texts,
+              hrefs);
+      boolean scanned = scanner.scan();
+      resume = scanner.resume;
+      inSelect = scanner.inSelect;
+      return scanned;
+    }
+
+    /**
+     * Moves the bytes that have not been reported yet to the start of the buffer.
+     */
+    private void dropReported() {
+      if (resume == 0) {
+        return;
+      }
+      System.arraycopy(bytes, resume, bytes, 0, count - resume);
+      count -= resume;
+      nextScan -= resume;
+      resume = 0;
+      whole = false;
+    }
+  }
+
+  /**
+   * Scans the page, or as much of it as can be scanned if it is not {@link #complete}.
+   */
+  private boolean scan() {
+    if (atStart && startsWith(position, 0xEF, 0xBB, 0xBF)) {
+      // A UTF-8 byte order mark, which Jsoup skips.
+      position += 3;
+    } else if (atStart && (startsWith(position, 0xFE, 0xFF) || startsWith(position, 0xFF, 0xFE))) {
+      // A UTF-16 or UTF-32 byte order mark, which overrides the charset in Jsoup.
+      return stop(position);
+    }
+
+    int textStart = position;
+    while (position < limit) {
+      byte b = html.get(position);
+      if (b == 0) {
+        return stop(textStart);
+      }
+      if (b != '<' || position + 1 >= limit) {
+        position++;
+        continue;
+      }
+      int markupStart = position;
+      byte next = html.get(position + 1);
+      if (isAsciiLetter(next)) {
+        reportText(textStart, position, true);
+        if (!startTag()) {
+          return stop(markupStart);
+        }
+      } else if (next == '/') {
+        // "</>" and "</" followed by anything but a letter are dropped in odd ways.
+        if (position + 2 >= limit || !isAsciiLetter(html.get(position + 2))) {
+          return stop(textStart);
+        }
+        reportText(textStart, position, true);
+        position += 2;
+        String name = tag(false);
+        if (name == null) {
+          return stop(markupStart);
+        }
+        if (name.equals("select")) {
+          inSelect = false;
+        }
+      } else if (next == '!' || next == '?') {
+        reportText(textStart, position, true);
+        if (!markupDeclaration()) {
+          return stop(markupStart);
+        }
+      } else {
+        // A '<' that does not start a tag is text.
+        position++;
+        continue;
+      }
+      textStart = position;
+    }
+    if (!complete) {
+      // The text node may go on in the next chunk.
+      resume = textStart;
+      return true;
+    }
+    reportText(textStart, limit, true);
+    return true;
+  }
+
+  /**
+   * Gives up on the scan. A partial scan instead ends at the given position, which has not been
+   * reported yet: what looks unsupported there may only have been cut off by the end of the chunk.
+   */
+  private boolean stop(int at) {
+    resume = at;
+    return false;
+  }
+
+  /**
+   * Reads a start tag, starting at its {@code '<'}, and the contents of the element if they are
+   * not markup.
+   */
+  private boolean startTag() {
+    position++;
+    String name = tag(true);
+    if (name == null
+        || UNSUPPORTED_ELEMENTS.contains(name)
+        || (inSelect && !SELECT_CONTENT.contains(name))) {
+      return false;
+    }
+    if (name.equals("select")) {
+      inSelect = true;
+    }
+    boolean data = DATA_ELEMENTS.contains(name);
+    boolean raw = RAW_TEXT_ELEMENTS.contains(name);
+    boolean escapable = ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name);
+    if (!data && !raw && !escapable) {
+      return true;
+    }
+    if (html.get(position - 2) == '/') {
+      // A self-closing "<script/>" is not closed, but whether Jsoup agrees is not worth finding
+      // out.
+      return false;
+    }
+    int contentStart = position;
+    int contentEnd = findEndTag(name);
+    if (contentEnd < 0) {
+      return false;
+    }
+    if (name.equals("script") && indexOf("<!--", contentStart, contentEnd) >= 0) {
+      // Script contents have their own rules for comments.
+      return false;
+    }
+    if (!data) {
+      reportText(contentStart, contentEnd, escapable);
+    }
+    // The end tag itself is read as an ordinary tag.
+    position = contentEnd;
+    return true;
+  }
+
+  /**
+   * Reads the name and attributes of a tag, starting just after {@code "<"} or {@code "</"}, and
+   * reports the {@code href} of an {@code <a>} start tag.
+   *
+   * @return the lower-case tag name, or null if the tag is unsupported or the page ends inside it.
+   */
+  private String tag(boolean start) {
+    int nameStart = position;
+    while (position < limit && !endsName(html.get(position))) {
+      position++;
+    }
+    String name = lowerCaseAscii(nameStart, position);
+    if (name.indexOf('<') >= 0) {
+      return null;
+    }
+    boolean anchor = start && name.equals("a");
+    // Only reported once the tag is complete, so that a partial scan never reports it twice.
+    String href = null;
+    while (true) {
+      while (position < limit && (isWhitespace(html.get(position)) || html.get(position) == '/')) {
+        position++;
+      }
+      if (position >= limit) {
+        return null;
+      }
+      if (html.get(position) == '>') {
+        position++;
+        if (href != null) {
+          hrefs.accept(href);
+        }
+        return name;
+      }
+
+      // An attribute name may start with '=', but not continue with it.
+      int attributeStart = position++;
+      while (position < limit && !endsName(html.get(position)) && html.get(position) != '=') {
+        position++;
+      }
+      int attributeEnd = position;
+      for (int i = attributeStart; i < attributeEnd; i++) {
+        byte b = html.get(i);
+        if (b == '"' || b == '\'' || b == '<') {
+          return null;
+        }
+      }
+      skipWhitespace();
+
+      int valueStart = position;
+      int valueEnd = position;
+      if (position < limit && html.get(position) == '=') {
+        position++;
+        skipWhitespace();
+        if (position >= limit) {
+          return null;
+        }
+        byte quote = html.get(position);
+        if (quote == '"' || quote == '\'') {
+          valueStart = position + 1;
+          valueEnd = indexOf(quote, valueStart);
+          if (valueEnd < 0) {
+            return null;
+          }
+          position = valueEnd + 1;
+        } else {
+          valueStart = position;
+          while (position < limit
+              && !isWhitespace(html.get(position))
+              && html.get(position) != '>') {
+            position++;
+          }
+          valueEnd = position;
+        }
+      }
+
+      // Jsoup keeps the first of several attributes with the same name.
+      if (anchor && href == null && lowerCaseAscii(attributeStart, attributeEnd).equals("href")) {
+        String value = decode(valueStart, valueEnd);
+        href = value.indexOf('&') < 0 ? value : Parser.unescapeEntities(value, true);
+      }
+    }
+  }
+
+  /**
+   * Skips a comment, doctype or processing instruction, starting at its {@code '<'}.
+   */
+  private boolean markupDeclaration() {
+    if (startsWith(position, '<', '!', '-', '-')) {
+      int contentStart = position + 4;
+      if (startsWith(contentStart, '>') || startsWith(contentStart, '-', '>')) {
+        // "<!-->" and "<!--->" are empty comments.
+        return false;
+      }
+      int end = indexOf("-->", contentStart, limit);
+      if (end < 0 || indexOf("--!>", contentStart, end) >= 0) {
+        return false;
+      }
+      position = end + 3;
+      return true;
+    }
+    if (startsWith(position, '<', '!', '[')) {
+      // CDATA sections are text in Jsoup.
+      return false;
+    }
+    int end = indexOf((byte) '>', position);
+    if (end < 0) {
+      return false;
+    }
+    position = end + 1;
+    return true;
+  }
+
+  /**
+   * Returns the position of the end tag of the element with the given name, or -1 if there is
+   * none.
+   */
+  private int findEndTag(String name) {
+    for (int i = indexOf((byte) '<', position); i >= 0; i = indexOf((byte) '<', i + 1)) {
+      int afterName = i + 2 + name.length();
+      if (afterName < limit
+          && html.get(i + 1) == '/'
+          && lowerCaseAscii(i + 2, afterName).equals(name)
+          && (endsName(html.get(afterName)))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void reportText(int start, int end, boolean hasCharacterReferences) {
+    if (start >= end) {
+      return;
+    }
+    String text = decode(start, end);
+    if (hasCharacterReferences && text.indexOf('&') >= 0) {
+      text = Parser.unescapeEntities(text, false);
+    }
+    texts.accept(StringUtil.normaliseWhitespace(text));
+  }
+
+  private String decode(int start, int end) {
+    int length = end - start;
+    if (html.hasArray()) {
+      return new String(html.array(), html.arrayOffset() + start, length, StandardCharsets.UTF_8);
+    }
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    html.get(start, scratch, 0, length);
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private String lowerCaseAscii(int start, int end) {
+    char[] chars = new char[end - start];
+    for (int i = start; i < end; i++) {
+      byte b = html.get(i);
+      chars[i - start] = (char) ((b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : b & 0xFF);
+    }
+    return new String(chars);
+  }
+
+  private void skipWhitespace() {
+    while (position < limit && isWhitespace(html.get(position))) {
+      position++;
+    }
+  }
+
+  private int indexOf(byte b, int from) {
+    for (int i = from; i < limit; i++) {
+      if (html.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int indexOf(String ascii, int from, int to) {
+    for (int i = from; i <= to - ascii.length(); i++) {
+      if (startsWith(i, ascii)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean startsWith(int at, String ascii) {
+    if (at + ascii.length() > limit) {
+      return false;
+    }
+    for (int i = 0; i < ascii.length(); i++) {
+      if (html.get(at + i) != ascii.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean startsWith(int at, int... bytes) {
+    if (at + bytes.length > limit) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (html.get(at + i) != (byte) bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean endsName(byte b) {
+    return isWhitespace(b) || b == '/' || b == '>';
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\f' || b == '\r';
+  }
+
+  private static boolean isAsciiLetter(byte b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+  }
+}
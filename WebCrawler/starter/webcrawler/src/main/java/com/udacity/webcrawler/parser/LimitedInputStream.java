@@ -0,0 +1,71 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.fetch.PageRejectedException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a response body, and fails the read that goes past a limit. The
+ * parser reading the body then gives up on the page, and closing the stream drops the rest of the
+ * response unread.
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+  private final long limit;
+  private long count;
+
+  /**
+   * @param limit the most bytes that may be read, or 0 for no limit.
+   */
+  LimitedInputStream(InputStream in, long limit) {
+    super(in);
+    this.limit = limit;
+  }
+
+  /**
+   * Returns the number of bytes read so far.
+   */
+  long getCount() {
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b >= 0) {
+      add(1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int read = super.read(b, off, len);
+    if (read > 0) {
+      add(read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    add(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    // A reset would make the count wrong.
+    return false;
+  }
+
+  private void add(long bytes) throws IOException {
+    count += bytes;
+    if (limit > 0 && count > limit) {
+      throw new PageRejectedException("Response body is larger than " + limit + " bytes");
+    }
+  }
+}
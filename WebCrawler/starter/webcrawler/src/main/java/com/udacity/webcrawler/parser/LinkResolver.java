@@ -0,0 +1,217 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the {@code href} attributes found on one page into absolute URLs.
+ *
+ * <p>The base of the page is parsed once, when the resolver is created, rather than once per
+ * link. Simple relative links, made only of letters, digits, {@code '-'}, {@code '_'},
+ * {@code '.'} and inner {@code '/'}s, with no {@code "."} or {@code ".."} segments, are then
+ * resolved by appending them to the base directory. Anything else is resolved the same way as
+ * before: against the parent path for local files, and with Jsoup's resolver for remote pages.
+ * The links of a page inside an archive resolve against its path inside the archive.
+ */
+final class LinkResolver {
+
+  /**
+   * Matches URLs that start with a scheme. Jsoup keeps such links as they are when they cannot be
+   * parsed.
+   */
+  private static final Pattern VALID_URI_SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+\\-.]*:");
+
+  private final String localDirectory;
+  private final URL remoteBase;
+  private final String remoteBaseUri;
+  // The absolute URL of the page's directory, ending in '/', or null if simple links cannot simply
+  // be appended to it.
+  private final String directoryPrefix;
+  // For pages inside an archive: the URL of the archive up to its "!", and the escaped path of the
+  // page inside it, starting with '/'.
+  private final String archivePrefix;
+  private final String entryPath;
+
+  private LinkResolver(
+      String localDirectory, URL remoteBase, String remoteBaseUri, String directoryPrefix) {
+    this(localDirectory, remoteBase, remoteBaseUri, directoryPrefix, null, null);
+  }
+
+  private LinkResolver(
+      String localDirectory,
+      URL remoteBase,
+      String remoteBaseUri,
+      String directoryPrefix,
+      String archivePrefix,
+      String entryPath) {
+    this.localDirectory = localDirectory;
+    this.remoteBase = remoteBase;
+    this.remoteBaseUri = remoteBaseUri;
+    this.directoryPrefix = directoryPrefix;
+    this.archivePrefix = archivePrefix;
+    this.entryPath = entryPath;
+  }
+
+  /**
+   * Returns a resolver for the links of a local file.
+   *
+   * <p>Unlike a full resolution, the fast path does not look at the file system, so a simple link
+   * to a directory does not get a trailing {@code '/'}. Such links cannot be parsed as pages
+   * either way.
+   */
+  static LinkResolver forLocalFile(Path file) {
+    Path directory = file.getParent();
+    return new LinkResolver(directory.toString(), null, null, directory.toUri().toString());
+  }
+
+  /**
+   * Returns a resolver for the links of a remote page.
+   *
+   * @param baseUri the base URI of the parsed document, which accounts for redirects and for any
+   *                {@code <base>} element.
+   */
+  static LinkResolver forRemotePage(String baseUri) {
+    URL base;
+    try {
+      base = new URL(baseUri);
+    } catch (MalformedURLException e) {
+      return new LinkResolver(null, null, baseUri, null);
+    }
+    String directoryPrefix = null;
+    try {
+      // Resolve a one-letter link, then take the letter back off.
+      String probe = StringUtil.resolve(base, "x").toExternalForm();
+      if (probe.endsWith("/x")) {
+        directoryPrefix = probe.substring(0, probe.length() - 1);
+      }
+    } catch (MalformedURLException e) {
+      // No fast path for this page.
+    }
+    return new LinkResolver(null, base, baseUri, directoryPrefix);
+  }
+
+  /**
+   * Returns a resolver for the links of a page inside an archive, given its entry URL (see
+   * {@link com.udacity.webcrawler.archive.ArchiveUrls}).
+   *
+   * <p>Relative links stay inside the archive: {@code ".."} segments stop at its root, and a link
+   * that starts with {@code '/'} starts there. Queries and fragments are dropped, since entries
+   * have neither. Links with a scheme are kept as they are.
+   */
+  static LinkResolver forArchiveEntry(String entryUrl) {
+    int separator = entryUrl.indexOf("!/");
+    return new LinkResolver(
+        null,
+        null,
+        null,
+        entryUrl.substring(0, entryUrl.lastIndexOf('/') + 1),
+        entryUrl.substring(0, separator + 1),
+        entryUrl.substring(separator + 1));
+  }
+
+  /**
+   * Returns the absolute URL of the given {@code href}, or an empty string if it cannot be
+   * resolved.
+   */
+  String resolve(String href) {
+    if (directoryPrefix != null && isSimpleRelative(href)) {
+      return directoryPrefix + href;
+    }
+    if (archivePrefix != null) {
+      return resolveInArchive(href);
+    }
+    if (localDirectory != null) {
+      return Path.of(localDirectory, href).toUri().toString();
+    }
+    if (remoteBase == null) {
+      return StringUtil.resolve(remoteBaseUri, href);
+    }
+    try {
+      return StringUtil.resolve(remoteBase, href).toExternalForm();
+    } catch (MalformedURLException e) {
+      return VALID_URI_SCHEME.matcher(href).find() ? href : "";
+    }
+  }
+
+  private String resolveInArchive(String href) {
+    if (VALID_URI_SCHEME.matcher(href).find()) {
+      return href;
+    }
+    URI reference;
+    try {
+      reference = new URI(href);
+    } catch (URISyntaxException e) {
+      // Offline dumps often have unescaped links, such as "with space.html". The query and
+      // fragment are dropped anyway, so only the path needs escaping.
+      int end = href.length();
+      for (char c : new char[] {'?', '#'}) {
+        int index = href.indexOf(c);
+        if (index >= 0 && index < end) {
+          end = index;
+        }
+      }
+      try {
+        reference = new URI(null, null, href.substring(0, end), null);
+      } catch (URISyntaxException unescapable) {
+        return "";
+      }
+    }
+    if (reference.getRawAuthority() != null) {
+      // A network-path reference, whose scheme is not known here.
+      return "";
+    }
+    if (reference.getRawPath().isEmpty()) {
+      // Only a query or a fragment, which point to the page itself.
+      return archivePrefix + entryPath;
+    }
+    String path;
+    try {
+      path = new URI("x:" + entryPath).resolve(reference).getRawPath();
+    } catch (URISyntaxException e) {
+      return "";
+    }
+    // URI.resolve() keeps ".." segments that go above the root.
+    while (path.startsWith("/../")) {
+      path = path.substring("/..".length());
+    }
+    return archivePrefix + (path.equals("/..") ? "/" : path);
+  }
+
+  /**
+   * Returns true if the {@code href} is a relative path that resolves to the base directory
+   * followed by the {@code href} itself.
+   */
+  static boolean isSimpleRelative(String href) {
+    int length = href.length();
+    if (length == 0 || href.charAt(0) == '/' || href.charAt(length - 1) == '/') {
+      return false;
+    }
+    int segmentStart = 0;
+    for (int i = 0; i <= length; i++) {
+      char c = i < length ? href.charAt(i) : '/';
+      if (c == '/') {
+        int segmentLength = i - segmentStart;
+        if (segmentLength == 0
+            || (segmentLength == 1 && href.charAt(segmentStart) == '.')
+            || (segmentLength == 2 && href.startsWith("..", segmentStart))) {
+          return false;
+        }
+        segmentStart = i + 1;
+      } else if (!((c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || c == '-'
+          || c == '_'
+          || c == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
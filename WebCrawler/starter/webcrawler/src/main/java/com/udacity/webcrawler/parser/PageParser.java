@@ -2,6 +2,7 @@ package com.udacity.webcrawler.parser;
 
 import com.udacity.webcrawler.profiler.Profiled;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +24,31 @@ public interface PageParser {
   @Profiled
   Result parse();
 
+  /**
+   * Processes the HTML page like {@link #parse()}, and also passes each of its links to the
+   * listener as soon as it is found. For a page that is scanned while it downloads, that is before
+   * the rest of the page has arrived, so the crawl can start on the links right away.
+   *
+   * <p>Every link of the returned {@link Result} is passed to the listener exactly once, before
+   * this method returns. A page that fails partway may have passed links that its result then
+   * leaves out. The listener may be called from other threads than the caller's, but never after
+   * this method has returned.
+   */
+  @Profiled
+  default Result parse(Consumer<String> linkListener) {
+    Result result = parse();
+    result.getLinks().forEach(linkListener);
+    return result;
+  }
+
+  /**
+   * Returns how long the parse so far has waited to retry failed fetches. That time says nothing
+   * about how fast the server is, so a crawl leaves it out of the latency it measures.
+   */
+  default Duration getRetryWait() {
+    return Duration.ZERO;
+  }
+
   /**
    * A data class that represents the outcome of processing an HTML page.
    */
@@ -56,6 +83,19 @@ public interface PageParser {
     static final class Builder {
       private final Map<String, Integer> wordCounts = new HashMap<>();
       private final Set<String> links = new HashSet<>();
+      private final Consumer<String> newLinks;
+
+      Builder() {
+        this(link -> {
+        });
+      }
+
+      /**
+       * @param newLinks receives each link when it is first added.
+       */
+      Builder(Consumer<String> newLinks) {
+        this.newLinks = Objects.requireNonNull(newLinks);
+      }
 
       /**
        * Increments the frequency counter for the given word.
@@ -69,7 +109,9 @@ public interface PageParser {
        * Adds the given link, if it has not already been added.
        */
       void addLink(String link) {
-        links.add(Objects.requireNonNull(link));
+        if (links.add(Objects.requireNonNull(link))) {
+          newLinks.accept(link);
+        }
       }
 
       /**
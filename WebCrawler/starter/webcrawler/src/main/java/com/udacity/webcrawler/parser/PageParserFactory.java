@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.parser;
 
+import java.time.Instant;
+
 /**
  * A factory interface that supplies instances of {@link PageParser} that have common parameters
  * (such as the timeout and ignored words) preset from injected values.
@@ -10,4 +12,24 @@ public interface PageParserFactory {
    * Returns a {@link PageParser} that parses the given {@link url}.
    */
   PageParser get(String url);
+
+  /**
+   * Returns a {@link PageParser} that parses the given {@link url}, and gives up on fetching it at
+   * the given deadline, even if the timeout of the page has not run out. Crawlers pass the
+   * deadline of the crawl, so that no fetch outlives it.
+   *
+   * <p>Factories that do not fetch pages ignore the deadline.
+   */
+  default PageParser get(String url, Instant deadline) {
+    return get(url);
+  }
+
+  /**
+   * Returns a {@link PageParser} that parses the given content as the page at the given
+   * {@link url}, without fetching it. Links on the page are resolved against the URL.
+   *
+   * <p>This is how pages that were read from an archive, and can only be read in order with the
+   * rest of it, are parsed.
+   */
+  PageParser get(String url, byte[] content);
 }
@@ -1,10 +1,15 @@
 package com.udacity.webcrawler.parser;
 
 import com.udacity.webcrawler.Timeout;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.fetch.PageFetcher;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -15,20 +20,67 @@ final class PageParserFactoryImpl implements PageParserFactory {
   private final Profiler profiler;
   private final List<Pattern> ignoredWords;
   private final Duration timeout;
+  private final Clock clock;
+  private final UrlNormalizer urlNormalizer;
+  private final ZipArchives zipArchives;
+  private final ContentFilter contentFilter;
+  private final DnsCache dnsCache;
+  private final PageFetcher pageFetcher;
 
   @Inject
   PageParserFactoryImpl(
-      Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+      Profiler profiler,
+      @IgnoredWords List<Pattern> ignoredWords,
+      @Timeout Duration timeout,
+      Clock clock,
+      UrlNormalizer urlNormalizer,
+      ZipArchives zipArchives,
+      ContentFilter contentFilter,
+      DnsCache dnsCache,
+      PageFetcher pageFetcher) {
     this.profiler = profiler;
     this.ignoredWords = ignoredWords;
     this.timeout = timeout;
+    this.clock = clock;
+    this.urlNormalizer = urlNormalizer;
+    this.zipArchives = zipArchives;
+    this.contentFilter = contentFilter;
+    this.dnsCache = dnsCache;
+    this.pageFetcher = pageFetcher;
   }
 
   @Override
   public PageParser get(String url) {
-    // Here, parse the page with the initial timeout (instead of just the time remaining), to make
-    // the download less likely to fail. Deadline enforcement should happen at a higher level.
-    PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
+    return create(url, Instant.MAX, null);
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline) {
+    return create(url, deadline, null);
+  }
+
+  @Override
+  public PageParser get(String url, byte[] content) {
+    return create(url, Instant.MAX, content);
+  }
+
+  private PageParser create(String url, Instant deadline, byte[] content) {
+    // Here, parse the page with the initial timeout as well as the deadline of the crawl; the page
+    // fetcher gives each request the least of the two, or less if its host is usually fast.
+    PageParser delegate =
+        new PageParserImpl(
+            url,
+            timeout,
+            deadline,
+            ignoredWords,
+            clock,
+            profiler::recordPage,
+            urlNormalizer,
+            zipArchives,
+            contentFilter,
+            dnsCache,
+            pageFetcher,
+            content);
     return profiler.wrap(PageParser.class, delegate);
   }
 }
@@ -1,24 +1,44 @@
 package com.udacity.webcrawler.parser;
 
+import com.udacity.webcrawler.archive.ArchiveUrls;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.fetch.FetchOutcome;
+import com.udacity.webcrawler.fetch.FetchPolicy;
+import com.udacity.webcrawler.fetch.PageFetcher;
+import com.udacity.webcrawler.fetch.PageRejectedException;
+import com.udacity.webcrawler.profiler.PageFetchEvent;
+import com.udacity.webcrawler.profiler.PageParseEvent;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
-import org.jsoup.select.Evaluator.Tag;
+import org.jsoup.select.Evaluator;
 import org.jsoup.select.NodeVisitor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -27,38 +47,177 @@ import java.util.regex.Pattern;
  * <p>HTML parsing is done using the JSoup library. This class is a thin adapter around JSoup's API,
  * since JSoup does not know how to correctly resolve relative hyperlinks when parsing HTML from
  * local files.
+ *
+ * <p>Local files are read in one go, or memory-mapped if they are large, and scanned with
+ * {@link HtmlScanner} instead, which finds the same words and links without building a document.
+ * Jsoup only parses the few local pages the scanner cannot handle.
+ *
+ * <p>Pages inside ZIP archives are read through {@link ZipArchives} and scanned the same way.
+ * Pages read from other archives are parsed from the content they were created with: as local
+ * files if they have an entry URL, and as remote pages otherwise.
+ *
+ * <p>Remote pages are fetched under a {@link ContentFilter}: a response whose headers show that it
+ * is not HTML, or too large, is dropped before its body is read, and a body that grows past the
+ * limit is dropped mid-stream. Links that the filter skips are left out of the result.
+ *
+ * <p>The host of a remote page is resolved through the {@link DnsCache} before it is fetched,
+ * unless the cache is disabled, and the hosts of the links that are kept are handed to the cache
+ * to be looked up in the background. The fetch itself goes through the {@link PageFetcher}, whose {@link FetchPolicy} retries
+ * transient failures within the timeout of the page and turns away hosts that keep failing, and
+ * which may hedge a request that is slow for its host. A hedged fetch runs on two threads at once,
+ * so the fetch event then shows whichever request wrote to it last.
+ *
+ * <p>A remote page whose response declares it UTF-8 is scanned by an {@link HtmlScanner.Feed}
+ * while its body downloads, without building a document, so its first links reach the link
+ * listener of {@link #parse(Consumer)}, and the DNS cache, before the rest of the page has
+ * arrived. The scan overlaps the download, so its time counts as fetch time. Other charsets, and
+ * pages the scanner gives up on, are parsed by Jsoup: from the bytes the scan kept, or for a page
+ * too large to keep, from a second download.
  */
 final class PageParserImpl implements PageParser {
 
   /**
-   * Matches whitespace characters.
+   * Matches {@code <a>} elements. Shared, since evaluators are immutable.
    */
-  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Evaluator ANCHOR = new Evaluator.Tag("a");
 
   /**
-   * Matches non-word characters.
+   * Local files at least this large are memory-mapped rather than read. Mapping a small file
+   * costs more than copying it, and the mapping is only released when it is garbage collected.
    */
-  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+  static final long MAP_THRESHOLD = 256 * 1024;
+
+  /**
+   * A remote page is only kept whole while it is scanned, for Jsoup to parse if the scanner gives
+   * up on it, up to this many bytes. A larger page that the scanner gives up on is fetched again.
+   */
+  static final int SCAN_RETAIN_BYTES = 1024 * 1024;
+
+  private static final Consumer<String> NO_LINKS = link -> {
+  };
 
   private final String uri;
   private final Duration timeout;
+  private final Instant deadline;
   private final List<Pattern> ignoredWords;
+  private final Clock clock;
+  private final PageTimingListener timingListener;
+  private final UrlNormalizer urlNormalizer;
+  private final ZipArchives zipArchives;
+  private final ContentFilter contentFilter;
+  private final DnsCache dnsCache;
+  private final PageFetcher pageFetcher;
+  private final byte[] content;
+  // Only the thread that parses the page waits to retry its fetch.
+  private Duration retryWait = Duration.ZERO;
 
   /**
-   * Constructs a page parser with the given parameters.
+   * Constructs a page parser with the given parameters that does not report page timings and only
+   * applies the standard {@link UrlNormalizer} steps to links.
    *
    * @param uri          the URI of the file to parse.
    * @param timeout      the timeout to use when downloading the file, if it is remote.
    * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
    */
   PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+    this(
+        uri,
+        timeout,
+        Instant.MAX,
+        ignoredWords,
+        Clock.systemUTC(),
+        PageTimingListener.NONE,
+        new UrlNormalizer.Builder().build(),
+        new ZipArchives(),
+        new ContentFilter.Builder().build(),
+        DnsCache.DISABLED,
+        PageFetcher.NONE,
+        null);
+  }
+
+  /**
+   * Constructs a page parser with the given parameters.
+   *
+   * @param uri            the URI of the file to parse.
+   * @param timeout        the timeout to use when downloading the file, if it is remote.
+   * @param deadline       the download is cut short at this instant, even if its timeout has not
+   *                       run out.
+   * @param ignoredWords   patterns of which words should be ignored by the {@link #parse()} method.
+   * @param clock          the clock used to time the fetch and parse phases.
+   * @param timingListener receives the fetch and parse time of the page.
+   * @param urlNormalizer  applied to every link found on the page.
+   * @param zipArchives    reads the page if it is inside a ZIP archive.
+   * @param contentFilter  decides which responses are read and which links are kept.
+   * @param dnsCache       resolves the host of the page, and prefetches the hosts of its links.
+   * @param pageFetcher    fetches a remote page, with retries and hedging.
+   * @param content        the content of the page if it has already been read, or null if it has
+   *                       to be fetched.
+   */
+  PageParserImpl(
+      String uri,
+      Duration timeout,
+      Instant deadline,
+      List<Pattern> ignoredWords,
+      Clock clock,
+      PageTimingListener timingListener,
+      UrlNormalizer urlNormalizer,
+      ZipArchives zipArchives,
+      ContentFilter contentFilter,
+      DnsCache dnsCache,
+      PageFetcher pageFetcher,
+      byte[] content) {
     this.uri = Objects.requireNonNull(uri);
     this.timeout = Objects.requireNonNull(timeout);
+    this.deadline = Objects.requireNonNull(deadline);
     this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.clock = Objects.requireNonNull(clock);
+    this.timingListener = Objects.requireNonNull(timingListener);
+    this.urlNormalizer = Objects.requireNonNull(urlNormalizer);
+    this.zipArchives = Objects.requireNonNull(zipArchives);
+    this.contentFilter = Objects.requireNonNull(contentFilter);
+    this.dnsCache = Objects.requireNonNull(dnsCache);
+    this.pageFetcher = Objects.requireNonNull(pageFetcher);
+    this.content = content;
   }
 
   @Override
   public Result parse() {
+    return parse(NO_LINKS);
+  }
+
+  @Override
+  public Duration getRetryWait() {
+    return retryWait;
+  }
+
+  @Override
+  public Result parse(Consumer<String> linkListener) {
+    if (linkListener == NO_LINKS) {
+      return parsePage(NO_LINKS);
+    }
+    // A retried, hedged or reparsed page finds its links again, in another result builder, and
+    // the losing request of a hedged fetch may still be scanning when this method returns.
+    Set<String> reported = new HashSet<>();
+    AtomicBoolean open = new AtomicBoolean(true);
+    try {
+      return parsePage(link -> {
+        synchronized (reported) {
+          if (open.get() && reported.add(link)) {
+            linkListener.accept(link);
+          }
+        }
+      });
+    } finally {
+      synchronized (reported) {
+        open.set(false);
+      }
+    }
+  }
+
+  private Result parsePage(Consumer<String> links) {
+    if (content != null || ArchiveUrls.isEntryUrl(uri)) {
+      return parseArchivedPage(links);
+    }
     URI parsedUri;
     try {
       parsedUri = new URI(uri);
@@ -67,77 +226,468 @@ final class PageParserImpl implements PageParser {
       return new Result.Builder().build();
     }
 
-    Document document;
+    Instant fetchStart = clock.instant();
+    if (isLocalFile(parsedUri)) {
+      Result result = scanLocalFile(Path.of(parsedUri), fetchStart, links);
+      if (result != null) {
+        return result;
+      }
+    }
+    ParsedPage page;
     try {
-      document = parseDocument(parsedUri);
+      page = parseDocument(parsedUri, links);
     } catch (Exception e) {
       // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
       // Jsoup does not handle. There is not much we can do here.
+      timingListener.record(uri, Duration.between(fetchStart, clock.instant()), Duration.ZERO);
       return new Result.Builder().build();
     }
+    if (page.document == null) {
+      return finish(page.scanned, fetchStart, clock.instant(), page.parseEvent);
+    }
+    Document document = page.document;
+    // Jsoup only knows how to resolve relative hrefs if the base URI is a "real" remote URI, so
+    // local files are resolved against their parent directory instead.
+    LinkResolver linkResolver =
+        isLocalFile(parsedUri)
+            ? LinkResolver.forLocalFile(Path.of(parsedUri))
+            : LinkResolver.forRemotePage(document.baseUri());
+    return traverse(document, linkResolver, fetchStart, links);
+  }
 
-    Result.Builder builder = new Result.Builder();
+  /**
+   * Parses a page inside an archive, which is read through {@link #zipArchives} unless its content
+   * was given.
+   */
+  private Result parseArchivedPage(Consumer<String> links) {
+    Instant fetchStart = clock.instant();
+    byte[] html = content;
+    if (html == null) {
+      try {
+        html = readZipEntry();
+      } catch (IOException | RuntimeException e) {
+        timingListener.record(uri, Duration.between(fetchStart, clock.instant()), Duration.ZERO);
+        return new Result.Builder().build();
+      }
+    }
+    if (!ArchiveUrls.isEntryUrl(uri)) {
+      // A captured web page: parsed like a live one, so that <base> elements are honored.
+      Document document;
+      try {
+        document = Jsoup.parse(new ByteArrayInputStream(html), null, uri);
+      } catch (IOException e) {
+        return new Result.Builder().build();
+      }
+      return traverse(
+          document, LinkResolver.forRemotePage(document.baseUri()), fetchStart, links);
+    }
+
+    LinkResolver linkResolver = LinkResolver.forArchiveEntry(uri);
+    Result result = scan(ByteBuffer.wrap(html), linkResolver, fetchStart, links);
+    if (result != null) {
+      return result;
+    }
+    Document document;
+    try {
+      document = Jsoup.parse(new ByteArrayInputStream(html), StandardCharsets.UTF_8.name(), "");
+    } catch (IOException e) {
+      return new Result.Builder().build();
+    }
+    return traverse(document, linkResolver, fetchStart, links);
+  }
+
+  private byte[] readZipEntry() throws IOException {
+    if (ArchiveUrls.isStreamedEntry(uri)) {
+      throw new IOException("Only a walk of the whole archive can read " + uri);
+    }
+    PageFetchEvent event = new PageFetchEvent();
+    event.begin();
+    try {
+      byte[] html = zipArchives.read(uri);
+      event.bytes = html.length;
+      return html;
+    } finally {
+      if (event.shouldCommit()) {
+        event.url = uri;
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Gathers the words and links of a parsed document.
+   */
+  private Result traverse(
+      Document document, LinkResolver linkResolver, Instant fetchStart, Consumer<String> links) {
+    Instant parseStart = clock.instant();
+
+    PageParseEvent parseEvent = new PageParseEvent();
+    parseEvent.begin();
+    Result.Builder builder = new Result.Builder(links);
     // Do a single pass over the document to gather all hyperlinks and text.
     document.traverse(new NodeVisitor() {
       @Override
       public void head(Node node, int depth) {
         if (node instanceof TextNode) {
-          String text = ((TextNode) node).text().strip();
-          Arrays.stream(WHITESPACE.split(text))
-              .filter(s -> !s.isBlank())
-              .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-              .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-              .map(String::toLowerCase)
-              .forEach(builder::addWord);
+          addWords(((TextNode) node).text(), builder);
           return;
         }
         if (!(node instanceof Element)) {
           return;
         }
         Element element = (Element) node;
-        if (!element.is(new Tag("a")) || !element.hasAttr("href")) {
+        if (!element.is(ANCHOR) || !element.hasAttr("href")) {
           return;
         }
-        if (isLocalFile(parsedUri)) {
-          // If this is a local file, add the base path back in manually, since Jsoup only knows how
-          // to resolve relative hrefs if the base URI is a "real" remote URI.
-          String basePath = Path.of(parsedUri).getParent().toString();
-          builder.addLink(Path.of(basePath, element.attr("href")).toUri().toString());
-        } else {
-          // Otherwise, let Jsoup resolve the absolute URL for us.
-          builder.addLink(element.attr("abs:href"));
-        }
+        addLink(element.attr("href"), linkResolver, builder);
       }
 
       @Override
       public void tail(Node node, int depth) {
       }
     });
-    return builder.build();
+    return finish(builder, fetchStart, parseStart, parseEvent);
+  }
+
+  /**
+   * Reads and scans a local file. Returns null if the page has to be parsed by Jsoup instead.
+   */
+  private Result scanLocalFile(Path path, Instant fetchStart, Consumer<String> links) {
+    ByteBuffer html;
+    try {
+      html = readLocalFile(path);
+    } catch (IOException | RuntimeException e) {
+      timingListener.record(uri, Duration.between(fetchStart, clock.instant()), Duration.ZERO);
+      return new Result.Builder().build();
+    }
+    if (html == null) {
+      return null;
+    }
+    return scan(html, LinkResolver.forLocalFile(path), fetchStart, links);
   }
 
   /**
-   * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
-   * refer to a local document or a remote web page.
+   * Scans the HTML of a page with {@link HtmlScanner}. Returns null if the page has to be parsed
+   * by Jsoup instead.
    */
-  private Document parseDocument(URI uri) throws IOException {
-    if (!isLocalFile(uri)) {
-      return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
+  private Result scan(
+      ByteBuffer html, LinkResolver linkResolver, Instant fetchStart, Consumer<String> links) {
+    Instant parseStart = clock.instant();
+
+    PageParseEvent parseEvent = new PageParseEvent();
+    parseEvent.begin();
+    Result.Builder builder = new Result.Builder(links);
+    boolean scanned =
+        HtmlScanner.scan(
+            html,
+            text -> addWords(text, builder),
+            href -> addLink(href, linkResolver, builder));
+    if (!scanned) {
+      return null;
     }
+    return finish(builder, fetchStart, parseStart, parseEvent);
+  }
 
-    // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
-    // "file://" URIs. If we want the parser to support those URIs, which are very useful for
-    // testing, the work-around is to pass in an empty baseUri and manually add the base back to
-    // href attributes.
-    try (InputStream in = Files.newInputStream(Path.of(uri))) {
-      return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+  /**
+   * Resolves and normalizes one link, and adds it to the result. Links into archives that can only
+   * be read from start to end are dropped, since a crawl cannot visit those pages on their own, and
+   * so are links to files that the content filter skips.
+   */
+  private void addLink(String href, LinkResolver linkResolver, Result.Builder builder) {
+    String link = urlNormalizer.normalize(linkResolver.resolve(href));
+    if (!ArchiveUrls.isStreamedEntry(link) && !contentFilter.isSkippedLink(link)) {
+      builder.addLink(link);
+      dnsCache.prefetch(link);
     }
   }
 
+  /**
+   * Returns the contents of a local file: a heap buffer for small files, and a read-only mapping
+   * for large ones. Returns null if the file is too large to fit in a buffer.
+   */
+  private ByteBuffer readLocalFile(Path path) throws IOException {
+    PageFetchEvent event = new PageFetchEvent();
+    event.begin();
+    try (FileChannel channel = FileChannel.open(path)) {
+      long size = channel.size();
+      event.bytes = size;
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      if (size >= MAP_THRESHOLD) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      // A read may return fewer bytes than asked for, and the file may shrink meanwhile.
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      }
+      return buffer.flip();
+    } finally {
+      if (event.shouldCommit()) {
+        event.url = uri;
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Adds the words of one text node, whose whitespace has been normalized, to the result.
+   *
+   * <p>The text is split at regular expression whitespace ({@code \\s}), and tokens made only of
+   * other whitespace are dropped. A token that matches none of the ignored word patterns becomes
+   * a word once its non-word characters ({@code \\W}) are removed and it is lower-cased, even if
+   * nothing is left of it.
+   */
+  private void addWords(String text, Result.Builder builder) {
+    String stripped = text.strip();
+    StringBuilder word = new StringBuilder();
+    int i = 0;
+    while (i < stripped.length()) {
+      while (i < stripped.length() && isRegexWhitespace(stripped.charAt(i))) {
+        i++;
+      }
+      int start = i;
+      boolean blank = true;
+      boolean upperCase = false;
+      word.setLength(0);
+      for (; i < stripped.length() && !isRegexWhitespace(stripped.charAt(i)); i++) {
+        char c = stripped.charAt(i);
+        blank &= Character.isWhitespace(c);
+        if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_') {
+          word.append(c);
+        } else if (c >= 'A' && c <= 'Z') {
+          word.append(c);
+          upperCase = true;
+        }
+      }
+      if (blank || (!ignoredWords.isEmpty() && isIgnored(stripped.substring(start, i)))) {
+        continue;
+      }
+      // Lower-cased in the default locale, which differs for 'I' in a few languages.
+      builder.addWord(upperCase ? word.toString().toLowerCase() : word.toString());
+    }
+  }
+
+  private boolean isIgnored(String token) {
+    for (Pattern pattern : ignoredWords) {
+      if (pattern.matcher(token).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Builds the result, and reports the fetch and parse time of the page.
+   */
+  private Result finish(
+      Result.Builder builder, Instant fetchStart, Instant parseStart, PageParseEvent parseEvent) {
+    Result result = builder.build();
+    timingListener.record(
+        uri, Duration.between(fetchStart, parseStart), Duration.between(parseStart, clock.instant()));
+    if (parseEvent.shouldCommit()) {
+      parseEvent.url = uri;
+      parseEvent.tokens = result.getWordCounts().values().stream().mapToInt(Integer::intValue).sum();
+      parseEvent.links = result.getLinks().size();
+      parseEvent.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the file at the given {@link URI}, which may refer to a local document or a remote web
+   * page, as a Jsoup {@link Document} or as the words and links already scanned from it.
+   */
+  private ParsedPage parseDocument(URI uri, Consumer<String> links) throws IOException {
+    PageFetchEvent event = new PageFetchEvent();
+    event.begin();
+    try {
+      if (!isLocalFile(uri)) {
+        ParsedPage page =
+            pageFetcher.fetch(
+                uri.toString(),
+                uri.getHost(),
+                timeout,
+                deadline,
+                new PageFetcher.Request<>() {
+                  @Override
+                  public ParsedPage send(int attempt, Duration attemptTimeout)
+                      throws IOException {
+                    event.attempts = attempt;
+                    return fetchRemote(uri, attemptTimeout, true, event, links);
+                  }
+
+                  @Override
+                  public void retrying(Duration wait) {
+                    retryWait = retryWait.plus(wait);
+                  }
+                });
+        event.outcome = FetchOutcome.OK.name();
+        return page;
+      }
+
+      // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
+      // "file://" URIs. If we want the parser to support those URIs, which are very useful for
+      // testing, the work-around is to pass in an empty baseUri and manually add the base back to
+      // href attributes.
+      Path path = Path.of(uri);
+      if (event.isEnabled()) {
+        event.bytes = Files.size(path);
+      }
+      try (InputStream in = Files.newInputStream(path)) {
+        return new ParsedPage(Jsoup.parse(in, StandardCharsets.UTF_8.name(), ""));
+      }
+    } catch (IOException | RuntimeException e) {
+      if (!isLocalFile(uri)) {
+        event.outcome = FetchOutcome.of(e).name();
+      }
+      throw e;
+    } finally {
+      if (event.shouldCommit()) {
+        event.url = uri.toString();
+        event.host = uri.getHost();
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Makes one attempt at downloading and parsing a remote page.
+   *
+   * @param scan false if the page has to be parsed by Jsoup even if it is UTF-8.
+   */
+  private ParsedPage fetchRemote(
+      URI uri, Duration timeout, boolean scan, PageFetchEvent event, Consumer<String> links)
+      throws IOException {
+    Instant start = clock.instant();
+    if (dnsCache.isEnabled() && uri.getHost() != null) {
+      // Fails at once for a host that recently failed to resolve.
+      dnsCache.resolve(uri.getHost());
+    }
+    try {
+      // Jsoup's own body limit truncates silently, so the content filter enforces one instead.
+      Connection.Response response =
+          Jsoup.connect(uri.toString())
+              .timeout((int) timeout.toMillis())
+              .ignoreContentType(true)
+              .maxBodySize(0)
+              .execute();
+      event.status = response.statusCode();
+      try (LimitedInputStream body =
+               new LimitedInputStream(response.bodyStream(), contentFilter.getMaxPageBytes())) {
+        checkHeaders(response);
+        String baseUri = response.url().toExternalForm();
+        try {
+          if (!scan || !isUtf8(response.charset())) {
+            return new ParsedPage(Jsoup.parse(body, response.charset(), baseUri));
+          }
+          ParsedPage page = scanRemote(body, baseUri, links);
+          if (page != null) {
+            return page;
+          }
+        } finally {
+          event.bytes = body.getCount();
+        }
+      }
+    } catch (HttpStatusException e) {
+      event.status = e.getStatusCode();
+      throw e;
+    }
+    // The scanner gave up on a page too large to have been kept whole, so Jsoup needs it again.
+    Duration left = timeout.minus(Duration.between(start, clock.instant()));
+    if (left.toMillis() < 1) {
+      throw new SocketTimeoutException("No time left to fetch " + uri + " again");
+    }
+    return fetchRemote(uri, left, false, event, links);
+  }
+
+  /**
+   * Scans a UTF-8 body as it downloads, and passes its links on as they are found. Every attempt at
+   * a fetch scans into its own builder, so a hedged request never mixes its words with those of the
+   * other one. Returns null if the scanner gave up on a page larger than
+   * {@link #SCAN_RETAIN_BYTES}, which then has to be fetched again.
+   */
+  private ParsedPage scanRemote(InputStream body, String baseUri, Consumer<String> links)
+      throws IOException {
+    PageParseEvent parseEvent = new PageParseEvent();
+    parseEvent.begin();
+    Result.Builder builder = new Result.Builder(links);
+    LinkResolver linkResolver = LinkResolver.forRemotePage(baseUri);
+    HtmlScanner.Feed feed =
+        new HtmlScanner.Feed(
+            text -> addWords(text, builder),
+            href -> addLink(href, linkResolver, builder),
+            SCAN_RETAIN_BYTES);
+    if (feed.readFrom(body)) {
+      return new ParsedPage(builder, parseEvent);
+    }
+    ByteBuffer html = feed.content();
+    if (html == null) {
+      return null;
+    }
+    return new ParsedPage(
+        Jsoup.parse(
+            new ByteArrayInputStream(html.array(), 0, html.limit()),
+            StandardCharsets.UTF_8.name(),
+            baseUri));
+  }
+
+  /**
+   * Throws if the headers of the response show that the content filter rejects its body, which is
+   * then never read.
+   */
+  private void checkHeaders(Connection.Response response) throws IOException {
+    String contentType = response.contentType();
+    if (!contentFilter.isParsedContentType(contentType)) {
+      throw new PageRejectedException("Not a page: " + contentType);
+    }
+    String contentLength = response.header("Content-Length");
+    if (contentLength != null) {
+      try {
+        if (contentFilter.isTooLarge(Long.parseLong(contentLength.trim()))) {
+          throw new PageRejectedException("Page too large: " + contentLength + " bytes");
+        }
+      } catch (NumberFormatException e) {
+        // A malformed length; the body limit still applies.
+      }
+    }
+  }
+
+  private static boolean isUtf8(String charset) {
+    return charset != null
+        && (charset.equalsIgnoreCase("UTF-8") || charset.equalsIgnoreCase("UTF8"));
+  }
+
   /**
    * Returns true if and only if the given {@link URI} represents a local file.
    */
   private static boolean isLocalFile(URI uri) {
     return uri.getScheme() != null && uri.getScheme().equals("file");
   }
-}
\ No newline at end of file
+
+  /**
+   * A page that is either parsed into a Jsoup {@link Document}, or already scanned into a result
+   * that only has to be built.
+   */
+  private static final class ParsedPage {
+    final Document document;
+    final Result.Builder scanned;
+    final PageParseEvent parseEvent;
+
+    ParsedPage(Document document) {
+      this.document = document;
+      this.scanned = null;
+      this.parseEvent = null;
+    }
+
+    ParsedPage(Result.Builder scanned, PageParseEvent parseEvent) {
+      this.document = null;
+      this.scanned = scanned;
+      this.parseEvent = parseEvent;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.udacity.webcrawler.parser;
+
+import java.time.Duration;
+
+/**
+ * Receives how long each page took to fetch and to parse.
+ *
+ * <p>This interface has package-private visibility; the {@link PageParserFactoryImpl} uses it to
+ * forward page timings from the parser to the {@link com.udacity.webcrawler.profiler.Profiler}.
+ */
+@FunctionalInterface
+interface PageTimingListener {
+
+  /**
+   * A listener that ignores all timings.
+   */
+  PageTimingListener NONE = (url, fetchTime, parseTime) -> {
+  };
+
+  /**
+   * Called once per parsed page. If the page could not be fetched, {@code parseTime} is zero.
+   */
+  void record(String url, Duration fetchTime, Duration parseTime);
+}
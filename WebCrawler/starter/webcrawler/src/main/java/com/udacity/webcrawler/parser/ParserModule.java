@@ -2,7 +2,16 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.fetch.FetchPolicy;
+import com.udacity.webcrawler.fetch.HostResolver;
+import com.udacity.webcrawler.fetch.PageFetcher;
+import com.udacity.webcrawler.profiler.Profiler;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
@@ -15,28 +24,145 @@ import java.util.regex.Pattern;
 public final class ParserModule extends AbstractModule {
   private final Duration timeout;
   private final List<Pattern> ignoredWords;
+  private final UrlNormalizer urlNormalizer;
+  private final ContentFilter contentFilter;
+  private final HostResolver hostResolver;
+  private final Duration dnsTtl;
+  private final Duration dnsNegativeTtl;
+  private final int dnsPrefetchThreads;
+  private final int fetchRetries;
+  private final Duration retryBaseDelay;
+  private final double circuitFailureRate;
+  private final Duration circuitOpenDuration;
+  private final int hedgeBudget;
+  private final double adaptiveTimeoutFactor;
+  private final Duration minFetchTimeout;
 
   /**
-   * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+   * Creates a {@link ParserModule} from the given timeout, ignored word patterns, URL normalizer,
+   * content filter, host lookup settings, fetch policy settings, hedge budget and adaptive timeout
+   * settings.
    */
-  private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+  private ParserModule(
+      Duration timeout,
+      List<Pattern> ignoredWords,
+      UrlNormalizer urlNormalizer,
+      ContentFilter contentFilter,
+      HostResolver hostResolver,
+      Duration dnsTtl,
+      Duration dnsNegativeTtl,
+      int dnsPrefetchThreads,
+      int fetchRetries,
+      Duration retryBaseDelay,
+      double circuitFailureRate,
+      Duration circuitOpenDuration,
+      int hedgeBudget,
+      double adaptiveTimeoutFactor,
+      Duration minFetchTimeout) {
     this.timeout = timeout;
     this.ignoredWords = ignoredWords;
+    this.urlNormalizer = urlNormalizer;
+    this.contentFilter = contentFilter;
+    this.hostResolver = hostResolver;
+    this.dnsTtl = dnsTtl;
+    this.dnsNegativeTtl = dnsNegativeTtl;
+    this.dnsPrefetchThreads = dnsPrefetchThreads;
+    this.fetchRetries = fetchRetries;
+    this.retryBaseDelay = retryBaseDelay;
+    this.circuitFailureRate = circuitFailureRate;
+    this.circuitOpenDuration = circuitOpenDuration;
+    this.hedgeBudget = hedgeBudget;
+    this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+    this.minFetchTimeout = minFetchTimeout;
   }
 
   @Override
   protected void configure() {
     bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
     bind(new Key<List<Pattern>>(IgnoredWords.class) {}).toInstance(ignoredWords);
+    bind(UrlNormalizer.class).toInstance(urlNormalizer);
+    bind(ContentFilter.class).toInstance(contentFilter);
     bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
   }
 
+  /**
+   * Provides the ZIP archives that every page parser reads entries from. The crawler closes them
+   * when it is closed.
+   */
+  @Provides
+  @Singleton
+  ZipArchives provideZipArchives() {
+    return new ZipArchives();
+  }
+
+  /**
+   * Provides the cache that every page parser resolves hosts through, so that a host is looked up
+   * once per time to live no matter how many pages link to it.
+   */
+  @Provides
+  @Singleton
+  DnsCache provideDnsCache(Clock clock) {
+    return new DnsCache(hostResolver, clock, dnsTtl, dnsNegativeTtl, dnsPrefetchThreads);
+  }
+
+  /**
+   * Provides the policy that every page parser fetches through, so that the failures of a host
+   * are counted across all of its pages. Outcomes are reported to the profiler.
+   */
+  @Provides
+  @Singleton
+  FetchPolicy provideFetchPolicy(Clock clock, Profiler profiler) {
+    FetchPolicy.Builder builder =
+        new FetchPolicy.Builder()
+            .setClock(clock)
+            .setMaxRetries(fetchRetries)
+            .setRetryBaseDelay(retryBaseDelay)
+            .setListener(profiler::recordFetch);
+    if (circuitFailureRate > 0) {
+      builder.setCircuit(circuitFailureRate, circuitOpenDuration);
+    } else {
+      builder.disableCircuit();
+    }
+    return builder.build();
+  }
+
+  /**
+   * Provides the fetcher that every page parser fetches remote pages through, so that the latency
+   * of a host is learned from all of its pages. Hedge results and timeouts are reported to the
+   * profiler.
+   */
+  @Provides
+  @Singleton
+  PageFetcher providePageFetcher(Clock clock, FetchPolicy fetchPolicy, Profiler profiler) {
+    return new PageFetcher.Builder()
+        .setClock(clock)
+        .setFetchPolicy(fetchPolicy)
+        .setHedgeBudget(hedgeBudget)
+        .setHedgeListener(profiler::recordHedge)
+        .setAdaptiveTimeout(adaptiveTimeoutFactor, minFetchTimeout)
+        .setTimeoutListener(profiler::recordTimeout)
+        .build();
+  }
+
   /**
    * A builder class for {@link ParserModule}.
    */
   public static final class Builder {
     private Duration timeout;
     private List<Pattern> ignoredWords;
+    private UrlNormalizer urlNormalizer = new UrlNormalizer.Builder().build();
+    private ContentFilter contentFilter = new ContentFilter.Builder().build();
+    private HostResolver hostResolver = HostResolver.SYSTEM;
+    private Duration dnsTtl = Duration.ofSeconds(30);
+    private Duration dnsNegativeTtl = Duration.ofSeconds(10);
+    private int dnsPrefetchThreads = 4;
+    private int fetchRetries = 2;
+    private Duration retryBaseDelay = Duration.ofMillis(100);
+    private double circuitFailureRate = 0.5;
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    private int hedgeBudget = 0;
+    private double adaptiveTimeoutFactor = 0;
+    private Duration minFetchTimeout = Duration.ofSeconds(1);
 
     /**
      * Sets the timeout that will be used by the page parser.
@@ -54,11 +180,112 @@ public final class ParserModule extends AbstractModule {
       return this;
     }
 
+    /**
+     * Sets the normalizer applied to every link the page parser finds. Defaults to a
+     * {@link UrlNormalizer} with none of the optional steps.
+     */
+    public Builder setUrlNormalizer(UrlNormalizer urlNormalizer) {
+      this.urlNormalizer = Objects.requireNonNull(urlNormalizer);
+      return this;
+    }
+
+    /**
+     * Sets the filter that decides which responses the page parser reads and which links it keeps.
+     * Defaults to a {@link ContentFilter} with the default settings.
+     */
+    public Builder setContentFilter(ContentFilter contentFilter) {
+      this.contentFilter = Objects.requireNonNull(contentFilter);
+      return this;
+    }
+
+    /**
+     * Sets how hosts are looked up. Defaults to {@link HostResolver#SYSTEM}; tests can use a fake.
+     */
+    public Builder setHostResolver(HostResolver hostResolver) {
+      this.hostResolver = Objects.requireNonNull(hostResolver);
+      return this;
+    }
+
+    /**
+     * Sets how long the addresses of a host, and a failure to find them, are cached. Default to 30
+     * and 10 seconds.
+     */
+    public Builder setDnsTtl(Duration dnsTtl, Duration dnsNegativeTtl) {
+      this.dnsTtl = Objects.requireNonNull(dnsTtl);
+      this.dnsNegativeTtl = Objects.requireNonNull(dnsNegativeTtl);
+      return this;
+    }
+
+    /**
+     * Sets the number of threads that look up the hosts of links before they are fetched, or 0 to
+     * look hosts up only when they are fetched. Defaults to 4.
+     */
+    public Builder setDnsPrefetchThreads(int dnsPrefetchThreads) {
+      this.dnsPrefetchThreads = dnsPrefetchThreads;
+      return this;
+    }
+
+    /**
+     * Sets how many times a fetch that failed transiently is retried, and the longest wait before
+     * the first retry. Default to 2 and 100 milliseconds.
+     */
+    public Builder setFetchRetries(int fetchRetries, Duration retryBaseDelay) {
+      this.fetchRetries = fetchRetries;
+      this.retryBaseDelay = Objects.requireNonNull(retryBaseDelay);
+      return this;
+    }
+
+    /**
+     * Sets the share of recent fetches on a host that have to fail before the host is turned away,
+     * or 0 to never turn a host away, and for how long it is turned away. Default to 0.5 and 30
+     * seconds.
+     */
+    public Builder setCircuitBreaker(double circuitFailureRate, Duration circuitOpenDuration) {
+      this.circuitFailureRate = circuitFailureRate;
+      this.circuitOpenDuration = Objects.requireNonNull(circuitOpenDuration);
+      return this;
+    }
+
+    /**
+     * Sets the most hedge requests that may be outstanding at once, or 0 to never hedge a fetch.
+     * Defaults to 0.
+     */
+    public Builder setHedgeBudget(int hedgeBudget) {
+      this.hedgeBudget = hedgeBudget;
+      return this;
+    }
+
+    /**
+     * Sets the multiple of the 99th percentile latency of a host that a request to it may take, or
+     * 0 to give every request the full timeout, and the shortest timeout that is ever used.
+     * Default to 0 and 1 second.
+     */
+    public Builder setAdaptiveTimeout(double adaptiveTimeoutFactor, Duration minFetchTimeout) {
+      this.adaptiveTimeoutFactor = adaptiveTimeoutFactor;
+      this.minFetchTimeout = Objects.requireNonNull(minFetchTimeout);
+      return this;
+    }
+
     /**
      * Builds a {@link ParserModule} from this {@link Builder}.
      */
     public ParserModule build() {
-      return new ParserModule(timeout, ignoredWords);
+      return new ParserModule(
+          timeout,
+          ignoredWords,
+          urlNormalizer,
+          contentFilter,
+          hostResolver,
+          dnsTtl,
+          dnsNegativeTtl,
+          dnsPrefetchThreads,
+          fetchRetries,
+          retryBaseDelay,
+          circuitFailureRate,
+          circuitOpenDuration,
+          hedgeBudget,
+          adaptiveTimeoutFactor,
+          minFetchTimeout);
     }
   }
 }
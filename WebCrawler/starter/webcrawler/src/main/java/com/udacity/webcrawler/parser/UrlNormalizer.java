@@ -0,0 +1,300 @@
+package com.udacity.webcrawler.parser;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Rewrites URLs into a canonical form, so that different spellings of the same page are only
+ * crawled once.
+ *
+ * <p>Every URL with a hierarchical scheme, such as {@code http}, {@code https} or {@code file},
+ * gets a lower-case scheme and host, loses its fragment and any default port, and has its
+ * {@code "."} and {@code ".."} path segments resolved. An {@code http} or {@code https} URL with an
+ * empty path gets the path {@code "/"}. These steps never change which page a URL refers to.
+ *
+ * <p>The optional steps enabled through the {@link Builder} can change the page on some sites.
+ * Most sites ignore tracking parameters and the order of query parameters, and treat a trailing
+ * {@code '/'} as the same page, but not all do.
+ *
+ * <p>URLs that cannot be parsed, and opaque URLs such as {@code mailto:} links, are returned as
+ * they are.
+ */
+public final class UrlNormalizer {
+
+  /**
+   * Query parameters that only identify where a visitor came from. Parameters whose name starts
+   * with {@code "utm_"} are tracking parameters too.
+   */
+  static final Set<String> TRACKING_PARAMETERS =
+      Set.of("gclid", "dclid", "fbclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid", "_ga");
+
+  private final boolean stripTrackingParameters;
+  private final boolean sortQueryParameters;
+  private final boolean removeTrailingSlash;
+
+  private UrlNormalizer(
+      boolean stripTrackingParameters, boolean sortQueryParameters, boolean removeTrailingSlash) {
+    this.stripTrackingParameters = stripTrackingParameters;
+    this.sortQueryParameters = sortQueryParameters;
+    this.removeTrailingSlash = removeTrailingSlash;
+  }
+
+  /**
+   * Returns the canonical form of the given URL.
+   */
+  public String normalize(String url) {
+    if (isAlreadyNormal(url)) {
+      return url;
+    }
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      return url;
+    }
+    if (uri.isOpaque() || uri.getScheme() == null) {
+      return url;
+    }
+
+    String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+    StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append(':');
+    // Checked on the string, since URI drops the empty authority of "file:///path".
+    if (url.startsWith("//", scheme.length() + 1)) {
+      normalized.append("//").append(authority(uri, scheme));
+    }
+
+    String path = removeDotSegments(uri.getRawPath());
+    if (path.isEmpty() && (scheme.equals("http") || scheme.equals("https"))) {
+      path = "/";
+    }
+    if (removeTrailingSlash && path.length() > 1 && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    normalized.append(path);
+
+    String query = query(uri.getRawQuery());
+    if (query != null) {
+      normalized.append('?').append(query);
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * Returns the normalized forms of the given URLs, in the same order.
+   */
+  public List<String> normalizeAll(List<String> urls) {
+    List<String> normalized = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      normalized.add(normalize(url));
+    }
+    return normalized;
+  }
+
+  /**
+   * Returns true if {@link #normalize(String)} would return the URL unchanged, judged by a single
+   * scan of the string, without parsing it. Most links found on a page are already normal, and
+   * parsing them is much slower. May return false for URLs that are in fact normal.
+   */
+  private boolean isAlreadyNormal(String url) {
+    int length = url.length();
+    int colon = url.indexOf(':');
+    if (colon <= 0 || !url.startsWith("//", colon + 1)) {
+      return false;
+    }
+    for (int i = 0; i < colon; i++) {
+      char c = url.charAt(i);
+      if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9' && i > 0))) {
+        return false;
+      }
+    }
+    // A plain host name only, with no user info or upper-case letters.
+    int i = colon + 3;
+    for (; i < length && url.charAt(i) != '/' && url.charAt(i) != ':'; i++) {
+      char c = url.charAt(i);
+      if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '.')) {
+        return false;
+      }
+    }
+    if (i < length && url.charAt(i) == ':') {
+      // A port, which must not be empty, start with a zero, or be the default.
+      int portStart = ++i;
+      for (; i < length && url.charAt(i) >= '0' && url.charAt(i) <= '9'; i++) {
+      }
+      if (i == portStart
+          || i - portStart > 5
+          || url.charAt(portStart) == '0'
+          || Integer.parseInt(url, portStart, i, 10) == defaultPort(url.substring(0, colon))) {
+        return false;
+      }
+    }
+    if (i == length || url.charAt(i) != '/') {
+      // No path at all, or something unexpected after the port.
+      return false;
+    }
+    // A path without "." or ".." segments, and without a trailing '/' if that is to be removed.
+    int pathStart = i;
+    int segmentStart = i + 1;
+    for (; i <= length; i++) {
+      char c = i < length ? url.charAt(i) : '?';
+      if (c == '#') {
+        return false;
+      }
+      if (i > pathStart && (c == '/' || c == '?')) {
+        int segmentLength = i - segmentStart;
+        if ((segmentLength == 1 && url.charAt(segmentStart) == '.')
+            || (segmentLength == 2 && url.startsWith("..", segmentStart))) {
+          return false;
+        }
+        segmentStart = i + 1;
+      }
+      if (c == '?') {
+        break;
+      }
+    }
+    if (removeTrailingSlash && i - pathStart > 1 && url.charAt(i - 1) == '/') {
+      return false;
+    }
+    if (i < length && (stripTrackingParameters || sortQueryParameters)) {
+      return false;
+    }
+    return url.indexOf('#', i) < 0;
+  }
+
+  private static String authority(URI uri, String scheme) {
+    if (uri.getHost() == null) {
+      // Either no authority at all, or one that is not a host name; leave it alone.
+      return uri.getRawAuthority() == null ? "" : uri.getRawAuthority();
+    }
+    StringBuilder authority = new StringBuilder();
+    if (uri.getRawUserInfo() != null) {
+      authority.append(uri.getRawUserInfo()).append('@');
+    }
+    authority.append(uri.getHost().toLowerCase(Locale.ROOT));
+    int port = uri.getPort();
+    if (port != -1 && port != defaultPort(scheme)) {
+      authority.append(':').append(port);
+    }
+    return authority.toString();
+  }
+
+  private static int defaultPort(String scheme) {
+    switch (scheme) {
+      case "http":
+        return 80;
+      case "https":
+        return 443;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Applies the optional query steps. Returns null if the URL should have no query.
+   */
+  private String query(String rawQuery) {
+    if (rawQuery == null || (!stripTrackingParameters && !sortQueryParameters)) {
+      return rawQuery;
+    }
+    List<String> parameters = new ArrayList<>();
+    for (String parameter : rawQuery.split("&")) {
+      if (!parameter.isEmpty() && !(stripTrackingParameters && isTrackingParameter(parameter))) {
+        parameters.add(parameter);
+      }
+    }
+    if (parameters.isEmpty()) {
+      return null;
+    }
+    if (sortQueryParameters) {
+      // A stable sort, so repeated parameters with the same name keep their relative order.
+      parameters.sort((a, b) -> parameterName(a).compareTo(parameterName(b)));
+    }
+    StringJoiner joiner = new StringJoiner("&");
+    parameters.forEach(joiner::add);
+    return joiner.toString();
+  }
+
+  private static boolean isTrackingParameter(String parameter) {
+    String name = parameterName(parameter).toLowerCase(Locale.ROOT);
+    return name.startsWith("utm_") || TRACKING_PARAMETERS.contains(name);
+  }
+
+  private static String parameterName(String parameter) {
+    int equals = parameter.indexOf('=');
+    return equals < 0 ? parameter : parameter.substring(0, equals);
+  }
+
+  /**
+   * Resolves the {@code "."} and {@code ".."} segments of an absolute or empty path, as described
+   * in RFC 3986, section 5.2.4.
+   */
+  static String removeDotSegments(String path) {
+    if (path.indexOf('.') < 0) {
+      return path;
+    }
+    String[] segments = path.split("/", -1);
+    List<String> output = new ArrayList<>(segments.length);
+    boolean absolute = path.startsWith("/");
+    for (int i = absolute ? 1 : 0; i < segments.length; i++) {
+      String segment = segments[i];
+      boolean last = i == segments.length - 1;
+      if (segment.equals(".") || segment.equals("..")) {
+        if (segment.equals("..") && !output.isEmpty()) {
+          output.remove(output.size() - 1);
+        }
+        if (last) {
+          // "/a/b/.." refers to the directory "/a/", so the trailing slash stays.
+          output.add("");
+        }
+      } else {
+        output.add(segment);
+      }
+    }
+    return (absolute ? "/" : "") + String.join("/", output);
+  }
+
+  /**
+   * A builder class for {@link UrlNormalizer}. All optional steps are off by default.
+   */
+  public static final class Builder {
+    private boolean stripTrackingParameters = false;
+    private boolean sortQueryParameters = false;
+    private boolean removeTrailingSlash = false;
+
+    /**
+     * Sets whether {@code utm_*} and other well-known tracking parameters are removed from the
+     * query.
+     */
+    public Builder setStripTrackingParameters(boolean stripTrackingParameters) {
+      this.stripTrackingParameters = stripTrackingParameters;
+      return this;
+    }
+
+    /**
+     * Sets whether query parameters are sorted by name.
+     */
+    public Builder setSortQueryParameters(boolean sortQueryParameters) {
+      this.sortQueryParameters = sortQueryParameters;
+      return this;
+    }
+
+    /**
+     * Sets whether a trailing {@code '/'} is removed from any path other than {@code "/"}.
+     */
+    public Builder setRemoveTrailingSlash(boolean removeTrailingSlash) {
+      this.removeTrailingSlash = removeTrailingSlash;
+      return this;
+    }
+
+    /**
+     * Builds a {@link UrlNormalizer} from this {@link Builder}.
+     */
+    public UrlNormalizer build() {
+      return new UrlNormalizer(stripTrackingParameters, sortQueryParameters, removeTrailingSlash);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.udacity.webcrawler.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+
+/**
+ * Java Flight Recorder event that covers merging one page's word counts into the crawl-wide
+ * counts.
+ *
+ * <p>See {@link PageFetchEvent} for how the event is enabled.
+ */
+@Name("com.udacity.webcrawler.CountMerge")
+@Label("Count Merge")
+@Category({"Web Crawler", "Page"})
+@Description("Merge of a page's word counts into the shared crawl counts")
+@Registered(false)
+public final class CountMergeEvent extends Event {
+
+  @Label("URL")
+  public String url;
+
+  @Label("Words")
+  @Description("Number of distinct words merged")
+  public int words;
+}
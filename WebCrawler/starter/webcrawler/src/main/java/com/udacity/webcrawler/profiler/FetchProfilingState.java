@@ -0,0 +1,135 @@
+package com.udacity.webcrawler.profiler;
+
+import com.udacity.webcrawler.fetch.FetchOutcome;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Helper class that counts how the fetches of remote pages ended, by outcome, and how many of
+ * them failed on each host. It also counts how many fetches were hedged, and how many of those
+ * were won by the hedge request, and how many requests timed out, and after how long.
+ */
+final class FetchProfilingState {
+  private final Map<FetchOutcome, LongAdder> outcomes = new EnumMap<>(FetchOutcome.class);
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder retriedFetches = new LongAdder();
+  private final Map<String, LongAdder> failuresByHost = new ConcurrentHashMap<>();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder adaptiveTimeouts = new LongAdder();
+  private final LongAdder timeoutMillis = new LongAdder();
+
+  FetchProfilingState() {
+    // Filled up front, so that the map is never written to after construction.
+    for (FetchOutcome outcome : FetchOutcome.values()) {
+      outcomes.put(outcome, new LongAdder());
+    }
+  }
+
+  /**
+   * Records the outcome of one fetch, and how many attempts it took.
+   */
+  void record(String url, FetchOutcome outcome, int attempts) {
+    Objects.requireNonNull(url);
+    Objects.requireNonNull(outcome);
+    if (attempts < 0) {
+      throw new IllegalArgumentException("attempts cannot be negative");
+    }
+    outcomes.get(outcome).increment();
+    if (attempts > 1) {
+      retries.add(attempts - 1);
+      retriedFetches.increment();
+    }
+    if (outcome != FetchOutcome.OK) {
+      failuresByHost
+          .computeIfAbsent(PageProfilingState.hostOf(url), k -> new LongAdder())
+          .increment();
+    }
+  }
+
+  /**
+   * Records a hedged fetch, and whether the hedge request won.
+   */
+  void recordHedge(boolean won) {
+    hedges.increment();
+    if (won) {
+      hedgeWins.increment();
+    }
+  }
+
+  /**
+   * Records a request that timed out.
+   */
+  void recordTimeout(String url, Duration timeout, boolean adaptive) {
+    Objects.requireNonNull(url);
+    if (timeout.isNegative()) {
+      throw new IllegalArgumentException("negative timeout");
+    }
+    timeouts.increment();
+    timeoutMillis.add(timeout.toMillis());
+    if (adaptive) {
+      adaptiveTimeouts.increment();
+    }
+  }
+
+  /**
+   * Writes the count of each outcome that occurred, the number of retries, hedges and timed out
+   * requests, and the hosts with failed fetches, sorted by host name. Writes nothing if no fetch
+   * was recorded.
+   */
+  void write(Writer writer) throws IOException {
+    StringBuilder counts = new StringBuilder();
+    for (Map.Entry<FetchOutcome, LongAdder> e : outcomes.entrySet()) {
+      long count = e.getValue().sum();
+      if (count > 0) {
+        counts.append(e.getKey()).append(' ').append(count).append(System.lineSeparator());
+      }
+    }
+    if (counts.length() == 0) {
+      return;
+    }
+    writer.write("Fetch outcomes:" + System.lineSeparator());
+    writer.write(counts.toString());
+    writer.write(String.format(
+        "%d retries over %d fetches%s", retries.sum(), retriedFetches.sum(), System.lineSeparator()));
+    long hedged = hedges.sum();
+    if (hedged > 0) {
+      long won = hedgeWins.sum();
+      writer.write(String.format(
+          "%d hedged fetches, %d won by the hedge (%d%%)%s",
+          hedged,
+          won,
+          Math.round(100.0 * won / hedged),
+          System.lineSeparator()));
+    }
+    long timedOut = timeouts.sum();
+    if (timedOut > 0) {
+      writer.write(String.format(
+          "%d requests timed out after %dms on average, %d of them at an adaptive timeout%s",
+          timedOut,
+          timeoutMillis.sum() / timedOut,
+          adaptiveTimeouts.sum(),
+          System.lineSeparator()));
+    }
+
+    List<Map.Entry<String, LongAdder>> hosts = new ArrayList<>(failuresByHost.entrySet());
+    if (hosts.isEmpty()) {
+      return;
+    }
+    hosts.sort(Map.Entry.comparingByKey());
+    writer.write("Failed fetches by host:" + System.lineSeparator());
+    for (Map.Entry<String, LongAdder> e : hosts) {
+      writer.write(e.getKey() + " " + e.getValue().sum() + System.lineSeparator());
+    }
+  }
+}
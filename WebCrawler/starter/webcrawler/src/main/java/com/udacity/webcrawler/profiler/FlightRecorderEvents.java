@@ -0,0 +1,35 @@
+package com.udacity.webcrawler.profiler;
+
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+
+import java.util.List;
+
+/**
+ * Utility class that turns on the crawler's Java Flight Recorder events.
+ *
+ * <p>The events are compiled into the crawler but start out unregistered. An unregistered event
+ * is never committed, so leaving them off costs nothing at runtime. Registration applies to the
+ * whole JVM, so it is done once by the application that wants the events, never by a module that
+ * any crawler in the process may install.
+ */
+public final class FlightRecorderEvents {
+
+  private static final List<Class<? extends Event>> EVENTS =
+      List.of(PageFetchEvent.class, PageParseEvent.class, CountMergeEvent.class);
+
+  /**
+   * Registers all crawler events with the {@link FlightRecorder}. Registered events are recorded
+   * whenever a JFR recording is running with the default settings. Registering them again does
+   * nothing, and they are never unregistered, since other crawlers in the JVM may rely on them.
+   */
+  public static void register() {
+    for (Class<? extends Event> event : EVENTS) {
+      FlightRecorder.register(event);
+    }
+  }
+
+  private FlightRecorderEvents() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,46 @@
+package com.udacity.webcrawler.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+
+/**
+ * Java Flight Recorder event that covers the download (or local file read) of a single page.
+ *
+ * <p>This event is not registered until {@link FlightRecorderEvents#register()} turns it on, so
+ * until then {@link #shouldCommit()} is always false and the JIT can remove the allocation
+ * entirely.
+ */
+@Name("com.udacity.webcrawler.PageFetch")
+@Label("Page Fetch")
+@Category({"Web Crawler", "Page"})
+@Description("Download of a single page")
+@Registered(false)
+public final class PageFetchEvent extends Event {
+
+  @Label("URL")
+  public String url;
+
+  @Label("Host")
+  public String host;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+
+  @Label("Status")
+  @Description("HTTP status code of the response, or 0 for local files and failed requests")
+  public int status;
+
+  @Label("Outcome")
+  @Description("How the fetch of a remote page ended; see FetchOutcome")
+  public String outcome;
+
+  @Label("Attempts")
+  @Description("How many times a remote page was requested, counting retries")
+  public int attempts;
+}
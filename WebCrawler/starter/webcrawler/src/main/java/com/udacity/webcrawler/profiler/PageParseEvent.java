@@ -0,0 +1,32 @@
+package com.udacity.webcrawler.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+
+/**
+ * Java Flight Recorder event that covers the tokenizing and link extraction of a single page.
+ *
+ * <p>See {@link PageFetchEvent} for how the event is enabled.
+ */
+@Name("com.udacity.webcrawler.PageParse")
+@Label("Page Parse")
+@Category({"Web Crawler", "Page"})
+@Description("Word tokenizing and link extraction of a single page")
+@Registered(false)
+public final class PageParseEvent extends Event {
+
+  @Label("URL")
+  public String url;
+
+  @Label("Tokens")
+  @Description("Number of words counted on the page")
+  public int tokens;
+
+  @Label("Links")
+  @Description("Number of distinct links found on the page")
+  public int links;
+}
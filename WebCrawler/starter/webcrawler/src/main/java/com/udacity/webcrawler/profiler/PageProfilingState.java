@@ -0,0 +1,167 @@
+package com.udacity.webcrawler.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Helper class that records fetch and parse timings of individual pages, aggregated by host, and
+ * remembers the slowest URLs seen so far.
+ *
+ * <p>The slowest URLs are kept in a min-heap that never grows past the configured size, so memory
+ * use does not depend on how many pages were crawled.
+ */
+final class PageProfilingState {
+  private final int slowestUrlCount;
+  private final Map<String, HostTimes> hosts = new ConcurrentHashMap<>();
+  private final PriorityQueue<PageTime> slowest =
+      new PriorityQueue<>(Comparator.comparing(PageTime::total));
+
+  /**
+   * Creates a {@link PageProfilingState}.
+   *
+   * @param slowestUrlCount how many of the slowest URLs to remember. If zero, nothing is recorded.
+   */
+  PageProfilingState(int slowestUrlCount) {
+    if (slowestUrlCount < 0) {
+      throw new IllegalArgumentException("slowestUrlCount cannot be negative");
+    }
+    this.slowestUrlCount = slowestUrlCount;
+  }
+
+  /**
+   * Returns true if this state records anything at all.
+   */
+  boolean isEnabled() {
+    return slowestUrlCount > 0;
+  }
+
+  /**
+   * Records the time spent fetching and parsing a single page.
+   */
+  void record(String url, Duration fetchTime, Duration parseTime) {
+    Objects.requireNonNull(url);
+    Objects.requireNonNull(fetchTime);
+    Objects.requireNonNull(parseTime);
+    if (fetchTime.isNegative() || parseTime.isNegative()) {
+      throw new IllegalArgumentException("negative elapsed time");
+    }
+    if (!isEnabled()) {
+      return;
+    }
+    hosts.computeIfAbsent(hostOf(url), k -> new HostTimes()).add(fetchTime, parseTime);
+
+    PageTime page = new PageTime(url, fetchTime, parseTime);
+    synchronized (slowest) {
+      if (slowest.size() < slowestUrlCount) {
+        slowest.add(page);
+      } else if (page.total().compareTo(slowest.peek().total()) > 0) {
+        slowest.poll();
+        slowest.add(page);
+      }
+    }
+  }
+
+  /**
+   * Writes the per-host totals, sorted by host name, followed by the slowest URLs, slowest first.
+   * Writes nothing if this state is not enabled.
+   */
+  void write(Writer writer) throws IOException {
+    if (!isEnabled()) {
+      return;
+    }
+    List<PageTime> slowestPages;
+    synchronized (slowest) {
+      slowestPages = new ArrayList<>(slowest);
+    }
+    slowestPages.sort(Comparator.comparing(PageTime::total).reversed());
+
+    writer.write("Time by host:" + System.lineSeparator());
+    List<Map.Entry<String, HostTimes>> hostEntries = new ArrayList<>(hosts.entrySet());
+    hostEntries.sort(Map.Entry.comparingByKey());
+    for (Map.Entry<String, HostTimes> e : hostEntries) {
+      HostTimes times = e.getValue();
+      synchronized (times) {
+        writer.write(String.format(
+            "%s fetch %s, parse %s (%d pages)%s",
+            e.getKey(),
+            formatDuration(times.fetch),
+            formatDuration(times.parse),
+            times.pages,
+            System.lineSeparator()));
+      }
+    }
+
+    writer.write("Slowest URLs:" + System.lineSeparator());
+    for (PageTime page : slowestPages) {
+      writer.write(String.format(
+          "%s took %s (fetch %s, parse %s)%s",
+          page.url,
+          formatDuration(page.total()),
+          formatDuration(page.fetch),
+          formatDuration(page.parse),
+          System.lineSeparator()));
+    }
+  }
+
+  /**
+   * Returns the host of the given URL, or a placeholder for URLs that do not have one, such as
+   * local {@code file://} URIs.
+   */
+  static String hostOf(String url) {
+    try {
+      String host = new URI(url).getHost();
+      return (host == null) ? "(local)" : host.toLowerCase();
+    } catch (URISyntaxException e) {
+      return "(invalid)";
+    }
+  }
+
+  private static String formatDuration(Duration duration) {
+    return String.format(
+        "%sm %ss %sms", duration.toMinutes(), duration.toSecondsPart(), duration.toMillisPart());
+  }
+
+  /**
+   * Running totals for a single host. Guarded by its own monitor.
+   */
+  private static final class HostTimes {
+    private Duration fetch = Duration.ZERO;
+    private Duration parse = Duration.ZERO;
+    private long pages;
+
+    synchronized void add(Duration fetchTime, Duration parseTime) {
+      fetch = fetch.plus(fetchTime);
+      parse = parse.plus(parseTime);
+      pages++;
+    }
+  }
+
+  /**
+   * Timings of a single page.
+   */
+  private static final class PageTime {
+    private final String url;
+    private final Duration fetch;
+    private final Duration parse;
+
+    PageTime(String url, Duration fetch, Duration parse) {
+      this.url = url;
+      this.fetch = fetch;
+      this.parse = parse;
+    }
+
+    Duration total() {
+      return fetch.plus(parse);
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package com.udacity.webcrawler.profiler;
 
+import com.udacity.webcrawler.fetch.FetchOutcome;
+
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * A utility that wraps an object that should be performance profiled.
@@ -26,6 +29,56 @@ public interface Profiler {
    */
   <T> T wrap(Class<T> klass, T delegate);
 
+  /**
+   * Records how long it took to fetch and parse a single page.
+   *
+   * <p>Unlike {@link Profiled} methods, which are aggregated by method, page timings are
+   * aggregated by the host of the URL, and the slowest URLs are reported individually. Profilers
+   * that do not support this breakdown ignore the call.
+   *
+   * @param url       the URL of the page.
+   * @param fetchTime how long it took to download or read the page.
+   * @param parseTime how long it took to tokenize the page and extract its links.
+   */
+  default void recordPage(String url, Duration fetchTime, Duration parseTime) {
+  }
+
+  /**
+   * Records how the fetch of a single remote page ended.
+   *
+   * <p>Outcomes are counted by kind, and failures by the host of the URL. Profilers that do not
+   * support this breakdown ignore the call.
+   *
+   * @param url      the URL of the page.
+   * @param outcome  how the last attempt at the fetch ended.
+   * @param attempts how many attempts were made, counting retries.
+   */
+  default void recordFetch(String url, FetchOutcome outcome, int attempts) {
+  }
+
+  /**
+   * Records that the fetch of a page was hedged with a second request, and which request won.
+   *
+   * <p>Profilers that do not support this breakdown ignore the call.
+   *
+   * @param url the URL of the page.
+   * @param won true if the page came from the hedge request, rather than the first one.
+   */
+  default void recordHedge(String url, boolean won) {
+  }
+
+  /**
+   * Records that a request for a page timed out.
+   *
+   * <p>Profilers that do not support this breakdown ignore the call.
+   *
+   * @param url      the URL of the page.
+   * @param timeout  the timeout of the request.
+   * @param adaptive true if the timeout was cut short because the host is usually faster.
+   */
+  default void recordTimeout(String url, Duration timeout, boolean adaptive) {
+  }
+
   /**
    * Formats the profile data as a string and writes it to the given {@link Path}.
    *
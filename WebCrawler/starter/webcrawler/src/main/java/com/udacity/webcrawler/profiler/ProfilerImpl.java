@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.profiler;
 
+import com.udacity.webcrawler.fetch.FetchOutcome;
+
 import javax.inject.Inject;
 import java.io.IOException;
 import java.io.Writer;
@@ -23,11 +25,24 @@ final class ProfilerImpl implements Profiler {
 
   private final Clock clock;
   private final ProfilingState state = new ProfilingState();
+  private final PageProfilingState pageState;
+  private final FetchProfilingState fetchState = new FetchProfilingState();
   private final ZonedDateTime startTime;
 
   @Inject
   ProfilerImpl(Clock clock) {
+    this(clock, 0);
+  }
+
+  /**
+   * Creates a profiler that also records per-host page timings.
+   *
+   * @param slowestUrlCount how many of the slowest URLs to report. If zero, page timings passed to
+   *                        {@link #recordPage(String, Duration, Duration)} are ignored.
+   */
+  ProfilerImpl(Clock clock, int slowestUrlCount) {
     this.clock = Objects.requireNonNull(clock);
+    this.pageState = new PageProfilingState(slowestUrlCount);
     this.startTime = ZonedDateTime.now(clock);
   }
 
@@ -59,6 +74,26 @@ final class ProfilerImpl implements Profiler {
     return false;
   }
 
+  @Override
+  public void recordPage(String url, Duration fetchTime, Duration parseTime) {
+    pageState.record(url, fetchTime, parseTime);
+  }
+
+  @Override
+  public void recordFetch(String url, FetchOutcome outcome, int attempts) {
+    fetchState.record(url, outcome, attempts);
+  }
+
+  @Override
+  public void recordHedge(String url, boolean won) {
+    fetchState.recordHedge(won);
+  }
+
+  @Override
+  public void recordTimeout(String url, Duration timeout, boolean adaptive) {
+    fetchState.recordTimeout(url, timeout, adaptive);
+  }
+
   @Override
   public void writeData(Path path) {
     try (Writer writer = Files.newBufferedWriter(path, Files.exists(path) 
@@ -75,6 +110,8 @@ final class ProfilerImpl implements Profiler {
     writer.write("Run at " + RFC_1123_DATE_TIME.format(startTime));
     writer.write(System.lineSeparator());
     state.write(writer);
+    pageState.write(writer);
+    fetchState.write(writer);
     writer.write(System.lineSeparator());
   }
 
@@ -12,9 +12,49 @@ import java.time.Clock;
  * <p>Requires a {@link java.time.Clock} to already be bound.
  */
 public final class ProfilerModule extends AbstractModule {
+  private final int slowestUrlCount;
+
+  /**
+   * Creates a {@link ProfilerModule} with the default settings: no per-host page timings.
+   */
+  public ProfilerModule() {
+    this(0);
+  }
+
+  private ProfilerModule(int slowestUrlCount) {
+    this.slowestUrlCount = slowestUrlCount;
+  }
+
   @Provides
   @Singleton
   Profiler provideProfiler(Clock clock) {
-    return new ProfilerImpl(clock);
+    return new ProfilerImpl(clock, slowestUrlCount);
+  }
+
+  /**
+   * A builder class for {@link ProfilerModule}.
+   */
+  public static final class Builder {
+    private int slowestUrlCount = 0;
+
+    /**
+     * Sets how many of the slowest URLs the profiler should report. If positive, the profiler also
+     * reports fetch and parse time aggregated by host. See
+     * {@link Profiler#recordPage(String, java.time.Duration, java.time.Duration)}.
+     */
+    public Builder setSlowestUrlCount(int slowestUrlCount) {
+      if (slowestUrlCount < 0) {
+        throw new IllegalArgumentException("slowestUrlCount cannot be negative");
+      }
+      this.slowestUrlCount = slowestUrlCount;
+      return this;
+    }
+
+    /**
+     * Builds a {@link ProfilerModule} from this {@link Builder}.
+     */
+    public ProfilerModule build() {
+      return new ProfilerModule(slowestUrlCount);
+    }
   }
 }
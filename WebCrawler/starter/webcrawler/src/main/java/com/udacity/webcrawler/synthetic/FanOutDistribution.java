@@ -0,0 +1,47 @@
+package com.udacity.webcrawler.synthetic;
+
+import java.util.SplittableRandom;
+
+/**
+ * How the number of links on each page of a {@link SyntheticSite} is distributed.
+ */
+public enum FanOutDistribution {
+
+  /**
+   * Every page has exactly the mean number of links.
+   */
+  FIXED {
+    @Override
+    int sample(SplittableRandom random, int mean) {
+      return mean;
+    }
+  },
+
+  /**
+   * The number of links is uniformly distributed between 0 and twice the mean.
+   */
+  UNIFORM {
+    @Override
+    int sample(SplittableRandom random, int mean) {
+      return random.nextInt(2 * mean + 1);
+    }
+  },
+
+  /**
+   * The number of links follows a Pareto (power-law) distribution with the given mean, so most
+   * pages have few links and a handful of "index" pages have very many.
+   */
+  POWER_LAW {
+    @Override
+    int sample(SplittableRandom random, int mean) {
+      // A Pareto distribution with shape 2 has mean 2 * scale.
+      double scale = mean / 2.0;
+      return (int) Math.round(scale / Math.sqrt(1.0 - random.nextDouble()));
+    }
+  };
+
+  /**
+   * Returns a non-negative number of links drawn from this distribution.
+   */
+  abstract int sample(SplittableRandom random, int mean);
+}
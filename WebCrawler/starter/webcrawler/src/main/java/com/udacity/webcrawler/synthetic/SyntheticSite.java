@@ -0,0 +1,503 @@
+package com.udacity.webcrawler.synthetic;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * A deterministic, generated web site used as a fixture for crawler load tests and benchmarks.
+ *
+ * <p>Pages are named {@code page-<n>.html} and are rendered on demand from the site's seed and
+ * the page index, so a site of any size can be served without storing it (see
+ * {@link SyntheticSiteServer}) or written to a directory and crawled through {@code file://} URIs
+ * (see {@link #writeTo(Path)}). Two sites built with the same settings are identical.
+ *
+ * <p>Page text is drawn from a vocabulary with a Zipfian word frequency distribution. The first
+ * link on every page points to the next page, so every page is reachable from page 0.
+ *
+ * <p>A fraction of the pages can be made copies of earlier pages (see {@link #duplicateOf(int)}),
+ * to test near-duplicate detection.
+ */
+@JsonDeserialize(builder = SyntheticSite.Builder.class)
+public final class SyntheticSite {
+
+  private static final long ERROR_SALT = 0x5DEECE66DL;
+  private static final long SLOW_SALT = 0xBB67AE8584CAA73BL;
+  private static final long DUPLICATE_SALT = 0x3C6EF372FE94F82BL;
+
+  private final long seed;
+  private final int pageCount;
+  private final int minWords;
+  private final int maxWords;
+  private final int meanFanOut;
+  private final FanOutDistribution fanOutDistribution;
+  private final double duplicateLinkRate;
+  private final double errorPageRate;
+  private final double slowPageRate;
+  private final Duration slowPageDelay;
+  private final double duplicatePageRate;
+  private final String[] vocabulary;
+  private final double[] cumulativeWordFrequencies;
+
+  private SyntheticSite(
+      long seed,
+      int pageCount,
+      int minWords,
+      int maxWords,
+      int meanFanOut,
+      FanOutDistribution fanOutDistribution,
+      int vocabularySize,
+      double zipfExponent,
+      double duplicateLinkRate,
+      double errorPageRate,
+      double slowPageRate,
+      Duration slowPageDelay,
+      double duplicatePageRate) {
+    this.seed = seed;
+    this.pageCount = pageCount;
+    this.minWords = minWords;
+    this.maxWords = maxWords;
+    this.meanFanOut = meanFanOut;
+    this.fanOutDistribution = fanOutDistribution;
+    this.duplicateLinkRate = duplicateLinkRate;
+    this.errorPageRate = errorPageRate;
+    this.slowPageRate = slowPageRate;
+    this.slowPageDelay = slowPageDelay;
+    this.duplicatePageRate = duplicatePageRate;
+
+    this.vocabulary = new String[vocabularySize];
+    this.cumulativeWordFrequencies = new double[vocabularySize];
+    double total = 0;
+    for (int rank = 0; rank < vocabularySize; rank++) {
+      vocabulary[rank] = word(rank);
+      total += 1.0 / Math.pow(rank + 1, zipfExponent);
+      cumulativeWordFrequencies[rank] = total;
+    }
+    for (int rank = 0; rank < vocabularySize; rank++) {
+      cumulativeWordFrequencies[rank] /= total;
+    }
+  }
+
+  /**
+   * Loads site settings from the given reader, which must contain a JSON object whose keys match
+   * the {@link JsonProperty} names of the {@link Builder} setters.
+   */
+  public static SyntheticSite read(Reader reader) throws IOException {
+    Objects.requireNonNull(reader);
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    return mapper.readValue(reader, Builder.class).build();
+  }
+
+  /**
+   * Returns the number of pages in the site.
+   */
+  public int getPageCount() {
+    return pageCount;
+  }
+
+  /**
+   * Returns the file name of the page with the given index.
+   */
+  public static String pageName(int page) {
+    return "page-" + page + ".html";
+  }
+
+  /**
+   * Returns the index of the page with the given file name, or -1 if the name does not belong to
+   * a page of this site.
+   */
+  public int pageIndex(String name) {
+    if (!name.startsWith("page-") || !name.endsWith(".html")) {
+      return -1;
+    }
+    try {
+      int page =
+          Integer.parseInt(name.substring("page-".length(), name.length() - ".html".length()));
+      return (page >= 0 && page < pageCount) ? page : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns true if the given page is an "erroring" page: it is served with HTTP status 500, and
+   * it is left out when the site is written to a directory. Page 0 is never an error page.
+   */
+  public boolean isErrorPage(int page) {
+    return page != 0
+        && errorPageRate > 0
+        && pageRandom(page, ERROR_SALT).nextDouble() < errorPageRate;
+  }
+
+  /**
+   * Returns how long the server waits before responding with the given page. Zero for all pages
+   * except the "slow" ones. Page 0 is never slow.
+   */
+  public Duration responseDelay(int page) {
+    if (page != 0 && slowPageRate > 0 && pageRandom(page, SLOW_SALT).nextDouble() < slowPageRate) {
+      return slowPageDelay;
+    }
+    return Duration.ZERO;
+  }
+
+  /**
+   * Returns the index of the page that the given page is a copy of, or -1 if it is not a copy. A
+   * copy has the same text as its original, and the same links except for the first, which still
+   * points to the page after the copy. The original always has a smaller index and is never a
+   * copy itself. Page 0 is never a copy.
+   */
+  public int duplicateOf(int page) {
+    int original = -1;
+    while (page != 0 && duplicatePageRate > 0) {
+      SplittableRandom random = pageRandom(page, DUPLICATE_SALT);
+      if (random.nextDouble() >= duplicatePageRate) {
+        break;
+      }
+      page = random.nextInt(page);
+      original = page;
+    }
+    return original;
+  }
+
+  /**
+   * Returns the indexes of the pages the given page links to, in document order. The list may
+   * contain the same page more than once. Error pages have no links.
+   */
+  public List<Integer> links(int page) {
+    return isErrorPage(page) ? List.of() : generate(page).links;
+  }
+
+  /**
+   * Returns the number of times each word appears in the given page, exactly as the crawler's
+   * parser counts them (with no ignored words). Error pages have no words.
+   */
+  public Map<String, Integer> wordCounts(int page) {
+    if (isErrorPage(page)) {
+      return Map.of();
+    }
+    Map<String, Integer> counts = new HashMap<>();
+    for (String word : generate(page).words) {
+      counts.merge(word, 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  /**
+   * Renders the HTML of the given page.
+   */
+  public String render(int page) {
+    GeneratedPage generated = generate(page);
+    StringBuilder html = new StringBuilder(generated.bodyWords * 8 + generated.links.size() * 40);
+    html.append("<!DOCTYPE html>\n<html>\n<head><title></title></head>\n<body>\n<p>");
+    for (int i = 0; i < generated.bodyWords; i++) {
+      html.append(generated.words.get(i));
+      html.append((i % 50 == 49) ? "</p>\n<p>" : " ");
+    }
+    html.append("</p>\n");
+    for (int i = 0; i < generated.links.size(); i++) {
+      html.append("<a href=\"")
+          .append(pageName(generated.links.get(i)))
+          .append("\">")
+          .append(generated.words.get(generated.bodyWords + i))
+          .append("</a>\n");
+    }
+    html.append("</body>\n</html>\n");
+    return html.toString();
+  }
+
+  /**
+   * Writes every page except the error pages to the given directory, which is created if needed.
+   * Slow pages are written like any other page, since local files cannot be delayed.
+   */
+  public void writeTo(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    for (int page = 0; page < pageCount; page++) {
+      if (!isErrorPage(page)) {
+        Files.writeString(directory.resolve(pageName(page)), render(page));
+      }
+    }
+  }
+
+  private GeneratedPage generate(int page) {
+    if (page < 0 || page >= pageCount) {
+      throw new IllegalArgumentException("No such page: " + page);
+    }
+    int original = duplicateOf(page);
+    if (original < 0) {
+      return generateOriginal(page);
+    }
+    GeneratedPage copied = generateOriginal(original);
+    List<Integer> links = new ArrayList<>(copied.links);
+    links.set(0, (page + 1) % pageCount);
+    return new GeneratedPage(copied.bodyWords, copied.words, Collections.unmodifiableList(links));
+  }
+
+  private GeneratedPage generateOriginal(int page) {
+    SplittableRandom random = pageRandom(page, 0);
+    int bodyWords = minWords + random.nextInt(maxWords - minWords + 1);
+    int fanOut = Math.min(fanOutDistribution.sample(random, meanFanOut), 10 * pageCount);
+
+    List<Integer> links = new ArrayList<>(fanOut + 1);
+    links.add((page + 1) % pageCount);
+    for (int i = 0; i < fanOut; i++) {
+      if (duplicateLinkRate > 0 && random.nextDouble() < duplicateLinkRate) {
+        links.add(links.get(random.nextInt(links.size())));
+      } else {
+        links.add(random.nextInt(pageCount));
+      }
+    }
+
+    // Body words come first, followed by one word of anchor text per link.
+    List<String> words = new ArrayList<>(bodyWords + links.size());
+    for (int i = 0; i < bodyWords + links.size(); i++) {
+      words.add(sampleWord(random));
+    }
+    return new GeneratedPage(bodyWords, Collections.unmodifiableList(words),
+        Collections.unmodifiableList(links));
+  }
+
+  private String sampleWord(SplittableRandom random) {
+    int rank = Arrays.binarySearch(cumulativeWordFrequencies, random.nextDouble());
+    rank = (rank >= 0) ? rank : -rank - 1;
+    return vocabulary[Math.min(rank, vocabulary.length - 1)];
+  }
+
+  private SplittableRandom pageRandom(int page, long salt) {
+    return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + page * 0xC2B2AE3D27D4EB4FL + salt);
+  }
+
+  /**
+   * Returns a distinct word of lower-case letters for each vocabulary rank. Words are at least
+   * four letters long so that common "short word" ignore patterns do not filter them out.
+   */
+  private static String word(int rank) {
+    StringBuilder word = new StringBuilder();
+    int n = rank;
+    do {
+      word.append((char) ('a' + n % 26));
+      n /= 26;
+    } while (n > 0);
+    while (word.length() < 4) {
+      word.append('q');
+    }
+    return word.toString();
+  }
+
+  private static final class GeneratedPage {
+    private final int bodyWords;
+    private final List<String> words;
+    private final List<Integer> links;
+
+    GeneratedPage(int bodyWords, List<String> words, List<Integer> links) {
+      this.bodyWords = bodyWords;
+      this.words = words;
+      this.links = links;
+    }
+  }
+
+  /**
+   * A builder class for {@link SyntheticSite}.
+   */
+  public static final class Builder {
+    private long seed = 1;
+    private int pageCount = 1000;
+    private int minWords = 200;
+    private int maxWords = 800;
+    private int meanFanOut = 10;
+    private FanOutDistribution fanOutDistribution = FanOutDistribution.UNIFORM;
+    private int vocabularySize = 10000;
+    private double zipfExponent = 1.0;
+    private double duplicateLinkRate = 0;
+    private double errorPageRate = 0;
+    private double slowPageRate = 0;
+    private long slowPageDelayMillis = 1000;
+    private double duplicatePageRate = 0;
+
+    /**
+     * Sets the seed that all page content is derived from.
+     */
+    @JsonProperty("seed")
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Sets the number of pages in the site.
+     */
+    @JsonProperty("pageCount")
+    public Builder setPageCount(int pageCount) {
+      this.pageCount = pageCount;
+      return this;
+    }
+
+    /**
+     * Sets the page size range. The number of body words of each page is uniformly distributed
+     * between {@code minWords} and {@code maxWords}, inclusive.
+     */
+    public Builder setWordsPerPage(int minWords, int maxWords) {
+      return setMinWords(minWords).setMaxWords(maxWords);
+    }
+
+    /**
+     * Sets the smallest number of body words on a page.
+     */
+    @JsonProperty("minWords")
+    public Builder setMinWords(int minWords) {
+      this.minWords = minWords;
+      return this;
+    }
+
+    /**
+     * Sets the largest number of body words on a page.
+     */
+    @JsonProperty("maxWords")
+    public Builder setMaxWords(int maxWords) {
+      this.maxWords = maxWords;
+      return this;
+    }
+
+    /**
+     * Sets the mean number of random links per page, in addition to the link to the next page.
+     */
+    @JsonProperty("meanFanOut")
+    public Builder setMeanFanOut(int meanFanOut) {
+      this.meanFanOut = meanFanOut;
+      return this;
+    }
+
+    /**
+     * Sets how the number of links per page is distributed around the mean.
+     */
+    @JsonProperty("fanOutDistribution")
+    public Builder setFanOutDistribution(FanOutDistribution fanOutDistribution) {
+      this.fanOutDistribution = Objects.requireNonNull(fanOutDistribution);
+      return this;
+    }
+
+    /**
+     * Sets the number of distinct words in the site.
+     */
+    @JsonProperty("vocabularySize")
+    public Builder setVocabularySize(int vocabularySize) {
+      this.vocabularySize = vocabularySize;
+      return this;
+    }
+
+    /**
+     * Sets the exponent of the Zipfian word distribution. The word with rank {@code k} appears
+     * with a frequency proportional to {@code 1 / k^exponent}; 0 makes all words equally likely.
+     */
+    @JsonProperty("zipfExponent")
+    public Builder setZipfExponent(double zipfExponent) {
+      this.zipfExponent = zipfExponent;
+      return this;
+    }
+
+    /**
+     * Sets the probability that a link repeats an earlier link on the same page.
+     */
+    @JsonProperty("duplicateLinkRate")
+    public Builder setDuplicateLinkRate(double duplicateLinkRate) {
+      this.duplicateLinkRate = duplicateLinkRate;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of pages that are served with an HTTP 500 error.
+     */
+    @JsonProperty("errorPageRate")
+    public Builder setErrorPageRate(double errorPageRate) {
+      this.errorPageRate = errorPageRate;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of pages that the server delays by the slow page delay.
+     */
+    @JsonProperty("slowPageRate")
+    public Builder setSlowPageRate(double slowPageRate) {
+      this.slowPageRate = slowPageRate;
+      return this;
+    }
+
+    /**
+     * Sets how long slow pages are delayed, in milliseconds.
+     */
+    @JsonProperty("slowPageDelayMillis")
+    public Builder setSlowPageDelayMillis(long slowPageDelayMillis) {
+      this.slowPageDelayMillis = slowPageDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of pages that are copies of an earlier page. See
+     * {@link SyntheticSite#duplicateOf(int)}.
+     */
+    @JsonProperty("duplicatePageRate")
+    public Builder setDuplicatePageRate(double duplicatePageRate) {
+      this.duplicatePageRate = duplicatePageRate;
+      return this;
+    }
+
+    /**
+     * Constructs a {@link SyntheticSite} from this builder.
+     */
+    public SyntheticSite build() {
+      if (pageCount <= 0) {
+        throw new IllegalArgumentException("pageCount must be positive");
+      }
+      if (minWords < 0 || maxWords < minWords) {
+        throw new IllegalArgumentException("invalid page size range");
+      }
+      if (meanFanOut < 0) {
+        throw new IllegalArgumentException("meanFanOut cannot be negative");
+      }
+      if (vocabularySize <= 0) {
+        throw new IllegalArgumentException("vocabularySize must be positive");
+      }
+      if (zipfExponent < 0) {
+        throw new IllegalArgumentException("zipfExponent cannot be negative");
+      }
+      for (double rate : new double[]{
+          duplicateLinkRate, errorPageRate, slowPageRate, duplicatePageRate}) {
+        if (rate < 0 || rate > 1) {
+          throw new IllegalArgumentException("rates must be between 0 and 1");
+        }
+      }
+      if (slowPageDelayMillis < 0) {
+        throw new IllegalArgumentException("slowPageDelayMillis cannot be negative");
+      }
+      return new SyntheticSite(
+          seed,
+          pageCount,
+          minWords,
+          maxWords,
+          meanFanOut,
+          fanOutDistribution,
+          vocabularySize,
+          zipfExponent,
+          duplicateLinkRate,
+          errorPageRate,
+          slowPageRate,
+          Duration.ofMillis(slowPageDelayMillis),
+          duplicatePageRate);
+    }
+  }
+}
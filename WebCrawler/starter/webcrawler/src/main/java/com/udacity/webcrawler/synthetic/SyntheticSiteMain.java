@@ -0,0 +1,42 @@
+package com.udacity.webcrawler.synthetic;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line entry point that either writes a {@link SyntheticSite} to a directory or serves it
+ * over HTTP until the process is killed.
+ */
+public final class SyntheticSiteMain {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2
+        || !(args[1].equals("serve") || (args[1].equals("write") && args.length == 3))) {
+      System.out.println("Usage: SyntheticSiteMain [site-config] serve [port]");
+      System.out.println("       SyntheticSiteMain [site-config] write [directory]");
+      return;
+    }
+
+    SyntheticSite site;
+    try (Reader reader = Files.newBufferedReader(Path.of(args[0]))) {
+      site = SyntheticSite.read(reader);
+    }
+
+    if (args[1].equals("write")) {
+      Path directory = Path.of(args[2]);
+      site.writeTo(directory);
+      System.out.println("Start page: " + directory.resolve(SyntheticSite.pageName(0)).toUri());
+      return;
+    }
+
+    int port = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+    SyntheticSiteServer server = SyntheticSiteServer.start(site, port);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    System.out.println("Start page: " + server.url(0));
+  }
+
+  private SyntheticSiteMain() {
+    // This class cannot be instantiated
+  }
+}
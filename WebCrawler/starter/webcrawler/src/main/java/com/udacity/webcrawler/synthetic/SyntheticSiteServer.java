@@ -0,0 +1,125 @@
+package com.udacity.webcrawler.synthetic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process HTTP server that renders the pages of a {@link SyntheticSite} on the fly.
+ *
+ * <p>Error pages are answered with HTTP status 500, slow pages are delayed by
+ * {@link SyntheticSite#responseDelay(int)}, and unknown paths get a 404. The server keeps track
+ * of how many requests it answers at once, so that tests can check how hard a crawl hits it.
+ */
+public final class SyntheticSiteServer implements Closeable {
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final AtomicInteger concurrentRequests = new AtomicInteger();
+  private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+  private SyntheticSiteServer(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving the given site from the loopback interface on an ephemeral port.
+   */
+  public static SyntheticSiteServer start(SyntheticSite site) throws IOException {
+    return start(site, 0);
+  }
+
+  /**
+   * Starts serving the given site from the loopback interface on the given port, or on an
+   * ephemeral port if {@code port} is 0.
+   */
+  public static SyntheticSiteServer start(SyntheticSite site, int port) throws IOException {
+    Objects.requireNonNull(site);
+    // Without TCP_NODELAY, the JDK server's separate header and body writes interact with delayed
+    // ACKs and add ~40ms to every request, which would dwarf the time spent crawling.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    // Slow pages block their handler thread, so the pool must be able to grow.
+    ExecutorService executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    SyntheticSiteServer siteServer = new SyntheticSiteServer(server, executor);
+    server.createContext("/", exchange -> siteServer.serve(site, exchange));
+    server.start();
+    return siteServer;
+  }
+
+  /**
+   * Returns the {@code http://} URL of the given page.
+   */
+  public String url(int page) {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + "/" + SyntheticSite.pageName(page);
+  }
+
+  /**
+   * Returns the number of requests this server is answering right now.
+   */
+  public int getConcurrentRequests() {
+    return concurrentRequests.get();
+  }
+
+  /**
+   * Returns the most requests this server has been answering at once since it started.
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void serve(SyntheticSite site, HttpExchange exchange) throws IOException {
+    try (exchange) {
+      int page = site.pageIndex(exchange.getRequestURI().getPath().substring(1));
+      if (page < 0) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      Duration delay = site.responseDelay(page);
+      // A request is counted only until its response starts, so it never overlaps the next
+      // request of a client that waited for the answer.
+      maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+      try {
+        if (!delay.isZero()) {
+          Thread.sleep(delay.toMillis());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        concurrentRequests.decrementAndGet();
+      }
+      if (site.isErrorPage(page)) {
+        exchange.sendResponseHeaders(500, -1);
+        return;
+      }
+      byte[] body = site.render(page).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class AimdConcurrencyLimitTest {
+  private static final Duration FAST = Duration.ofMillis(10);
+  private static final Duration SLOW = Duration.ofMillis(100);
+
+  @Test
+  public void growsWhileSaturatedAndFast() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit(2, 1, 8);
+    for (int round = 0; round < 100; round++) {
+      fetchRound(limit, FAST);
+    }
+    assertWithMessage("A fast, saturated limit should grow to its upper bound")
+        .that(limit.getLimit())
+        .isEqualTo(8);
+  }
+
+  @Test
+  public void doesNotGrowWhenNotSaturated() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit(4, 1, 8);
+    for (int i = 0; i < 100; i++) {
+      assertThat(limit.acquire()).isTrue();
+      limit.release(FAST);
+    }
+    assertThat(limit.getLimit()).isEqualTo(4);
+  }
+
+  @Test
+  public void backsOffWhenPagesSlowDown() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit(8, 2, 8);
+    fetchRound(limit, FAST);
+    for (int round = 0; round < 5; round++) {
+      fetchRound(limit, SLOW);
+    }
+    assertWithMessage("Slow pages should cut the limit down to its lower bound")
+        .that(limit.getLimit())
+        .isEqualTo(2);
+  }
+
+  @Test
+  public void recoversOnceSlowLatencyBecomesTheNorm() {
+    AimdConcurrencyLimit limit = new AimdConcurrencyLimit(8, 2, 8);
+    fetchRound(limit, FAST);
+    for (int round = 0; round < 200; round++) {
+      fetchRound(limit, SLOW);
+    }
+    assertWithMessage("A server that is consistently slow should not keep the limit at its minimum")
+        .that(limit.getLimit())
+        .isEqualTo(8);
+  }
+
+  @Test
+  public void initialLimitIsClampedToBounds() {
+    assertThat(new AimdConcurrencyLimit(100, 1, 16).getLimit()).isEqualTo(16);
+    assertThat(new AimdConcurrencyLimit(0, 3, 16).getLimit()).isEqualTo(3);
+  }
+
+  /**
+   * Fetches as many pages at once as the limit allows, all with the given latency.
+   */
+  private static void fetchRound(AimdConcurrencyLimit limit, Duration latency) {
+    int permits = limit.getLimit();
+    for (int i = 0; i < permits; i++) {
+      assertThat(limit.acquire()).isTrue();
+    }
+    for (int i = 0; i < permits; i++) {
+      limit.release(latency);
+    }
+  }
+}
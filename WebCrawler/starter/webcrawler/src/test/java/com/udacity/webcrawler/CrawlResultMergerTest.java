@@ -0,0 +1,78 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlResultWriter;
+import com.udacity.webcrawler.json.ResultFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class CrawlResultMergerTest {
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void mergesJsonAndBinaryResults() throws Exception {
+    Path pretty = write("pretty.json", 3, 1, Map.of("apple", 5, "banana", 2, "cherry", 1), true);
+    Path compact = write("compact.json", 4, 0, Map.of("banana", 4, "date", 3), false);
+    Path binary = write("partial.wcb", 1, 2, Map.of("cherry", 6, "apple", 1), true);
+
+    CrawlResult result = CrawlResultMerger.merge(List.of(pretty, compact, binary), 3, 2);
+
+    assertThat(result.getUrlsVisited()).isEqualTo(8);
+    assertThat(result.getDuplicatesSkipped()).isEqualTo(3);
+    assertWithMessage("Merged counts should be summed and re-sorted")
+        .that(result.getWordCounts())
+        .containsExactly("cherry", 7, "banana", 6, "apple", 6)
+        .inOrder();
+  }
+
+  @Test
+  public void mergeMatchesSingleSort() throws Exception {
+    Map<String, Integer> first = new HashMap<>();
+    Map<String, Integer> second = new HashMap<>();
+    Map<String, Integer> total = new HashMap<>();
+    for (int i = 0; i < 5000; i++) {
+      first.put("word" + i, i % 97);
+      second.put("word" + (i * 3), i % 89);
+    }
+    first.forEach((word, count) -> total.merge(word, count, Integer::sum));
+    second.forEach((word, count) -> total.merge(word, count, Integer::sum));
+
+    CrawlResult result =
+        CrawlResultMerger.merge(
+            List.of(
+                write("first.wcb", 1, 0, first, false),
+                write("second.json", 1, 0, second, false)),
+            50,
+            4);
+
+    assertThat(result.getWordCounts())
+        .containsExactlyEntriesIn(WordCounts.sort(total, 50))
+        .inOrder();
+  }
+
+  private Path write(
+      String name,
+      int urlsVisited,
+      int duplicatesSkipped,
+      Map<String, Integer> counts,
+      boolean pretty) {
+    Path path = tempDir.resolve(name);
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(urlsVisited)
+            .setDuplicatesSkipped(duplicatesSkipped)
+            .setWordCounts(counts)
+            .build();
+    new CrawlResultWriter(result, pretty).write(path, ResultFormat.forPath(name));
+    return path;
+  }
+}
@@ -0,0 +1,136 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class FairShareLimitTest {
+  private static final Duration FAST = Duration.ofMillis(10);
+  private static final Duration SLOW = Duration.ofMillis(100);
+
+  @Test
+  public void crawlBackedOffBelowThePoolLeavesThreadsForOtherCrawls() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      AimdConcurrencyLimit aimd = new AimdConcurrencyLimit(2, 1, 2);
+      assertThat(aimd.acquire()).isTrue();
+      aimd.release(FAST);
+      while (aimd.getLimit() > 1) {
+        assertThat(aimd.acquire()).isTrue();
+        aimd.release(SLOW);
+      }
+      Set<FairShareLimit> activeCrawls = ConcurrentHashMap.newKeySet();
+      FairShareLimit limit = new FairShareLimit(aimd, pool.getParallelism(), activeCrawls);
+      activeCrawls.add(limit);
+
+      // The crawl's only permit goes to a fetch that takes until the test lets it finish.
+      CountDownLatch fetching = new CountDownLatch(1);
+      CountDownLatch fetchesDone = new CountDownLatch(4);
+      CountDownLatch finishFetches = new CountDownLatch(1);
+      pool.execute(new Fetch(pool, limit, fetching, finishFetches, fetchesDone));
+      assertThat(fetching.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(limit.isSaturated()).isTrue();
+      for (int i = 0; i < 3; i++) {
+        pool.execute(new Fetch(pool, limit, fetching, finishFetches, fetchesDone));
+      }
+
+      ForkJoinTask<?> otherCrawl = pool.submit(() -> {});
+      assertWithMessage("Another crawl should get a thread while this one waits for its limit")
+          .that(awaitQuietly(otherCrawl))
+          .isTrue();
+
+      finishFetches.countDown();
+      assertWithMessage("The deferred fetches should run once the permit is released")
+          .that(fetchesDone.await(10, TimeUnit.SECONDS))
+          .isTrue();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shareOfEachCrawlShrinksAsCrawlsJoin() {
+    Set<FairShareLimit> activeCrawls = ConcurrentHashMap.newKeySet();
+    FairShareLimit first = new FairShareLimit(ConcurrencyLimit.NONE, 4, activeCrawls);
+    activeCrawls.add(first);
+    assertThat(first.acquire()).isTrue();
+    assertThat(first.acquire()).isTrue();
+    assertThat(first.isSaturated()).isFalse();
+
+    FairShareLimit second = new FairShareLimit(ConcurrencyLimit.NONE, 4, activeCrawls);
+    activeCrawls.add(second);
+    assertThat(first.isSaturated()).isTrue();
+    assertThat(second.isSaturated()).isFalse();
+    assertThat(first.defer(() -> true)).isTrue();
+    assertThat(second.defer(() -> true)).isFalse();
+  }
+
+  private static boolean awaitQuietly(ForkJoinTask<?> task) throws Exception {
+    try {
+      task.get(5, TimeUnit.SECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Stands in for a crawl task that nothing joins: it defers itself while the limit is saturated,
+   * and resumes the deferred tasks when it is done.
+   */
+  private static final class Fetch extends RecursiveAction {
+    private final ForkJoinPool pool;
+    private final ConcurrencyLimit limit;
+    private final CountDownLatch fetching;
+    private final CountDownLatch finish;
+    private final CountDownLatch done;
+
+    Fetch(
+        ForkJoinPool pool,
+        ConcurrencyLimit limit,
+        CountDownLatch fetching,
+        CountDownLatch finish,
+        CountDownLatch done) {
+      this.pool = pool;
+      this.limit = limit;
+      this.fetching = fetching;
+      this.finish = finish;
+      this.done = done;
+    }
+
+    @Override
+    protected void compute() {
+      Fetch copy = new Fetch(pool, limit, fetching, finish, done);
+      if (limit.defer(() -> {
+        pool.execute(copy);
+        return true;
+      })) {
+        return;
+      }
+      if (!limit.acquire()) {
+        return;
+      }
+      try {
+        fetching.countDown();
+        finish.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        limit.release(SLOW);
+        done.countDown();
+        limit.resumeDeferred();
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class NearDuplicateFilterTest {
+
+  @Test
+  public void pagesSharingMostWordsHaveCloseFingerprints() {
+    Map<String, Integer> page = randomPage(1, 300);
+    Map<String, Integer> edited = new HashMap<>(page);
+    edited.merge("extra", 1, Integer::sum);
+    edited.remove(page.keySet().iterator().next());
+
+    assertWithMessage("A one-word edit should change few bits")
+        .that(SimHash.distance(SimHash.of(page), SimHash.of(edited)))
+        .isAtMost(3);
+    assertWithMessage("Unrelated pages should differ in about half the bits")
+        .that(SimHash.distance(SimHash.of(page), SimHash.of(randomPage(2, 300))))
+        .isAtLeast(16);
+  }
+
+  @Test
+  public void secondCopyIsDuplicate() {
+    NearDuplicateFilter filter = new NearDuplicateFilter(3, true);
+    Map<String, Integer> page = randomPage(1, 100);
+
+    assertThat(filter.isDuplicate(page)).isFalse();
+    assertThat(filter.isDuplicate(randomPage(2, 100))).isFalse();
+    assertThat(filter.isDuplicate(new HashMap<>(page))).isTrue();
+    assertThat(filter.getDuplicatesSkipped()).isEqualTo(1);
+  }
+
+  @Test
+  public void exactMatchesOnlyAtDistanceZero() {
+    NearDuplicateFilter filter = new NearDuplicateFilter(0, true);
+    Map<String, Integer> page = randomPage(1, 100);
+
+    assertThat(filter.isDuplicate(page)).isFalse();
+    assertThat(filter.isDuplicate(page)).isTrue();
+  }
+
+  @Test
+  public void pagesWithoutWordsAreNeverDuplicates() {
+    NearDuplicateFilter filter = new NearDuplicateFilter(3, true);
+
+    assertThat(filter.isDuplicate(Map.of())).isFalse();
+    assertThat(filter.isDuplicate(Map.of())).isFalse();
+  }
+
+  @Test
+  public void disabledFilterNeverReportsDuplicates() {
+    NearDuplicateFilter filter = NearDuplicateFilter.disabled();
+    Map<String, Integer> page = randomPage(1, 100);
+
+    assertThat(filter.isDuplicate(page)).isFalse();
+    assertThat(filter.isDuplicate(page)).isFalse();
+    assertThat(filter.getDuplicatesSkipped()).isEqualTo(0);
+  }
+
+  @Test
+  public void exactlyOneOfConcurrentCopiesIsCounted() throws Exception {
+    NearDuplicateFilter filter = new NearDuplicateFilter(3, true);
+    Map<String, Integer> page = randomPage(1, 100);
+    AtomicInteger counted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        if (!filter.isDuplicate(page)) {
+          counted.incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(counted.get()).isEqualTo(1);
+    assertThat(filter.getDuplicatesSkipped()).isEqualTo(7);
+  }
+
+  private static Map<String, Integer> randomPage(long seed, int distinctWords) {
+    SplittableRandom random = new SplittableRandom(seed);
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < distinctWords; i++) {
+      counts.put("word" + random.nextInt(1_000_000), 1 + random.nextInt(5));
+    }
+    return counts;
+  }
+}
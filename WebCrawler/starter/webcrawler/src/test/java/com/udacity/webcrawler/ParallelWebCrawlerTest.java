@@ -1,12 +1,27 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.synthetic.SyntheticSite;
+import com.udacity.webcrawler.synthetic.SyntheticSiteServer;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public final class ParallelWebCrawlerTest {
   @Inject
@@ -17,6 +32,183 @@ public final class ParallelWebCrawlerTest {
     CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
     Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
         .injectMembers(this);
-    assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
+    try (ParallelWebCrawler crawler = parallelWebCrawler) {
+      assertThat(crawler.getMaxParallelism()).isGreaterThan(1);
+    }
+  }
+
+  @Test
+  public void testConcurrentCrawlsAreIsolated() throws Exception {
+    SyntheticSite first = new SyntheticSite.Builder().setSeed(1).setPageCount(100).build();
+    SyntheticSite second = new SyntheticSite.Builder().setSeed(2).setPageCount(150).build();
+    try (SyntheticSiteServer firstServer = SyntheticSiteServer.start(first);
+         SyntheticSiteServer secondServer = SyntheticSiteServer.start(second);
+         ParallelWebCrawler crawler = inject(4)) {
+      CrawlResult firstAlone = crawler.crawl(List.of(firstServer.url(0)));
+      CrawlResult secondAlone = crawler.crawl(List.of(secondServer.url(0)));
+
+      ExecutorService callers = Executors.newFixedThreadPool(4);
+      try {
+        List<Future<CrawlResult>> firstResults = new ArrayList<>();
+        List<Future<CrawlResult>> secondResults = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+          firstResults.add(callers.submit(() -> crawler.crawl(List.of(firstServer.url(0)))));
+          secondResults.add(callers.submit(() -> crawler.crawl(List.of(secondServer.url(0)))));
+        }
+        for (Future<CrawlResult> result : firstResults) {
+          assertSameResult(result.get(), firstAlone);
+        }
+        for (Future<CrawlResult> result : secondResults) {
+          assertSameResult(result.get(), secondAlone);
+        }
+      } finally {
+        callers.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentCrawlsShareThePoolFairly() throws Exception {
+    SyntheticSite large =
+        new SyntheticSite.Builder()
+            .setSeed(1)
+            .setPageCount(200)
+            .setSlowPageRate(1)
+            .setSlowPageDelayMillis(100)
+            .build();
+    SyntheticSite small =
+        new SyntheticSite.Builder()
+            .setSeed(2)
+            .setPageCount(40)
+            .setSlowPageRate(1)
+            .setSlowPageDelayMillis(100)
+            .build();
+    try (SyntheticSiteServer largeServer = SyntheticSiteServer.start(large);
+         SyntheticSiteServer smallServer = SyntheticSiteServer.start(small);
+         // A fixed adaptive limit sizes the pool to 4 threads, however many cores there are.
+         ParallelWebCrawler crawler =
+             inject(
+                 builder ->
+                     builder
+                         .setParallelism(4)
+                         .setAdaptiveParallelism(true)
+                         .setMinParallelism(4)
+                         .setMaxParallelism(4))) {
+      ExecutorService callers = Executors.newFixedThreadPool(2);
+      try {
+        Future<CrawlResult> largeCrawl =
+            callers.submit(() -> crawler.crawl(List.of(largeServer.url(0))));
+        // Alone, the large crawl has the whole pool.
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (largeServer.getMaxConcurrentRequests() < 4 && System.nanoTime() < giveUp) {
+          Thread.sleep(5);
+        }
+        assertThat(largeServer.getMaxConcurrentRequests()).isEqualTo(4);
+        AtomicInteger smallPages = new AtomicInteger();
+        AtomicInteger largeWhileSharing = new AtomicInteger();
+        CrawlResult smallResult =
+            callers
+                .submit(
+                    () ->
+                        crawler.crawl(
+                            List.of(smallServer.url(0)),
+                            new CrawlListener() {
+                              @Override
+                              public void onPage(PageVisit page) {
+                                // Give the large crawl's requests from before the small crawl
+                                // started time to finish.
+                                if (smallPages.incrementAndGet() > 5) {
+                                  largeWhileSharing.accumulateAndGet(
+                                      largeServer.getConcurrentRequests(), Math::max);
+                                }
+                              }
+                            }))
+                .get();
+
+        assertWithMessage("The small crawl should not wait for the large one to finish")
+            .that(largeCrawl.isDone())
+            .isFalse();
+        assertThat(smallResult.getUrlsVisited()).isEqualTo(smallPages.get());
+        assertWithMessage("The large crawl should fetch no more than half the pool at once")
+            .that(largeWhileSharing.get())
+            .isAtMost(2);
+        assertWithMessage("The small crawl should fetch no more than half the pool at once")
+            .that(smallServer.getMaxConcurrentRequests())
+            .isAtMost(2);
+        largeCrawl.get();
+      } finally {
+        callers.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testInterruptCancelsCrawl() throws Exception {
+    SyntheticSite site =
+        new SyntheticSite.Builder()
+            .setPageCount(200)
+            .setSlowPageRate(1)
+            .setSlowPageDelayMillis(50)
+            .build();
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site);
+         ParallelWebCrawler crawler = inject(2)) {
+      AtomicReference<CrawlResult> result = new AtomicReference<>();
+      AtomicBoolean interrupted = new AtomicBoolean();
+      Thread caller = new Thread(() -> {
+        result.set(crawler.crawl(List.of(server.url(0))));
+        interrupted.set(Thread.currentThread().isInterrupted());
+      });
+      caller.start();
+      Thread.sleep(300);
+      caller.interrupt();
+      caller.join(10_000);
+
+      assertWithMessage("An interrupted crawl should return early")
+          .that(caller.isAlive())
+          .isFalse();
+      assertThat(result.get().getUrlsVisited()).isLessThan(site.getPageCount());
+      assertWithMessage("The interrupt should be kept for the caller")
+          .that(interrupted.get())
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void testClosedCrawlerRejectsCrawls() {
+    try (ParallelWebCrawler crawler = inject(2)) {
+      crawler.close();
+      assertThrows(
+          IllegalStateException.class, () -> crawler.crawl(List.of("http://localhost/")));
+    }
+  }
+
+  /**
+   * Injects a crawler with the given parallelism, which the caller must close.
+   */
+  private ParallelWebCrawler inject(int parallelism) {
+    return inject(builder -> builder.setParallelism(parallelism));
+  }
+
+  /**
+   * Injects a crawler configured by the given customizer, which the caller must close.
+   */
+  private ParallelWebCrawler inject(Consumer<CrawlerConfiguration.Builder> customizer) {
+    CrawlerConfiguration.Builder builder =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(1000)
+            .setTimeoutSeconds(60)
+            .setPopularWordCount(10);
+    customizer.accept(builder);
+    CrawlerConfiguration config = builder.build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    return parallelWebCrawler;
+  }
+
+  private static void assertSameResult(CrawlResult actual, CrawlResult expected) {
+    assertThat(actual.getUrlsVisited()).isEqualTo(expected.getUrlsVisited());
+    assertThat(actual.getWordCounts())
+        .containsExactlyEntriesIn(expected.getWordCounts())
+        .inOrder();
   }
 }
@@ -0,0 +1,125 @@
+package com.udacity.webcrawler;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.webcrawler.main.WebCrawlerMain;
+import com.udacity.webcrawler.synthetic.FanOutDistribution;
+import com.udacity.webcrawler.synthetic.SyntheticSite;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/**
+ * Launches several {@link WebCrawlerMain} processes that crawl a {@link SyntheticSite} together
+ * through a shared work directory.
+ */
+public final class ShardedCrawlTest {
+  private static final int SHARD_COUNT = 3;
+
+  @TempDir
+  Path tempDir;
+
+  private final SyntheticSite site =
+      new SyntheticSite.Builder()
+          .setSeed(11)
+          .setPageCount(200)
+          .setWordsPerPage(20, 60)
+          .setMeanFanOut(4)
+          .setFanOutDistribution(FanOutDistribution.POWER_LAW)
+          .setVocabularySize(500)
+          .setDuplicateLinkRate(0.2)
+          .build();
+
+  @Test
+  public void processesCrawlTheSiteTogether() throws Exception {
+    Path siteDirectory = Files.createDirectory(tempDir.resolve("site"));
+    site.writeTo(siteDirectory);
+    Path workDirectory = Files.createDirectory(tempDir.resolve("work"));
+    Path resultPath = tempDir.resolve("result.json");
+    ObjectMapper mapper = new ObjectMapper();
+
+    List<Process> processes = new ArrayList<>();
+    for (int shard = 0; shard < SHARD_COUNT; shard++) {
+      Map<String, Object> config = new LinkedHashMap<>();
+      config.put(
+          "startPages",
+          List.of(siteDirectory.resolve(SyntheticSite.pageName(0)).toUri().toString()));
+      config.put("parallelism", 2);
+      config.put("maxDepth", site.getPageCount());
+      config.put("timeoutSeconds", 60);
+      config.put("popularWordCount", 20);
+      config.put("resultPath", resultPath.toString());
+      config.put("profileOutputPath", tempDir.resolve("profile-" + shard + ".txt").toString());
+      config.put("shardCount", SHARD_COUNT);
+      config.put("shardIndex", shard);
+      config.put("shardWorkDirectory", workDirectory.toString());
+      Path configPath = tempDir.resolve("config-" + shard + ".json");
+      mapper.writeValue(configPath.toFile(), config);
+
+      processes.add(
+          new ProcessBuilder(
+              Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+              "-cp",
+              System.getProperty("java.class.path"),
+              WebCrawlerMain.class.getName(),
+              configPath.toString())
+              .redirectErrorStream(true)
+              .redirectOutput(tempDir.resolve("shard-" + shard + ".log").toFile())
+              .start());
+    }
+    for (int shard = 0; shard < SHARD_COUNT; shard++) {
+      Process process = processes.get(shard);
+      assertWithMessage("Shard %s did not finish", shard)
+          .that(process.waitFor(2, TimeUnit.MINUTES))
+          .isTrue();
+      assertWithMessage("Shard %s failed; see shard-%s.log", shard, shard)
+          .that(process.exitValue())
+          .isEqualTo(0);
+    }
+
+    Map<String, Object> result =
+        mapper.readValue(resultPath.toFile(), new TypeReference<Map<String, Object>>() {});
+    Set<Integer> reachable = reachableFrom(0);
+    Map<String, Integer> expectedCounts = new HashMap<>();
+    for (int page : reachable) {
+      site.wordCounts(page)
+          .forEach((word, count) -> expectedCounts.merge(word, count, Integer::sum));
+    }
+    assertWithMessage("Every reachable page should be visited by exactly one shard")
+        .that(result.get("urlsVisited"))
+        .isEqualTo(reachable.size());
+    assertThat(((Map<?, ?>) result.get("wordCounts")).entrySet())
+        .containsExactlyElementsIn(WordCounts.sort(expectedCounts, 20).entrySet())
+        .inOrder();
+  }
+
+  private Set<Integer> reachableFrom(int start) {
+    Set<Integer> visited = new HashSet<>();
+    Deque<Integer> frontier = new ArrayDeque<>();
+    frontier.add(start);
+    visited.add(start);
+    while (!frontier.isEmpty()) {
+      for (int link : site.links(frontier.remove())) {
+        if (visited.add(link)) {
+          frontier.add(link);
+        }
+      }
+    }
+    return visited;
+  }
+}
@@ -0,0 +1,90 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class StripedPriorityQueueTest {
+
+  @Test
+  public void singleStripeIsExact() {
+    StripedPriorityQueue<Integer> queue =
+        new StripedPriorityQueue<>(1, Comparator.naturalOrder());
+    for (int value : List.of(5, 3, 9, 1, 7)) {
+      queue.offer(value);
+    }
+    List<Integer> polled = new ArrayList<>();
+    for (Integer value = queue.poll(); value != null; value = queue.poll()) {
+      polled.add(value);
+    }
+    assertThat(polled).containsExactly(1, 3, 5, 7, 9).inOrder();
+    assertThat(queue.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void stripedPollsStillReturnOneOfTheBest() {
+    StripedPriorityQueue<Integer> queue =
+        new StripedPriorityQueue<>(4, Comparator.naturalOrder());
+    for (int value = 0; value < 1000; value++) {
+      queue.offer(value);
+    }
+    int first = queue.poll();
+    assertWithMessage("The first poll should take the head of one of the stripes")
+        .that(first)
+        .isLessThan(100);
+  }
+
+  @Test
+  public void concurrentOffersAndPollsLoseNothing() throws Exception {
+    StripedPriorityQueue<Integer> queue =
+        new StripedPriorityQueue<>(8, Comparator.naturalOrder());
+    int threadCount = 4;
+    int perThread = 5000;
+    ConcurrentLinkedQueue<Integer> polled = new ConcurrentLinkedQueue<>();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      int offset = t * perThread;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < perThread; i++) {
+          queue.offer(offset + i);
+          if (i % 2 == 1) {
+            // A poll can come back empty while other threads add elements; they stay queued.
+            Integer value = queue.poll();
+            if (value != null) {
+              polled.add(value);
+            }
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (Integer value = queue.poll(); value != null; value = queue.poll()) {
+      polled.add(value);
+    }
+
+    assertThat(polled.stream().sorted().collect(Collectors.toList()))
+        .containsExactlyElementsIn(
+            IntStream.range(0, threadCount * perThread).boxed().collect(Collectors.toList()))
+        .inOrder();
+  }
+}
@@ -0,0 +1,542 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.archive.ArchiveUrls;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.synthetic.FanOutDistribution;
+import com.udacity.webcrawler.synthetic.SyntheticSite;
+import com.udacity.webcrawler.synthetic.SyntheticSiteServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/**
+ * Crawls a generated {@link SyntheticSite} and checks the result against the word counts the site
+ * says each page contains.
+ */
+public final class SyntheticSiteCrawlTest {
+  @Inject
+  private WebCrawler crawler;
+
+  private final SyntheticSite site =
+      new SyntheticSite.Builder()
+          .setSeed(7)
+          .setPageCount(300)
+          .setWordsPerPage(20, 60)
+          .setMeanFanOut(4)
+          .setFanOutDistribution(FanOutDistribution.POWER_LAW)
+          .setVocabularySize(500)
+          .setDuplicateLinkRate(0.2)
+          .setErrorPageRate(0.05)
+          .build();
+
+  static Stream<Class<?>> provideTestParameters() throws Exception {
+    String[] names = System.getProperty("crawlerImplementations").split("\\s+");
+    List<Class<?>> classes = new ArrayList<>();
+    for (String name : names) {
+      classes.add(Class.forName(name.strip()));
+    }
+    return classes.stream();
+  }
+
+  @Test
+  public void siteIsDeterministic() {
+    SyntheticSite copy =
+        new SyntheticSite.Builder()
+            .setSeed(7)
+            .setPageCount(300)
+            .setWordsPerPage(20, 60)
+            .setMeanFanOut(4)
+            .setFanOutDistribution(FanOutDistribution.POWER_LAW)
+            .setVocabularySize(500)
+            .setDuplicateLinkRate(0.2)
+            .setErrorPageRate(0.05)
+            .build();
+    for (int page = 0; page < site.getPageCount(); page++) {
+      assertThat(copy.render(page)).isEqualTo(site.render(page));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void crawlMatchesGeneratedCounts(Class<?> crawlerClass) throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      CrawlerConfiguration config = configureCrawler(crawlerClass, server);
+      assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+      CrawlResult result = crawler.crawl(config.getStartPages());
+
+      assertMatchesGeneratedCounts(result);
+    }
+  }
+
+  @Test
+  public void batchedCrawlTasksMatchGeneratedCounts() throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      CrawlerConfiguration config =
+          configureCrawler(
+              ParallelWebCrawler.class, server.url(0), builder -> builder.setTaskBatchSize(8));
+
+      assertMatchesGeneratedCounts(crawler.crawl(config.getStartPages()));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void bestFirstCrawlMatchesGeneratedCounts(Class<?> crawlerClass) throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      CrawlerConfiguration config =
+          configureCrawler(
+              crawlerClass, server.url(0), builder -> builder.setCrawlOrder("best-first"));
+
+      assertMatchesGeneratedCounts(crawler.crawl(config.getStartPages()));
+    }
+  }
+
+  @Test
+  public void bestFirstCrawlVisitsShallowPagesFirst() throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      Map<String, Integer> distances = new HashMap<>();
+      distancesFrom(0).forEach((page, distance) -> distances.put(server.url(page), distance));
+
+      int depthFirst = sumOfFirstPageDistances(server, "depth-first", distances);
+      int bestFirst = sumOfFirstPageDistances(server, "best-first", distances);
+
+      assertWithMessage("A crawl stopped early should have covered shallower pages best-first")
+          .that(bestFirst)
+          .isLessThan(depthFirst);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void nearDuplicatePagesAreCountedOnce(Class<?> crawlerClass) throws Exception {
+    SyntheticSite mirrored =
+        new SyntheticSite.Builder()
+            .setSeed(7)
+            .setPageCount(300)
+            .setWordsPerPage(20, 60)
+            .setMeanFanOut(4)
+            .setFanOutDistribution(FanOutDistribution.POWER_LAW)
+            .setVocabularySize(500)
+            .setErrorPageRate(0.05)
+            .setDuplicatePageRate(0.2)
+            .build();
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(mirrored)) {
+      CrawlerConfiguration config =
+          configureCrawler(
+              crawlerClass,
+              server.url(0),
+              builder -> builder.setMaxDepth(mirrored.getPageCount()).setNearDuplicateDistance(3));
+
+      CrawlResult result = crawler.crawl(config.getStartPages());
+
+      // Only the first page visited of each original and its copies is counted.
+      Set<Integer> reachable = distancesFrom(mirrored, 0).keySet();
+      Map<Integer, Map<String, Integer>> countedPages = new HashMap<>();
+      int pagesWithWords = 0;
+      for (int page : reachable) {
+        Map<String, Integer> pageCounts = mirrored.wordCounts(page);
+        if (!pageCounts.isEmpty()) {
+          pagesWithWords++;
+          int original = mirrored.duplicateOf(page);
+          countedPages.put(original < 0 ? page : original, pageCounts);
+        }
+      }
+      Map<String, Integer> expectedCounts = new HashMap<>();
+      for (Map<String, Integer> pageCounts : countedPages.values()) {
+        pageCounts.forEach((word, count) -> expectedCounts.merge(word, count, Integer::sum));
+      }
+      assertWithMessage("The site should have reachable copies for this test to mean anything")
+          .that(countedPages.size())
+          .isLessThan(pagesWithWords);
+      assertWithMessage("Copies should still be visited")
+          .that(result.getUrlsVisited())
+          .isEqualTo(reachable.size());
+      assertWithMessage("Every copy after the first should be skipped")
+          .that(result.getDuplicatesSkipped())
+          .isEqualTo(pagesWithWords - countedPages.size());
+      assertWithMessage("Returned the wrong words or counts")
+          .that(result.getWordCounts())
+          .containsExactlyEntriesIn(WordCounts.sort(expectedCounts, 20))
+          .inOrder();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void listenerSeesEveryPageAsItIsCrawled(Class<?> crawlerClass) throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      CrawlerConfiguration config = configureCrawler(crawlerClass, server);
+
+      Map<String, Integer> summedDeltas = new ConcurrentHashMap<>();
+      Map<String, Integer> depths = new ConcurrentHashMap<>();
+      ConcurrentLinkedQueue<CrawlResult> snapshots = new ConcurrentLinkedQueue<>();
+      CrawlResult result =
+          crawler.crawl(
+              config.getStartPages(),
+              new CrawlListener() {
+                @Override
+                public void onPage(PageVisit page) {
+                  depths.put(page.getUrl(), page.getDepth());
+                  page.getWordCounts()
+                      .forEach((word, count) -> summedDeltas.merge(word, count, Integer::sum));
+                }
+
+                @Override
+                public void onSnapshot(CrawlResult snapshot) {
+                  snapshots.add(snapshot);
+                }
+
+                @Override
+                public Duration getSnapshotInterval() {
+                  return Duration.ofNanos(1);
+                }
+              });
+
+      assertWithMessage("Every visited page should be reported once")
+          .that(depths)
+          .hasSize(result.getUrlsVisited());
+      assertThat(depths).containsEntry(server.url(0), 0);
+      assertWithMessage("The page deltas should add up to the final counts")
+          .that(result.getWordCounts())
+          .containsExactlyEntriesIn(WordCounts.sort(summedDeltas, 20))
+          .inOrder();
+      assertThat(snapshots).isNotEmpty();
+      for (CrawlResult snapshot : snapshots) {
+        assertThat(snapshot.getWordCounts().size()).isAtMost(20);
+        assertThat(snapshot.getUrlsVisited()).isAtMost(result.getUrlsVisited());
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void listenerCanStopCrawlEarly(Class<?> crawlerClass) throws Exception {
+    try (SyntheticSiteServer server = SyntheticSiteServer.start(site)) {
+      CrawlerConfiguration config = configureCrawler(crawlerClass, server);
+
+      AtomicInteger pages = new AtomicInteger();
+      CrawlResult result =
+          crawler.crawl(
+              config.getStartPages(),
+              new CrawlListener() {
+                @Override
+                public void onPage(PageVisit page) {
+                  pages.incrementAndGet();
+                }
+
+                @Override
+                public boolean isDone() {
+                  return pages.get() >= 10;
+                }
+              });
+
+      assertWithMessage("Pages already in flight may finish, but no new ones should start")
+          .that(result.getUrlsVisited())
+          .isLessThan(10 + config.getParallelism());
+    }
+  }
+
+  @Test
+  public void directoryCrawlVisitsEveryHtmlFile(@TempDir Path dir) throws Exception {
+    site.writeTo(dir.resolve("site"));
+    Path nested = Files.createDirectories(dir.resolve("site").resolve("nested").resolve("deeper"));
+    Files.writeString(nested.resolve("Extra Page.HTM"), "<p>Nested extra</p>");
+    Files.writeString(nested.getParent().resolve("notes.txt"), "<p>Not a page</p>");
+    configureDirectoryCrawl(dir, false, 1);
+
+    CrawlResult result = crawler.crawl(List.of(dir.toUri().toString()));
+
+    Map<String, Integer> expectedCounts = new HashMap<>(Map.of("nested", 1, "extra", 1, "page", 1));
+    int pages = 1 + addPagesWithoutErrors(expectedCounts);
+    assertWithMessage("Every HTML file should be visited, whether linked or not")
+        .that(result.getUrlsVisited())
+        .isEqualTo(pages);
+    assertWithMessage("Returned the wrong words or counts")
+        .that(result.getWordCounts())
+        .containsExactlyEntriesIn(WordCounts.sort(expectedCounts, 20))
+        .inOrder();
+  }
+
+  @Test
+  public void directoryCrawlFollowsLinksOnlyIfAsked(@TempDir Path dir) throws Exception {
+    site.writeTo(dir.resolve("site"));
+    Path walked = Files.createDirectories(dir.resolve("walked"));
+    Files.writeString(walked.resolve("start.html"), "<a href=\"../site/page-0.html\">start</a>");
+
+    configureDirectoryCrawl(walked, false, site.getPageCount());
+    CrawlResult withoutLinks = crawler.crawl(List.of(walked.toUri().toString()));
+
+    assertThat(withoutLinks.getUrlsVisited()).isEqualTo(1);
+    assertThat(withoutLinks.getWordCounts()).containsExactly("start", 1);
+
+    configureDirectoryCrawl(walked, true, site.getPageCount());
+    CrawlResult withLinks = crawler.crawl(List.of(walked.toUri().toString()));
+
+    Set<Integer> reachable = reachableFrom(0);
+    Map<String, Integer> expectedCounts = new HashMap<>(Map.of("start", 1));
+    for (int page : reachable) {
+      site.wordCounts(page)
+          .forEach((word, count) -> expectedCounts.merge(word, count, Integer::sum));
+    }
+    assertThat(withLinks.getUrlsVisited()).isEqualTo(reachable.size() + 1);
+    assertThat(withLinks.getWordCounts())
+        .containsExactlyEntriesIn(WordCounts.sort(expectedCounts, 20))
+        .inOrder();
+  }
+
+  @Test
+  public void directoryCrawlReadsPagesInsideArchives(@TempDir Path dir) throws Exception {
+    Path zipDir = Files.createDirectories(dir.resolve("zip"));
+    Path tarDir = Files.createDirectories(dir.resolve("tar"));
+    writeZip(zipDir.resolve("site.zip"));
+    writeTarGz(tarDir.resolve("site.tar.gz"));
+    Map<String, Integer> expectedCounts = new HashMap<>();
+    int pages = addPagesWithoutErrors(expectedCounts);
+
+    for (Path archiveDir : List.of(zipDir, tarDir)) {
+      configureDirectoryCrawl(archiveDir, false, 1);
+      CrawlResult result = crawler.crawl(List.of(archiveDir.toUri().toString()));
+
+      assertWithMessage("Every page in %s should be visited", archiveDir.getFileName())
+          .that(result.getUrlsVisited())
+          .isEqualTo(pages);
+      assertWithMessage("Returned the wrong words or counts for %s", archiveDir.getFileName())
+          .that(result.getWordCounts())
+          .containsExactlyEntriesIn(WordCounts.sort(expectedCounts, 20))
+          .inOrder();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void linksBetweenZipEntriesAreFollowed(Class<?> crawlerClass, @TempDir Path dir)
+      throws Exception {
+    Path archive = dir.resolve("site.zip");
+    writeZip(archive);
+    CrawlerConfiguration config =
+        configureCrawler(
+            crawlerClass,
+            ArchiveUrls.entryUrl(archive, "site/" + SyntheticSite.pageName(0)),
+            builder -> {});
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertMatchesGeneratedCounts(result);
+  }
+
+  /**
+   * Crawls the site in the given order, stops after 40 pages, and returns the sum of the distances
+   * of those pages from the start page.
+   */
+  private int sumOfFirstPageDistances(
+      SyntheticSiteServer server, String crawlOrder, Map<String, Integer> distances) {
+    CrawlerConfiguration config =
+        configureCrawler(
+            SequentialWebCrawler.class, server.url(0), builder -> builder.setCrawlOrder(crawlOrder));
+
+    AtomicInteger pages = new AtomicInteger();
+    AtomicInteger distanceSum = new AtomicInteger();
+    crawler.crawl(
+        config.getStartPages(),
+        new CrawlListener() {
+          @Override
+          public void onPage(PageVisit page) {
+            pages.incrementAndGet();
+            distanceSum.addAndGet(distances.get(page.getUrl()));
+          }
+
+          @Override
+          public boolean isDone() {
+            return pages.get() >= 40;
+          }
+        });
+    return distanceSum.get();
+  }
+
+  private CrawlerConfiguration configureCrawler(
+      Class<?> crawlerClass, SyntheticSiteServer server) {
+    return configureCrawler(crawlerClass, server.url(0), builder -> {});
+  }
+
+  /**
+   * Builds the configuration this test crawls with, changed by the given customizer, and injects
+   * a crawler made from it.
+   */
+  private CrawlerConfiguration configureCrawler(
+      Class<?> crawlerClass,
+      String startPage,
+      Consumer<CrawlerConfiguration.Builder> customizer) {
+    CrawlerConfiguration.Builder builder =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setParallelism(4)
+            .setMaxDepth(site.getPageCount())
+            .setTimeoutSeconds(60)
+            .setPopularWordCount(20)
+            .addStartPages(startPage);
+    customizer.accept(builder);
+    CrawlerConfiguration config = builder.build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    return config;
+  }
+
+  /**
+   * Writes the pages of the site to a ZIP archive, inside a {@code site/} directory.
+   */
+  private void writeZip(Path archive) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      for (int page = 0; page < site.getPageCount(); page++) {
+        if (!site.isErrorPage(page)) {
+          out.putNextEntry(new ZipEntry("site/" + SyntheticSite.pageName(page)));
+          out.write(site.render(page).getBytes(StandardCharsets.UTF_8));
+          out.closeEntry();
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the pages of the site to a gzip-compressed ustar archive, inside a {@code site/}
+   * directory.
+   */
+  private void writeTarGz(Path archive) throws IOException {
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+      for (int page = 0; page < site.getPageCount(); page++) {
+        if (!site.isErrorPage(page)) {
+          byte[] content = site.render(page).getBytes(StandardCharsets.UTF_8);
+          out.write(tarHeader("site/" + SyntheticSite.pageName(page), content.length));
+          out.write(content);
+          out.write(new byte[(512 - content.length % 512) % 512]);
+        }
+      }
+      out.write(new byte[1024]);
+    }
+  }
+
+  private static byte[] tarHeader(String name, int size) {
+    byte[] header = new byte[512];
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+    putOctal(header, 100, 8, 0644);
+    putOctal(header, 124, 12, size);
+    header[156] = '0';
+    System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+    Arrays.fill(header, 148, 156, (byte) ' ');
+    int checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    putOctal(header, 148, 7, checksum);
+    return header;
+  }
+
+  private static void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = String.format("%0" + (length - 1) + "o", value);
+    System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+  }
+
+  private void configureDirectoryCrawl(Path directory, boolean followLinks, int maxDepth) {
+    // Directory crawls always use the parallel crawler.
+    configureCrawler(
+        ParallelWebCrawler.class,
+        directory.toUri().toString(),
+        builder ->
+            builder
+                .setDirectoryCrawl(true)
+                .setFollowDirectoryLinks(followLinks)
+                .setTaskBatchSize(8)
+                .setMaxDepth(maxDepth));
+  }
+
+  /**
+   * Adds the word counts of every page of the site that is not an error page, and returns how
+   * many such pages there are.
+   */
+  private int addPagesWithoutErrors(Map<String, Integer> counts) {
+    int pages = 0;
+    for (int page = 0; page < site.getPageCount(); page++) {
+      if (!site.isErrorPage(page)) {
+        pages++;
+        site.wordCounts(page).forEach((word, count) -> counts.merge(word, count, Integer::sum));
+      }
+    }
+    return pages;
+  }
+
+  private void assertMatchesGeneratedCounts(CrawlResult result) {
+    Set<Integer> reachable = reachableFrom(0);
+    Map<String, Integer> expectedCounts = new HashMap<>();
+    for (int page : reachable) {
+      site.wordCounts(page)
+          .forEach((word, count) -> expectedCounts.merge(word, count, Integer::sum));
+    }
+    assertWithMessage("Every page reachable from the start page should be visited exactly once")
+        .that(result.getUrlsVisited())
+        .isEqualTo(reachable.size());
+    assertWithMessage("Returned the wrong words or counts")
+        .that(result.getWordCounts())
+        .containsExactlyEntriesIn(WordCounts.sort(expectedCounts, 20))
+        .inOrder();
+    assertThat(result.getDuplicatesSkipped()).isEqualTo(0);
+  }
+
+  private Set<Integer> reachableFrom(int start) {
+    return distancesFrom(start).keySet();
+  }
+
+  /**
+   * Returns the fewest links needed to reach each page reachable from the given one.
+   */
+  private Map<Integer, Integer> distancesFrom(int start) {
+    return distancesFrom(site, start);
+  }
+
+  private static Map<Integer, Integer> distancesFrom(SyntheticSite site, int start) {
+    Map<Integer, Integer> distances = new HashMap<>();
+    Deque<Integer> frontier = new ArrayDeque<>();
+    frontier.add(start);
+    distances.put(start, 0);
+    while (!frontier.isEmpty()) {
+      int page = frontier.remove();
+      for (int link : site.links(page)) {
+        if (!distances.containsKey(link)) {
+          distances.put(link, distances.get(page) + 1);
+          frontier.add(link);
+        }
+      }
+    }
+    return distances;
+  }
+}
@@ -0,0 +1,156 @@
+package com.udacity.webcrawler.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class TarReaderTest {
+
+  private static final Path ARCHIVE = Path.of("/archives/site.tar").toAbsolutePath();
+
+  private final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+
+  @Test
+  public void htmlEntriesAreReadAndOthersSkipped() throws Exception {
+    addEntry(header("site/", 0, '5'), new byte[0]);
+    addEntry(header("./site/index.html", 5, '0'), bytes("index"));
+    addEntry(header("site/logo.png", 600, '0'), new byte[600]);
+    addEntry(header("/site/old.HTM", 3, (char) 0), bytes("old"));
+    addEntry(header("site/link.html", 0, '2'), new byte[0]);
+    tar.write(new byte[1024]);
+
+    assertThat(readAll())
+        .containsExactly(
+            entryUrl("site/index.html") + " index", entryUrl("site/old.HTM") + " old")
+        .inOrder();
+  }
+
+  @Test
+  public void ustarPrefixesArePartOfTheName() throws Exception {
+    byte[] header = header("page.html", 4, '0');
+    put(header, 345, "deep/site");
+    addEntry(header, bytes("deep"));
+
+    assertThat(readAll()).containsExactly(entryUrl("deep/site/page.html") + " deep");
+  }
+
+  @Test
+  public void gnuLongNamesNameTheNextEntry() throws Exception {
+    String longName = "site/" + "a".repeat(150) + ".html";
+    byte[] nameRecord = bytes(longName + "\0");
+    addEntry(header("././@LongLink", nameRecord.length, 'L'), nameRecord);
+    addEntry(header(longName.substring(0, 99), 4, '0'), bytes("long"));
+    addEntry(header("site/short.html", 5, '0'), bytes("short"));
+
+    assertThat(readAll())
+        .containsExactly(entryUrl(longName) + " long", entryUrl("site/short.html") + " short")
+        .inOrder();
+  }
+
+  @Test
+  public void paxPathsNameTheNextEntry() throws Exception {
+    String path = "site/" + "b".repeat(120) + ".html";
+    byte[] records = bytes(paxRecord("mtime=1700000000.5") + paxRecord("path=" + path));
+    addEntry(header("PaxHeaders/x", records.length, 'x'), records);
+    addEntry(header("truncated-name", 3, '0'), bytes("pax"));
+
+    assertThat(readAll()).containsExactly(entryUrl(path) + " pax");
+  }
+
+  @Test
+  public void base256SizesAreRead() throws Exception {
+    byte[] header = header("site/big.html", 0, '0');
+    // A size of 0x0203 = 515 bytes, in the binary form GNU tar uses for 8 GiB and up.
+    Arrays.fill(header, 124, 136, (byte) 0);
+    header[124] = (byte) 0x80;
+    header[134] = 0x02;
+    header[135] = 0x03;
+    byte[] content = bytes("x".repeat(515));
+    addEntry(header, content);
+    addEntry(header("site/after.html", 5, '0'), bytes("after"));
+
+    List<String> entries = readAll();
+
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0)).isEqualTo(entryUrl("site/big.html") + " " + "x".repeat(515));
+    assertThat(entries.get(1)).isEqualTo(entryUrl("site/after.html") + " after");
+  }
+
+  @Test
+  public void truncatedEntryFails() throws Exception {
+    tar.write(header("site/cut.html", 100, '0'));
+    tar.write(bytes("only part"));
+
+    assertThrows(EOFException.class, this::readAll);
+  }
+
+  @Test
+  public void sizeThatIsNotOctalFails() throws Exception {
+    byte[] header = header("site/page.html", 0, '0');
+    put(header, 124, "00000000019");
+    tar.write(header);
+
+    assertThrows(IOException.class, this::readAll);
+  }
+
+  private List<String> readAll() throws IOException {
+    List<String> entries = new ArrayList<>();
+    try (TarReader reader = new TarReader(ARCHIVE, new ByteArrayInputStream(tar.toByteArray()))) {
+      for (ArchiveEntry entry = reader.next(); entry != null; entry = reader.next()) {
+        entries.add(entry.getUrl() + " " + new String(entry.getContent(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private void addEntry(byte[] header, byte[] content) throws IOException {
+    tar.write(header);
+    tar.write(content);
+    tar.write(new byte[(512 - content.length % 512) % 512]);
+  }
+
+  private static byte[] header(String name, int size, char type) {
+    byte[] header = new byte[512];
+    put(header, 0, name);
+    put(header, 124, String.format("%011o", size));
+    header[156] = (byte) type;
+    put(header, 257, "ustar");
+    put(header, 263, "00");
+    return header;
+  }
+
+  /**
+   * Returns a pax record, whose length counts the digits of the length itself.
+   */
+  private static String paxRecord(String keyValue) {
+    int length = keyValue.length() + 2;
+    while (String.valueOf(length).length() + keyValue.length() + 2 > length) {
+      length++;
+    }
+    return length + " " + keyValue + "\n";
+  }
+
+  private static void put(byte[] header, int offset, String value) {
+    byte[] bytes = bytes(value);
+    System.arraycopy(bytes, 0, header, offset, bytes.length);
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String entryUrl(String name) {
+    return ArchiveUrls.entryUrl(ARCHIVE, name);
+  }
+}
@@ -0,0 +1,215 @@
+package com.udacity.webcrawler.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class WarcReaderTest {
+
+  private static final String HTML = "Content-Type: text/html; charset=utf-8\r\n";
+
+  private final ByteArrayOutputStream warc = new ByteArrayOutputStream();
+
+  @Test
+  public void successfulHtmlResponsesBecomePages() throws Exception {
+    addRecord("warcinfo", "", "application/warc-fields", bytes("software: test\r\n"));
+    addRecord(
+        "request",
+        "http://example.com/",
+        "application/http; msgtype=request",
+        bytes("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n"));
+    addResponse("http://example.com/", "HTTP/1.1 200 OK", HTML, bytes("<p>home</p>"));
+    addRecord("metadata", "http://example.com/", "application/warc-fields", bytes("a: b\r\n"));
+    addResponse(
+        "https://example.com/feed",
+        "HTTP/1.0 203 Non-Authoritative",
+        "Content-Type: application/rss+xml\r\n",
+        bytes("<rss/>"));
+
+    assertThat(readAll())
+        .containsExactly("http://example.com/ <p>home</p>", "https://example.com/feed <rss/>")
+        .inOrder();
+  }
+
+  @Test
+  public void failedAndNonTextResponsesAreSkipped() throws Exception {
+    addResponse("http://example.com/missing", "HTTP/1.1 404 Not Found", HTML, bytes("gone"));
+    addResponse("http://example.com/moved", "HTTP/1.1 301 Moved", HTML, bytes("moved"));
+    addResponse(
+        "http://example.com/logo.png",
+        "HTTP/1.1 200 OK",
+        "Content-Type: image/png\r\n",
+        new byte[16]);
+    addResponse("dns:example.com", "HTTP/1.1 200 OK", HTML, bytes("dns"));
+    addResponse("http://example.com/untyped", "HTTP/1.1 200 OK", "", bytes("untyped"));
+
+    assertThat(readAll()).containsExactly("http://example.com/untyped untyped");
+  }
+
+  @Test
+  public void transferAndContentEncodingsAreUndone() throws Exception {
+    byte[] page = bytes("<p>" + "encoded ".repeat(100) + "</p>");
+    addResponse(
+        "http://example.com/chunked",
+        "HTTP/1.1 200 OK",
+        HTML + "Transfer-Encoding: chunked\r\n",
+        bytes("a;name=value\r\n<p>chunked\r\n5\r\n</p> \r\n0\r\n\r\n"));
+    addResponse(
+        "http://example.com/gzip",
+        "HTTP/1.1 200 OK",
+        HTML + "Content-Encoding: gzip\r\n",
+        gzip(page));
+    addResponse(
+        "http://example.com/deflate",
+        "HTTP/1.1 200 OK",
+        HTML + "Content-Encoding: deflate\r\n",
+        deflate(page));
+    byte[] gzipped = gzip(page);
+    ByteArrayOutputStream chunkedGzip = new ByteArrayOutputStream();
+    chunkedGzip.write(bytes(Integer.toHexString(gzipped.length) + "\r\n"));
+    chunkedGzip.write(gzipped);
+    chunkedGzip.write(bytes("\r\n0\r\n\r\n"));
+    addResponse(
+        "http://example.com/both",
+        "HTTP/1.1 200 OK",
+        HTML + "Transfer-Encoding: chunked\r\nContent-Encoding: gzip\r\n",
+        chunkedGzip.toByteArray());
+    addResponse(
+        "http://example.com/brotli",
+        "HTTP/1.1 200 OK",
+        HTML + "Content-Encoding: br\r\n",
+        bytes("not brotli"));
+
+    String expected = new String(page, StandardCharsets.UTF_8);
+    assertThat(readAll())
+        .containsExactly(
+            "http://example.com/chunked <p>chunked</p> ",
+            "http://example.com/gzip " + expected,
+            "http://example.com/deflate " + expected,
+            "http://example.com/both " + expected)
+        .inOrder();
+  }
+
+  @Test
+  public void damagedResponseIsSkippedButTheArchiveGoesOn() throws Exception {
+    addResponse(
+        "http://example.com/bad",
+        "HTTP/1.1 200 OK",
+        HTML + "Content-Encoding: gzip\r\n",
+        bytes("not gzip"));
+    addResponse("http://example.com/good", "HTTP/1.1 200 OK", HTML, bytes("good"));
+
+    assertThat(readAll()).containsExactly("http://example.com/good good");
+  }
+
+  @Test
+  public void angleBracketsAroundTheTargetUriAreDropped() throws Exception {
+    addResponse("<http://example.com/old>", "HTTP/1.1 200 OK", HTML, bytes("old"));
+
+    assertThat(readAll()).containsExactly("http://example.com/old old");
+  }
+
+  @Test
+  public void truncatedRecordFails() throws Exception {
+    warc.write(
+        bytes(
+            "WARC/1.0\r\nWARC-Type: response\r\nWARC-Target-URI: http://example.com/\r\n"
+                + "Content-Type: application/http; msgtype=response\r\n"
+                + "Content-Length: 1000\r\n\r\nHTTP/1.1 200 OK\r\n"));
+
+    assertThrows(EOFException.class, this::readAll);
+  }
+
+  @Test
+  public void recordsWithoutAVersionOrLengthFail() throws Exception {
+    warc.write(bytes("<html>not a WARC file</html>\r\n"));
+    assertThrows(IOException.class, this::readAll);
+
+    warc.reset();
+    warc.write(bytes("WARC/1.0\r\nWARC-Type: response\r\n\r\n"));
+    assertThrows(IOException.class, this::readAll);
+  }
+
+  @Test
+  public void compressedArchivesAreOpenedByTheirExtension(@TempDir Path dir) throws Exception {
+    addResponse("http://example.com/", "HTTP/1.1 200 OK", HTML, bytes("compressed"));
+    Path archive = dir.resolve("crawl.warc.gz");
+    Files.write(archive, gzip(warc.toByteArray()));
+
+    List<String> pages = new ArrayList<>();
+    try (ArchiveReader reader = ArchiveFormat.forFileName("crawl.warc.gz").open(archive)) {
+      for (ArchiveEntry entry = reader.next(); entry != null; entry = reader.next()) {
+        pages.add(entry.getUrl() + " " + new String(entry.getContent(), StandardCharsets.UTF_8));
+      }
+    }
+
+    assertThat(pages).containsExactly("http://example.com/ compressed");
+  }
+
+  private List<String> readAll() throws IOException {
+    List<String> pages = new ArrayList<>();
+    try (WarcReader reader = new WarcReader(new ByteArrayInputStream(warc.toByteArray()))) {
+      for (ArchiveEntry entry = reader.next(); entry != null; entry = reader.next()) {
+        pages.add(entry.getUrl() + " " + new String(entry.getContent(), StandardCharsets.UTF_8));
+      }
+    }
+    return pages;
+  }
+
+  private void addResponse(String targetUri, String statusLine, String headers, byte[] body)
+      throws IOException {
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    block.write(bytes(statusLine + "\r\n" + headers + "\r\n"));
+    block.write(body);
+    addRecord("response", targetUri, "application/http; msgtype=response", block.toByteArray());
+  }
+
+  private void addRecord(String type, String targetUri, String contentType, byte[] block)
+      throws IOException {
+    warc.write(
+        bytes(
+            "WARC/1.0\r\n"
+                + "WARC-Type: " + type + "\r\n"
+                + (targetUri.isEmpty() ? "" : "WARC-Target-URI: " + targetUri + "\r\n")
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Length: " + block.length + "\r\n"
+                + "\r\n"));
+    warc.write(block);
+    warc.write(bytes("\r\n\r\n"));
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] content) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream deflate = new DeflaterOutputStream(out)) {
+      deflate.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,128 @@
+package com.udacity.webcrawler.fetch;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class DnsCacheTest {
+
+  private final FakeClock clock = new FakeClock();
+  private final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+
+  /**
+   * Resolves every host except those under {@code .invalid} to a loopback address, and counts the
+   * lookups of each host.
+   */
+  private final HostResolver resolver =
+      host -> {
+        lookups.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+        if (host.endsWith(".invalid")) {
+          throw new UnknownHostException(host);
+        }
+        return List.of(InetAddress.getByAddress(host, new byte[] {127, 0, 0, 1}));
+      };
+
+  @Test
+  public void answersAreCachedForTheirTimeToLive() throws Exception {
+    DnsCache cache = new DnsCache(resolver, clock, Duration.ofSeconds(30), Duration.ZERO, 0);
+
+    assertThat(cache.resolve("example.com").get(0).getHostName()).isEqualTo("example.com");
+    cache.resolve("EXAMPLE.com");
+    clock.tick(Duration.ofSeconds(29));
+    cache.resolve("example.com");
+    assertThat(lookups.get("example.com").get()).isEqualTo(1);
+
+    clock.tick(Duration.ofSeconds(1));
+    cache.resolve("example.com");
+    assertThat(lookups.get("example.com").get()).isEqualTo(2);
+  }
+
+  @Test
+  public void failuresAreCachedForTheNegativeTimeToLive() {
+    DnsCache cache =
+        new DnsCache(resolver, clock, Duration.ofSeconds(30), Duration.ofSeconds(10), 0);
+
+    assertThrows(UnknownHostException.class, () -> cache.resolve("dead.invalid"));
+    clock.tick(Duration.ofSeconds(9));
+    assertThrows(UnknownHostException.class, () -> cache.resolve("dead.invalid"));
+    assertThat(lookups.get("dead.invalid").get()).isEqualTo(1);
+
+    clock.tick(Duration.ofSeconds(1));
+    assertThrows(UnknownHostException.class, () -> cache.resolve("dead.invalid"));
+    assertThat(lookups.get("dead.invalid").get()).isEqualTo(2);
+  }
+
+  @Test
+  public void expiredEntriesAreDroppedAsNewHostsAreAdded() throws Exception {
+    DnsCache cache = new DnsCache(resolver, clock, Duration.ofSeconds(30), Duration.ZERO, 0);
+
+    for (int i = 1; i < DnsCache.SWEEP_INTERVAL; i++) {
+      cache.resolve("host-" + i + ".example.com");
+    }
+    assertThat(cache.size()).isEqualTo(DnsCache.SWEEP_INTERVAL - 1);
+
+    clock.tick(Duration.ofSeconds(30));
+    cache.resolve("last.example.com");
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void disabledCacheKeepsNothing() throws Exception {
+    assertThat(DnsCache.DISABLED.isEnabled()).isFalse();
+    DnsCache.DISABLED.resolve("localhost");
+    DnsCache.DISABLED.prefetch("http://localhost/");
+    assertThat(DnsCache.DISABLED.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void linksArePrefetchedOncePerHost() throws Exception {
+    CountDownLatch resolved = new CountDownLatch(2);
+    HostResolver counting =
+        host -> {
+          try {
+            return resolver.resolve(host);
+          } finally {
+            resolved.countDown();
+          }
+        };
+    DnsCache cache = new DnsCache(counting, clock, Duration.ofSeconds(30), Duration.ZERO, 2);
+    try {
+      cache.prefetch("http://a.example.com/page-1.html");
+      cache.prefetch("https://user@A.example.com:8443/page-2.html?x=1");
+      cache.prefetch("http://b.example.com");
+      cache.prefetch("file:///data/page.html");
+      cache.prefetch("mailto:someone@example.com");
+      assertThat(resolved.await(10, TimeUnit.SECONDS)).isTrue();
+
+      cache.resolve("a.example.com");
+      cache.resolve("b.example.com");
+      assertThat(lookups.keySet()).containsExactly("a.example.com", "b.example.com");
+      assertThat(lookups.get("a.example.com").get()).isEqualTo(1);
+      assertThat(lookups.get("b.example.com").get()).isEqualTo(1);
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void hostsAreFoundWithoutParsingTheUrl() {
+    assertThat(DnsCache.hostOf("http://Example.com")).isEqualTo("example.com");
+    assertThat(DnsCache.hostOf("https://example.com:8080/a@b?c#d")).isEqualTo("example.com");
+    assertThat(DnsCache.hostOf("http://user:pw@example.com/")).isEqualTo("example.com");
+    assertThat(DnsCache.hostOf("http://[::1]:8080/")).isNull();
+    assertThat(DnsCache.hostOf("http:///path")).isNull();
+    assertThat(DnsCache.hostOf("ftp://example.com/")).isNull();
+  }
+}
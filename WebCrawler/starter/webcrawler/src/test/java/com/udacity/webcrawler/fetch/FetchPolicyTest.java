@@ -0,0 +1,286 @@
+package com.udacity.webcrawler.fetch;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class FetchPolicyTest {
+
+  private static final String URL = "http://example.com/";
+
+  private final FakeClock clock = new FakeClock();
+  private final List<String> reported = new ArrayList<>();
+
+  private FetchPolicy.Builder policy() {
+    return new FetchPolicy.Builder()
+        .setClock(clock)
+        .setRetryBaseDelay(Duration.ofMillis(1))
+        .setListener((url, outcome, attempts) -> reported.add(outcome + " " + attempts));
+  }
+
+  private Instant farDeadline() {
+    return clock.instant().plus(Duration.ofHours(1));
+  }
+
+  @Test
+  public void outcomesAreClassified() {
+    assertThat(FetchOutcome.of(new HttpStatusException("", 404, URL)))
+        .isEqualTo(FetchOutcome.CLIENT_ERROR);
+    assertThat(FetchOutcome.of(new HttpStatusException("", 503, URL)))
+        .isEqualTo(FetchOutcome.UNAVAILABLE);
+    assertThat(FetchOutcome.of(new HttpStatusException("", 500, URL)))
+        .isEqualTo(FetchOutcome.SERVER_ERROR);
+    assertThat(FetchOutcome.of(new SocketTimeoutException())).isEqualTo(FetchOutcome.TIMEOUT);
+    assertThat(FetchOutcome.of(new ConnectException())).isEqualTo(FetchOutcome.CONNECTION_FAILED);
+    assertThat(FetchOutcome.of(new UnknownHostException()))
+        .isEqualTo(FetchOutcome.UNKNOWN_HOST);
+    assertThat(FetchOutcome.of(new PageRejectedException("image/png")))
+        .isEqualTo(FetchOutcome.NOT_A_PAGE);
+    assertThat(FetchOutcome.of(new IOException())).isEqualTo(FetchOutcome.FAILED);
+  }
+
+  @Test
+  public void transientFailuresAreRetried() throws Exception {
+    FetchPolicy fetchPolicy = policy().setMaxRetries(2).build();
+    AtomicInteger calls = new AtomicInteger();
+
+    String page =
+        fetchPolicy.fetch(
+            URL,
+            "example.com",
+            farDeadline(),
+            attempt -> {
+              if (calls.incrementAndGet() < 3) {
+                throw new SocketTimeoutException();
+              }
+              return "page " + attempt;
+            });
+
+    assertThat(page).isEqualTo("page 3");
+    assertThat(reported).containsExactly("OK 3");
+  }
+
+  @Test
+  public void retriesStopAtTheLimit() {
+    FetchPolicy fetchPolicy = policy().setMaxRetries(1).build();
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(
+        ConnectException.class,
+        () ->
+            fetchPolicy.fetch(
+                URL,
+                "example.com",
+                farDeadline(),
+                attempt -> {
+                  calls.incrementAndGet();
+                  throw new ConnectException();
+                }));
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(reported).containsExactly("CONNECTION_FAILED 2");
+  }
+
+  @Test
+  public void permanentFailuresAreNotRetried() {
+    FetchPolicy fetchPolicy = policy().build();
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(
+        HttpStatusException.class,
+        () ->
+            fetchPolicy.fetch(
+                URL,
+                "example.com",
+                farDeadline(),
+                attempt -> {
+                  calls.incrementAndGet();
+                  throw new HttpStatusException("Not found", 404, URL);
+                }));
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(reported).containsExactly("CLIENT_ERROR 1");
+  }
+
+  @Test
+  public void noRetryRunsPastTheDeadline() {
+    FetchPolicy fetchPolicy = policy().setRetryBaseDelay(Duration.ofSeconds(10)).build();
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(
+        SocketTimeoutException.class,
+        () ->
+            fetchPolicy.fetch(
+                URL,
+                "example.com",
+                clock.instant(),
+                attempt -> {
+                  calls.incrementAndGet();
+                  // The attempt used up the time the page had.
+                  clock.tick(Duration.ofSeconds(1));
+                  throw new SocketTimeoutException();
+                }));
+    assertThat(calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void failingHostIsTurnedAwayUntilAProbeSucceeds() throws Exception {
+    FetchPolicy fetchPolicy =
+        policy().setMaxRetries(0).setCircuit(0.5, Duration.ofSeconds(30)).build();
+    for (int i = 0; i < HostHealth.MIN_ATTEMPTS; i++) {
+      assertThrows(
+          HttpStatusException.class,
+          () ->
+              fetchPolicy.fetch(
+                  URL,
+                  "example.com",
+                  farDeadline(),
+                  attempt -> {
+                    throw new HttpStatusException("Server error", 500, URL);
+                  }));
+    }
+    assertThat(fetchPolicy.isOpen("EXAMPLE.com")).isTrue();
+
+    AtomicInteger calls = new AtomicInteger();
+    FetchPolicy.Attempt<String> succeeds = attempt -> "page " + calls.incrementAndGet();
+    assertThrows(
+        CircuitOpenException.class,
+        () -> fetchPolicy.fetch(URL, "example.com", farDeadline(), succeeds));
+    assertThat(calls.get()).isEqualTo(0);
+    assertThat(reported).contains("CIRCUIT_OPEN 0");
+    // Other hosts are not affected.
+    assertThat(fetchPolicy.fetch("http://other.org/", "other.org", farDeadline(), succeeds))
+        .isEqualTo("page 1");
+
+    clock.tick(Duration.ofSeconds(30));
+    assertThat(fetchPolicy.fetch(URL, "example.com", farDeadline(), succeeds))
+        .isEqualTo("page 2");
+    assertThat(fetchPolicy.isOpen("example.com")).isFalse();
+    // The host starts over with a clean history, so one failure does not open it again.
+    assertThrows(
+        HttpStatusException.class,
+        () ->
+            fetchPolicy.fetch(
+                URL,
+                "example.com",
+                farDeadline(),
+                attempt -> {
+                  throw new HttpStatusException("Server error", 500, URL);
+                }));
+    assertThat(fetchPolicy.isOpen("example.com")).isFalse();
+  }
+
+  @Test
+  public void failedProbeOpensTheCircuitAgain() {
+    FetchPolicy fetchPolicy =
+        policy().setMaxRetries(0).setCircuit(1, Duration.ofSeconds(30)).build();
+    FetchPolicy.Attempt<String> fails =
+        attempt -> {
+          throw new UnknownHostException("example.com");
+        };
+    for (int i = 0; i < HostHealth.MIN_ATTEMPTS; i++) {
+      assertThrows(
+          UnknownHostException.class,
+          () -> fetchPolicy.fetch(URL, "example.com", farDeadline(), fails));
+    }
+    assertThat(fetchPolicy.isOpen("example.com")).isTrue();
+
+    clock.tick(Duration.ofSeconds(30));
+    assertThat(fetchPolicy.isOpen("example.com")).isFalse();
+    assertThrows(
+        UnknownHostException.class,
+        () -> fetchPolicy.fetch(URL, "example.com", farDeadline(), fails));
+    assertThat(fetchPolicy.isOpen("example.com")).isTrue();
+  }
+
+  @Test
+  public void attemptIsToldHowLongEachRetryWaits() throws Exception {
+    FetchPolicy fetchPolicy = policy().setRetryBaseDelay(Duration.ofMillis(20)).build();
+    AtomicInteger calls = new AtomicInteger();
+    List<Duration> waits = new ArrayList<>();
+
+    fetchPolicy.fetch(URL, "example.com", farDeadline(), new FetchPolicy.Attempt<String>() {
+      @Override
+      public String run(int attempt) throws IOException {
+        if (calls.incrementAndGet() < 3) {
+          throw new SocketTimeoutException();
+        }
+        return "page";
+      }
+
+      @Override
+      public void retrying(Duration wait) {
+        waits.add(wait);
+      }
+    });
+
+    assertThat(waits).hasSize(2);
+    assertThat(waits.get(0)).isAtMost(Duration.ofMillis(20));
+    assertThat(waits.get(1)).isAtMost(Duration.ofMillis(40));
+  }
+
+  @Test
+  public void hostWaitingToRetryDoesNotHoldUpOtherHosts() throws Exception {
+    FetchPolicy fetchPolicy =
+        policy().setRetryBaseDelay(Duration.ofSeconds(30)).setMaxRetries(1).build();
+    // A single worker, which the retrying host sleeps on.
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      CountDownLatch waiting = new CountDownLatch(1);
+      pool.execute(() -> {
+        try {
+          fetchPolicy.fetch(URL, "slow.example.com", farDeadline(), new FetchPolicy.Attempt<>() {
+            @Override
+            public String run(int attempt) throws IOException {
+              throw new SocketTimeoutException();
+            }
+
+            @Override
+            public void retrying(Duration wait) {
+              waiting.countDown();
+            }
+          });
+        } catch (IOException e) {
+          // Interrupted when the pool shuts down.
+        }
+      });
+      assertThat(waiting.await(10, TimeUnit.SECONDS)).isTrue();
+
+      Future<String> other =
+          pool.submit(
+              () -> fetchPolicy.fetch(
+                  "http://other.example.com/", "other.example.com", farDeadline(), n -> "page"));
+
+      assertWithMessage("Another host should be fetched while the first one waits to retry")
+          .that(other.get(10, TimeUnit.SECONDS))
+          .isEqualTo("page");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void pagesWithoutAHostSkipTheCircuit() throws Exception {
+    FetchPolicy fetchPolicy = policy().build();
+
+    String page = fetchPolicy.fetch("file:///a.html", null, farDeadline(), attempt -> "page");
+
+    assertThat(page).isEqualTo("page");
+  }
+}
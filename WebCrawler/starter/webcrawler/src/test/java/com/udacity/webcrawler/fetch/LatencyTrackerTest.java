@@ -0,0 +1,36 @@
+package com.udacity.webcrawler.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class LatencyTrackerTest {
+
+  private final LatencyTracker latencies = new LatencyTracker();
+
+  @Test
+  public void quantilesNeedEnoughSamples() {
+    for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+      latencies.record("example.com", Duration.ofMillis(i));
+    }
+    assertThat(latencies.quantile("example.com", 0.95)).isNull();
+
+    latencies.record("EXAMPLE.com", Duration.ofMillis(LatencyTracker.MIN_SAMPLES));
+    assertThat(latencies.quantile("example.com", 0.95)).isEqualTo(Duration.ofMillis(19));
+    assertThat(latencies.quantile("example.com", 0.5)).isEqualTo(Duration.ofMillis(10));
+  }
+
+  @Test
+  public void quantilesFollowTheLatestSamples() {
+    for (int i = 0; i < LatencyTracker.SAMPLES; i++) {
+      latencies.record("example.com", Duration.ofSeconds(5));
+    }
+    for (int i = 0; i < LatencyTracker.SAMPLES; i++) {
+      latencies.record("example.com", Duration.ofMillis(5));
+    }
+
+    assertThat(latencies.quantile("example.com", 1)).isEqualTo(Duration.ofMillis(5));
+  }
+}
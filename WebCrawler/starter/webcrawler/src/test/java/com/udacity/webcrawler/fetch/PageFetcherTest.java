@@ -0,0 +1,326 @@
+package com.udacity.webcrawler.fetch;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PageFetcherTest {
+
+  private static final String URL = "http://example.com/";
+  private static final Duration TEN_SECONDS = Duration.ofSeconds(10);
+
+  private final LatencyTracker latencies = new LatencyTracker();
+  private final List<Boolean> hedgeWins = new CopyOnWriteArrayList<>();
+
+  /**
+   * Returns a fetcher that hedges after 1 millisecond on {@code example.com}.
+   */
+  private PageFetcher hedgingFetcher(int hedgeBudget) {
+    return hedgingFetcher(Clock.systemUTC(), Duration.ofMillis(1), hedgeBudget);
+  }
+
+  /**
+   * Returns a fetcher that hedges after the given time on {@code example.com}.
+   */
+  private PageFetcher hedgingFetcher(Clock clock, Duration hedgeAfter, int hedgeBudget) {
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      latencies.record("example.com", hedgeAfter);
+    }
+    return new PageFetcher.Builder()
+        .setClock(clock)
+        .setFetchPolicy(FetchPolicy.NONE)
+        .setLatencyTracker(latencies)
+        .setHedgeBudget(hedgeBudget)
+        .setHedgeListener((url, won) -> hedgeWins.add(won))
+        .build();
+  }
+
+  @Test
+  public void fetchesWithoutHistoryAreNotHedged() throws Exception {
+    PageFetcher fetcher =
+        new PageFetcher.Builder()
+            .setFetchPolicy(FetchPolicy.NONE)
+            .setLatencyTracker(latencies)
+            .setHedgeBudget(1)
+            .build();
+    AtomicInteger calls = new AtomicInteger();
+
+    String page =
+        fetcher.fetch(
+            URL,
+            "example.com",
+            Duration.ofSeconds(10),
+            Instant.MAX,
+            (n, timeout) -> "page " + calls.incrementAndGet());
+
+    assertThat(page).isEqualTo("page 1");
+    assertThat(calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void slowFetchIsHedgedAndTheFasterResponseWins() throws Exception {
+    PageFetcher fetcher = hedgingFetcher(1);
+    CountDownLatch stuck = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+
+    String page =
+        fetcher.fetch(
+            URL,
+            "example.com",
+            Duration.ofSeconds(10),
+            Instant.MAX,
+            (n, timeout) -> {
+              if (calls.incrementAndGet() == 1) {
+                try {
+                  stuck.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                return "first";
+              }
+              return "hedge";
+            });
+    stuck.countDown();
+
+    assertThat(page).isEqualTo("hedge");
+    assertThat(hedgeWins).containsExactly(true);
+  }
+
+  @Test
+  public void hedgeFailureFallsBackToTheFirstRequest() throws Exception {
+    PageFetcher fetcher = hedgingFetcher(1);
+    CountDownLatch hedgeFailed = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+
+    String page =
+        fetcher.fetch(
+            URL,
+            "example.com",
+            Duration.ofSeconds(10),
+            Instant.MAX,
+            (n, timeout) -> {
+              if (calls.incrementAndGet() == 2) {
+                hedgeFailed.countDown();
+                throw new SocketTimeoutException();
+              }
+              try {
+                hedgeFailed.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return "first";
+            });
+
+    assertThat(page).isEqualTo("first");
+    assertThat(hedgeWins).containsExactly(false);
+  }
+
+  @Test
+  public void bothRequestsFailingFailsTheFetch() {
+    PageFetcher fetcher = hedgingFetcher(1);
+
+    assertThrows(
+        SocketTimeoutException.class,
+        () ->
+            fetcher.fetch(
+                URL,
+                "example.com",
+                Duration.ofSeconds(10),
+                Instant.MAX,
+                (n, timeout) -> {
+                  try {
+                    Thread.sleep(20);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  throw new SocketTimeoutException();
+                }));
+    assertThat(hedgeWins).isEmpty();
+  }
+
+  @Test
+  public void hedgeBudgetCapsOutstandingHedges() throws Exception {
+    PageFetcher fetcher = hedgingFetcher(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch hedgeSent = new CountDownLatch(2);
+    AtomicInteger calls = new AtomicInteger();
+    PageFetcher.Request<String> blocked =
+        (n, timeout) -> {
+          calls.incrementAndGet();
+          hedgeSent.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return "page";
+        };
+
+    CompletableFuture<String> hedged =
+        CompletableFuture.supplyAsync(() -> fetchUnchecked(fetcher, blocked));
+    assertThat(hedgeSent.await(10, TimeUnit.SECONDS)).isTrue();
+    // The only hedge is outstanding, so this fetch has to wait for its first request.
+    CompletableFuture<String> unhedged = new CompletableFuture<>();
+    Thread fetching = new Thread(() -> unhedged.complete(fetchUnchecked(fetcher, blocked)));
+    fetching.start();
+    // It waits without a time limit only once it has given up on hedging.
+    while (fetching.getState() != Thread.State.WAITING) {
+      Thread.onSpinWait();
+    }
+    assertThat(calls.get()).isEqualTo(3);
+
+    release.countDown();
+    assertThat(hedged.get(10, TimeUnit.SECONDS)).isEqualTo("page");
+    assertThat(unhedged.get(10, TimeUnit.SECONDS)).isEqualTo("page");
+    assertThat(hedgeWins).hasSize(1);
+  }
+
+  @Test
+  public void hedgeTimeoutIsCutToTheTimeLeft() throws Exception {
+    FakeClock clock = new FakeClock();
+    // Time for the first request to move the clock before the hedge is sent.
+    PageFetcher fetcher = hedgingFetcher(clock, Duration.ofMillis(100), 1);
+    CountDownLatch stuck = new CountDownLatch(1);
+    List<Duration> timeouts = new CopyOnWriteArrayList<>();
+
+    String page =
+        fetcher.fetch(
+            URL,
+            "example.com",
+            TEN_SECONDS,
+            Instant.MAX,
+            (n, timeout) -> {
+              timeouts.add(timeout);
+              if (timeouts.size() == 1) {
+                clock.tick(Duration.ofSeconds(9));
+                try {
+                  stuck.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                return "first";
+              }
+              return "hedge";
+            });
+    stuck.countDown();
+
+    assertThat(page).isEqualTo("hedge");
+    assertThat(timeouts).containsExactly(TEN_SECONDS, Duration.ofSeconds(1)).inOrder();
+  }
+
+  @Test
+  public void noHedgeIsSentOnceTheTimeIsUp() throws Exception {
+    FakeClock clock = new FakeClock();
+    PageFetcher fetcher = hedgingFetcher(clock, Duration.ofMillis(20), 1);
+    AtomicInteger calls = new AtomicInteger();
+
+    String page =
+        fetcher.fetch(
+            URL,
+            "example.com",
+            TEN_SECONDS,
+            Instant.MAX,
+            (n, timeout) -> {
+              calls.incrementAndGet();
+              clock.tick(TEN_SECONDS);
+              // Long enough for a hedge to have been sent, if it were going to be.
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return "first";
+            });
+
+    assertThat(page).isEqualTo("first");
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(hedgeWins).isEmpty();
+  }
+
+  @Test
+  public void timeoutsAdaptToTheLatencyOfTheHost() throws Exception {
+    FakeClock clock = new FakeClock();
+    List<String> timeouts = new CopyOnWriteArrayList<>();
+    PageFetcher fetcher =
+        new PageFetcher.Builder()
+            .setClock(clock)
+            .setFetchPolicy(FetchPolicy.NONE)
+            .setLatencyTracker(latencies)
+            .setAdaptiveTimeout(3, Duration.ofMillis(200))
+            .setTimeoutListener(
+                (url, timeout, adaptive) -> timeouts.add(timeout.toMillis() + " " + adaptive))
+            .build();
+    PageFetcher.Request<Duration> timeoutOf = (n, timeout) -> timeout;
+
+    // Too few fetches to know the host yet.
+    Duration unknownHost = fetcher.fetch(URL, "example.com", TEN_SECONDS, Instant.MAX, timeoutOf);
+    assertThat(unknownHost).isEqualTo(TEN_SECONDS);
+
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      latencies.record("example.com", Duration.ofMillis(100));
+    }
+    Duration knownHost = fetcher.fetch(URL, "example.com", TEN_SECONDS, Instant.MAX, timeoutOf);
+    assertThat(knownHost).isEqualTo(Duration.ofMillis(300));
+    Duration otherHost =
+        fetcher.fetch("http://other.org/", "other.org", TEN_SECONDS, Instant.MAX, timeoutOf);
+    assertThat(otherHost).isEqualTo(TEN_SECONDS);
+
+    // The deadline of the crawl is closer than the adaptive timeout.
+    Instant deadline = clock.instant().plus(Duration.ofMillis(50));
+    Duration nearDeadline = fetcher.fetch(URL, "example.com", TEN_SECONDS, deadline, timeoutOf);
+    assertThat(nearDeadline).isEqualTo(Duration.ofMillis(50));
+
+    assertThrows(
+        SocketTimeoutException.class,
+        () ->
+            fetcher.fetch(
+                URL,
+                "example.com",
+                Duration.ofSeconds(10),
+                Instant.MAX,
+                (n, timeout) -> {
+                  throw new SocketTimeoutException();
+                }));
+    assertThat(timeouts).containsExactly("300 true");
+  }
+
+  @Test
+  public void fetchAfterTheDeadlineFailsAtOnce() {
+    FakeClock clock = new FakeClock();
+    PageFetcher fetcher =
+        new PageFetcher.Builder().setClock(clock).setFetchPolicy(FetchPolicy.NONE).build();
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(
+        SocketTimeoutException.class,
+        () ->
+            fetcher.fetch(
+                URL,
+                "example.com",
+                Duration.ofSeconds(10),
+                clock.instant(),
+                (n, timeout) -> "page " + calls.incrementAndGet()));
+    assertThat(calls.get()).isEqualTo(0);
+  }
+
+  private static String fetchUnchecked(PageFetcher fetcher, PageFetcher.Request<String> request) {
+    try {
+      return fetcher.fetch(URL, "example.com", Duration.ofSeconds(10), Instant.MAX, request);
+    } catch (Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+}
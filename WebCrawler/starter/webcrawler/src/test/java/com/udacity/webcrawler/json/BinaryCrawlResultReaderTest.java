@@ -0,0 +1,80 @@
+package com.udacity.webcrawler.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BinaryCrawlResultReaderTest {
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testRoundTripThroughMappedFile() throws Exception {
+    // Counts on either side of every varint byte boundary, and words that are not plain ASCII.
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    counts.put("huge", Integer.MAX_VALUE);
+    counts.put("large", 1 << 21);
+    counts.put("caf\u00e9", 128);
+    counts.put("\u65e5\u672c\u8a9e", 127);
+    counts.put("a", 1);
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(9)
+            .setDuplicatesSkipped(2)
+            .setWordCounts(counts)
+            .build();
+
+    Path path = tempDir.resolve("result" + ResultFormat.BINARY_EXTENSION);
+    new CrawlResultWriter(result).write(path, ResultFormat.forPath(path.toString()));
+    BinaryCrawlResultReader reader = BinaryCrawlResultReader.open(path);
+
+    assertThat(reader.getUrlsVisited()).isEqualTo(9);
+    assertThat(reader.getDuplicatesSkipped()).isEqualTo(2);
+    assertThat(reader.size()).isEqualTo(5);
+    assertWithMessage("Words should be readable without decoding the whole file")
+        .that(reader.word(3))
+        .isEqualTo("\u65e5\u672c\u8a9e");
+    CrawlResult read = reader.toCrawlResult();
+    assertThat(read.getUrlsVisited()).isEqualTo(9);
+    assertThat(read.getDuplicatesSkipped()).isEqualTo(2);
+    assertThat(read.getWordCounts().entrySet())
+        .containsExactlyElementsIn(counts.entrySet())
+        .inOrder();
+  }
+
+  @Test
+  public void testBinaryIsSmallerThanJson() throws Exception {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      counts.put("word" + i, 1000 - i);
+    }
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(1)
+            .setWordCounts(counts)
+            .build();
+
+    Path json = tempDir.resolve("result.json");
+    Path binary = tempDir.resolve("result.wcb");
+    CrawlResultWriter writer = new CrawlResultWriter(result, false);
+    writer.write(json, ResultFormat.JSON);
+    writer.write(binary, ResultFormat.BINARY);
+
+    assertThat(Files.size(binary)).isLessThan(Files.size(json));
+  }
+
+  @Test
+  public void testRejectsOtherFiles() {
+    ByteBuffer json = ByteBuffer.wrap("{\"wordCounts\":{},\"urlsVisited\":0}".getBytes());
+    assertThrows(IllegalArgumentException.class, () -> new BinaryCrawlResultReader(json));
+  }
+}
@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.json;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.udacity.webcrawler.testing.CloseableStringWriter;
 import org.junit.jupiter.api.Test;
 
@@ -46,4 +48,50 @@ public final class CrawlResultWriterTest {
 
     assertThat(written).matches(expected);
   }
+
+  @Test
+  public void testCompactJsonFormatting() throws Exception {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    counts.put("foo", 12);
+    counts.put("bar", 1);
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(3)
+            .setWordCounts(counts)
+            .build();
+
+    CloseableStringWriter stringWriter = new CloseableStringWriter();
+    new CrawlResultWriter(result, false).write(stringWriter);
+
+    assertThat(stringWriter.toString())
+        .isEqualTo("{\"wordCounts\":{\"foo\":12,\"bar\":1},\"urlsVisited\":3}");
+  }
+
+  @Test
+  public void testLargeResultIsStreamedInOrder() throws Exception {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (int i = 0; i < CrawlResultWriter.STREAMING_THRESHOLD + 1; i++) {
+      counts.put("word" + i, CrawlResultWriter.STREAMING_THRESHOLD - i);
+    }
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(42)
+            .setWordCounts(counts)
+            .build();
+
+    CloseableStringWriter stringWriter = new CloseableStringWriter();
+    new CrawlResultWriter(result).write(stringWriter);
+    assertWithMessage("Streams should usually be closed in the same scope where they were created")
+        .that(stringWriter.isClosed())
+        .isFalse();
+
+    Map<String, Object> written =
+        new ObjectMapper().readValue(
+            stringWriter.toString(), new TypeReference<Map<String, Object>>() {});
+    assertThat(written).containsEntry("urlsVisited", 42);
+    assertThat(written.get("wordCounts")).isInstanceOf(Map.class);
+    assertThat(((Map<?, ?>) written.get("wordCounts")).entrySet())
+        .containsExactlyElementsIn(counts.entrySet())
+        .inOrder();
+  }
 }
@@ -0,0 +1,73 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class ContentFilterTest {
+
+  private final ContentFilter filter = new ContentFilter.Builder().build();
+
+  @Test
+  public void linksWithSkippedExtensionsAreSkipped() {
+    for (String url :
+        List.of(
+            "http://example.com/photo.jpg",
+            "http://example.com/a/Photo.JPG",
+            "http://example.com/report.pdf?download=1",
+            "http://example.com/video.mp4#t=10",
+            "file:///data/site/archive.tar.gz")) {
+      assertWithMessage(url).that(filter.isSkippedLink(url)).isTrue();
+    }
+    for (String url :
+        List.of(
+            "http://example.com/",
+            "http://example.com/page.html",
+            "http://example.com/page.php?file=photo.jpg",
+            "http://example.com/v1.2/page",
+            "http://example.com/page.",
+            "http://www.example.com",
+            "jar:file:///data/site.zip!/index.html")) {
+      assertWithMessage(url).that(filter.isSkippedLink(url)).isFalse();
+    }
+  }
+
+  @Test
+  public void skippedExtensionsCanBeReplaced() {
+    ContentFilter custom = new ContentFilter.Builder().setSkippedExtensions(Set.of("PHP")).build();
+
+    assertThat(custom.isSkippedLink("http://example.com/index.php")).isTrue();
+    assertThat(custom.isSkippedLink("http://example.com/photo.jpg")).isFalse();
+    assertThat(
+            new ContentFilter.Builder()
+                .setSkippedExtensions(Set.of())
+                .build()
+                .isSkippedLink("http://example.com/photo.jpg"))
+        .isFalse();
+  }
+
+  @Test
+  public void onlyTextAndXmlResponsesAreParsed() {
+    for (String type :
+        List.of("text/html; charset=utf-8", "TEXT/PLAIN", "application/xhtml+xml", "text/xml")) {
+      assertWithMessage(type).that(filter.isParsedContentType(type)).isTrue();
+    }
+    assertThat(filter.isParsedContentType(null)).isTrue();
+    for (String type : List.of("application/pdf", "image/png", "video/mp4", "application/json")) {
+      assertWithMessage(type).that(filter.isParsedContentType(type)).isFalse();
+    }
+  }
+
+  @Test
+  public void sizeLimitCanBeTurnedOff() {
+    assertThat(filter.isTooLarge(ContentFilter.DEFAULT_MAX_PAGE_BYTES)).isFalse();
+    assertThat(filter.isTooLarge(ContentFilter.DEFAULT_MAX_PAGE_BYTES + 1)).isTrue();
+    assertThat(
+            new ContentFilter.Builder().setMaxPageBytes(0).build().isTooLarge(Long.MAX_VALUE))
+        .isFalse();
+  }
+}
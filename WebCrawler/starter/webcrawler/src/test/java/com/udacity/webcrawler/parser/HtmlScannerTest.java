@@ -0,0 +1,210 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class HtmlScannerTest {
+
+  private static final List<String> SUPPORTED_PAGES =
+      List.of(
+          "<!DOCTYPE html><html><head><title>A &amp; B</title></head><body><p>one two</p></body>",
+          "foo</span>bar",
+          "foo<!-- a -- b -->bar",
+          "a&amp;b&nbsp;c &lt;d&gt; &ampx &#65;&#x42;",
+          "a < b <3 c>",
+          "<title>t <b>not a tag</b></title>",
+          "<textarea>x &amp; <a href=no>y</a></textarea>",
+          "<xmp><b>kept</b> &amp;</xmp><iframe>frame</iframe><noembed>e</noembed>",
+          "<script>var a = '<a href=\"no\">';</script><style>p { }</style>after",
+          "<a href=\"a.html\">1</a><A HREF='B.html'>2</A><a href=c.html>3</a><a href>4</a>",
+          "<a href='first' HREF='second'>dup</a><a name=n>no href</a>",
+          "<a href=\"q&amp;r\">amp</a><a href=q&ampr>legacy</a><a href = \"spaced\" >sp</a>",
+          "<span title=\"a>b\" data-x='<p>'>quoted</span>",
+          "x</p foo='>'>y<br/>z</br>w",
+          "a<?xml version=\"1.0\"?>b<!doctype html>c",
+          "<select><option>o1<option>o2</select><a href=after>after</a>",
+          "<table>cell<tr><td>td</td></tr></table>",
+          "<p>caf\u00e9 na\u00efve\u00a0\u4e2d\u6587</p>");
+
+  private static final List<String> UNSUPPORTED_PAGES =
+      List.of(
+          "<noscript>ns<b>x</b></noscript>",
+          "x<![CDATA[cd]]>y",
+          "x</>y",
+          "x</ y>z",
+          "<script><!--<script>x</script>--></script>",
+          "<title>never closed",
+          "<a href=\"never closed",
+          "<select><a href=x>dropped</a></select>",
+          "<frameset>f</frameset>",
+          "<!-->x",
+          "<base href=\"http://example.com/\"><a href=x>x</a>",
+          "<img src=x></ul><template></table><col>b",
+          "nul\u0000");
+
+  @Test
+  public void reportsTheSameTextAndLinksAsJsoup() {
+    for (String page : SUPPORTED_PAGES) {
+      List<String> texts = new ArrayList<>();
+      List<String> hrefs = new ArrayList<>();
+      List<String> jsoupHrefs = new ArrayList<>();
+      List<String> jsoupTexts = jsoupTextsAndLinks(page, jsoupHrefs);
+
+      assertWithMessage("Scanning %s", page).that(scan(heap(page), texts, hrefs)).isTrue();
+      texts.removeIf(String::isBlank);
+      // Jsoup moves text out of tables, so only the words have to match, not their order.
+      assertWithMessage("Text of %s", page).that(texts).containsExactlyElementsIn(jsoupTexts);
+      assertWithMessage("Links of %s", page).that(hrefs).containsExactlyElementsIn(jsoupHrefs);
+    }
+  }
+
+  @Test
+  public void givesUpOnMarkupJsoupTreatsDifferently() {
+    for (String page : UNSUPPORTED_PAGES) {
+      assertWithMessage("Scanning %s", page)
+          .that(scan(heap(page), new ArrayList<>(), new ArrayList<>()))
+          .isFalse();
+    }
+  }
+
+  @Test
+  public void directBuffersScanLikeHeapBuffers() {
+    String page = String.join("\n", SUPPORTED_PAGES);
+    List<String> heapTexts = new ArrayList<>();
+    List<String> heapHrefs = new ArrayList<>();
+    List<String> directTexts = new ArrayList<>();
+    List<String> directHrefs = new ArrayList<>();
+    byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+    assertThat(scan(heap(page), heapTexts, heapHrefs)).isTrue();
+    assertThat(scan(direct, directTexts, directHrefs)).isTrue();
+    assertThat(directTexts).containsExactlyElementsIn(heapTexts).inOrder();
+    assertThat(directHrefs).containsExactlyElementsIn(heapHrefs).inOrder();
+    assertThat(direct.position()).isEqualTo(0);
+  }
+
+  @Test
+  public void pagesFedInChunksScanLikeWholePages() throws Exception {
+    String page = String.join("\n", SUPPORTED_PAGES);
+    List<String> wholeTexts = new ArrayList<>();
+    List<String> wholeHrefs = new ArrayList<>();
+    assertThat(scan(heap(page), wholeTexts, wholeHrefs)).isTrue();
+
+    for (int retainLimit : new int[] {0, 64, Integer.MAX_VALUE}) {
+      for (int chunkSize : new int[] {1, 2, 7, 1 << 20}) {
+        List<String> texts = new ArrayList<>();
+        List<String> hrefs = new ArrayList<>();
+        HtmlScanner.Feed feed = new HtmlScanner.Feed(texts::add, hrefs::add, retainLimit);
+
+        assertWithMessage("Chunks of %s, keeping %s bytes", chunkSize, retainLimit)
+            .that(feed.readFrom(chunked(page, chunkSize)))
+            .isTrue();
+        assertThat(texts).containsExactlyElementsIn(wholeTexts).inOrder();
+        assertThat(hrefs).containsExactlyElementsIn(wholeHrefs).inOrder();
+      }
+    }
+  }
+
+  @Test
+  public void feedOnlyKeepsPagesUpToTheRetainLimit() throws Exception {
+    String page = "<p>word</p>".repeat(1000) + "<noscript>x</noscript>";
+    HtmlScanner.Feed small = new HtmlScanner.Feed(text -> {}, href -> {}, 100);
+
+    assertThat(small.readFrom(chunked(page, 50))).isFalse();
+    assertThat(small.content()).isNull();
+
+    HtmlScanner.Feed large = new HtmlScanner.Feed(text -> {}, href -> {}, page.length());
+    assertThat(large.readFrom(chunked(page, 50))).isFalse();
+    assertThat(large.content()).isEqualTo(heap(page));
+  }
+
+  @Test
+  public void feedGivesUpOnUnsupportedPagesButKeepsTheirBytes() throws Exception {
+    for (String page : UNSUPPORTED_PAGES) {
+      HtmlScanner.Feed feed = new HtmlScanner.Feed(text -> {}, href -> {}, Integer.MAX_VALUE);
+
+      assertWithMessage("Scanning %s", page).that(feed.readFrom(chunked(page, 3))).isFalse();
+      assertThat(feed.content()).isEqualTo(heap(page));
+    }
+  }
+
+  @Test
+  public void linksAreReportedBeforeThePageHasArrived() throws Exception {
+    String page = "<a href=\"first.html\">first</a>" + "<p>filler</p>".repeat(10_000);
+    byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+    InputStream in = chunked(page, 1024);
+    List<Integer> availableAtFirstLink = new ArrayList<>();
+    HtmlScanner.Feed feed =
+        new HtmlScanner.Feed(
+            text -> {}, href -> availableAtFirstLink.add(readCount(in, bytes)), 0);
+
+    assertThat(feed.readFrom(in)).isTrue();
+    assertThat(availableAtFirstLink).hasSize(1);
+    assertThat(availableAtFirstLink.get(0)).isLessThan(2048);
+  }
+
+  /**
+   * Returns a stream of the page that returns at most {@code chunkSize} bytes per read, like a
+   * slow connection.
+   */
+  private static InputStream chunked(String page, int chunkSize) {
+    return new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, chunkSize));
+      }
+    };
+  }
+
+  private static int readCount(InputStream in, byte[] bytes) {
+    try {
+      return bytes.length - in.available();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static boolean scan(ByteBuffer html, List<String> texts, List<String> hrefs) {
+    return HtmlScanner.scan(html, texts::add, hrefs::add);
+  }
+
+  private static ByteBuffer heap(String page) {
+    return ByteBuffer.wrap(page.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> jsoupTextsAndLinks(String page, List<String> hrefs) {
+    List<String> texts = new ArrayList<>();
+    Jsoup.parse(page, "").traverse(new NodeVisitor() {
+      @Override
+      public void head(Node node, int depth) {
+        if (node instanceof TextNode && !((TextNode) node).isBlank()) {
+          texts.add(((TextNode) node).text());
+        }
+        if (node instanceof Element && node.nodeName().equals("a") && node.hasAttr("href")) {
+          hrefs.add(node.attr("href"));
+        }
+      }
+
+      @Override
+      public void tail(Node node, int depth) {
+      }
+    });
+    return texts;
+  }
+}
@@ -0,0 +1,93 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class LinkResolverTest {
+  private static final List<String> HREFS =
+      List.of(
+          "page-1.html",
+          "docs/page-2.html",
+          "./page-3.html",
+          "../page-4.html",
+          "a/../b.html",
+          "/root.html",
+          "",
+          "?query=1",
+          "#fragment",
+          "page.html?query=1",
+          "//cdn.example.com/script.js",
+          "http://other.example.com/",
+          "mailto:someone@example.com",
+          "with space.html");
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void remoteLinksMatchJsoup() {
+    for (String base :
+        List.of(
+            "http://example.com",
+            "http://example.com:8080/page-0.html",
+            "https://example.com/a/b.html?x=1#top",
+            "http://example.com/a/./b/../c/",
+            "not a url")) {
+      LinkResolver resolver = LinkResolver.forRemotePage(base);
+      for (String href : HREFS) {
+        assertWithMessage("Resolving \"%s\" against %s", href, base)
+            .that(resolver.resolve(href))
+            .isEqualTo(StringUtil.resolve(base, href));
+      }
+    }
+  }
+
+  @Test
+  public void localLinksResolveAgainstParentDirectory() {
+    Path page = tempDir.resolve("page-0.html");
+    LinkResolver resolver = LinkResolver.forLocalFile(page);
+    for (String href : HREFS) {
+      assertWithMessage("Resolving \"%s\"", href)
+          .that(resolver.resolve(href))
+          .isEqualTo(Path.of(tempDir.toString(), href).toUri().toString());
+    }
+  }
+
+  @Test
+  public void archiveLinksStayInsideArchive() {
+    String archive = "jar:" + tempDir.resolve("site.zip").toUri();
+    LinkResolver resolver = LinkResolver.forArchiveEntry(archive + "!/docs/a/page-0.html");
+    assertThat(resolver.resolve("page-1.html")).isEqualTo(archive + "!/docs/a/page-1.html");
+    assertThat(resolver.resolve("./b/page-2.html")).isEqualTo(archive + "!/docs/a/b/page-2.html");
+    assertThat(resolver.resolve("../page-3.html")).isEqualTo(archive + "!/docs/page-3.html");
+    assertThat(resolver.resolve("../../../../page-4.html")).isEqualTo(archive + "!/page-4.html");
+    assertThat(resolver.resolve("/root.html")).isEqualTo(archive + "!/root.html");
+    assertThat(resolver.resolve("with space.html"))
+        .isEqualTo(archive + "!/docs/a/with%20space.html");
+    assertThat(resolver.resolve("page.html?query=1#top"))
+        .isEqualTo(archive + "!/docs/a/page.html");
+    assertThat(resolver.resolve("#fragment")).isEqualTo(archive + "!/docs/a/page-0.html");
+    assertThat(resolver.resolve("http://other.example.com/"))
+        .isEqualTo("http://other.example.com/");
+    assertThat(resolver.resolve("//cdn.example.com/script.js")).isEmpty();
+  }
+
+  @Test
+  public void onlyPlainRelativePathsAreSimple() {
+    for (String href : List.of("a", "a.html", "docs/a.html", "a-b_c.D9")) {
+      assertWithMessage(href).that(LinkResolver.isSimpleRelative(href)).isTrue();
+    }
+    for (String href :
+        List.of("", ".", "..", "./a", "a/..", "/a", "a/", "a//b", "a?b", "a#b", "a:b", "a b")) {
+      assertWithMessage(href).that(LinkResolver.isSimpleRelative(href)).isFalse();
+    }
+    assertThat(LinkResolver.isSimpleRelative("caf\u00e9.html")).isFalse();
+  }
+}
@@ -1,10 +1,29 @@
 package com.udacity.webcrawler.parser;
 
+import com.sun.net.httpserver.HttpServer;
+import com.udacity.webcrawler.archive.ZipArchives;
+import com.udacity.webcrawler.fetch.DnsCache;
+import com.udacity.webcrawler.fetch.PageFetcher;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -45,4 +64,195 @@ public final class PageParserImplTest {
     assertThat(result.getWordCounts()).containsEntry("over", 1);
     assertThat(result.getWordCounts()).containsEntry("lazy", 1);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void largeFilesAreMappedAndParsedTheSame(@TempDir Path dir) throws Exception {
+    String words = "The quick, brown fox. ".repeat(20_000);
+    Path page = dir.resolve("large.html");
+    Files.writeString(page, "<p>" + words + "<a href=\"next.html\">next</a></p>");
+    assertThat(Files.size(page)).isAtLeast(PageParserImpl.MAP_THRESHOLD);
+
+    PageParser.Result result =
+        new PageParserImpl(page.toUri().toString(), Duration.ZERO, List.of()).parse();
+
+    assertThat(result.getLinks()).containsExactly(dir.resolve("next.html").toUri().toString());
+    assertThat(result.getWordCounts()).hasSize(5);
+    assertThat(result.getWordCounts()).containsEntry("the", 20_000);
+    assertThat(result.getWordCounts()).containsEntry("fox", 20_000);
+    assertThat(result.getWordCounts()).containsEntry("next", 1);
+  }
+
+  @Test
+  public void markupTheScannerSkipsIsParsedByJsoup(@TempDir Path dir) throws Exception {
+    Path page = dir.resolve("noscript.html");
+    Files.writeString(page, "<p>Lazy dog</p><noscript><a href=\"link.html\">Fox</a></noscript>");
+
+    PageParser.Result result =
+        new PageParserImpl(page.toUri().toString(), Duration.ZERO, List.of()).parse();
+
+    assertThat(result.getLinks()).containsExactly(dir.resolve("link.html").toUri().toString());
+    assertThat(result.getWordCounts()).containsExactly("lazy", 1, "dog", 1, "fox", 1);
+  }
+
+  @Test
+  public void responsesTheContentFilterRejectsAreDropped() throws Exception {
+    // The JDK server reads this once, so it has to match what SyntheticSiteServer sets for the
+    // tests that run after this one.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    byte[] page =
+        ("<p>Lazy dog</p><a href=\"next.html\">Fox</a><a href=\"photo.JPG\">photo</a>"
+            + "<a href=\"report.pdf?download=1\">report</a>")
+            .getBytes(StandardCharsets.UTF_8);
+    byte[] video = new byte[1024];
+    byte[] chunk = "<p>The quick brown fox</p>".repeat(1000).getBytes(StandardCharsets.UTF_8);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      if (path.equals("/video")) {
+        exchange.getResponseHeaders().set("Content-Type", "video/mp4");
+        exchange.sendResponseHeaders(200, video.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(video);
+        }
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      // A length of 0 sends the body in chunks, without a Content-Length.
+      exchange.sendResponseHeaders(200, path.equals("/page.html") ? page.length : 0);
+      try (OutputStream out = exchange.getResponseBody()) {
+        if (path.equals("/page.html")) {
+          out.write(page);
+          return;
+        }
+        for (int i = 0; i < 100; i++) {
+          out.write(chunk);
+        }
+      } catch (IOException e) {
+        // The parser stopped reading.
+      }
+    });
+    server.start();
+    try {
+      String base = "http://localhost:" + server.getAddress().getPort() + "/";
+      ContentFilter contentFilter = new ContentFilter.Builder().setMaxPageBytes(64 * 1024).build();
+
+      PageParser.Result result = fetch(base + "page.html", contentFilter);
+      assertThat(result.getLinks()).containsExactly(base + "next.html");
+      assertThat(result.getWordCounts()).containsEntry("fox", 1);
+
+      assertThat(fetch(base + "video", contentFilter).getWordCounts()).isEmpty();
+      assertThat(fetch(base + "huge.html", contentFilter).getWordCounts()).isEmpty();
+      assertThat(
+              fetch(base + "huge.html", new ContentFilter.Builder().setMaxPageBytes(0).build())
+                  .getWordCounts())
+          .containsEntry("fox", 100_000);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void linksReachTheListenerWhileThePageDownloads() throws Exception {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    CountDownLatch earlyLinkSeen = new CountDownLatch(1);
+    AtomicBoolean seenBeforeTheEnd = new AtomicBoolean();
+    byte[] head = "<p>Lazy dog</p><a href=\"early.html\">early</a><p>"
+        .getBytes(StandardCharsets.UTF_8);
+    byte[] tail = "Fox</p><a href=\"late.html\">late</a>".getBytes(StandardCharsets.UTF_8);
+    server.createContext("/", exchange -> {
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(head);
+        out.flush();
+        seenBeforeTheEnd.set(earlyLinkSeen.await(10, TimeUnit.SECONDS));
+        out.write(tail);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    server.start();
+    try {
+      String base = "http://localhost:" + server.getAddress().getPort() + "/";
+      List<String> links = new CopyOnWriteArrayList<>();
+
+      PageParser.Result result =
+          parser(base + "page.html", new ContentFilter.Builder().build())
+              .parse(
+                  link -> {
+                    links.add(link);
+                    if (link.endsWith("early.html")) {
+                      earlyLinkSeen.countDown();
+                    }
+                  });
+
+      assertThat(seenBeforeTheEnd.get()).isTrue();
+      assertThat(links).containsExactly(base + "early.html", base + "late.html").inOrder();
+      assertThat(result.getLinks()).containsExactly(base + "early.html", base + "late.html");
+      assertThat(result.getWordCounts()).containsExactly("lazy", 1, "dog", 1, "early", 1,
+          "fox", 1, "late", 1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void largePagesTheScannerGivesUpOnAreFetchedAgain() throws Exception {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    AtomicInteger requests = new AtomicInteger();
+    String words = "<p>The quick brown fox</p>";
+    int repeats = PageParserImpl.SCAN_RETAIN_BYTES / words.length() + 1;
+    byte[] page =
+        (words.repeat(repeats) + "<noscript><a href=\"next.html\">Lazy</a></noscript>")
+            .getBytes(StandardCharsets.UTF_8);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(page);
+      }
+    });
+    server.start();
+    try {
+      String base = "http://localhost:" + server.getAddress().getPort() + "/";
+      List<String> links = new CopyOnWriteArrayList<>();
+
+      PageParser.Result result =
+          parser(base + "page.html", new ContentFilter.Builder().build()).parse(links::add);
+
+      assertThat(requests.get()).isEqualTo(2);
+      assertThat(links).containsExactly(base + "next.html");
+      assertThat(result.getLinks()).containsExactly(base + "next.html");
+      assertThat(result.getWordCounts()).containsEntry("fox", repeats);
+      assertThat(result.getWordCounts()).containsEntry("lazy", 1);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private static PageParser.Result fetch(String url, ContentFilter contentFilter) {
+    return parser(url, contentFilter).parse();
+  }
+
+  private static PageParser parser(String url, ContentFilter contentFilter) {
+    return new PageParserImpl(
+        url,
+        Duration.ofSeconds(10),
+        Instant.MAX,
+        List.of(),
+        Clock.systemUTC(),
+        PageTimingListener.NONE,
+        new UrlNormalizer.Builder().build(),
+        new ZipArchives(),
+        contentFilter,
+        DnsCache.DISABLED,
+        PageFetcher.NONE,
+        null);
+  }
+}
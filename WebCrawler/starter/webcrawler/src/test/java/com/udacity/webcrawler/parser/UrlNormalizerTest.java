@@ -0,0 +1,55 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class UrlNormalizerTest {
+  private final UrlNormalizer standard = new UrlNormalizer.Builder().build();
+  private final UrlNormalizer everything =
+      new UrlNormalizer.Builder()
+          .setStripTrackingParameters(true)
+          .setSortQueryParameters(true)
+          .setRemoveTrailingSlash(true)
+          .build();
+
+  @ParameterizedTest
+  @CsvSource({
+      "http://x/a, http://x/a",
+      "HTTP://X.Example.COM/A, http://x.example.com/A",
+      "http://x/a#fragment, http://x/a",
+      "http://x/a?b#fragment, http://x/a?b",
+      "http://x:80/a, http://x/a",
+      "https://x:443/a, https://x/a",
+      "http://x:443/a, http://x:443/a",
+      "http://x:8080/a, http://x:8080/a",
+      "http://x, http://x/",
+      "http://x/a/./b/../c, http://x/a/c",
+      "http://x/a/b/.., http://x/a/",
+      "http://x/../a, http://x/a",
+      "http://x/a./b../.c, http://x/a./b../.c",
+      "http://x/a/, http://x/a/",
+      "http://x/a?utm_source=y&b=1, http://x/a?utm_source=y&b=1",
+      "http://u:p@X:8080/a%20b?q=%41, http://u:p@x:8080/a%20b?q=%41",
+      "file:///tmp/a/../b.html, file:///tmp/b.html",
+      "file:///tmp/page-1.html, file:///tmp/page-1.html",
+      "mailto:Someone@Example.com, mailto:Someone@Example.com",
+      "not a url, not a url",
+  })
+  public void standardStepsKeepThePage(String url, String expected) {
+    assertWithMessage(url).that(standard.normalize(url)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "http://x/a/?utm_source=y&b=2&a=1&gclid=3#f, http://x/a?a=1&b=2",
+      "http://x/a?utm_medium=m, http://x/a",
+      "http://x/?b=1&a=2&b=0, http://x/?a=2&b=1&b=0",
+      "http://x/a?, http://x/a",
+      "http://x/, http://x/",
+  })
+  public void optionalStepsCanBeEnabled(String url, String expected) {
+    assertWithMessage(url).that(everything.normalize(url)).isEqualTo(expected);
+  }
+}
@@ -12,8 +12,9 @@ import java.util.Objects;
  */
 public final class FakeClock extends Clock {
 
-  private Instant now;
-  private ZoneId zoneId;
+  // Volatile, so that a test may move the clock from the threads of the code it tests.
+  private volatile Instant now;
+  private volatile ZoneId zoneId;
 
   @Inject
   public FakeClock() {
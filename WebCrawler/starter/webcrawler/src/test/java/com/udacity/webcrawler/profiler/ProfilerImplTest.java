@@ -1,5 +1,6 @@
 package com.udacity.webcrawler.profiler;
 
+import com.udacity.webcrawler.fetch.FetchOutcome;
 import com.udacity.webcrawler.testing.CloseableStringWriter;
 import org.junit.jupiter.api.Test;
 
@@ -136,6 +137,65 @@ public final class ProfilerImplTest {
     assertThat(written).contains("0m 1s 0ms");
   }
 
+  @Test
+  public void testPageTimingsByHost() throws Exception {
+    Profiler pageProfiler = new ProfilerImpl(clock, 2);
+    pageProfiler.recordPage("http://example.com/a", Duration.ofSeconds(1), Duration.ofMillis(5));
+    pageProfiler.recordPage("http://EXAMPLE.com/b", Duration.ofSeconds(4), Duration.ofMillis(5));
+    pageProfiler.recordPage("http://other.org/c", Duration.ofSeconds(2), Duration.ZERO);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    pageProfiler.writeData(writer);
+    String written = writer.toString();
+
+    assertWithMessage("Page timings should be aggregated by host")
+        .that(written)
+        .contains("example.com fetch 0m 5s 0ms, parse 0m 0s 10ms (2 pages)");
+    assertThat(written).contains("other.org fetch 0m 2s 0ms, parse 0m 0s 0ms (1 pages)");
+    assertWithMessage("Only the slowest URLs should be reported, slowest first")
+        .that(written.indexOf("http://EXAMPLE.com/b took"))
+        .isLessThan(written.indexOf("http://other.org/c took"));
+    assertThat(written).doesNotContain("http://example.com/a took");
+  }
+
+  @Test
+  public void testPageTimingsDisabledByDefault() throws Exception {
+    profiler.recordPage("http://example.com/a", Duration.ofSeconds(1), Duration.ofMillis(5));
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+
+    assertThat(writer.toString()).doesNotContain("example.com");
+  }
+
+  @Test
+  public void testFetchOutcomes() throws Exception {
+    profiler.recordFetch("http://example.com/a", FetchOutcome.OK, 1);
+    profiler.recordFetch("http://example.com/b", FetchOutcome.OK, 3);
+    profiler.recordFetch("http://example.com/c", FetchOutcome.TIMEOUT, 3);
+    profiler.recordFetch("http://other.org/d", FetchOutcome.CIRCUIT_OPEN, 0);
+    profiler.recordHedge("http://example.com/a", true);
+    profiler.recordHedge("http://example.com/b", false);
+    profiler.recordHedge("http://example.com/c", false);
+    profiler.recordHedge("http://example.com/d", false);
+    profiler.recordTimeout("http://example.com/c", Duration.ofMillis(300), true);
+    profiler.recordTimeout("http://example.com/c", Duration.ofMillis(700), false);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+
+    assertThat(written).contains("OK 2");
+    assertThat(written).contains("TIMEOUT 1");
+    assertThat(written).contains("4 retries over 2 fetches");
+    assertThat(written).contains("4 hedged fetches, 1 won by the hedge (25%)");
+    assertThat(written)
+        .contains("2 requests timed out after 500ms on average, 1 of them at an adaptive timeout");
+    assertWithMessage("Failed fetches should be counted by host")
+        .that(written)
+        .contains("example.com 1" + System.lineSeparator() + "other.org 1");
+  }
+
   /**
    * A test interface that does not have any {@link Profiled} methods.
    */